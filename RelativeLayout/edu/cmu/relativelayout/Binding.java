@@ -6,10 +6,6 @@
 package edu.cmu.relativelayout;
 
 import java.awt.Component;
-import java.awt.Container;
-
-import edu.cmu.relativelayout.equation.Equation;
-import edu.cmu.relativelayout.equation.Variable;
 
 /**
  * A Binding represents a dependency of some component's position on the position either of another component or of the
@@ -107,9 +103,7 @@ public class Binding implements Cloneable {
    * @param fixedComponent The component to which the floating component will be bound.
    */
   public Binding(Edge myEdge, int distance, Direction direction, Edge fixedEdge, Component fixedComponent) {
-    RelativePosition r = new RelativePosition(myEdge, distance, direction, fixedEdge);
-    this.relativePosition = r;
-    this.fixedComponent = fixedComponent;
+    this(myEdge, distance, direction, fixedEdge, (Object) fixedComponent);
   }
 
   /**
@@ -119,8 +113,34 @@ public class Binding implements Cloneable {
    * @param relativePosition
    */
   public Binding(RelativePosition relativePosition, Component fixedComponent) {
+    this(relativePosition, (Object) fixedComponent);
+  }
+
+  /**
+   * Constructs a Binding to a fixed node that is not a Component, for use with a {@link LayoutEngine}. Otherwise
+   * identical to {@link Binding#Binding(Edge, int, Direction, Edge, Component)}.
+   * 
+   * @param myEdge The edge of the "floating" node that is to be bound.
+   * @param distance The distance from the bound edge of the floating node to the fixed edge of the fixed node, in
+   *          pixels.
+   * @param direction The direction of a line drawn from the fixed node's edge to the floating node's edge.
+   * @param fixedEdge The edge of the fixed node to which <code>myEdge</code> of the floating node will be bound.
+   * @param fixedNode The node to which the floating node will be bound, or <code>null</code> for the root node.
+   */
+  public Binding(Edge myEdge, int distance, Direction direction, Edge fixedEdge, Object fixedNode) {
+    this(RelativePosition.valueOf(myEdge, distance, direction, fixedEdge), fixedNode);
+  }
+
+  /**
+   * Constructs a Binding given a {@link RelativePosition} and a fixed node that is not a Component, for use with a
+   * {@link LayoutEngine}.
+   * 
+   * @param relativePosition
+   * @param fixedNode The node to resolve the position against, or <code>null</code> for the root node.
+   */
+  public Binding(RelativePosition relativePosition, Object fixedNode) {
     this.relativePosition = relativePosition;
-    this.fixedComponent = fixedComponent;
+    this.fixedNode = fixedNode;
   }
 
   /**
@@ -128,20 +148,25 @@ public class Binding implements Cloneable {
    */
   @Override
   public Object clone() {
-    Binding ret = new Binding(this.relativePosition, this.fixedComponent);
-    if (this.component != null) {
-      ret.setComponent(this.component);
-    }
-    return ret;
+    return new Binding(this.relativePosition, this.fixedNode);
   }
 
   /**
    * Returns the fixed component for this Binding.
    * 
-   * @return the value of fixedComponent
+   * @return the value of fixedComponent, or <code>null</code> if the fixed node is not a Component
    */
   public Component getFixedComponent() {
-    return this.fixedComponent;
+    return (this.fixedNode instanceof Component ? (Component) this.fixedNode : null);
+  }
+
+  /**
+   * Returns the fixed node for this Binding, which may or may not be a Component.
+   * 
+   * @return the value of fixedNode
+   */
+  public Object getFixedNode() {
+    return this.fixedNode;
   }
 
   /**
@@ -167,14 +192,17 @@ public class Binding implements Cloneable {
   }
 
   /**
-   * Sets the fixed component associated with this Binding. Since Bindings are copied when they are added to a
-   * {@link RelativeConstraints} object, you can change the fixed component of a Binding after adding it to a
+   * Sets the fixed component associated with this Binding. A {@link RelativeConstraints} object remembers the fixed
+   * component a Binding had when it was added, so you can change the fixed component of a Binding after adding it to a
    * {@link RelativeConstraints} object and reuse the Binding that way.
    * 
    * @param aFixedComponent The new fixed component.
+   * @deprecated Bindings are meant to be used as immutable templates that any number of constraints can refer to;
+   *             construct a new Binding instead.
    */
+  @Deprecated
   public void setFixedComponent(Component aFixedComponent) {
-    this.fixedComponent = aFixedComponent;
+    this.fixedNode = aFixedComponent;
   }
 
   /**
@@ -182,213 +210,49 @@ public class Binding implements Cloneable {
    */
   @Override
   public String toString() {
-    // We don't call toString on the component, because Swing components tend to have very chatty toString() methods
-    // which would make it difficult to read the output. Instead we synthesize Object's toString() method, which just
-    // returns the memory address of the object (also known as its hashCode).
-    String componentName =
-        (this.component != null ? this.component.getClass().getName() + "@"
-            + String.format("0x%h", this.component.hashCode()) : "(undefined)");
-    String fixedComponentName =
-        (this.fixedComponent != null ? this.fixedComponent.getClass().getName() + "@"
-            + String.format("0x%h", this.fixedComponent.hashCode()) : "(undefined)");
-    String ret =
-        this.relativePosition.getMyEdge() + " edge of " + componentName + " is " + this.relativePosition.getDistance()
-            + " pixels " + this.relativePosition.getDirection() + " of " + this.relativePosition.getFixedEdge()
-            + " edge of " + fixedComponentName;
-    return ret;
-  }
-
-  /**
-   * 
-   * @return
-   */
-  Component getComponent() {
-    return this.component;
-  }
-
-  /**
-   * Returns the Equation for this Binding.
-   */
-  Equation getEquation() {
-    return this.equation;
-  }
-
-  /**
-   * Returns the primary Variable for this Binding.
-   */
-  Variable getPrimaryVariable() {
-    return RelativeVariable.get(this.component, variableTypeForEdge(this.relativePosition.getMyEdge()));
-  }
-
-  /**
-   * Returns true if this Binding's equation involves a dimensional variable, whether or not that variable is the
-   * primary variable for this Binding.
-   * 
-   * @return true if this Binding has a dimensional variable, false otherwise
-   */
-  boolean hasDimensionalVariable() {
-    return (this.relativePosition.getMyEdge() != Edge.LEFT && this.relativePosition.getMyEdge() != Edge.TOP);
-  }
-
-  boolean isHorizontal() {
-    return (this.relativePosition.getDirection() == Direction.LEFT || this.relativePosition.getDirection() == Direction.RIGHT);
-  }
-
-  /**
-   * Sets the "floating" component for this Binding. This sets up the equation.
-   * 
-   * @param component
-   */
-  void setComponent(Component component) {
-    this.component = component;
-    if (this.fixedComponent == null) {
-      this.fixedComponent = this.component.getParent();
-    }
-    // Special case: they set the fixed object to an ancestor instead of the parent component, like setting it to a
-    // frame instead of the frame's content pane:
-    if (this.fixedComponent instanceof Container && ((Container) this.fixedComponent).isAncestorOf(this.component)) {
-      this.fixedComponent = this.component.getParent();
-    }
-    this.setupEquation();
-  }
-
-  /**
-   * Sets whether this Binding uses a dimensional variable. See usesDimensionalVariable() for more info about what this
-   * means.
-   * 
-   * @param flag true if this Binding should use a dimensional variable, false otherwise.
-   */
-  void setUsesDimensionalVariable(boolean flag) {
-    this.usesDimensionalVariable = flag;
+    return describe(null, this.fixedNode);
   }
 
   /**
-   * Returns true if this Binding is using a dimensional variable. The Binding is using a dimensional variable if the
-   * equation for this Binding defines either the width or height (as opposed to x or y) of a component.
+   * Returns a human-readable description of this Binding as it applies to the given nodes.
    * 
-   * @return <code>true</code> if the Binding is using a dimensional variable, <code>false</code> otherwise.
-   */
-  boolean usesDimensionalVariable() {
-    return this.usesDimensionalVariable;
-  }
-
-  /**
-   * Sets up the equation for this Binding, after which it can be retrieved using getEquation().
+   * @param theNode The floating node, or <code>null</code> if there isn't one yet.
+   * @param theFixedNode The fixed node.
    */
-  private void setupEquation() {
-    // Let's say we've got "my right side is ten pixels to the left of B's left side."
-    // We want to represent that as Ax + Aw = Bx - 10, which is Ax + Aw - Bx = -10
-    this.equation = new ConcreteEquation();
-
-    Edge myEdge = this.relativePosition.getMyEdge();
-    Edge fixedEdge = this.relativePosition.getFixedEdge();
-
-    // Determine what variable we're specifying:
-    VariableType myType = variableTypeForEdge(myEdge);
-
-    this.equation.setCoefficient(1, RelativeVariable.get(this.component, myType));
-
-    // Now we have Ax = 0;
-
-    // If we're not working with top or left, we need to also specify width or height:
-    if (myEdge == Edge.RIGHT) {
-      this.equation.setCoefficient(1, RelativeVariable.get(this.component, VariableType.WIDTH));
-    }
-    if (myEdge == Edge.BOTTOM) {
-      this.equation.setCoefficient(1, RelativeVariable.get(this.component, VariableType.HEIGHT));
-    }
-    if (myEdge == Edge.VERTICAL_CENTER) {
-      this.equation.setCoefficient(0.5, RelativeVariable.get(this.component, VariableType.HEIGHT));
-    }
-    if (myEdge == Edge.HORIZONTAL_CENTER) {
-      this.equation.setCoefficient(0.5, RelativeVariable.get(this.component, VariableType.WIDTH));
-    }
-
-    // So now we have Ax + Aw = 0.
-
-    VariableType theirType = variableTypeForEdge(this.relativePosition.getFixedEdge());
-
-    this.equation.setCoefficient(-1, RelativeVariable.get(this.fixedComponent, theirType));
-    // If we're not working with top or left, we need to also specify width or height:
-    if (fixedEdge == Edge.RIGHT) {
-      this.equation.setCoefficient(-1, RelativeVariable.get(this.fixedComponent, VariableType.WIDTH));
-    }
-    if (fixedEdge == Edge.BOTTOM) {
-      this.equation.setCoefficient(-1, RelativeVariable.get(this.fixedComponent, VariableType.HEIGHT));
-    }
-    if (fixedEdge == Edge.VERTICAL_CENTER) {
-      this.equation.setCoefficient(-0.5, RelativeVariable.get(this.fixedComponent, VariableType.HEIGHT));
-    }
-    if (fixedEdge == Edge.HORIZONTAL_CENTER) {
-      this.equation.setCoefficient(-0.5, RelativeVariable.get(this.fixedComponent, VariableType.WIDTH));
-    }
-
-    // So now we have Ax + Aw - Bx = 0.
-
-    if (this.relativePosition.getDirection() == Direction.RIGHT
-        || this.relativePosition.getDirection() == Direction.BELOW) {
-      this.equation.setRightHandSide(this.relativePosition.getDistance());
-    } else {
-      this.equation.setRightHandSide(0 - this.relativePosition.getDistance());
-    }
-
-    // So now we have Ax + Aw - Bx = -10. QED.
+  String describe(Object theNode, Object theFixedNode) {
+    String componentName = Binding.nameOf(theNode);
+    String fixedComponentName = Binding.nameOf(theFixedNode);
+    String ret =
+        this.relativePosition.getMyEdge() + " edge of " + componentName + " is " + this.relativePosition.getDistance()
+            + " pixels " + this.relativePosition.getDirection() + " of " + this.relativePosition.getFixedEdge()
+            + " edge of " + fixedComponentName;
+    return ret;
   }
 
   /**
-   * Returns the {@link VariableType} associated with a particular {@link Edge}, given the current state of this
-   * Binding (i.e., whether it uses a dimensional variable).
-   * 
-   * @param theEdge The edge to get a VariableType for.
-   * @return The VariableType for the given Edge.
+   * Returns a short name for the given node for use in toString(). We don't call toString on components, because Swing
+   * components tend to have very chatty toString() methods which would make it difficult to read the output. Instead we
+   * synthesize Object's toString() method, which just returns the memory address of the object (also known as its
+   * hashCode). Other kinds of node are usually simple objects whose toString() is more useful.
    */
-  private VariableType variableTypeForEdge(Edge theEdge) {
-    VariableType theType = null;
-    if (theEdge == Edge.LEFT) {
-      theType = VariableType.X;
-    } else if (theEdge == Edge.TOP) {
-      theType = VariableType.Y;
-    } else if (theEdge == Edge.RIGHT || theEdge == Edge.HORIZONTAL_CENTER) {
-      theType = this.usesDimensionalVariable() ? VariableType.WIDTH : VariableType.X;
-    } else if (theEdge == Edge.BOTTOM || theEdge == Edge.VERTICAL_CENTER) {
-      theType = this.usesDimensionalVariable() ? VariableType.HEIGHT : VariableType.Y;
+  static String nameOf(Object theNode) {
+    if (theNode == null) {
+      return "(undefined)";
+    } else if (theNode instanceof Component) {
+      return theNode.getClass().getName() + "@" + String.format("0x%h", theNode.hashCode());
     } else {
-      // We hit some other enum constant we didn't know about...?
-      assert false;
+      return String.valueOf(theNode);
     }
-    return theType;
   }
 
-  /**
-   * The equation associated with this Binding. Will be null until setupEquation() is called.
-   */
-  private ConcreteEquation equation;
-
   /**
    * The {@link RelativePosition} object associated with this Binding.
    */
-  private RelativePosition relativePosition;
-
-  /**
-   * The fixed component for this Binding. This will be null until set using setFixedComponent() (which happens when the
-   * Binding is added to a constraint).
-   */
-  private Component fixedComponent;
-
-  /**
-   * The component object for this Binding. This will be null until the Binding is added to a constraint and the
-   * constraint is added to a layout.
-   */
-  private Component component;
+  private final RelativePosition relativePosition;
 
   /**
-   * Indicates whether this Binding should use width/height instead of x/y as its "primary" variable. The ramifications
-   * of this have to do with the matrix, since each variable is defined by one and only one equation. If we know
-   * something about a component's X or Y values, we want the equation that tells us that to define the X or Y value,
-   * even if that equation also involves the component's width or height. If, however, we get another equation that also
-   * involves the component's X or Y but doesn't involve its width or height, we "demote" one of the equations to
-   * specifying the width or height of the component instead of its X/Y position. This field determines whether this
-   * Binding has been demoted in this way.
+   * The fixed node for this Binding, usually a component. If this is null when the Binding is added to a layout, it is
+   * set to the parent of the floating node.
    */
-  private boolean usesDimensionalVariable;
+  private Object fixedNode;
 }
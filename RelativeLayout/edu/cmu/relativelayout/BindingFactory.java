@@ -9,7 +9,10 @@ import java.awt.Component;
 /**
  * A factory for quickly creating Bindings to lay out simple interfaces. When you create a BindingFactory, you can set
  * top, left, bottom, and right margins, as well as horizontal and vertical spacing for controls. When you subsequently
- * ask the BindingFactory for Bindings, it uses this information to generate them.
+ * ask the BindingFactory for Bindings, it uses this information to generate them.<br>
+ * <br>
+ * Every Binding returned is a new instance, but Bindings with the same margin or spacing share one
+ * {@link RelativePosition}.
  * 
  * @author Brian Ellis (phoenix1701@gmail.com)
  * 
@@ -0,0 +1,37 @@
+/**
+ * ComponentRecycler.java<br>
+ * Contains interface ComponentRecycler.
+ */
+package edu.cmu.relativelayout;
+
+import java.awt.Component;
+
+/**
+ * The callback interface through which a virtualized {@link RelativeLayout} tells an application which components are
+ * near the visible part of a scrolling container and which have scrolled well out of view. An application with
+ * thousands of rows can use it to give components their expensive content (images, rich text, and so on) only while
+ * they are near the viewport, and to release or reuse that content once they are not. Both methods are called on the
+ * event dispatch thread, during layout or scrolling, so they should return quickly and must not change the layout's
+ * constraints.
+ * 
+ * @see RelativeLayout#setVirtualized(boolean)
+ * @see RelativeLayout#setComponentRecycler(ComponentRecycler)
+ */
+public interface ComponentRecycler {
+
+  /**
+   * Called when a component comes within the virtualization margin of the visible part of the container, including
+   * when it is first laid out there.
+   * 
+   * @param theComponent The component.
+   */
+  public void componentRealized(Component theComponent);
+
+  /**
+   * Called when a component that was realized moves further than the virtualization margin from the visible part of
+   * the container. It will be realized again if it comes back into range.
+   * 
+   * @param theComponent The component.
+   */
+  public void componentRecycled(Component theComponent);
+}
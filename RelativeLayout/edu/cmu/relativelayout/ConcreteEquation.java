@@ -65,9 +65,20 @@ class ConcreteEquation implements Equation {
     this.rightHandSide = rhs;
   }
 
+  /**
+   * Sets the Binding this equation was generated from, so that it can be mentioned in error messages.
+   */
+  void setBinding(ResolvedBinding theBinding) {
+    this.binding = theBinding;
+  }
+
   @Override
   public String toString() {
     String ret = "";
+    if (this.binding != null) {
+      ret += "the binding \"" + this.binding + "\" (";
+    }
+
     Iterator<Variable> iter = this.getVariables().iterator();
 
     while (iter.hasNext()) {
@@ -79,10 +90,18 @@ class ConcreteEquation implements Equation {
     }
 
     ret += " = " + this.getRightHandSide();
+    if (this.binding != null) {
+      ret += ")";
+    }
 
     return ret;
   }
 
+  /**
+   * The Binding this equation was generated from, or null if it wasn't generated from one.
+   */
+  private ResolvedBinding binding;
+
   /**
    * Stores the equation's rhs.
    */
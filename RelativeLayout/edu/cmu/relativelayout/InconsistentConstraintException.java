@@ -29,6 +29,17 @@ public class InconsistentConstraintException extends RuntimeException {
     this.otherBinding = anotherBinding;
   }
 
+  /**
+   * Constructor for InconsistentConstraintException, given two Bindings as resolved for the node they position.
+   * 
+   * @param aBinding
+   * @param anotherBinding
+   */
+  InconsistentConstraintException(ResolvedBinding aBinding, ResolvedBinding anotherBinding) {
+    this.binding = aBinding;
+    this.otherBinding = anotherBinding;
+  }
+
   /**
    * @see java.lang.Throwable#getMessage()
    */
@@ -38,6 +49,6 @@ public class InconsistentConstraintException extends RuntimeException {
         + "\", which had already been added to this constraint.";
   }
 
-  private Binding binding;
-  private Binding otherBinding;
+  private Object binding;
+  private Object otherBinding;
 }
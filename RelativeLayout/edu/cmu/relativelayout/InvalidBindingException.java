@@ -27,10 +27,19 @@ public class InvalidBindingException extends RuntimeException {
     this.binding = binding;
   }
 
+  /**
+   * Constructor for InvalidBindingException, given a Binding as resolved for the node it positions.
+   * 
+   * @param binding
+   */
+  InvalidBindingException(ResolvedBinding binding) {
+    this.binding = binding;
+  }
+
   @Override
   public String getMessage() {
     return "The binding \"" + this.binding + "\" is not physically possible.";
   }
 
-  private Binding binding;
+  private Object binding;
 }
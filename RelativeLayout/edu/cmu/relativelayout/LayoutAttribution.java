@@ -0,0 +1,325 @@
+/**
+ * LayoutAttribution.java<br>
+ * Contains class LayoutAttribution.
+ */
+package edu.cmu.relativelayout;
+
+import java.awt.Component;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Running totals of how much of the time spent laying out one {@link RelativeLayout} is due to each of its components,
+ * for finding out which components make a slow layout slow. Collected only while attribution is turned on with
+ * {@link RelativeLayout#setAttributionEnabled(boolean)}, since timing every component separately costs more than timing
+ * each phase of a pass as a whole. Each component is charged with:
+ * <ul>
+ * <li>the time its <code>getPreferredSize()</code> took,</li>
+ * <li>the time its <code>setBounds()</code> took, including anything that overriding methods or listeners did in
+ * response,</li>
+ * <li>a share of the time spent solving, if its Bindings couple it to other components: solve time is split evenly
+ * among the components whose variables are in strongly connected blocks of more than one variable, since those are the
+ * blocks that need a matrix decomposition, while the rest are solved by simple substitution.</li>
+ * </ul>
+ * The size of the largest such block each component belongs to is reported as well (see
+ * {@link LayoutEngine#getCoupledBlockSize(Object)}). Components are held weakly, so removing them from the container
+ * lets them be garbage collected as usual, along with their totals.<br>
+ * <br>
+ * {@link #printReport(PrintStream, int)} prints the most expensive components first:
+ *
+ * <pre>
+ * layout.setAttributionEnabled(true);
+ * ...
+ * layout.getAttribution().printReport(System.out, 20);
+ * </pre>
+ */
+public final class LayoutAttribution {
+
+  /**
+   * The costs charged to one component, as of when they were asked for.
+   */
+  public static final class ComponentCost {
+
+    /**
+     * Constructor for ComponentCost.
+     */
+    ComponentCost(Component theComponent, long[] theTotals) {
+      this.component = theComponent;
+      this.passes = theTotals[LayoutAttribution.PASSES];
+      this.preferredSizeNanos = theTotals[LayoutAttribution.PREFERRED_SIZE];
+      this.setBoundsNanos = theTotals[LayoutAttribution.SET_BOUNDS];
+      this.solveNanos = theTotals[LayoutAttribution.SOLVE];
+      this.blockSize = (int) theTotals[LayoutAttribution.BLOCK_SIZE];
+    }
+
+    /**
+     * Returns the number of variables in the largest strongly connected block the component belonged to in the last
+     * pass, or 0 if it hasn't been laid out by a successful pass.
+     */
+    public int getBlockSize() {
+      return this.blockSize;
+    }
+
+    /**
+     * Returns the component.
+     */
+    public Component getComponent() {
+      return this.component;
+    }
+
+    /**
+     * Returns the number of successful passes that laid out the component.
+     */
+    public long getPasses() {
+      return this.passes;
+    }
+
+    /**
+     * Returns the total time spent asking the component for its preferred size, in nanoseconds.
+     */
+    public long getPreferredSizeNanos() {
+      return this.preferredSizeNanos;
+    }
+
+    /**
+     * Returns the total time spent setting the component's bounds, in nanoseconds.
+     */
+    public long getSetBoundsNanos() {
+      return this.setBoundsNanos;
+    }
+
+    /**
+     * Returns the component's total share of the time spent solving, in nanoseconds.
+     */
+    public long getSolveNanos() {
+      return this.solveNanos;
+    }
+
+    /**
+     * Returns the total time charged to the component, in nanoseconds.
+     */
+    public long getTotalNanos() {
+      return this.preferredSizeNanos + this.setBoundsNanos + this.solveNanos;
+    }
+
+    @Override
+    public String toString() {
+      return "ComponentCost[component=" + LayoutAttribution.describe(this.component) + ", passes=" + this.passes
+          + ", preferredSizeNanos=" + this.preferredSizeNanos + ", setBoundsNanos=" + this.setBoundsNanos
+          + ", solveNanos=" + this.solveNanos + ", blockSize=" + this.blockSize + "]";
+    }
+
+    /**
+     * The component.
+     */
+    private final Component component;
+
+    /**
+     * The number of passes.
+     */
+    private final long passes;
+
+    /**
+     * The time spent in getPreferredSize().
+     */
+    private final long preferredSizeNanos;
+
+    /**
+     * The time spent in setBounds().
+     */
+    private final long setBoundsNanos;
+
+    /**
+     * The share of solve time.
+     */
+    private final long solveNanos;
+
+    /**
+     * The size of the component's largest block.
+     */
+    private final int blockSize;
+  }
+
+  /**
+   * The index of the pass count in a component's totals.
+   */
+  private static final int PASSES = 0;
+
+  /**
+   * The index of the preferred size time in a component's totals.
+   */
+  private static final int PREFERRED_SIZE = 1;
+
+  /**
+   * The index of the setBounds time in a component's totals.
+   */
+  private static final int SET_BOUNDS = 2;
+
+  /**
+   * The index of the solve time in a component's totals.
+   */
+  private static final int SOLVE = 3;
+
+  /**
+   * The index of the block size in a component's totals.
+   */
+  private static final int BLOCK_SIZE = 4;
+
+  /**
+   * Constructs an empty LayoutAttribution.
+   */
+  LayoutAttribution() {
+    // Nothing to do.
+  }
+
+  /**
+   * Returns the costs charged to every component that is still around, most expensive first.
+   *
+   * @return A new list of the costs.
+   */
+  public synchronized List<ComponentCost> getCosts() {
+    List<ComponentCost> ret = new ArrayList<ComponentCost>(this.totals.size());
+    for (Map.Entry<Component, long[]> entry : this.totals.entrySet()) {
+      ret.add(new ComponentCost(entry.getKey(), entry.getValue()));
+    }
+    Collections.sort(ret, new Comparator<ComponentCost>() {
+      public int compare(ComponentCost theFirst, ComponentCost theSecond) {
+        int order = Long.compare(theSecond.getTotalNanos(), theFirst.getTotalNanos());
+        return (order != 0 ? order : theSecond.getBlockSize() - theFirst.getBlockSize());
+      }
+    });
+    return ret;
+  }
+
+  /**
+   * Returns the number of successful passes attributed.
+   */
+  public synchronized long getPassCount() {
+    return this.passCount;
+  }
+
+  /**
+   * Returns the total time spent solving in the passes attributed, in nanoseconds, whether or not it was charged to any
+   * component.
+   */
+  public synchronized long getSolveNanos() {
+    return this.solveNanos;
+  }
+
+  /**
+   * Prints a table of the most expensive components, with the time charged to each for preferred sizes, setting bounds,
+   * and solving, in milliseconds, and the size of the largest block each belongs to.
+   *
+   * @param theStream The stream to print to.
+   * @param theLimit The largest number of components to list.
+   */
+  public void printReport(PrintStream theStream, int theLimit) {
+    List<ComponentCost> costs = getCosts();
+    theStream.println("Layout cost by component over " + getPassCount() + " passes (" + costs.size()
+        + " components, " + String.format("%.3f", getSolveNanos() / 1e6) + " ms solving):");
+    theStream.println(String.format("%4s %10s %10s %10s %10s %6s  %s", "#", "total ms", "pref ms", "bounds ms",
+        "solve ms", "block", "component"));
+    for (int i = 0; i < costs.size() && i < theLimit; i++) {
+      ComponentCost cost = costs.get(i);
+      theStream.println(String.format("%4d %10.3f %10.3f %10.3f %10.3f %6d  %s", i + 1, cost.getTotalNanos() / 1e6,
+          cost.getPreferredSizeNanos() / 1e6, cost.getSetBoundsNanos() / 1e6, cost.getSolveNanos() / 1e6,
+          cost.getBlockSize(), LayoutAttribution.describe(cost.getComponent())));
+    }
+  }
+
+  /**
+   * Forgets everything charged so far.
+   */
+  public synchronized void reset() {
+    this.totals.clear();
+    this.passCount = 0;
+    this.solveNanos = 0;
+  }
+
+  @Override
+  public String toString() {
+    return "LayoutAttribution[passes=" + getPassCount() + ", solveNanos=" + getSolveNanos() + "]";
+  }
+
+  /**
+   * Charges the time a component's getPreferredSize() took to it.
+   */
+  synchronized void addPreferredSize(Component theComponent, long nanos) {
+    totalsFor(theComponent)[LayoutAttribution.PREFERRED_SIZE] += nanos;
+  }
+
+  /**
+   * Charges the time a component's setBounds() took to it.
+   */
+  synchronized void addSetBounds(Component theComponent, long nanos) {
+    totalsFor(theComponent)[LayoutAttribution.SET_BOUNDS] += nanos;
+  }
+
+  /**
+   * Records a successful pass, splitting its solve time among the components in blocks of more than one variable.
+   *
+   * @param theComponents The components laid out.
+   * @param theBlockSizes The size of the largest block each component belongs to.
+   * @param count The number of components.
+   * @param theSolveNanos The time spent solving.
+   */
+  synchronized void addPass(Component[] theComponents, int[] theBlockSizes, int count, long theSolveNanos) {
+    this.passCount++;
+    this.solveNanos += theSolveNanos;
+
+    int coupled = 0;
+    for (int i = 0; i < count; i++) {
+      if (theBlockSizes[i] > 1) {
+        coupled++;
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      long[] componentTotals = totalsFor(theComponents[i]);
+      componentTotals[LayoutAttribution.PASSES]++;
+      componentTotals[LayoutAttribution.BLOCK_SIZE] = theBlockSizes[i];
+      if (theBlockSizes[i] > 1) {
+        componentTotals[LayoutAttribution.SOLVE] += theSolveNanos / coupled;
+      }
+    }
+  }
+
+  /**
+   * Returns the totals of the given component, creating them if necessary.
+   */
+  private long[] totalsFor(Component theComponent) {
+    long[] ret = this.totals.get(theComponent);
+    if (ret == null) {
+      ret = new long[5];
+      this.totals.put(theComponent, ret);
+    }
+    return ret;
+  }
+
+  /**
+   * Returns a short description of a component for a report: its class, and its name if it has one.
+   */
+  private static String describe(Component theComponent) {
+    String name = theComponent.getName();
+    return theComponent.getClass().getName() + (name != null ? " \"" + name + "\"" : "");
+  }
+
+  /**
+   * The totals of each component, indexed by PASSES, PREFERRED_SIZE, SET_BOUNDS, SOLVE, and BLOCK_SIZE.
+   */
+  private final Map<Component, long[]> totals = new WeakHashMap<Component, long[]>();
+
+  /**
+   * The number of passes attributed.
+   */
+  private long passCount;
+
+  /**
+   * The time spent solving in those passes.
+   */
+  private long solveNanos;
+}
@@ -0,0 +1,1391 @@
+/**
+ * LayoutEngine.java<br>
+ * Contains class LayoutEngine.
+ */
+package edu.cmu.relativelayout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.cmu.relativelayout.equation.Equation;
+import edu.cmu.relativelayout.equation.Variable;
+import edu.cmu.relativelayout.matrix.LayoutSolver;
+import edu.cmu.relativelayout.matrix.RelativeMatrix;
+
+/**
+ * The headless core of RelativeLayout. A LayoutEngine lays out arbitrary objects, called nodes, inside a root node
+ * using exactly the same {@link Binding}s and {@link RelativeConstraints} as {@link RelativeLayout}, but without
+ * depending on AWT: instead of asking components for their preferred sizes, you tell the engine what each node's
+ * preferred size is, and instead of setting the bounds of components, the engine returns the bounds of every node in a
+ * primitive array. This makes it possible to reuse constraint definitions to lay out things like report or PDF pages
+ * on a server. For example, to put a caption 12 pixels below a picture on a 600x800 page:
+ *
+ * <pre>
+ * LayoutEngine page = new LayoutEngine(&quot;page&quot;);
+ *
+ * page.add(&quot;picture&quot;, new RelativeConstraints(
+ *     new Binding(Edge.LEFT, 36, Direction.RIGHT, Edge.LEFT, Binding.PARENT),
+ *     new Binding(Edge.TOP, 36, Direction.BELOW, Edge.TOP, Binding.PARENT)));
+ * page.add(&quot;caption&quot;, new RelativeConstraints(
+ *     new Binding(Edge.LEFT, 0, Direction.RIGHT, Edge.LEFT, &quot;picture&quot;),
+ *     new Binding(Edge.TOP, 12, Direction.BELOW, Edge.BOTTOM, &quot;picture&quot;)));
+ *
+ * page.setPreferredSize(&quot;picture&quot;, 320, 240);
+ * page.setPreferredSize(&quot;caption&quot;, 320, 14);
+ *
+ * int[] bounds = page.layout(600, 800);
+ * // bounds[4 * page.indexOf(&quot;caption&quot;) + 1] is now 36 + 240 + 12 = 288.
+ * </pre>
+ *
+ * Nodes are identified by their <code>equals()</code> and <code>hashCode()</code> methods, and are numbered in the
+ * order they were added; the bounds of node <em>i</em> are stored as x, y, width, and height at indices 4<em>i</em>
+ * through 4<em>i</em> + 3 of the arrays the engine returns. Bindings to {@link Binding#PARENT} refer to the root node.
+ * <br>
+ * <br>
+ * A LayoutEngine is not thread-safe, but the {@link Snapshot}s it creates are: a snapshot can be taken on one thread
+ * and solved on another while the engine carries on being modified.<br>
+ * <br>
+ * An engine can remember the solutions to its most recent layouts (see {@link #setCacheSize(int)}), so that laying out
+ * again at a root size it has seen before, with the same nodes, constraints, and preferred sizes, skips the solver
+ * entirely. This is off by default.<br>
+ * <br>
+ * An engine can also be given a {@link LayoutPlanCache}, in which case it compiles each new structure of nodes and
+ * constraints into a plan that gives every node's bounds directly in terms of the root size and the preferred sizes,
+ * and keeps the plan on disk so that the same layout needs no solving at all the next time the application starts.
+ *
+ * @see RelativeLayout
+ */
+public class LayoutEngine {
+
+  /**
+   * An immutable copy of a LayoutEngine's equations and preferred sizes at a particular root size, which can be solved
+   * on any thread.
+   */
+  public static final class Snapshot {
+
+    /**
+     * Constructor for Snapshot.
+     */
+    private Snapshot(LayoutEngine theEngine, SolutionKey theKey, Object[] theNodes, Variable[] theVariables,
+                     RelativeMatrix theMatrix, double[] theSolution, long theBuildNanos) {
+      this.engine = theEngine;
+      this.key = theKey;
+      this.nodes = theNodes;
+      this.variables = theVariables;
+      this.matrix = theMatrix;
+      this.cachedSolution = theSolution;
+      this.buildNanos = theBuildNanos;
+      this.structure = null;
+      this.preferredSizes = null;
+    }
+
+    /**
+     * Constructor for a Snapshot that is solved by a compiled plan rather than a matrix.
+     */
+    private Snapshot(LayoutEngine theEngine, SolutionKey theKey, Object[] theNodes, LayoutPlan.Structure theStructure,
+                     int[] thePreferredSizes, long theBuildNanos) {
+      this.engine = theEngine;
+      this.key = theKey;
+      this.nodes = theNodes;
+      this.variables = null;
+      this.matrix = null;
+      this.cachedSolution = null;
+      this.buildNanos = theBuildNanos;
+      this.structure = theStructure;
+      this.preferredSizes = thePreferredSizes;
+    }
+
+    /**
+     * Returns the number of nanoseconds it took to build this snapshot's matrix, or its structure if it is solved by a
+     * compiled plan, or 0 if its solution was cached.
+     */
+    public long getBuildNanos() {
+      return this.buildNanos;
+    }
+
+    /**
+     * Returns the number of nodes in this snapshot.
+     */
+    public int getNodeCount() {
+      return this.nodes.length;
+    }
+
+    /**
+     * Returns the node at the given index, as it was numbered when the snapshot was taken.
+     */
+    public Object getNode(int index) {
+      return this.nodes[index];
+    }
+
+    /**
+     * Returns the number of nanoseconds it took to solve this snapshot's matrix, or 0 if it hasn't been solved or its
+     * solution was cached.
+     */
+    public long getSolveNanos() {
+      return this.solveNanos;
+    }
+
+    /**
+     * Returns the number of variables in this snapshot's matrix: four for each node, and four for the root.
+     */
+    public int getVariableCount() {
+      return (this.nodes.length + 1) * 4;
+    }
+
+    /**
+     * Returns <code>true</code> if this snapshot's solution was found in the engine's cache, in which case solving it
+     * costs next to nothing.
+     */
+    public boolean isCached() {
+      return this.cachedSolution != null;
+    }
+
+    /**
+     * Solves this snapshot and returns the exact bounds of every node, four entries per node.
+     *
+     * @return An array holding the x, y, width, and height of each node in turn.
+     * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException if the constraints do not describe exactly one
+     *           layout.
+     */
+    public double[] solve() {
+      if (this.cachedSolution != null) {
+        return this.cachedSolution.clone();
+      }
+      if (this.structure != null) {
+        return solveByPlan();
+      }
+
+      long start = System.nanoTime();
+      LayoutPhase event = LayoutPhases.solve();
+      event.begin();
+      Map<Variable, Double> solutions = this.matrix.solve();
+      event.end();
+      this.solveNanos = System.nanoTime() - start;
+      if (event.shouldCommit()) {
+        event.describe(this.engine.getRoot(), this.nodes.length);
+        event.describe(this.matrix);
+        event.commit();
+      }
+
+      double[] bounds = new double[this.variables.length];
+      for (int i = 0; i < this.variables.length; i++) {
+        Double value = solutions.get(this.variables[i]);
+        bounds[i] = (value != null ? value.doubleValue() : 0.0);
+      }
+      this.engine.storeSolution(this.key, bounds);
+      return bounds;
+    }
+
+    /**
+     * Solves this snapshot with the plan for its structure, compiling the plan first if there isn't one yet.
+     */
+    private double[] solveByPlan() {
+      long start = System.nanoTime();
+      LayoutPhase event = LayoutPhases.solve();
+      event.begin();
+      LayoutPlan plan = this.engine.planFor(this.structure);
+      double[] bounds = plan.evaluate(this.key.width, this.key.height, this.preferredSizes);
+      event.end();
+      this.solveNanos = System.nanoTime() - start;
+      if (event.shouldCommit()) {
+        event.describe(this.engine.getRoot(), this.nodes.length);
+        event.describe(plan);
+        event.commit();
+      }
+
+      this.engine.storeSolution(this.key, bounds);
+      return bounds;
+    }
+
+    /**
+     * The number of nanoseconds it took to build the matrix.
+     */
+    private final long buildNanos;
+
+    /**
+     * The number of nanoseconds it took to solve the matrix, once it has been solved.
+     */
+    private volatile long solveNanos;
+
+    /**
+     * The number of nanoseconds RelativeLayout spent asking components for their preferred sizes before taking this
+     * snapshot, for its statistics.
+     */
+    long preferredSizeNanos;
+
+    /**
+     * The engine this snapshot was taken from.
+     */
+    private final LayoutEngine engine;
+
+    /**
+     * The key under which this snapshot's solution is cached.
+     */
+    private final SolutionKey key;
+
+    /**
+     * The solution found in the engine's cache when this snapshot was taken, or null if there was none.
+     */
+    private final double[] cachedSolution;
+
+    /**
+     * The nodes in this snapshot.
+     */
+    private final Object[] nodes;
+
+    /**
+     * The x, y, width, and height variables of each node, in the same order as the bounds returned by solve().
+     */
+    private final Variable[] variables;
+
+    /**
+     * The matrix holding the equations and preferred sizes, or null if the solution was cached or is computed by a
+     * compiled plan.
+     */
+    private final RelativeMatrix matrix;
+
+    /**
+     * The structure of the equations, if they are solved by a compiled plan, or null otherwise.
+     */
+    private final LayoutPlan.Structure structure;
+
+    /**
+     * The preferred width and height of each node in turn, if the equations are solved by a compiled plan.
+     */
+    private final int[] preferredSizes;
+  }
+
+  /**
+   * Identifies a solution in the cache: the size of the root, and the versions of the engine's structure and preferred
+   * sizes at the time the solution was computed.
+   */
+  private static final class SolutionKey {
+
+    /**
+     * Constructor for SolutionKey.
+     */
+    SolutionKey(int theWidth, int theHeight, long theStructureVersion, long theSizeVersion) {
+      this.width = theWidth;
+      this.height = theHeight;
+      this.structureVersion = theStructureVersion;
+      this.sizeVersion = theSizeVersion;
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object theObj) {
+      if (!(theObj instanceof SolutionKey)) {
+        return false;
+      }
+      SolutionKey other = (SolutionKey) theObj;
+      return this.width == other.width && this.height == other.height
+          && this.structureVersion == other.structureVersion && this.sizeVersion == other.sizeVersion;
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+      int result = this.width;
+      result = 31 * result + this.height;
+      result = 31 * result + (int) (this.structureVersion ^ (this.structureVersion >>> 32));
+      result = 31 * result + (int) (this.sizeVersion ^ (this.sizeVersion >>> 32));
+      return result;
+    }
+
+    private final int width;
+    private final int height;
+    private final long structureVersion;
+    private final long sizeVersion;
+  }
+
+  /**
+   * The order in which each node's variables appear in bounds arrays.
+   */
+  private static final VariableType[] BOUNDS_ORDER =
+      { VariableType.X, VariableType.Y, VariableType.WIDTH, VariableType.HEIGHT };
+
+  /**
+   * Constructs a LayoutEngine that lays out nodes inside the given root node.
+   *
+   * @param theRoot The node containing all the others. Bindings to {@link Binding#PARENT} refer to this node.
+   */
+  public LayoutEngine(Object theRoot) {
+    if (theRoot == null) {
+      throw new IllegalArgumentException("A LayoutEngine needs a root node.");
+    }
+    this.root = theRoot;
+    this.rootVariables = LayoutEngine.variablesFor(theRoot);
+  }
+
+  /**
+   * Adds a node to be laid out according to the given constraints. Its preferred size is initially zero; see
+   * {@link #setPreferredSize(Object, int, int)}. If the node has already been added, its constraints are replaced.
+   *
+   * @param theNode The node to add.
+   * @param theConstraints The constraints describing where the node goes.
+   * @throws InconsistentConstraintException if any two Bindings in the constraints contradict each other.
+   * @throws InvalidBindingException if any of the Bindings is not physically possible.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException in debugging mode (see
+   *           {@link RelativeLayout#setDebugMode(boolean)}), if adding the node makes the layout ambiguous.
+   */
+  public void add(Object theNode, RelativeConstraints theConstraints) {
+    if (theNode == null || theNode.equals(this.root)) {
+      throw new IllegalArgumentException("Cannot add " + theNode + " to a LayoutEngine.");
+    }
+
+    // Following line may throw InconsistentConstraintException:
+    theConstraints.setConstrainedObject(theNode, this.root);
+
+    if (RelativeMatrix.isDebugMode()) {
+      // Following line may throw AmbiguousLayoutException:
+      validate(theNode, theConstraints);
+    } else {
+      this.validationMatrix = null;
+    }
+
+    newStructure();
+
+    Integer index = this.indices.get(theNode);
+    if (index != null) {
+      this.constraints.set(index, theConstraints);
+      return;
+    }
+
+    this.indices.put(theNode, this.nodes.size());
+    this.nodes.add(theNode);
+    this.constraints.add(theConstraints);
+    this.nodeVariables.add(LayoutEngine.variablesFor(theNode));
+    this.preferredSizes.add(new int[2]);
+  }
+
+  /**
+   * Adds several nodes at once, as if by calling {@link #add(Object, RelativeConstraints)} for each in turn, but
+   * working out the new structure of the layout just once, and in debugging mode checking that it is unambiguous just
+   * once, when all the nodes are in place. Either all the nodes are added or, if an exception is thrown, none of them
+   * are.
+   *
+   * @param theNodes The constraints of each node to add, in the order to add them. Nodes that have already been added
+   *          have their constraints replaced.
+   * @throws InconsistentConstraintException if any two Bindings in one node's constraints contradict each other.
+   * @throws InvalidBindingException if any of the Bindings is not physically possible.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException in debugging mode (see
+   *           {@link RelativeLayout#setDebugMode(boolean)}), if the nodes make the layout ambiguous.
+   */
+  public void addAll(Map<Object, RelativeConstraints> theNodes) {
+    if (theNodes.isEmpty()) {
+      return;
+    }
+    for (Map.Entry<Object, RelativeConstraints> entry : theNodes.entrySet()) {
+      Object node = entry.getKey();
+      if (node == null || node.equals(this.root)) {
+        throw new IllegalArgumentException("Cannot add " + node + " to a LayoutEngine.");
+      }
+      // Following line may throw InconsistentConstraintException:
+      entry.getValue().setConstrainedObject(node, this.root);
+    }
+
+    List<Object> added = new ArrayList<Object>();
+    Map<Integer, RelativeConstraints> replaced = new HashMap<Integer, RelativeConstraints>();
+    for (Map.Entry<Object, RelativeConstraints> entry : theNodes.entrySet()) {
+      Object node = entry.getKey();
+      Integer index = this.indices.get(node);
+      if (index != null) {
+        RelativeConstraints old = this.constraints.set(index.intValue(), entry.getValue());
+        if (!replaced.containsKey(index)) {
+          replaced.put(index, old);
+        }
+        continue;
+      }
+      this.indices.put(node, this.nodes.size());
+      this.nodes.add(node);
+      this.constraints.add(entry.getValue());
+      this.nodeVariables.add(LayoutEngine.variablesFor(node));
+      this.preferredSizes.add(new int[2]);
+      added.add(node);
+    }
+
+    this.validationMatrix = null;
+    newStructure();
+    if (RelativeMatrix.isDebugMode()) {
+      try {
+        // Following line may throw AmbiguousLayoutException:
+        validateAll();
+      } catch (RuntimeException e) {
+        for (Object node : added) {
+          remove(node);
+        }
+        for (Map.Entry<Integer, RelativeConstraints> entry : replaced.entrySet()) {
+          this.constraints.set(entry.getKey().intValue(), entry.getValue());
+        }
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Checks that the nodes and their constraints describe exactly one layout, whether or not debugging mode is on. All
+   * the equations are checked together, just as they are when the layout is solved, so the order the nodes were added
+   * in makes no difference. This is for tools that check layouts without laying them out.
+   *
+   * @throws UnknownComponentException if a Binding refers to a node that has not been added.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException if the layout is ambiguous. Its
+   *           {@link edu.cmu.relativelayout.matrix.AmbiguousLayoutException#getVariable() variable} can be passed to
+   *           {@link #getNode(Variable)} to find the node to blame.
+   */
+  public void check() {
+    checkReferences();
+    RelativeMatrix matrix = new RelativeMatrix();
+    matrix.changeEquations(currentDefinitions());
+    matrix.validate();
+  }
+
+  /**
+   * Returns <code>true</code> if the given node has been added to this engine.
+   */
+  public boolean contains(Object theNode) {
+    return this.indices.containsKey(theNode);
+  }
+
+  /**
+   * Returns the maximum number of solutions this engine remembers. See {@link #setCacheSize(int)}.
+   */
+  public int getCacheSize() {
+    return this.cacheSize;
+  }
+
+  /**
+   * Returns the constraints the given node was added with, or <code>null</code> if it has not been added.
+   */
+  public RelativeConstraints getConstraints(Object theNode) {
+    Integer index = this.indices.get(theNode);
+    return (index != null ? this.constraints.get(index) : null);
+  }
+
+  /**
+   * Returns the number of variables in the largest strongly connected block that any of the given node's variables
+   * belongs to: variables whose Bindings depend on each other in a cycle, and so have to be solved together rather than
+   * one after another. A node whose Bindings only depend on nodes placed before it has a block size of 1. Worked out
+   * again only when the nodes or constraints change.
+   *
+   * @param theNode The node, which must already have been added.
+   */
+  public int getCoupledBlockSize(Object theNode) {
+    int index = indexOf(theNode, true);
+    if (this.blockSizesVersion != this.structureVersion) {
+      List<Variable> variables = new ArrayList<Variable>();
+      for (Variable[] nodeVariableArray : this.nodeVariables) {
+        variables.addAll(Arrays.asList(nodeVariableArray));
+      }
+      Map<Variable, Integer> blockSizeOf = new HashMap<Variable, Integer>();
+      for (List<Variable> block : RelativeMatrix.findBlocks(currentDefinitions(), variables)) {
+        for (Variable v : block) {
+          blockSizeOf.put(v, Integer.valueOf(block.size()));
+        }
+      }
+      int[] sizes = new int[this.nodes.size()];
+      for (int i = 0; i < sizes.length; i++) {
+        for (Variable v : this.nodeVariables.get(i)) {
+          sizes[i] = Math.max(sizes[i], blockSizeOf.get(v).intValue());
+        }
+      }
+      this.blockSizes = sizes;
+      this.blockSizesVersion = this.structureVersion;
+    }
+    return this.blockSizes[index];
+  }
+
+  /**
+   * Returns the nodes that where the given node goes depends on: the node itself, and every node it is bound to,
+   * directly or indirectly. Only these nodes' preferred sizes need to be up to date before calling
+   * {@link #solveFor(Object, int, int)}.
+   *
+   * @param theNode The node, which must already have been added.
+   * @return A new list of the nodes, not including the root.
+   * @throws UnknownComponentException if one of the nodes is bound to a node that has not been added.
+   */
+  public List<Object> getDependencies(Object theNode) {
+    Set<Object> ret = new LinkedHashSet<Object>();
+    for (Variable v : slice(theNode, 0, 0).keySet()) {
+      Object node = ((RelativeVariable) v).getNode();
+      if (!node.equals(this.root)) {
+        ret.add(node);
+      }
+    }
+    return new ArrayList<Object>(ret);
+  }
+
+  /**
+   * Returns the node at the given index.
+   */
+  public Object getNode(int index) {
+    return this.nodes.get(index);
+  }
+
+  /**
+   * Returns the node, or the root, whose bounds the given variable is one of, or <code>null</code> if it doesn't belong
+   * to this engine.
+   */
+  public Object getNode(Variable theVariable) {
+    if (!(theVariable instanceof RelativeVariable)) {
+      return null;
+    }
+    Object node = ((RelativeVariable) theVariable).getNode();
+    return (node.equals(this.root) || this.indices.containsKey(node) ? node : null);
+  }
+
+  /**
+   * Returns the number of nodes that have been added to this engine, not counting the root.
+   */
+  public int getNodeCount() {
+    return this.nodes.size();
+  }
+
+  /**
+   * Returns the cache of compiled plans this engine uses, or <code>null</code> if it doesn't use one. See
+   * {@link #setPlanCache(LayoutPlanCache)}.
+   */
+  public LayoutPlanCache getPlanCache() {
+    return this.planCache;
+  }
+
+  /**
+   * Returns the preferred height of the node at the given index.
+   */
+  public int getPreferredHeight(int index) {
+    return this.preferredSizes.get(index)[1];
+  }
+
+  /**
+   * Returns the preferred width of the node at the given index.
+   */
+  public int getPreferredWidth(int index) {
+    return this.preferredSizes.get(index)[0];
+  }
+
+  /**
+   * Returns the root node.
+   */
+  public Object getRoot() {
+    return this.root;
+  }
+
+  /**
+   * Returns the solver this engine's layouts are solved with, or <code>null</code> if each layout chooses its own. See
+   * {@link #setSolver(LayoutSolver)}.
+   */
+  public LayoutSolver getSolver() {
+    return this.solver;
+  }
+
+  /**
+   * Returns the index of the given node in the bounds arrays returned by this engine, or -1 if it has not been added.
+   */
+  public int indexOf(Object theNode) {
+    Integer index = this.indices.get(theNode);
+    return (index != null ? index.intValue() : -1);
+  }
+
+  /**
+   * Lays out every node inside a root node of the given size, and returns their bounds truncated to whole pixels.
+   *
+   * @param width The width of the root node.
+   * @param height The height of the root node.
+   * @return A new array holding the x, y, width, and height of each node in turn.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException if the constraints do not describe exactly one
+   *           layout.
+   */
+  public int[] layout(int width, int height) {
+    double[] solution = solve(width, height);
+    int[] bounds = new int[solution.length];
+    for (int i = 0; i < solution.length; i++) {
+      bounds[i] = (int) solution[i];
+    }
+    return bounds;
+  }
+
+  /**
+   * Removes the given node from this engine. Nodes after it move down one place in the bounds arrays.
+   *
+   * @param theNode The node to remove.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException in debugging mode (see
+   *           {@link RelativeLayout#setDebugMode(boolean)}), if removing the node makes the layout ambiguous, for
+   *           example because other nodes are still bound to it. The node is left in place.
+   */
+  public void remove(Object theNode) {
+    Integer index = this.indices.get(theNode);
+    if (index == null) {
+      return;
+    }
+    int i = index.intValue();
+    if (this.validationMatrix != null) {
+      Map<Variable, Equation> changes = new LinkedHashMap<Variable, Equation>();
+      for (Variable v : this.nodeVariables.get(i)) {
+        changes.put(v, null);
+      }
+      try {
+        // Following line may throw AmbiguousLayoutException:
+        this.validationMatrix.changeEquations(changes);
+      } catch (RuntimeException e) {
+        // The node stays, but the matrix may have lost some of its equations, so start again next time.
+        this.validationMatrix = null;
+        throw e;
+      }
+    }
+    this.indices.remove(theNode);
+    newStructure();
+    this.nodes.remove(i);
+    this.constraints.remove(i);
+    this.nodeVariables.remove(i);
+    this.preferredSizes.remove(i);
+    for (int j = i; j < this.nodes.size(); j++) {
+      this.indices.put(this.nodes.get(j), j);
+    }
+  }
+
+  /**
+   * Replaces the constraints of several nodes at once, to switch between variants of the same layout, such as a form
+   * with an optional section shown or collapsed. Only the changed nodes are touched. Each variant is identified by a
+   * key, and switching back to a variant that has been used since the last node was added or removed reuses the
+   * solutions and compiled plan remembered for it, rather than treating the layout as new.
+   *
+   * @param theChanges The new constraints for each node whose constraints change. Every node must already have been
+   *          added. If there are none, the current constraints are just given the variant's key, so that they can be
+   *          switched back to later.
+   * @param theVariant The key identifying the layout that results, which must be equal to the key used the last time
+   *          the same constraints were in place, and different from the keys of all other variants.
+   * @throws InconsistentConstraintException if any two Bindings in one node's constraints contradict each other.
+   * @throws InvalidBindingException if any of the Bindings is not physically possible.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException in debugging mode (see
+   *           {@link RelativeLayout#setDebugMode(boolean)}), if the new constraints make the layout ambiguous. The old
+   *           constraints are left in place.
+   */
+  public void replaceConstraints(Map<Object, RelativeConstraints> theChanges, Object theVariant) {
+    int[] changed = new int[theChanges.size()];
+    int n = 0;
+    for (Map.Entry<Object, RelativeConstraints> entry : theChanges.entrySet()) {
+      Integer index = this.indices.get(entry.getKey());
+      if (index == null) {
+        throw new IllegalArgumentException(entry.getKey() + " has not been added to this LayoutEngine.");
+      }
+      // Following line may throw InconsistentConstraintException:
+      entry.getValue().setConstrainedObject(entry.getKey(), this.root);
+      changed[n++] = index.intValue();
+    }
+
+    RelativeConstraints[] old = new RelativeConstraints[n];
+    n = 0;
+    for (RelativeConstraints element : theChanges.values()) {
+      old[n] = this.constraints.set(changed[n], element);
+      n++;
+    }
+
+    if (n > 0) {
+      this.validationMatrix = null;
+    }
+    if (RelativeMatrix.isDebugMode() && n > 0) {
+      // Check the new constraints together, since a layout can be ambiguous halfway through a switch and fine after it.
+      try {
+        // Following line may throw AmbiguousLayoutException:
+        validateAll();
+      } catch (RuntimeException e) {
+        for (int i = 0; i < n; i++) {
+          this.constraints.set(changed[i], old[i]);
+        }
+        throw e;
+      }
+    }
+
+    Long version = this.variantVersions.get(theVariant);
+    if (version == null) {
+      version = Long.valueOf(n > 0 ? ++this.lastStructureVersion : this.structureVersion);
+      this.variantVersions.put(theVariant, version);
+    }
+    this.structureVersion = version.longValue();
+  }
+
+  /**
+   * Sets the maximum number of solutions this engine remembers. Each solution is remembered along with the size of the
+   * root it was computed for, and is reused if the engine is laid out again at that size before any node is added or
+   * removed and before any preferred size changes. When the cache is full, the least recently used solution is
+   * forgotten. A size of 0, the default, turns the cache off.
+   *
+   * @param theCacheSize The number of solutions to remember.
+   */
+  public void setCacheSize(int theCacheSize) {
+    if (theCacheSize < 0) {
+      throw new IllegalArgumentException("The cache size cannot be negative.");
+    }
+    synchronized (this.solutionCache) {
+      this.cacheSize = theCacheSize;
+      trimCache();
+    }
+  }
+
+  /**
+   * Sets the cache of compiled plans this engine uses. With a cache, each structure of nodes and constraints is solved
+   * once, in terms of the root size and the preferred sizes, and every layout after that just evaluates the resulting
+   * plan, which is also saved in the cache for later runs. The first layout of each new structure costs somewhat more
+   * than an ordinary layout, so this pays off for layouts that are laid out many times, or built the same way every
+   * time the application starts. The default is <code>null</code>, for no cache.
+   *
+   * @param thePlanCache The cache to use, or <code>null</code> to solve every layout from scratch.
+   */
+  public void setPlanCache(LayoutPlanCache thePlanCache) {
+    this.planCache = thePlanCache;
+    this.planStructure = null;
+    this.planStructureVersion = -1;
+  }
+
+  /**
+   * Sets the preferred size of the given node. Nodes whose width or height is not determined by their constraints get
+   * their preferred width or height.
+   *
+   * @param theNode The node, which must already have been added.
+   * @param width The preferred width of the node.
+   * @param height The preferred height of the node.
+   */
+  public void setPreferredSize(Object theNode, int width, int height) {
+    Integer index = this.indices.get(theNode);
+    if (index == null) {
+      throw new IllegalArgumentException(theNode + " has not been added to this LayoutEngine.");
+    }
+    int[] size = this.preferredSizes.get(index);
+    if (size[0] != width || size[1] != height) {
+      size[0] = width;
+      size[1] = height;
+      this.sizeVersion++;
+    }
+  }
+
+  /**
+   * Sets the solver this engine's layouts are solved with, overriding the default (see
+   * {@link RelativeMatrix#setDefaultSolver(LayoutSolver)}). Layouts solved with a compiled plan (see
+   * {@link #setPlanCache(LayoutPlanCache)}) or found in the cache of solutions aren't affected.
+   *
+   * @param theSolver The solver, or <code>null</code> to use the default.
+   */
+  public void setSolver(LayoutSolver theSolver) {
+    this.solver = theSolver;
+  }
+
+  /**
+   * Takes a snapshot of this engine's equations and preferred sizes for a root node of the given size. The snapshot can
+   * be solved later, on any thread.
+   *
+   * @param width The width of the root node.
+   * @param height The height of the root node.
+   * @return The snapshot.
+   */
+  public Snapshot snapshot(int width, int height) {
+    int count = this.nodes.size();
+    Object[] snapshotNodes = this.nodes.toArray();
+
+    SolutionKey key = new SolutionKey(width, height, this.structureVersion, this.sizeVersion);
+    double[] cached = null;
+    synchronized (this.solutionCache) {
+      if (this.cacheSize > 0) {
+        cached = this.solutionCache.get(key);
+      }
+    }
+    if (cached != null) {
+      return new Snapshot(this, key, snapshotNodes, null, null, cached, 0);
+    }
+
+    long start = System.nanoTime();
+    LayoutPhase event = LayoutPhases.matrixBuild();
+    event.begin();
+
+    if (this.planCache != null) {
+      LayoutPlan.Structure structure = currentStructure();
+      // Layouts that refer to nodes outside the engine can't be fingerprinted, so they are solved the usual way.
+      if (structure != null) {
+        int[] sizes = new int[count * 2];
+        for (int i = 0; i < count; i++) {
+          int[] size = this.preferredSizes.get(i);
+          sizes[i * 2] = size[0];
+          sizes[i * 2 + 1] = size[1];
+        }
+        event.end();
+        long buildNanos = System.nanoTime() - start;
+        if (event.shouldCommit()) {
+          event.describe(this.root, count);
+          event.commit();
+        }
+        return new Snapshot(this, key, snapshotNodes, structure, sizes, buildNanos);
+      }
+    }
+
+    Variable[] variables = new Variable[count * 4];
+    for (int i = 0; i < count; i++) {
+      System.arraycopy(this.nodeVariables.get(i), 0, variables, i * 4, 4);
+    }
+
+    RelativeMatrix matrix = new RelativeMatrix();
+    matrix.setSolver(this.solver);
+
+    // Initialize the matrix with the preferred size for all nodes.
+    for (int i = 0; i < count; i++) {
+      int[] size = this.preferredSizes.get(i);
+      addIdentities(matrix, this.nodeVariables.get(i), size[0], size[1]);
+    }
+
+    // And don't forget the root!
+    addIdentities(matrix, this.rootVariables, width, height);
+
+    // Add all the constraints' equations to the matrix at once, so that in debugging mode they are checked together,
+    // as add() checked them, rather than one node at a time:
+    matrix.changeEquations(currentDefinitions());
+
+    event.end();
+    long buildNanos = System.nanoTime() - start;
+    if (event.shouldCommit()) {
+      event.describe(this.root, count);
+      event.describe(matrix);
+      event.commit();
+    }
+
+    return new Snapshot(this, key, snapshotNodes, variables, matrix, null, buildNanos);
+  }
+
+  /**
+   * Lays out every node inside a root node of the given size, and returns their exact bounds.
+   *
+   * @param width The width of the root node.
+   * @param height The height of the root node.
+   * @return A new array holding the x, y, width, and height of each node in turn.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException if the constraints do not describe exactly one
+   *           layout.
+   */
+  public double[] solve(int width, int height) {
+    return snapshot(width, height).solve();
+  }
+
+  /**
+   * Works out where just the given node goes inside a root node of the given size, without laying out the others.
+   * Only the equations its bounds depend on are solved, so this takes time that depends on how many nodes it is bound
+   * to, directly or indirectly, rather than on the size of the whole layout. If the whole layout has already been
+   * solved at this size, the remembered solution is used instead.
+   *
+   * @param theNode The node, which must already have been added.
+   * @param width The width of the root node.
+   * @param height The height of the root node.
+   * @return A new array holding the x, y, width, and height of the node.
+   * @throws UnknownComponentException if the node depends on a node that has not been added.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException if the constraints the node depends on do not
+   *           place it in exactly one way.
+   */
+  public double[] solveFor(Object theNode, int width, int height) {
+    Variable[] variables = this.nodeVariables.get(indexOf(theNode, true));
+    SolutionKey key = new SolutionKey(width, height, this.structureVersion, this.sizeVersion);
+    synchronized (this.solutionCache) {
+      double[] cached = (this.cacheSize > 0 ? this.solutionCache.get(key) : null);
+      if (cached != null) {
+        int index = indexOf(theNode);
+        return Arrays.copyOfRange(cached, index * 4, index * 4 + 4);
+      }
+    }
+
+    Map<Variable, Double> values = RelativeMatrix.solve(slice(theNode, width, height), Arrays.asList(variables));
+    double[] ret = new double[4];
+    for (int t = 0; t < 4; t++) {
+      ret[t] = values.get(variables[t]).doubleValue();
+    }
+    return ret;
+  }
+
+  /**
+   * Checks that every node referred to by a Binding has been added to this engine.
+   *
+   * @throws UnknownComponentException if a Binding refers to a node that has not been added.
+   */
+  void checkReferences() {
+    for (RelativeConstraints element : this.constraints) {
+      for (ResolvedBinding binding : element.bindings) {
+        Object fixed = binding.getFixedNode();
+        if (fixed != null && !fixed.equals(this.root) && !this.indices.containsKey(fixed)) {
+          throw new UnknownComponentException((RelativeVariable) RelativeVariable.get(fixed, VariableType.X),
+                                              this.root);
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds a layout pass solved from the given snapshot to a recorder. Snapshots taken before the nodes, constraints, or
+   * preferred sizes last changed are skipped, since what they held is gone, and so are layouts with Bindings to nodes
+   * that haven't been added, which have no canonical structure.
+   *
+   * @param theRecorder The recorder.
+   * @param theSnapshot The snapshot that was solved.
+   * @param setBoundsNanos The time spent applying the solution.
+   * @param failed <code>true</code> if the pass failed.
+   */
+  void record(LayoutRecorder theRecorder, Snapshot theSnapshot, long setBoundsNanos, boolean failed) {
+    SolutionKey key = theSnapshot.key;
+    if (key.structureVersion != this.structureVersion || key.sizeVersion != this.sizeVersion) {
+      return;
+    }
+    LayoutPlan.Structure structure = currentStructure();
+    if (structure == null) {
+      return;
+    }
+
+    int count = this.nodes.size();
+    int[] sizes = new int[count * 2];
+    for (int i = 0; i < count; i++) {
+      int[] size = this.preferredSizes.get(i);
+      sizes[i * 2] = size[0];
+      sizes[i * 2 + 1] = size[1];
+    }
+    int flags = (theSnapshot.isCached() ? LayoutRecorder.CACHED : 0) | (failed ? LayoutRecorder.FAILED : 0);
+    theRecorder.record(structure, this.root.getClass().getName(), key.width, key.height, sizes, flags, new long[] {
+        theSnapshot.preferredSizeNanos, theSnapshot.getBuildNanos(), theSnapshot.getSolveNanos(), setBoundsNanos });
+  }
+
+  /**
+   * Compiles the current nodes and constraints into a plan, which gives the bounds of every node in terms of the root
+   * size and the preferred sizes. The plan cache is used if there is one.
+   *
+   * @return The plan.
+   * @throws UnknownComponentException if a Binding refers to a node that has not been added.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException if the constraints do not describe exactly one
+   *           layout.
+   */
+  LayoutPlan compile() {
+    checkReferences();
+    return planFor(currentStructure());
+  }
+
+  /**
+   * Returns the plan for the given structure, loading it from the plan cache or compiling it if necessary. Called by
+   * snapshots, possibly on other threads.
+   *
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException if the structure's equations do not have exactly
+   *           one solution.
+   */
+  LayoutPlan planFor(LayoutPlan.Structure theStructure) {
+    LayoutPlan ret = theStructure.plan;
+    if (ret != null) {
+      return ret;
+    }
+    synchronized (theStructure) {
+      ret = theStructure.plan;
+      if (ret == null) {
+        LayoutPlanCache cache = this.planCache;
+        ret = (cache != null ? cache.load(theStructure.fingerprint) : null);
+        if (ret == null) {
+          ret = LayoutPlan.compile(theStructure);
+          if (cache != null) {
+            cache.store(ret);
+          }
+        }
+        theStructure.plan = ret;
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Remembers the solution for the given key, if the cache is on. Called by snapshots, possibly on other threads.
+   */
+  void storeSolution(SolutionKey theKey, double[] theSolution) {
+    synchronized (this.solutionCache) {
+      if (this.cacheSize > 0) {
+        this.solutionCache.put(theKey, theSolution.clone());
+        trimCache();
+      }
+    }
+  }
+
+  /**
+   * Returns the canonical structure of the current nodes and constraints, which is only worked out again when they
+   * change, or <code>null</code> if a Binding refers to a node that has not been added.
+   */
+  private LayoutPlan.Structure currentStructure() {
+    if (this.planStructureVersion == this.structureVersion) {
+      return this.planStructure;
+    }
+    Long version = Long.valueOf(this.structureVersion);
+    if (this.variantStructures.containsKey(version)) {
+      this.planStructure = this.variantStructures.get(version);
+      this.planStructureVersion = this.structureVersion;
+      return this.planStructure;
+    }
+
+    int count = this.nodes.size();
+    Map<Variable, Integer> variableIndices = new HashMap<Variable, Integer>();
+    for (int i = 0; i < count; i++) {
+      Variable[] variables = this.nodeVariables.get(i);
+      for (int t = 0; t < 4; t++) {
+        variableIndices.put(variables[t], i * 4 + t);
+      }
+    }
+    for (int t = 0; t < 4; t++) {
+      variableIndices.put(this.rootVariables[t], count * 4 + t);
+    }
+
+    // Later equations replace earlier ones for the same variable, just as they do in a matrix.
+    Equation[] equations = new Equation[(count + 1) * 4];
+    for (RelativeConstraints element : this.constraints) {
+      List<Equation> constraintEquations = element.getEquations();
+      List<Variable> constraintVariables = element.getVariables();
+      for (int i = 0; i < constraintEquations.size(); i++) {
+        equations[variableIndices.get(constraintVariables.get(i)).intValue()] = constraintEquations.get(i);
+      }
+    }
+
+    this.planStructure = LayoutPlan.Structure.create(count, variableIndices, equations);
+    this.planStructureVersion = this.structureVersion;
+    if (this.variantVersions.containsValue(version)) {
+      this.variantStructures.put(version, this.planStructure);
+    }
+    return this.planStructure;
+  }
+
+  /**
+   * Returns the index of the given node, throwing an exception if it has not been added.
+   */
+  private int indexOf(Object theNode, boolean required) {
+    int ret = indexOf(theNode);
+    if (ret < 0 && required) {
+      throw new IllegalArgumentException(theNode + " has not been added to this LayoutEngine.");
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the equation for each of the given node's variables and every variable they depend on, directly or
+   * indirectly, for a root node of the given size. Variables without a Binding get the same default equations as they
+   * do in a full solve.
+   *
+   * @throws UnknownComponentException if a variable belongs to a node that has not been added.
+   */
+  private Map<Variable, Equation> slice(Object theNode, int width, int height) {
+    Map<Variable, Equation> definitions = currentDefinitions();
+    Map<Variable, Equation> ret = new LinkedHashMap<Variable, Equation>();
+    LinkedList<Variable> queue = new LinkedList<Variable>();
+    queue.addAll(Arrays.asList(this.nodeVariables.get(indexOf(theNode, true))));
+    while (!queue.isEmpty()) {
+      Variable v = queue.removeFirst();
+      if (ret.containsKey(v)) {
+        continue;
+      }
+      Equation equation = definitions.get(v);
+      if (equation == null) {
+        equation = defaultEquation(v, width, height);
+      }
+      ret.put(v, equation);
+      for (Variable u : equation.getVariables()) {
+        if (!ret.containsKey(u)) {
+          queue.add(u);
+        }
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the equation a variable gets when no Binding defines it: the root's size for the root's width and height,
+   * the preferred size for a node's width and height, and 0 for positions. These are the identities a full solve
+   * starts from.
+   *
+   * @throws UnknownComponentException if the variable belongs to a node that has not been added.
+   */
+  private Equation defaultEquation(Variable theVariable, int width, int height) {
+    Object node = ((RelativeVariable) theVariable).getNode();
+    Variable[] variables;
+    int[] size;
+    if (node.equals(this.root)) {
+      variables = this.rootVariables;
+      size = new int[] { width, height };
+    } else {
+      Integer index = this.indices.get(node);
+      if (index == null) {
+        throw new UnknownComponentException((RelativeVariable) theVariable, this.root);
+      }
+      variables = this.nodeVariables.get(index);
+      size = this.preferredSizes.get(index);
+    }
+
+    ConcreteEquation identity = new ConcreteEquation();
+    identity.setCoefficient(1, theVariable);
+    if (theVariable.equals(variables[2])) {
+      identity.setRightHandSide(size[0]);
+    } else if (theVariable.equals(variables[3])) {
+      identity.setRightHandSide(size[1]);
+    } else {
+      identity.setRightHandSide(0);
+    }
+    return identity;
+  }
+
+  /**
+   * Returns the equation given by the Bindings for each variable that has one, which is only worked out again when the
+   * nodes or constraints change.
+   */
+  private Map<Variable, Equation> currentDefinitions() {
+    if (this.definitionsVersion == this.structureVersion) {
+      return this.definitions;
+    }
+    this.definitions = collectDefinitions();
+    this.definitionsVersion = this.structureVersion;
+    return this.definitions;
+  }
+
+  /**
+   * Returns the equation given by the Bindings for each variable that has one, worked out from the nodes and
+   * constraints as they are now.
+   */
+  private Map<Variable, Equation> collectDefinitions() {
+    // Later equations replace earlier ones for the same variable, just as they do in a matrix.
+    Map<Variable, Equation> ret = new HashMap<Variable, Equation>();
+    for (RelativeConstraints element : this.constraints) {
+      List<Equation> constraintEquations = element.getEquations();
+      List<Variable> constraintVariables = element.getVariables();
+      for (int i = 0; i < constraintEquations.size(); i++) {
+        ret.put(constraintVariables.get(i), constraintEquations.get(i));
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Gives the nodes and constraints a new structure version after a node is added or removed, which also means that no
+   * earlier variant can come back.
+   */
+  private void newStructure() {
+    this.structureVersion = ++this.lastStructureVersion;
+    this.variantVersions.clear();
+    this.variantStructures.clear();
+  }
+
+  /**
+   * Puts the equations for the given node in the matrix that checks, in debugging mode, that the layout is unambiguous
+   * as each node is added, so that an exception is thrown from the offending call to add(). The matrix only holds the
+   * equations of the Bindings: a variable without one has the same implicit identity row it gets when the layout is
+   * solved, and the preferred sizes don't matter, since they only affect the right hand sides of the equations.
+   *
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException if the layout is now ambiguous.
+   */
+  private void validate(Object theNode, RelativeConstraints theConstraints) {
+    Map<Variable, Equation> changes = new LinkedHashMap<Variable, Equation>();
+    if (this.validationMatrix == null) {
+      // Start from the other nodes' equations, checking them together with the new ones.
+      this.validationMatrix = new RelativeMatrix();
+      changes.putAll(currentDefinitions());
+    }
+    // The node's new equations replace all of its old ones, if it had any.
+    for (Variable v : LayoutEngine.variablesFor(theNode)) {
+      changes.put(v, null);
+    }
+    List<Equation> equations = theConstraints.getEquations();
+    List<Variable> constraintVariables = theConstraints.getVariables();
+    for (int i = 0; i < equations.size(); i++) {
+      changes.put(constraintVariables.get(i), equations.get(i));
+    }
+
+    try {
+      this.validationMatrix.changeEquations(changes);
+    } catch (RuntimeException e) {
+      // The matrix now holds equations for a node that wasn't added, so start again next time.
+      this.validationMatrix = null;
+      throw e;
+    }
+  }
+
+  /**
+   * Checks, in debugging mode, that the nodes and constraints as they are now describe exactly one layout, with all
+   * their equations checked together in one pass, just as they are when the layout is solved. This is how changes to
+   * several nodes at once are checked, since a layout can be ambiguous with only some of them made.
+   *
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException if the layout is ambiguous.
+   */
+  private void validateAll() {
+    RelativeMatrix matrix = new RelativeMatrix();
+    // The definitions are collected afresh, since the structure version may not have caught up with the changes yet.
+    matrix.changeEquations(collectDefinitions());
+    this.validationMatrix = matrix;
+  }
+
+  /**
+   * Forgets the least recently used solutions until the cache is no bigger than its maximum size. Must be called while
+   * synchronized on the cache.
+   */
+  private void trimCache() {
+    Iterator<double[]> iter = this.solutionCache.values().iterator();
+    while (this.solutionCache.size() > this.cacheSize) {
+      iter.next();
+      iter.remove();
+    }
+  }
+
+  /**
+   * Returns the x, y, width, and height variables of the given node, in that order.
+   */
+  private static Variable[] variablesFor(Object theNode) {
+    Variable[] variables = new Variable[4];
+    for (int i = 0; i < 4; i++) {
+      variables[i] = RelativeVariable.get(theNode, LayoutEngine.BOUNDS_ORDER[i]);
+    }
+    return variables;
+  }
+
+  /**
+   * Adds default identities for a node to the given matrix. This is important so that if no Binding explicitly involves
+   * some variable of that node, it will default to something reasonable: 0 for x and y, and the given size for width
+   * and height.
+   *
+   * @param matrix The matrix we want to add identities to.
+   * @param variables The node's variables, as returned by variablesFor().
+   * @param width The width of the node.
+   * @param height The height of the node.
+   */
+  private void addIdentities(RelativeMatrix matrix, Variable[] variables, int width, int height) {
+    addIdentity(matrix, variables[2], width);
+    addIdentity(matrix, variables[3], height);
+    addIdentity(matrix, variables[0], 0);
+    addIdentity(matrix, variables[1], 0);
+  }
+
+  /**
+   * Adds the equation <code>variable = value</code> to the given matrix.
+   */
+  private void addIdentity(RelativeMatrix matrix, Variable variable, double value) {
+    ConcreteEquation identity = new ConcreteEquation();
+    identity.setCoefficient(1, variable);
+    identity.setRightHandSide(value);
+    matrix.addEquation(variable, identity);
+  }
+
+  /**
+   * The node that contains all the others.
+   */
+  private final Object root;
+
+  /**
+   * The x, y, width, and height variables of the root node.
+   */
+  private final Variable[] rootVariables;
+
+  /**
+   * The nodes being laid out, in the order they were added.
+   */
+  private final List<Object> nodes = new ArrayList<Object>();
+
+  /**
+   * The index of each node in the nodes list.
+   */
+  private final Map<Object, Integer> indices = new HashMap<Object, Integer>();
+
+  /**
+   * The constraints for each node, in the same order as the nodes list.
+   */
+  private final List<RelativeConstraints> constraints = new ArrayList<RelativeConstraints>();
+
+  /**
+   * The x, y, width, and height variables of each node, in the same order as the nodes list.
+   */
+  private final List<Variable[]> nodeVariables = new ArrayList<Variable[]>();
+
+  /**
+   * The preferred width and height of each node, in the same order as the nodes list.
+   */
+  private final List<int[]> preferredSizes = new ArrayList<int[]>();
+
+  /**
+   * Changed whenever a node is added or removed or its constraints are replaced, so that cached solutions for the old
+   * structure are never reused. Switching back to an earlier variant restores the version it had.
+   */
+  private long structureVersion;
+
+  /**
+   * The highest structure version handed out so far.
+   */
+  private long lastStructureVersion;
+
+  /**
+   * The structure version of each variant used since the last node was added or removed. See replaceConstraints().
+   */
+  private final Map<Object, Long> variantVersions = new HashMap<Object, Long>();
+
+  /**
+   * The structure worked out for each variant's structure version, so that switching back to a variant finds its
+   * compiled plan again without working out the structure from scratch.
+   */
+  private final Map<Long, LayoutPlan.Structure> variantStructures = new HashMap<Long, LayoutPlan.Structure>();
+
+  /**
+   * In debugging mode, a matrix holding every node's equations, used to check each node as it is added. Null when not
+   * in debugging mode.
+   */
+  private RelativeMatrix validationMatrix;
+
+  /**
+   * The cache of compiled plans, or null to solve every layout from scratch.
+   */
+  private LayoutPlanCache planCache;
+
+  /**
+   * The solver to solve layouts with, or null for the default.
+   */
+  private LayoutSolver solver;
+
+  /**
+   * The structure of the nodes and constraints as of planStructureVersion, or null if it couldn't be worked out.
+   */
+  private LayoutPlan.Structure planStructure;
+
+  /**
+   * The structureVersion at which planStructure was worked out, or -1 if it hasn't been.
+   */
+  private long planStructureVersion = -1;
+
+  /**
+   * The equation given by the Bindings for each variable as of definitionsVersion. See currentDefinitions().
+   */
+  private Map<Variable, Equation> definitions;
+
+  /**
+   * The structureVersion at which definitions was worked out, or -1 if it hasn't been.
+   */
+  private long definitionsVersion = -1;
+
+  /**
+   * The coupled block size of each node as of blockSizesVersion. See getCoupledBlockSize().
+   */
+  private int[] blockSizes;
+
+  /**
+   * The structureVersion at which blockSizes was worked out, or -1 if it hasn't been.
+   */
+  private long blockSizesVersion = -1;
+
+  /**
+   * Incremented whenever a preferred size changes, so that cached solutions for the old sizes are never reused.
+   */
+  private long sizeVersion;
+
+  /**
+   * The maximum number of solutions to remember, or 0 to remember none.
+   */
+  private int cacheSize;
+
+  /**
+   * Recently computed solutions, in order from least to most recently used. Guarded by synchronizing on itself, since
+   * snapshots may store their solutions from other threads.
+   */
+  private final LinkedHashMap<SolutionKey, double[]> solutionCache =
+      new LinkedHashMap<SolutionKey, double[]>(16, 0.75f, true);
+}
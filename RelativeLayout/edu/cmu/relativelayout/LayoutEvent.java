@@ -0,0 +1,177 @@
+/**
+ * LayoutEvent.java<br>
+ * Contains class LayoutEvent.
+ */
+package edu.cmu.relativelayout;
+
+import java.awt.Container;
+import java.util.EventObject;
+
+/**
+ * A summary of one layout pass done by a {@link RelativeLayout}, delivered to {@link LayoutListener}s. Times are in
+ * nanoseconds; a phase that was skipped, such as solving a layout whose solution was cached, takes no time.
+ */
+public class LayoutEvent extends EventObject {
+
+  /**
+   * Constructs a LayoutEvent.
+   * 
+   * @param theLayout The layout that did the pass.
+   * @param theContainer The container that was laid out.
+   * @param theComponentCount The number of components laid out.
+   * @param theVariableCount The number of variables in the layout's matrix.
+   * @param theCacheHit Whether the solution was found in the solution cache.
+   * @param thePreferredSizeNanos The time spent asking components for their preferred sizes.
+   * @param theMatrixBuildNanos The time spent building the matrix.
+   * @param theSolveNanos The time spent solving the matrix.
+   * @param theSetBoundsNanos The time spent setting the bounds of components.
+   * @param theFailure The exception that stopped the pass, or <code>null</code> if it succeeded.
+   */
+  public LayoutEvent(RelativeLayout theLayout, Container theContainer, int theComponentCount, int theVariableCount,
+                     boolean theCacheHit, long thePreferredSizeNanos, long theMatrixBuildNanos, long theSolveNanos,
+                     long theSetBoundsNanos, RuntimeException theFailure) {
+    super(theLayout);
+    this.container = theContainer;
+    this.componentCount = theComponentCount;
+    this.variableCount = theVariableCount;
+    this.cacheHit = theCacheHit;
+    this.preferredSizeNanos = thePreferredSizeNanos;
+    this.matrixBuildNanos = theMatrixBuildNanos;
+    this.solveNanos = theSolveNanos;
+    this.setBoundsNanos = theSetBoundsNanos;
+    this.failure = theFailure;
+  }
+
+  /**
+   * Returns the number of components laid out.
+   */
+  public int getComponentCount() {
+    return this.componentCount;
+  }
+
+  /**
+   * Returns the container that was laid out.
+   */
+  public Container getContainer() {
+    return this.container;
+  }
+
+  /**
+   * Returns the exception that stopped the pass, or <code>null</code> if it succeeded.
+   */
+  public RuntimeException getFailure() {
+    return this.failure;
+  }
+
+  /**
+   * Returns the layout that did the pass.
+   */
+  public RelativeLayout getLayout() {
+    return (RelativeLayout) getSource();
+  }
+
+  /**
+   * Returns the time spent building the matrix.
+   */
+  public long getMatrixBuildNanos() {
+    return this.matrixBuildNanos;
+  }
+
+  /**
+   * Returns the time spent asking components for their preferred sizes.
+   */
+  public long getPreferredSizeNanos() {
+    return this.preferredSizeNanos;
+  }
+
+  /**
+   * Returns the time spent setting the bounds of components.
+   */
+  public long getSetBoundsNanos() {
+    return this.setBoundsNanos;
+  }
+
+  /**
+   * Returns the time spent solving the matrix.
+   */
+  public long getSolveNanos() {
+    return this.solveNanos;
+  }
+
+  /**
+   * Returns the total time spent in all phases of the pass.
+   */
+  public long getTotalNanos() {
+    return this.preferredSizeNanos + this.matrixBuildNanos + this.solveNanos + this.setBoundsNanos;
+  }
+
+  /**
+   * Returns the number of variables in the layout's matrix.
+   */
+  public int getVariableCount() {
+    return this.variableCount;
+  }
+
+  /**
+   * Returns <code>true</code> if the solution was found in the solution cache.
+   */
+  public boolean isCacheHit() {
+    return this.cacheHit;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getName() + "[components=" + this.componentCount + ", variables=" + this.variableCount
+        + ", cacheHit=" + this.cacheHit + ", totalNanos=" + getTotalNanos() + ", failure=" + this.failure + "]";
+  }
+
+  /**
+   * 
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The container that was laid out.
+   */
+  private transient Container container;
+
+  /**
+   * The number of components laid out.
+   */
+  private int componentCount;
+
+  /**
+   * The number of variables in the matrix.
+   */
+  private int variableCount;
+
+  /**
+   * Whether the solution was cached.
+   */
+  private boolean cacheHit;
+
+  /**
+   * The time spent asking for preferred sizes.
+   */
+  private long preferredSizeNanos;
+
+  /**
+   * The time spent building the matrix.
+   */
+  private long matrixBuildNanos;
+
+  /**
+   * The time spent solving the matrix.
+   */
+  private long solveNanos;
+
+  /**
+   * The time spent setting bounds.
+   */
+  private long setBoundsNanos;
+
+  /**
+   * The exception that stopped the pass, if any.
+   */
+  private RuntimeException failure;
+}
@@ -0,0 +1,24 @@
+/**
+ * LayoutListener.java<br>
+ * Contains interface LayoutListener.
+ */
+package edu.cmu.relativelayout;
+
+import java.util.EventListener;
+
+/**
+ * The listener interface for receiving a summary of every layout pass done by a {@link RelativeLayout}. Listeners are
+ * called on the thread that applied the layout, which is normally the event dispatch thread, so they should return
+ * quickly.
+ * 
+ * @see RelativeLayout#addLayoutListener(LayoutListener)
+ */
+public interface LayoutListener extends EventListener {
+
+  /**
+   * Called after each layout pass, whether it succeeded or not.
+   * 
+   * @param event A summary of the pass.
+   */
+  public void layoutPerformed(LayoutEvent event);
+}
@@ -0,0 +1,51 @@
+/**
+ * LayoutPhase.java<br>
+ * Contains interface LayoutPhase.
+ */
+package edu.cmu.relativelayout;
+
+import edu.cmu.relativelayout.matrix.RelativeMatrix;
+
+/**
+ * The timing of one phase of a layout, recorded as a Java Flight Recorder event where Flight Recorder is available
+ * (see {@link LayoutPhaseEvent}) and ignored where it isn't. Phases are created by {@link LayoutPhases}, and used the
+ * way Flight Recorder events are: begin() and end() around the phase, then, only if shouldCommit() says the phase will
+ * be recorded, the describe() methods and commit().
+ */
+interface LayoutPhase {
+
+  /**
+   * Starts timing the phase.
+   */
+  public void begin();
+
+  /**
+   * Records the class of the container (or headless root node) being laid out, and the number of components in it.
+   */
+  public void describe(Object theRoot, int theComponentCount);
+
+  /**
+   * Records the size of the given matrix and the solver that will solve it.
+   */
+  public void describe(RelativeMatrix theMatrix);
+
+  /**
+   * Records the size of the given plan, which replaces the matrix and its solver.
+   */
+  public void describe(LayoutPlan thePlan);
+
+  /**
+   * Stops timing the phase.
+   */
+  public void end();
+
+  /**
+   * Returns whether the phase will be recorded when it is committed, and so whether it is worth describing.
+   */
+  public boolean shouldCommit();
+
+  /**
+   * Records the phase.
+   */
+  public void commit();
+}
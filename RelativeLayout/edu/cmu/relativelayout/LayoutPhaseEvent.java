@@ -0,0 +1,96 @@
+/**
+ * LayoutPhaseEvent.java<br>
+ * Contains class LayoutPhaseEvent.
+ */
+package edu.cmu.relativelayout;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+import edu.cmu.relativelayout.matrix.RelativeMatrix;
+
+/**
+ * The base class of the Java Flight Recorder events emitted for each phase of a layout, so that the time spent laying
+ * out a sluggish window can be broken down in a recording of a real session without any extra agent. When nothing is
+ * recording, the events cost next to nothing: their fields are only filled in once shouldCommit() says the event will
+ * actually be recorded. Events are only ever created through {@link LayoutPhases}, so that runtimes without the
+ * <code>jdk.jfr</code> module never load this class.
+ */
+@Category("RelativeLayout")
+@StackTrace(false)
+abstract class LayoutPhaseEvent extends jdk.jfr.Event implements LayoutPhase {
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see edu.cmu.relativelayout.LayoutPhase#describe(java.lang.Object, int)
+   */
+  public void describe(Object theRoot, int theComponentCount) {
+    this.containerClass = (theRoot != null ? theRoot.getClass() : null);
+    this.componentCount = theComponentCount;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see edu.cmu.relativelayout.LayoutPhase#describe(edu.cmu.relativelayout.matrix.RelativeMatrix)
+   */
+  public void describe(RelativeMatrix theMatrix) {
+    this.variableCount = theMatrix.getVariableCount();
+    this.nonZeroCount = theMatrix.getNonZeroCount();
+    this.coreVariableCount = theMatrix.getCoreVariableCount();
+    this.solver = theMatrix.getSolverName();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see edu.cmu.relativelayout.LayoutPhase#describe(edu.cmu.relativelayout.LayoutPlan)
+   */
+  public void describe(LayoutPlan thePlan) {
+    this.variableCount = (thePlan.getNodeCount() + 1) * 4;
+    this.nonZeroCount = thePlan.getTermCount();
+    this.solver = "Compiled layout plan";
+  }
+
+  /**
+   * The class of the container being laid out.
+   */
+  @Label("Container Class")
+  Class<?> containerClass;
+
+  /**
+   * The number of components in the container.
+   */
+  @Label("Components")
+  int componentCount;
+
+  /**
+   * The number of variables in the layout's matrix, if known.
+   */
+  @Label("Variables")
+  int variableCount;
+
+  /**
+   * The number of nonzero coefficients in the layout's matrix, if known.
+   */
+  @Label("Nonzeros")
+  @Description("The number of nonzero coefficients in the layout's matrix")
+  int nonZeroCount;
+
+  /**
+   * The number of variables left for LU decomposition once the matrix has been presolved, or -1 if it hasn't been
+   * solved yet or the layout was evaluated from a compiled plan instead.
+   */
+  @Label("Core Variables")
+  @Description("The number of variables left for LU decomposition after presolving the layout's matrix")
+  int coreVariableCount = -1;
+
+  /**
+   * The solver used for the layout's matrix, if known.
+   */
+  @Label("Solver")
+  String solver;
+}
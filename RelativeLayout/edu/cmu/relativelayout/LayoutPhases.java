@@ -0,0 +1,191 @@
+/**
+ * LayoutPhases.java<br>
+ * Contains class LayoutPhases.
+ */
+package edu.cmu.relativelayout;
+
+import edu.cmu.relativelayout.matrix.RelativeMatrix;
+
+/**
+ * Creates the {@link LayoutPhase} for each phase of a layout. Whether Java Flight Recorder is available is checked
+ * once, when this class is loaded. If it is, each phase is a new Flight Recorder event. If it isn't, as on runtimes
+ * linked without the <code>jdk.jfr</code> module, every phase is one shared phase that does nothing, and the event
+ * classes, which need that module, are never loaded.
+ */
+final class LayoutPhases {
+
+  /**
+   * Returns a phase for building the matrix of equations for a layout.
+   */
+  static LayoutPhase matrixBuild() {
+    if (LayoutPhases.FLIGHT_RECORDER_AVAILABLE) {
+      return Events.matrixBuild();
+    }
+    return LayoutPhases.NONE;
+  }
+
+  /**
+   * Returns a phase for asking every component in a container for its preferred size.
+   */
+  static LayoutPhase preferredSize() {
+    if (LayoutPhases.FLIGHT_RECORDER_AVAILABLE) {
+      return Events.preferredSize();
+    }
+    return LayoutPhases.NONE;
+  }
+
+  /**
+   * Returns a phase for setting the bounds of every component in a container.
+   */
+  static LayoutPhase setBounds() {
+    if (LayoutPhases.FLIGHT_RECORDER_AVAILABLE) {
+      return Events.setBounds();
+    }
+    return LayoutPhases.NONE;
+  }
+
+  /**
+   * Returns a phase for solving the matrix of equations for a layout.
+   */
+  static LayoutPhase solve() {
+    if (LayoutPhases.FLIGHT_RECORDER_AVAILABLE) {
+      return Events.solve();
+    }
+    return LayoutPhases.NONE;
+  }
+
+  /**
+   * Returns whether the Java Flight Recorder API can be loaded.
+   */
+  private static boolean isFlightRecorderAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event", false, LayoutPhases.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    } catch (LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Not instantiable.
+   */
+  private LayoutPhases() {
+    // Nothing to do.
+  }
+
+  /**
+   * Whether the Java Flight Recorder API can be loaded.
+   */
+  private static final boolean FLIGHT_RECORDER_AVAILABLE = LayoutPhases.isFlightRecorderAvailable();
+
+  /**
+   * The phase used for everything when Flight Recorder isn't available.
+   */
+  private static final LayoutPhase NONE = new NoPhase();
+
+  /**
+   * Creates the Flight Recorder events. Kept in a class of its own so that the event classes are only loaded once
+   * Flight Recorder is known to be available.
+   */
+  private static final class Events {
+
+    /**
+     * Returns a new MatrixBuildEvent.
+     */
+    static LayoutPhase matrixBuild() {
+      return new MatrixBuildEvent();
+    }
+
+    /**
+     * Returns a new PreferredSizeEvent.
+     */
+    static LayoutPhase preferredSize() {
+      return new PreferredSizeEvent();
+    }
+
+    /**
+     * Returns a new SetBoundsEvent.
+     */
+    static LayoutPhase setBounds() {
+      return new SetBoundsEvent();
+    }
+
+    /**
+     * Returns a new SolveEvent.
+     */
+    static LayoutPhase solve() {
+      return new SolveEvent();
+    }
+  }
+
+  /**
+   * A phase that is never recorded.
+   */
+  private static final class NoPhase implements LayoutPhase {
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see edu.cmu.relativelayout.LayoutPhase#begin()
+     */
+    public void begin() {
+      // Nothing to time.
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see edu.cmu.relativelayout.LayoutPhase#commit()
+     */
+    public void commit() {
+      // Nothing to record.
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see edu.cmu.relativelayout.LayoutPhase#describe(java.lang.Object, int)
+     */
+    public void describe(Object theRoot, int theComponentCount) {
+      // Nothing to record.
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see edu.cmu.relativelayout.LayoutPhase#describe(edu.cmu.relativelayout.matrix.RelativeMatrix)
+     */
+    public void describe(RelativeMatrix theMatrix) {
+      // Nothing to record.
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see edu.cmu.relativelayout.LayoutPhase#describe(edu.cmu.relativelayout.LayoutPlan)
+     */
+    public void describe(LayoutPlan thePlan) {
+      // Nothing to record.
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see edu.cmu.relativelayout.LayoutPhase#end()
+     */
+    public void end() {
+      // Nothing to time.
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see edu.cmu.relativelayout.LayoutPhase#shouldCommit()
+     */
+    public boolean shouldCommit() {
+      return false;
+    }
+  }
+}
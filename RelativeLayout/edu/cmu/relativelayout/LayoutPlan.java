@@ -0,0 +1,557 @@
+/**
+ * LayoutPlan.java<br>
+ * Contains class LayoutPlan.
+ */
+package edu.cmu.relativelayout;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import Jama.LUDecomposition;
+import Jama.Matrix;
+import edu.cmu.relativelayout.equation.Equation;
+import edu.cmu.relativelayout.equation.Variable;
+import edu.cmu.relativelayout.matrix.AmbiguousLayoutException;
+
+/**
+ * A compiled layout: the solution of a layout's equations worked out once and for all as a function of the things that
+ * change from one layout to the next, namely the size of the root and the preferred sizes of the nodes. Since every
+ * equation is linear, each bound of each node is a constant plus a weighted sum of those parameters, and usually only a
+ * few of the weights are nonzero. Evaluating a plan therefore takes time proportional to the number of nonzero weights,
+ * with no matrix to build or factor.<br>
+ * <br>
+ * Plans are identified by a fingerprint of the structure of the equations they were compiled from, which doesn't depend
+ * on which objects the nodes are, only on their order, so a plan can be saved by a {@link LayoutPlanCache} and reused
+ * the next time the application builds the same layout.<br>
+ * <br>
+ * The binary format, all big-endian, is:
+ *
+ * <pre>
+ * int     magic number, 'RLPL'
+ * int     format version
+ * byte[32] fingerprint (SHA-256)
+ * int     node count N
+ * then, for each of the 4N bounds in order (x, y, width and height of each node):
+ *   double  constant
+ *   int     number of terms T
+ *   T times: int parameter index, double weight
+ * </pre>
+ *
+ * Parameter 0 is the width of the root and parameter 1 its height; parameters 2 + 2<em>i</em> and 3 + 2<em>i</em> are
+ * the preferred width and height of node <em>i</em>.
+ */
+final class LayoutPlan {
+
+  /**
+   * The canonical form of a layout's equations, with variables identified by node index rather than by node. Variable
+   * 4<em>i</em> + <em>t</em> is the <em>t</em>th bound (x, y, width, height) of node <em>i</em>, and the root's
+   * variables follow those of the last node.
+   */
+  static final class Structure {
+
+    /**
+     * The most nodes a structure read by {@link #read(DataInput)} may have. A stream gives no way to check a node
+     * count against the data left, as {@link LayoutPlan#read(ByteBuffer, byte[])} does, so this keeps a corrupt count
+     * from allocating arrays far larger than any real layout needs.
+     */
+    static final int MAX_NODE_COUNT = 1 << 16;
+
+    /**
+     * Constructs the Structure of the given equations.
+     *
+     * @param theNodeCount The number of nodes, not counting the root.
+     * @param theIndices The canonical index of every variable of every node and of the root.
+     * @param theEquations The equation defining each variable, indexed canonically, or null where a variable just has
+     *          its default value.
+     * @return The structure, or <code>null</code> if an equation refers to a variable outside the layout.
+     */
+    static Structure create(int theNodeCount, Map<Variable, Integer> theIndices, Equation[] theEquations) {
+      int[][] variables = new int[theEquations.length][];
+      double[][] coefficients = new double[theEquations.length][];
+      double[] rightHandSides = new double[theEquations.length];
+
+      for (int v = 0; v < theEquations.length; v++) {
+        Equation equation = theEquations[v];
+        if (equation == null) {
+          continue;
+        }
+
+        List<Variable> terms = equation.getVariables();
+        long[] sorted = new long[terms.size()];
+        for (int k = 0; k < sorted.length; k++) {
+          Integer index = theIndices.get(terms.get(k));
+          if (index == null) {
+            return null;
+          }
+          // Sort terms by index, remembering where each came from in the low bits.
+          sorted[k] = ((long) index.intValue() << 32) | k;
+        }
+        Arrays.sort(sorted);
+
+        variables[v] = new int[sorted.length];
+        coefficients[v] = new double[sorted.length];
+        for (int k = 0; k < sorted.length; k++) {
+          variables[v][k] = (int) (sorted[k] >>> 32);
+          coefficients[v][k] = equation.getCoefficient(terms.get((int) sorted[k]));
+        }
+        rightHandSides[v] = equation.getRightHandSide();
+      }
+
+      return new Structure(theNodeCount, variables, coefficients, rightHandSides);
+    }
+
+    /**
+     * Constructor for Structure.
+     */
+    private Structure(int theNodeCount, int[][] theVariables, double[][] theCoefficients, double[] theRightHandSides) {
+      this.nodeCount = theNodeCount;
+      this.variables = theVariables;
+      this.coefficients = theCoefficients;
+      this.rightHandSides = theRightHandSides;
+      this.fingerprint = computeFingerprint();
+    }
+
+    /**
+     * Reads a structure written by {@link #write(DataOutput)}.
+     *
+     * @throws IOException if the structure can't be read, or isn't a valid structure.
+     */
+    static Structure read(DataInput theInput) throws IOException {
+      int nodeCount = theInput.readInt();
+      if (nodeCount < 0 || nodeCount > Structure.MAX_NODE_COUNT) {
+        throw new IOException("Invalid node count " + nodeCount + ".");
+      }
+      int variableCount = (nodeCount + 1) * 4;
+      int[][] variables = new int[variableCount][];
+      double[][] coefficients = new double[variableCount][];
+      double[] rightHandSides = new double[variableCount];
+      for (int v = 0; v < variableCount; v++) {
+        int terms = theInput.readInt();
+        if (terms == -1) {
+          continue;
+        }
+        if (terms < 0 || terms > variableCount) {
+          throw new IOException("Invalid term count " + terms + ".");
+        }
+        variables[v] = new int[terms];
+        coefficients[v] = new double[terms];
+        for (int k = 0; k < terms; k++) {
+          variables[v][k] = theInput.readInt();
+          if (variables[v][k] < 0 || variables[v][k] >= variableCount) {
+            throw new IOException("Invalid variable index " + variables[v][k] + ".");
+          }
+          coefficients[v][k] = theInput.readDouble();
+        }
+        rightHandSides[v] = theInput.readDouble();
+      }
+      return new Structure(nodeCount, variables, coefficients, rightHandSides);
+    }
+
+    /**
+     * Writes this structure: the node count, then for each variable the number of terms in its equation (or -1 if it
+     * has none), each term's variable and coefficient, and the equation's right hand side.
+     */
+    void write(DataOutput theOutput) throws IOException {
+      theOutput.writeInt(this.nodeCount);
+      for (int v = 0; v < this.variables.length; v++) {
+        if (this.variables[v] == null) {
+          theOutput.writeInt(-1);
+          continue;
+        }
+        theOutput.writeInt(this.variables[v].length);
+        for (int k = 0; k < this.variables[v].length; k++) {
+          theOutput.writeInt(this.variables[v][k]);
+          theOutput.writeDouble(this.coefficients[v][k]);
+        }
+        theOutput.writeDouble(this.rightHandSides[v]);
+      }
+    }
+
+    /**
+     * Returns the SHA-256 hash of everything in this structure.
+     */
+    private byte[] computeFingerprint() {
+      MessageDigest digest;
+      try {
+        digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        // Every Java platform is required to support SHA-256.
+        throw new IllegalStateException(e);
+      }
+
+      ByteBuffer buffer = ByteBuffer.allocate(256);
+      buffer.putInt(LayoutPlan.VERSION).putInt(this.nodeCount);
+      for (int v = 0; v < this.variables.length; v++) {
+        if (this.variables[v] == null) {
+          buffer.putInt(-1);
+        } else {
+          buffer.putInt(this.variables[v].length);
+          for (int k = 0; k < this.variables[v].length; k++) {
+            flushIfFull(digest, buffer);
+            buffer.putInt(this.variables[v][k]).putDouble(this.coefficients[v][k]);
+          }
+          buffer.putDouble(this.rightHandSides[v]);
+        }
+        flushIfFull(digest, buffer);
+      }
+      buffer.flip();
+      digest.update(buffer);
+      return digest.digest();
+    }
+
+    /**
+     * Feeds the contents of the given buffer to the digest if there might not be room for another term.
+     */
+    private static void flushIfFull(MessageDigest digest, ByteBuffer buffer) {
+      if (buffer.remaining() < 32) {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+      }
+    }
+
+    /**
+     * The number of nodes, not counting the root.
+     */
+    final int nodeCount;
+
+    /**
+     * For each variable, the variables in its equation, in increasing order, or null if it has no equation.
+     */
+    final int[][] variables;
+
+    /**
+     * For each variable, the coefficients of the variables in its equation.
+     */
+    final double[][] coefficients;
+
+    /**
+     * For each variable, the right hand side of its equation.
+     */
+    final double[] rightHandSides;
+
+    /**
+     * The fingerprint identifying this structure.
+     */
+    final byte[] fingerprint;
+
+    /**
+     * The plan compiled from this structure, once there is one. See LayoutEngine.
+     */
+    volatile LayoutPlan plan;
+  }
+
+  /**
+   * The magic number at the start of every plan: 'RLPL'.
+   */
+  static final int MAGIC = 0x524C504C;
+
+  /**
+   * The version of the binary format, which is also part of every fingerprint.
+   */
+  static final int VERSION = 1;
+
+  /**
+   * The number of bytes in a fingerprint.
+   */
+  static final int FINGERPRINT_LENGTH = 32;
+
+  /**
+   * Weights this close to a multiple of WEIGHT_GRID are rounded to it, to remove the rounding errors of the
+   * factorization from weights that are really simple fractions.
+   */
+  private static final double WEIGHT_TOLERANCE = 1e-9;
+
+  /**
+   * See WEIGHT_TOLERANCE.
+   */
+  private static final double WEIGHT_GRID = 1.0 / 65536;
+
+  /**
+   * Compiles a plan from the given structure by solving its equations once for every parameter.
+   *
+   * @param structure The structure to compile.
+   * @return The plan.
+   * @throws AmbiguousLayoutException if the equations do not have exactly one solution.
+   */
+  static LayoutPlan compile(Structure structure) {
+    int nodeCount = structure.nodeCount;
+    int size = (nodeCount + 1) * 4;
+    int parameterCount = nodeCount * 2 + 2;
+
+    // One column of the right hand side for each parameter that is some variable's default, and one for the constants.
+    int[] columns = new int[size];
+    int[] columnParameters = new int[parameterCount];
+    int columnCount = 0;
+    for (int v = 0; v < size; v++) {
+      int parameter = (structure.variables[v] == null ? parameterFor(v, nodeCount) : -1);
+      columns[v] = (parameter >= 0 ? columnCount : -1);
+      if (parameter >= 0) {
+        columnParameters[columnCount++] = parameter;
+      }
+    }
+
+    double[][] body = new double[size][size];
+    double[][] rightHandSides = new double[size][columnCount + 1];
+    for (int v = 0; v < size; v++) {
+      // As in RelativeMatrix, a variable's own coefficient is 1 unless its equation says otherwise.
+      body[v][v] = 1;
+      if (structure.variables[v] == null) {
+        if (columns[v] >= 0) {
+          rightHandSides[v][columns[v]] = 1;
+        }
+      } else {
+        for (int k = 0; k < structure.variables[v].length; k++) {
+          body[v][structure.variables[v][k]] = structure.coefficients[v][k];
+        }
+        rightHandSides[v][columnCount] = structure.rightHandSides[v];
+      }
+    }
+
+    LUDecomposition decomposition = new LUDecomposition(new Matrix(body));
+    if (!decomposition.isNonsingular()) {
+      throw new AmbiguousLayoutException();
+    }
+    double[][] solution = decomposition.solve(new Matrix(rightHandSides)).getArray();
+
+    int outputs = nodeCount * 4;
+    double[] constants = new double[outputs];
+    int[] termStarts = new int[outputs + 1];
+    int[] parameters = new int[outputs * 2];
+    double[] weights = new double[outputs * 2];
+    int termCount = 0;
+    for (int v = 0; v < outputs; v++) {
+      termStarts[v] = termCount;
+      constants[v] = clean(solution[v][columnCount]);
+      for (int c = 0; c < columnCount; c++) {
+        double weight = clean(solution[v][c]);
+        if (weight != 0) {
+          if (termCount == parameters.length) {
+            parameters = Arrays.copyOf(parameters, termCount * 2);
+            weights = Arrays.copyOf(weights, termCount * 2);
+          }
+          parameters[termCount] = columnParameters[c];
+          weights[termCount] = weight;
+          termCount++;
+        }
+      }
+    }
+    termStarts[outputs] = termCount;
+
+    return new LayoutPlan(structure.fingerprint, nodeCount, constants, termStarts, Arrays.copyOf(parameters, termCount),
+        Arrays.copyOf(weights, termCount));
+  }
+
+  /**
+   * Reads a plan in the binary format from the given buffer.
+   *
+   * @param buffer The buffer to read from, positioned at the start of the plan.
+   * @param expectedFingerprint The fingerprint the plan should have.
+   * @return The plan.
+   * @throws IOException if the buffer doesn't hold a valid plan with the expected fingerprint.
+   */
+  static LayoutPlan read(ByteBuffer buffer, byte[] expectedFingerprint) throws IOException {
+    try {
+      if (buffer.getInt() != LayoutPlan.MAGIC || buffer.getInt() != LayoutPlan.VERSION) {
+        throw new IOException("Not a layout plan, or a plan from a different version.");
+      }
+      byte[] fingerprint = new byte[LayoutPlan.FINGERPRINT_LENGTH];
+      buffer.get(fingerprint);
+      if (!Arrays.equals(fingerprint, expectedFingerprint)) {
+        throw new IOException("The layout plan has the wrong fingerprint.");
+      }
+
+      int nodeCount = buffer.getInt();
+      if (nodeCount < 0 || nodeCount > buffer.remaining() / 12) {
+        throw new IOException("The layout plan is corrupt.");
+      }
+      int outputs = nodeCount * 4;
+      int parameterCount = nodeCount * 2 + 2;
+      double[] constants = new double[outputs];
+      int[] termStarts = new int[outputs + 1];
+      int[] parameters = new int[outputs * 2];
+      double[] weights = new double[outputs * 2];
+      int termCount = 0;
+
+      for (int v = 0; v < outputs; v++) {
+        termStarts[v] = termCount;
+        constants[v] = buffer.getDouble();
+        int terms = buffer.getInt();
+        if (terms < 0 || terms > parameterCount) {
+          throw new IOException("The layout plan is corrupt.");
+        }
+        if (termCount + terms > parameters.length) {
+          int capacity = Math.max(parameters.length * 2, termCount + terms);
+          parameters = Arrays.copyOf(parameters, capacity);
+          weights = Arrays.copyOf(weights, capacity);
+        }
+        for (int k = 0; k < terms; k++) {
+          int parameter = buffer.getInt();
+          if (parameter < 0 || parameter >= parameterCount) {
+            throw new IOException("The layout plan is corrupt.");
+          }
+          parameters[termCount] = parameter;
+          weights[termCount] = buffer.getDouble();
+          termCount++;
+        }
+      }
+      termStarts[outputs] = termCount;
+
+      return new LayoutPlan(fingerprint, nodeCount, constants, termStarts, Arrays.copyOf(parameters, termCount), Arrays
+          .copyOf(weights, termCount));
+    } catch (BufferUnderflowException e) {
+      throw new IOException("The layout plan is truncated.");
+    }
+  }
+
+  /**
+   * Returns the parameter that is the default value of the given canonical variable, or -1 if its default is zero.
+   */
+  private static int parameterFor(int variable, int nodeCount) {
+    int node = variable / 4;
+    int type = variable % 4;
+    if (type < 2) {
+      // X and Y default to zero.
+      return -1;
+    }
+    return (node == nodeCount ? type - 2 : 2 + node * 2 + (type - 2));
+  }
+
+  /**
+   * Rounds away the factorization's rounding error from a weight that is very nearly a simple fraction.
+   */
+  private static double clean(double weight) {
+    double rounded = Math.rint(weight / LayoutPlan.WEIGHT_GRID) * LayoutPlan.WEIGHT_GRID;
+    return (Math.abs(weight - rounded) < LayoutPlan.WEIGHT_TOLERANCE ? rounded : weight);
+  }
+
+  /**
+   * Constructor for LayoutPlan.
+   */
+  private LayoutPlan(byte[] theFingerprint, int theNodeCount, double[] theConstants, int[] theTermStarts,
+                     int[] theParameters, double[] theWeights) {
+    this.fingerprint = theFingerprint;
+    this.nodeCount = theNodeCount;
+    this.constants = theConstants;
+    this.termStarts = theTermStarts;
+    this.parameters = theParameters;
+    this.weights = theWeights;
+  }
+
+  /**
+   * Works out the bounds of every node.
+   *
+   * @param width The width of the root.
+   * @param height The height of the root.
+   * @param preferredSizes The preferred width and height of each node in turn.
+   * @return The x, y, width, and height of each node in turn.
+   */
+  double[] evaluate(int width, int height, int[] preferredSizes) {
+    return evaluate(width, height, preferredSizes, new double[this.constants.length]);
+  }
+
+  /**
+   * Works out the bounds of every node into the given array, so that a plan can be evaluated over and over without
+   * allocating anything.
+   *
+   * @param width The width of the root.
+   * @param height The height of the root.
+   * @param preferredSizes The preferred width and height of each node in turn.
+   * @param ret The array to fill in with the x, y, width, and height of each node in turn.
+   * @return <code>ret</code>.
+   */
+  double[] evaluate(int width, int height, int[] preferredSizes, double[] ret) {
+    for (int v = 0; v < this.constants.length; v++) {
+      double value = this.constants[v];
+      for (int k = this.termStarts[v]; k < this.termStarts[v + 1]; k++) {
+        int parameter = this.parameters[k];
+        int argument = (parameter == 0 ? width : parameter == 1 ? height : preferredSizes[parameter - 2]);
+        value += this.weights[k] * argument;
+      }
+      ret[v] = value;
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the fingerprint of the structure this plan was compiled from.
+   */
+  byte[] getFingerprint() {
+    return this.fingerprint;
+  }
+
+  /**
+   * Returns the number of nodes laid out by this plan.
+   */
+  int getNodeCount() {
+    return this.nodeCount;
+  }
+
+  /**
+   * Returns the number of nonzero weights in this plan.
+   */
+  int getTermCount() {
+    return this.parameters.length;
+  }
+
+  /**
+   * Writes this plan in the binary format.
+   *
+   * @param out The stream to write to.
+   * @throws IOException if the stream can't be written to.
+   */
+  void write(DataOutputStream out) throws IOException {
+    out.writeInt(LayoutPlan.MAGIC);
+    out.writeInt(LayoutPlan.VERSION);
+    out.write(this.fingerprint);
+    out.writeInt(this.nodeCount);
+    for (int v = 0; v < this.constants.length; v++) {
+      out.writeDouble(this.constants[v]);
+      out.writeInt(this.termStarts[v + 1] - this.termStarts[v]);
+      for (int k = this.termStarts[v]; k < this.termStarts[v + 1]; k++) {
+        out.writeInt(this.parameters[k]);
+        out.writeDouble(this.weights[k]);
+      }
+    }
+  }
+
+  /**
+   * The fingerprint of the structure this plan was compiled from.
+   */
+  private final byte[] fingerprint;
+
+  /**
+   * The number of nodes laid out by this plan.
+   */
+  private final int nodeCount;
+
+  /**
+   * The constant part of each bound.
+   */
+  private final double[] constants;
+
+  /**
+   * Where each bound's terms start in parameters and weights; the terms of bound <em>v</em> run up to the start of
+   * those of bound <em>v</em> + 1.
+   */
+  private final int[] termStarts;
+
+  /**
+   * The parameter of each term.
+   */
+  private final int[] parameters;
+
+  /**
+   * The weight of each term.
+   */
+  private final double[] weights;
+}
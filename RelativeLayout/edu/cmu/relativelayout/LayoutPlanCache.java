@@ -0,0 +1,203 @@
+/**
+ * LayoutPlanCache.java<br>
+ * Contains class LayoutPlanCache.
+ */
+package edu.cmu.relativelayout;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A directory of compiled layouts, so that an application doesn't have to solve the same layouts from scratch every
+ * time it starts. The first time a layout with a given structure (the same Bindings between the same number of nodes)
+ * is solved, its solution is compiled into a plan that gives the bounds of every node directly in terms of the size of
+ * the root and the preferred sizes of the nodes, and the plan is saved in the directory under a fingerprint of the
+ * structure. Later layouts with that structure, in this run or the next, read the plan back by memory-mapping the file
+ * and skip the solver, however the sizes change. Layouts whose structure has changed just get a new plan.<br>
+ * <br>
+ * For example, to keep plans in the user's home directory:
+ *
+ * <pre>
+ * RelativeLayout.setDefaultPlanCache(new LayoutPlanCache(new File(System.getProperty(&quot;user.home&quot;),
+ *     &quot;.myapp/layouts&quot;)));
+ * </pre>
+ *
+ * A LayoutPlanCache may be shared by any number of layouts and threads. Problems reading or writing the directory are
+ * never fatal: a plan that can't be read is compiled again, and one that can't be written is just kept in memory.
+ *
+ * @see LayoutEngine#setPlanCache(LayoutPlanCache)
+ */
+public class LayoutPlanCache {
+
+  /**
+   * The extension of plan files.
+   */
+  private static final String EXTENSION = ".rlplan";
+
+  /**
+   * The most plans kept in memory at once. Plans beyond this are dropped, least recently used first, and read back
+   * from the directory if they are needed again.
+   */
+  static final int MEMORY_LIMIT = 64;
+
+  /**
+   * Constructs a LayoutPlanCache that keeps its plans in the given directory, creating it when the first plan is saved.
+   *
+   * @param theDirectory The directory.
+   */
+  public LayoutPlanCache(File theDirectory) {
+    if (theDirectory == null) {
+      throw new IllegalArgumentException("A LayoutPlanCache needs a directory.");
+    }
+    this.directory = theDirectory;
+  }
+
+  /**
+   * Deletes every plan in the directory, and forgets every plan in memory.
+   */
+  public void clear() {
+    this.plans.clear();
+    File[] files = this.directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.getName().endsWith(LayoutPlanCache.EXTENSION)) {
+          file.delete();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the directory this cache keeps its plans in.
+   */
+  public File getDirectory() {
+    return this.directory;
+  }
+
+  /**
+   * Returns the plan with the given fingerprint, from memory if it has been used before and otherwise from the
+   * directory, or <code>null</code> if there isn't one.
+   */
+  LayoutPlan load(byte[] theFingerprint) {
+    String name = LayoutPlanCache.toHex(theFingerprint);
+    LayoutPlan ret = this.plans.get(name);
+    if (ret != null) {
+      return ret;
+    }
+
+    File file = new File(this.directory, name + LayoutPlanCache.EXTENSION);
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      try {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        ret = LayoutPlan.read(buffer, theFingerprint);
+      } finally {
+        channel.close();
+      }
+    } catch (IOException e) {
+      // The file is unreadable or corrupt; it will be replaced when the plan is compiled again.
+      return null;
+    }
+
+    synchronized (this.plans) {
+      LayoutPlan existing = this.plans.get(name);
+      if (existing != null) {
+        return existing;
+      }
+      this.plans.put(name, ret);
+    }
+    return ret;
+  }
+
+  /**
+   * Remembers the given plan, and saves it in the directory if it can.
+   */
+  void store(LayoutPlan thePlan) {
+    String name = LayoutPlanCache.toHex(thePlan.getFingerprint());
+    synchronized (this.plans) {
+      if (this.plans.containsKey(name)) {
+        return;
+      }
+      this.plans.put(name, thePlan);
+    }
+
+    File file = new File(this.directory, name + LayoutPlanCache.EXTENSION);
+    File temp = null;
+    try {
+      if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+        return;
+      }
+      // Write to a temporary file first, so that no one ever maps a half-written plan.
+      temp = File.createTempFile(name, ".tmp", this.directory);
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+      try {
+        thePlan.write(out);
+      } finally {
+        out.close();
+      }
+      try {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      temp = null;
+    } catch (IOException e) {
+      // The plan is still remembered in memory, so this run doesn't lose anything.
+    } finally {
+      if (temp != null) {
+        temp.delete();
+      }
+    }
+  }
+
+  /**
+   * Returns the given bytes as a string of hexadecimal digits.
+   */
+  private static String toHex(byte[] bytes) {
+    StringBuilder builder = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+      builder.append(Character.forDigit(b & 0xF, 16));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * The directory holding the plans.
+   */
+  private final File directory;
+
+  /**
+   * The plans used most recently, by the hexadecimal form of their fingerprints, in order of use. Compound updates
+   * synchronize on the map itself.
+   */
+  private final Map<String, LayoutPlan> plans = Collections.synchronizedMap(new LinkedHashMap<String, LayoutPlan>(16,
+      0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+     */
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, LayoutPlan> eldest) {
+      return size() > LayoutPlanCache.MEMORY_LIMIT;
+    }
+  });
+}
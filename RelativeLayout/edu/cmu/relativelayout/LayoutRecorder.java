@@ -0,0 +1,229 @@
+/**
+ * LayoutRecorder.java<br>
+ * Contains class LayoutRecorder.
+ */
+package edu.cmu.relativelayout;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records every layout pass to a compact binary log, so that layouts that are slow on a customer's machine can be
+ * reproduced and profiled elsewhere with {@link LayoutReplay}. Recording is off unless a recorder is installed with
+ * {@link RelativeLayout#setLayoutRecorder(LayoutRecorder)}:
+ *
+ * <pre>
+ * LayoutRecorder recorder = new LayoutRecorder(new File(&quot;layouts.rlrec&quot;));
+ * RelativeLayout.setLayoutRecorder(recorder);
+ * ...
+ * RelativeLayout.setLayoutRecorder(null);
+ * recorder.close();
+ * </pre>
+ *
+ * For each pass the log holds the equations of the layout, the size of the container, the preferred size of every
+ * component, and how long each phase of the pass took. Equations are kept in the same canonical form used to
+ * fingerprint compiled plans, which identifies components by their position in the layout rather than by what they
+ * are, so a log contains no application data beyond the class names of the containers. Each distinct set of equations
+ * is written once, the first time it is laid out, and later passes just refer to it.<br>
+ * <br>
+ * Problems writing the log are never fatal to the application: recording just stops, and the problem can be found with
+ * {@link #getError()}. A recorder may be used by any number of threads.<br>
+ * <br>
+ * The binary format, all big-endian, is:
+ *
+ * <pre>
+ * int     magic number, 'RLRC'
+ * int     format version
+ * then any number of records, each starting with a tag byte:
+ * 'S'  a set of equations:
+ *   int     structure number, counting from 0
+ *   UTF     class name of the container first laid out with it
+ *   ...     the equations, as written by LayoutPlan.Structure
+ * 'P'  a layout pass:
+ *   int     structure number
+ *   long    time of the pass, in milliseconds since the epoch
+ *   int     width and height of the container
+ *   int     preferred width and height of each component in turn
+ *   byte    flags: 1 if the solution was cached, 2 if the pass failed
+ *   long    nanoseconds spent on preferred sizes, building, solving, and setting bounds
+ * </pre>
+ */
+public final class LayoutRecorder implements Closeable {
+
+  /**
+   * The magic number at the start of every log: 'RLRC'.
+   */
+  static final int MAGIC = 0x524C5243;
+
+  /**
+   * The version of the binary format.
+   */
+  static final int VERSION = 1;
+
+  /**
+   * The tag of a structure record.
+   */
+  static final byte STRUCTURE = 'S';
+
+  /**
+   * The tag of a pass record.
+   */
+  static final byte PASS = 'P';
+
+  /**
+   * The flag set on passes whose solution was cached.
+   */
+  static final int CACHED = 1;
+
+  /**
+   * The flag set on passes that failed.
+   */
+  static final int FAILED = 2;
+
+  /**
+   * Constructs a LayoutRecorder that writes a new log to the given file, replacing anything already there.
+   *
+   * @param theFile The file.
+   * @throws IOException if the file can't be created.
+   */
+  public LayoutRecorder(File theFile) throws IOException {
+    this(new FileOutputStream(theFile));
+  }
+
+  /**
+   * Constructs a LayoutRecorder that writes a log to the given stream. The stream is closed when the recorder is.
+   *
+   * @param theStream The stream.
+   * @throws IOException if the start of the log can't be written.
+   */
+  public LayoutRecorder(OutputStream theStream) throws IOException {
+    this.output = new DataOutputStream(new BufferedOutputStream(theStream));
+    this.output.writeInt(LayoutRecorder.MAGIC);
+    this.output.writeInt(LayoutRecorder.VERSION);
+  }
+
+  /**
+   * Stops recording, and closes the log.
+   *
+   * @throws IOException if the end of the log can't be written.
+   */
+  public synchronized void close() throws IOException {
+    if (this.output != null) {
+      DataOutputStream closing = this.output;
+      this.output = null;
+      closing.close();
+    }
+  }
+
+  /**
+   * Writes any passes that have been recorded but are still buffered to the log.
+   *
+   * @throws IOException if they can't be written.
+   */
+  public synchronized void flush() throws IOException {
+    if (this.output != null) {
+      this.output.flush();
+    }
+  }
+
+  /**
+   * Returns the problem that stopped recording, or <code>null</code> if there hasn't been one.
+   */
+  public synchronized IOException getError() {
+    return this.error;
+  }
+
+  /**
+   * Returns the number of passes recorded so far.
+   */
+  public synchronized int getPassCount() {
+    return this.passCount;
+  }
+
+  /**
+   * Returns <code>true</code> if passes are still being recorded: the recorder hasn't been closed, and writing to it
+   * hasn't failed.
+   */
+  public synchronized boolean isRecording() {
+    return this.output != null;
+  }
+
+  /**
+   * Adds a pass to the log.
+   *
+   * @param theStructure The equations that were laid out.
+   * @param theContainerClass The class name of the container.
+   * @param width The width of the container.
+   * @param height The height of the container.
+   * @param thePreferredSizes The preferred width and height of each component in turn.
+   * @param flags CACHED and FAILED, as appropriate.
+   * @param theNanos The nanoseconds spent on preferred sizes, building, solving, and setting bounds.
+   */
+  synchronized void record(LayoutPlan.Structure theStructure, String theContainerClass, int width, int height,
+      int[] thePreferredSizes, int flags, long[] theNanos) {
+    if (this.output == null) {
+      return;
+    }
+    try {
+      ByteBuffer fingerprint = ByteBuffer.wrap(theStructure.fingerprint);
+      Integer number = this.structureNumbers.get(fingerprint);
+      if (number == null) {
+        number = Integer.valueOf(this.structureNumbers.size());
+        this.output.writeByte(LayoutRecorder.STRUCTURE);
+        this.output.writeInt(number.intValue());
+        this.output.writeUTF(theContainerClass);
+        theStructure.write(this.output);
+        this.structureNumbers.put(fingerprint, number);
+      }
+
+      this.output.writeByte(LayoutRecorder.PASS);
+      this.output.writeInt(number.intValue());
+      this.output.writeLong(System.currentTimeMillis());
+      this.output.writeInt(width);
+      this.output.writeInt(height);
+      for (int size : thePreferredSizes) {
+        this.output.writeInt(size);
+      }
+      this.output.writeByte(flags);
+      for (long nanos : theNanos) {
+        this.output.writeLong(nanos);
+      }
+      this.passCount++;
+    } catch (IOException e) {
+      this.error = e;
+      try {
+        close();
+      } catch (IOException ignored) {
+        // Already failed; the first problem is the interesting one.
+      }
+    }
+  }
+
+  /**
+   * The log, or null once recording has stopped.
+   */
+  private DataOutputStream output;
+
+  /**
+   * The number of each structure written so far, by fingerprint.
+   */
+  private final Map<ByteBuffer, Integer> structureNumbers = new HashMap<ByteBuffer, Integer>();
+
+  /**
+   * The number of passes recorded.
+   */
+  private int passCount;
+
+  /**
+   * The problem that stopped recording, if any.
+   */
+  private IOException error;
+}
@@ -0,0 +1,450 @@
+/**
+ * LayoutReplay.java<br>
+ * Contains class LayoutReplay.
+ */
+package edu.cmu.relativelayout;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.cmu.relativelayout.equation.Equation;
+import edu.cmu.relativelayout.equation.Variable;
+import edu.cmu.relativelayout.matrix.RelativeMatrix;
+
+/**
+ * Reads back the passes in a log written by a {@link LayoutRecorder}, one at a time, without any AWT components. Each
+ * pass gives the equations that were solved, exactly as the layout's matrix held them, so they can be fed to
+ * {@link RelativeMatrix} or to any other solver to reproduce and benchmark the layouts in the log:
+ *
+ * <pre>
+ * LayoutReplay replay = new LayoutReplay(new FileInputStream(&quot;layouts.rlrec&quot;));
+ * while (replay.next()) {
+ *   Map&lt;Variable, Double&gt; solution = replay.createMatrix().solve();
+ *   ...
+ * }
+ * replay.close();
+ * </pre>
+ *
+ * Components are identified by their position in the layout, so the variables of component <em>i</em> are named
+ * <code>node</code><em>i</em><code>.x</code>, <code>.y</code>, <code>.width</code>, and <code>.height</code>, and those
+ * of the container <code>root.x</code> and so on.<br>
+ * <br>
+ * Run from the command line, LayoutReplay solves every pass in a log that wasn't answered from a cache, and prints how
+ * long each layout took when it was recorded and when it was replayed:
+ *
+ * <pre>
+ * java -cp relativelayout.jar:Jama-1.0.2.jar edu.cmu.relativelayout.LayoutReplay &lt;log&gt; [matrix|blocks] [repeats]
+ * </pre>
+ *
+ * The <code>matrix</code> solver, the default, is {@link RelativeMatrix#solve()}; <code>blocks</code> is
+ * {@link RelativeMatrix#solve(Map, java.util.Collection)}.
+ */
+public final class LayoutReplay implements Closeable {
+
+  /**
+   * The names of the variables of each node, in canonical order.
+   */
+  private static final String[] BOUND_NAMES = { "x", "y", "width", "height" };
+
+  /**
+   * Replays the log named on the command line. See the class comment for the arguments.
+   */
+  public static void main(String[] args) {
+    if (args.length < 1 || args.length > 3) {
+      System.err.println("Usage: LayoutReplay <log> [matrix|blocks] [repeats]");
+      System.exit(2);
+    }
+    boolean blocks = (args.length > 1 && args[1].equals("blocks"));
+    int repeats = (args.length > 2 ? Integer.parseInt(args[2]) : 1);
+
+    List<String> containers = new ArrayList<String>();
+    List<long[]> totals = new ArrayList<long[]>();
+    boolean failed = false;
+    try {
+      LayoutReplay replay = new LayoutReplay(new FileInputStream(args[0]));
+      try {
+        while (replay.next()) {
+          int structure = replay.getStructureNumber();
+          while (totals.size() <= structure) {
+            containers.add(null);
+            totals.add(new long[5]);
+          }
+          containers.set(structure, replay.getContainerClass());
+          long[] total = totals.get(structure);
+          total[0]++;
+          if (replay.isCached() || replay.isFailed()) {
+            continue;
+          }
+
+          // Passes, solved passes, recorded nanos, replayed nanos, core variables.
+          total[1]++;
+          total[2] += replay.getBuildNanos() + replay.getSolveNanos();
+          for (int r = 0; r < repeats; r++) {
+            long start = System.nanoTime();
+            if (blocks) {
+              RelativeMatrix.solve(replay.getEquations(), Arrays.asList(replay.getVariables()));
+            } else {
+              RelativeMatrix matrix = replay.createMatrix();
+              matrix.solve();
+              total[4] = matrix.getCoreVariableCount();
+            }
+            total[3] += System.nanoTime() - start;
+          }
+        }
+      } finally {
+        replay.close();
+      }
+    } catch (IOException e) {
+      // Report the passes read before the problem anyway.
+      System.err.println("Could not read " + args[0] + ": " + e.getMessage());
+      failed = true;
+    }
+
+    for (int s = 0; s < totals.size(); s++) {
+      long[] total = totals.get(s);
+      if (total[0] == 0) {
+        continue;
+      }
+      StringBuilder line = new StringBuilder();
+      line.append("Structure ").append(s).append(" (").append(containers.get(s)).append("): ");
+      line.append(total[0]).append(" passes, ").append(total[1]).append(" solved");
+      if (total[1] > 0) {
+        line.append(String.format(", recorded %.3f ms, replayed %.3f ms", total[2] / 1e6 / total[1], total[3] / 1e6
+            / total[1] / repeats));
+        if (!blocks) {
+          line.append(", ").append(total[4]).append(" core variables");
+        }
+      }
+      System.out.println(line);
+    }
+    if (failed) {
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Constructs a LayoutReplay that reads a log from the given stream. The stream is closed when the replay is.
+   *
+   * @param theStream The stream.
+   * @throws IOException if the stream doesn't hold a log this version can read.
+   */
+  public LayoutReplay(InputStream theStream) throws IOException {
+    this.input = new DataInputStream(new BufferedInputStream(theStream));
+    if (this.input.readInt() != LayoutRecorder.MAGIC) {
+      throw new IOException("Not a layout log.");
+    }
+    int version = this.input.readInt();
+    if (version != LayoutRecorder.VERSION) {
+      throw new IOException("Unsupported layout log version " + version + ".");
+    }
+  }
+
+  /**
+   * Closes the log.
+   *
+   * @throws IOException if it can't be closed.
+   */
+  public void close() throws IOException {
+    this.input.close();
+  }
+
+  /**
+   * Returns the time spent building the layout's matrix when the current pass was recorded.
+   */
+  public long getBuildNanos() {
+    return this.nanos[1];
+  }
+
+  /**
+   * Returns the class name of the first container laid out with the current pass's equations.
+   */
+  public String getContainerClass() {
+    return this.containerClasses.get(this.structureNumber);
+  }
+
+  /**
+   * Returns the equation defining each variable of the current pass, in canonical order: every variable has one, either
+   * from a Binding or the default that the layout gave it (the preferred size for a component's width and height, the
+   * container's size for its own, and 0 for positions).
+   *
+   * @return A new map of the equations.
+   */
+  public Map<Variable, Equation> getEquations() {
+    Variable[] variables = getVariables();
+    LayoutPlan.Structure structure = currentStructure();
+    Map<Variable, Equation> ret = new LinkedHashMap<Variable, Equation>();
+    for (int v = 0; v < variables.length; v++) {
+      ConcreteEquation equation = new ConcreteEquation();
+      if (structure.variables[v] == null) {
+        equation.setCoefficient(1, variables[v]);
+        equation.setRightHandSide(defaultValue(v));
+      } else {
+        for (int k = 0; k < structure.variables[v].length; k++) {
+          equation.setCoefficient(structure.coefficients[v][k], variables[structure.variables[v][k]]);
+        }
+        equation.setRightHandSide(structure.rightHandSides[v]);
+      }
+      ret.put(variables[v], equation);
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the height of the container in the current pass.
+   */
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Returns the number of components in the current pass.
+   */
+  public int getNodeCount() {
+    return currentStructure().nodeCount;
+  }
+
+  /**
+   * Returns the preferred height of the given component in the current pass.
+   */
+  public int getPreferredHeight(int index) {
+    return this.preferredSizes[index * 2 + 1];
+  }
+
+  /**
+   * Returns the time spent asking for preferred sizes when the current pass was recorded.
+   */
+  public long getPreferredSizeNanos() {
+    return this.nanos[0];
+  }
+
+  /**
+   * Returns the preferred width of the given component in the current pass.
+   */
+  public int getPreferredWidth(int index) {
+    return this.preferredSizes[index * 2];
+  }
+
+  /**
+   * Returns the time spent setting bounds when the current pass was recorded.
+   */
+  public long getSetBoundsNanos() {
+    return this.nanos[3];
+  }
+
+  /**
+   * Returns the time spent solving when the current pass was recorded.
+   */
+  public long getSolveNanos() {
+    return this.nanos[2];
+  }
+
+  /**
+   * Returns the number of the current pass's equations among the distinct sets of equations in the log, counting from
+   * 0 in the order they first appear. Passes with the same number laid out the same Bindings.
+   */
+  public int getStructureNumber() {
+    return this.structureNumber;
+  }
+
+  /**
+   * Returns the time at which the current pass was recorded, in milliseconds since the epoch.
+   */
+  public long getTime() {
+    return this.time;
+  }
+
+  /**
+   * Returns the variables of the current pass in canonical order: the x, y, width, and height of each component in
+   * turn, then those of the container.
+   *
+   * @return A new array of the variables.
+   */
+  public Variable[] getVariables() {
+    int count = currentStructure().nodeCount;
+    Variable[] ret = new Variable[(count + 1) * 4];
+    for (int i = 0; i <= count; i++) {
+      String prefix = (i < count ? "node" + i : "root");
+      for (int t = 0; t < 4; t++) {
+        ret[i * 4 + t] = Variable.get(prefix + "." + LayoutReplay.BOUND_NAMES[t]);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the width of the container in the current pass.
+   */
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Returns <code>true</code> if the current pass's solution came from a cache when it was recorded, so that nothing
+   * was actually solved.
+   */
+  public boolean isCached() {
+    return (this.flags & LayoutRecorder.CACHED) != 0;
+  }
+
+  /**
+   * Returns <code>true</code> if the current pass failed when it was recorded.
+   */
+  public boolean isFailed() {
+    return (this.flags & LayoutRecorder.FAILED) != 0;
+  }
+
+  /**
+   * Returns a new matrix holding the current pass's equations (see {@link #getEquations()}), ready to be solved.
+   */
+  public RelativeMatrix createMatrix() {
+    RelativeMatrix ret = new RelativeMatrix();
+    for (Map.Entry<Variable, Equation> entry : getEquations().entrySet()) {
+      ret.addEquation(entry.getKey(), entry.getValue());
+    }
+    return ret;
+  }
+
+  /**
+   * Moves on to the next pass in the log.
+   *
+   * @return <code>true</code> if there was another pass, <code>false</code> at the end of the log.
+   * @throws IOException if the log can't be read, is corrupt, or ends part way through a record. The passes returned
+   *           before then are still good.
+   */
+  public boolean next() throws IOException {
+    while (true) {
+      int tag = this.input.read();
+      if (tag < 0) {
+        return false;
+      }
+      try {
+        if (tag == LayoutRecorder.STRUCTURE) {
+          int number = this.input.readInt();
+          if (number != this.structures.size()) {
+            throw new IOException("Structure " + number + " is out of order.");
+          }
+          this.containerClasses.add(this.input.readUTF());
+          this.structures.add(LayoutPlan.Structure.read(this.input));
+        } else if (tag == LayoutRecorder.PASS) {
+          readPass();
+          return true;
+        } else {
+          throw new IOException("Unknown record type " + tag + ".");
+        }
+      } catch (EOFException e) {
+        // The log was cut short, perhaps because the application was killed. The passes already returned are complete.
+        throw new EOFException("The log ends part way through a record.");
+      }
+    }
+  }
+
+  /**
+   * Reads the rest of a pass record.
+   */
+  private void readPass() throws IOException {
+    int number = this.input.readInt();
+    if (number < 0 || number >= this.structures.size()) {
+      throw new IOException("Pass refers to unknown structure " + number + ".");
+    }
+    this.structureNumber = number;
+    this.time = this.input.readLong();
+    this.width = this.input.readInt();
+    this.height = this.input.readInt();
+    this.preferredSizes = new int[this.structures.get(number).nodeCount * 2];
+    for (int i = 0; i < this.preferredSizes.length; i++) {
+      this.preferredSizes[i] = this.input.readInt();
+    }
+    this.flags = this.input.readByte();
+    if ((this.flags & ~(LayoutRecorder.CACHED | LayoutRecorder.FAILED)) != 0) {
+      throw new IOException("Invalid pass flags " + this.flags + ".");
+    }
+    for (int i = 0; i < this.nanos.length; i++) {
+      this.nanos[i] = this.input.readLong();
+    }
+  }
+
+  /**
+   * Returns the structure of the current pass.
+   */
+  private LayoutPlan.Structure currentStructure() {
+    if (this.structureNumber < 0) {
+      throw new IllegalStateException("next() has not returned a pass yet.");
+    }
+    return this.structures.get(this.structureNumber);
+  }
+
+  /**
+   * Returns the value the given canonical variable has when no Binding defines it.
+   */
+  private int defaultValue(int theVariable) {
+    int node = theVariable / 4;
+    int bound = theVariable % 4;
+    if (bound < 2) {
+      return 0;
+    }
+    if (node == currentStructure().nodeCount) {
+      return (bound == 2 ? this.width : this.height);
+    }
+    return this.preferredSizes[node * 2 + bound - 2];
+  }
+
+  /**
+   * The log.
+   */
+  private final DataInputStream input;
+
+  /**
+   * Each distinct set of equations read so far, by number.
+   */
+  private final List<LayoutPlan.Structure> structures = new ArrayList<LayoutPlan.Structure>();
+
+  /**
+   * The container class first laid out with each set of equations.
+   */
+  private final List<String> containerClasses = new ArrayList<String>();
+
+  /**
+   * The number of the current pass's set of equations, or -1 before the first pass.
+   */
+  private int structureNumber = -1;
+
+  /**
+   * The time the current pass was recorded.
+   */
+  private long time;
+
+  /**
+   * The width of the container in the current pass.
+   */
+  private int width;
+
+  /**
+   * The height of the container in the current pass.
+   */
+  private int height;
+
+  /**
+   * The preferred width and height of each component in the current pass.
+   */
+  private int[] preferredSizes;
+
+  /**
+   * CACHED and FAILED, as recorded for the current pass.
+   */
+  private int flags;
+
+  /**
+   * The nanoseconds spent on preferred sizes, building, solving, and setting bounds in the current pass.
+   */
+  private final long[] nanos = new long[4];
+}
@@ -0,0 +1,227 @@
+/**
+ * LayoutStatistics.java<br>
+ * Contains class LayoutStatistics.
+ */
+package edu.cmu.relativelayout;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+import edu.cmu.relativelayout.matrix.AmbiguousLayoutException;
+
+/**
+ * Running totals describing the layouts done by one {@link RelativeLayout}, or by all of them (see
+ * {@link RelativeLayout#getStatistics()} and {@link RelativeLayout#getGlobalStatistics()}). The counters are striped,
+ * so updating them from several threads at once costs next to nothing; reading them while layouts are in progress gives
+ * a close approximation rather than an exact snapshot.
+ */
+public final class LayoutStatistics {
+
+  /**
+   * Constructs a LayoutStatistics that also adds everything it records to the given statistics.
+   * 
+   * @param theParent The statistics to forward to, or <code>null</code> if none.
+   */
+  LayoutStatistics(LayoutStatistics theParent) {
+    this.parent = theParent;
+  }
+
+  /**
+   * Returns the number of layouts whose solutions were found in the solution cache, without solving.
+   */
+  public long getCacheHits() {
+    return this.cacheHits.sum();
+  }
+
+  /**
+   * Returns the number of layouts that failed because their constraints were ambiguous.
+   */
+  public long getAmbiguousLayouts() {
+    return this.ambiguousLayouts.sum();
+  }
+
+  /**
+   * Returns the number of layouts that failed for any reason.
+   */
+  public long getFailures() {
+    return this.failures.sum();
+  }
+
+  /**
+   * Returns the number of layout passes, whether they succeeded or not.
+   */
+  public long getLayoutPasses() {
+    return this.layoutPasses.sum();
+  }
+
+  /**
+   * Returns the total time spent building matrices, in nanoseconds.
+   */
+  public long getMatrixBuildNanos() {
+    return this.matrixBuildNanos.sum();
+  }
+
+  /**
+   * Returns the largest number of variables in any matrix that was laid out.
+   */
+  public long getMaxVariableCount() {
+    return this.maxVariableCount.get();
+  }
+
+  /**
+   * Returns the total time spent asking components for their preferred sizes, in nanoseconds.
+   */
+  public long getPreferredSizeNanos() {
+    return this.preferredSizeNanos.sum();
+  }
+
+  /**
+   * Returns the total time spent setting the bounds of components, in nanoseconds.
+   */
+  public long getSetBoundsNanos() {
+    return this.setBoundsNanos.sum();
+  }
+
+  /**
+   * Returns the number of layouts whose matrices were actually solved.
+   */
+  public long getSolves() {
+    return this.solves.sum();
+  }
+
+  /**
+   * Returns the total time spent solving matrices, in nanoseconds.
+   */
+  public long getSolveNanos() {
+    return this.solveNanos.sum();
+  }
+
+  /**
+   * Returns the total number of variables over every matrix that was laid out. Divide by the number of layout passes to
+   * find the average size of a matrix.
+   */
+  public long getTotalVariableCount() {
+    return this.totalVariableCount.sum();
+  }
+
+  /**
+   * Sets every counter back to zero. Statistics that these are forwarded to are not affected.
+   */
+  public void reset() {
+    this.layoutPasses.reset();
+    this.solves.reset();
+    this.cacheHits.reset();
+    this.failures.reset();
+    this.ambiguousLayouts.reset();
+    this.totalVariableCount.reset();
+    this.maxVariableCount.reset();
+    this.preferredSizeNanos.reset();
+    this.matrixBuildNanos.reset();
+    this.solveNanos.reset();
+    this.setBoundsNanos.reset();
+  }
+
+  @Override
+  public String toString() {
+    return "LayoutStatistics[passes=" + getLayoutPasses() + ", solves=" + getSolves() + ", cacheHits=" + getCacheHits()
+        + ", failures=" + getFailures() + ", ambiguous=" + getAmbiguousLayouts() + ", totalVariables="
+        + getTotalVariableCount() + ", maxVariables=" + getMaxVariableCount() + ", preferredSizeNanos="
+        + getPreferredSizeNanos() + ", matrixBuildNanos=" + getMatrixBuildNanos() + ", solveNanos=" + getSolveNanos()
+        + ", setBoundsNanos=" + getSetBoundsNanos() + "]";
+  }
+
+  /**
+   * Records one layout pass, here and in the statistics these are forwarded to.
+   * 
+   * @param event The pass to record.
+   */
+  void record(LayoutEvent event) {
+    this.layoutPasses.increment();
+    if (event.isCacheHit()) {
+      this.cacheHits.increment();
+    } else if (event.getSolveNanos() > 0) {
+      this.solves.increment();
+    }
+    if (event.getFailure() != null) {
+      this.failures.increment();
+      if (event.getFailure() instanceof AmbiguousLayoutException) {
+        this.ambiguousLayouts.increment();
+      }
+    }
+    this.totalVariableCount.add(event.getVariableCount());
+    this.maxVariableCount.accumulate(event.getVariableCount());
+    this.preferredSizeNanos.add(event.getPreferredSizeNanos());
+    this.matrixBuildNanos.add(event.getMatrixBuildNanos());
+    this.solveNanos.add(event.getSolveNanos());
+    this.setBoundsNanos.add(event.getSetBoundsNanos());
+
+    if (this.parent != null) {
+      this.parent.record(event);
+    }
+  }
+
+  /**
+   * The statistics to forward everything to, or null if none.
+   */
+  private final LayoutStatistics parent;
+
+  /**
+   * The number of layout passes.
+   */
+  private final LongAdder layoutPasses = new LongAdder();
+
+  /**
+   * The number of matrices solved.
+   */
+  private final LongAdder solves = new LongAdder();
+
+  /**
+   * The number of solutions found in the cache.
+   */
+  private final LongAdder cacheHits = new LongAdder();
+
+  /**
+   * The number of failed layouts.
+   */
+  private final LongAdder failures = new LongAdder();
+
+  /**
+   * The number of layouts that failed with an AmbiguousLayoutException.
+   */
+  private final LongAdder ambiguousLayouts = new LongAdder();
+
+  /**
+   * The total number of variables laid out.
+   */
+  private final LongAdder totalVariableCount = new LongAdder();
+
+  /**
+   * The largest number of variables laid out at once.
+   */
+  private final LongAccumulator maxVariableCount = new LongAccumulator(new LongBinaryOperator() {
+    public long applyAsLong(long left, long right) {
+      return Math.max(left, right);
+    }
+  }, 0);
+
+  /**
+   * The time spent asking for preferred sizes.
+   */
+  private final LongAdder preferredSizeNanos = new LongAdder();
+
+  /**
+   * The time spent building matrices.
+   */
+  private final LongAdder matrixBuildNanos = new LongAdder();
+
+  /**
+   * The time spent solving matrices.
+   */
+  private final LongAdder solveNanos = new LongAdder();
+
+  /**
+   * The time spent setting bounds.
+   */
+  private final LongAdder setBoundsNanos = new LongAdder();
+}
@@ -0,0 +1,241 @@
+/**
+ * LayoutTransition.java<br>
+ * Contains class LayoutTransition.
+ */
+package edu.cmu.relativelayout;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import javax.swing.Timer;
+
+/**
+ * Animates the components of a container from their current bounds to a new set of bounds, driven by a Swing
+ * {@link Timer}. The start and end bounds are copied into flat arrays when the transition is (re)targeted, so each
+ * frame only interpolates between them: no layout is solved and no objects are allocated while the animation runs. The
+ * arrays and the timer are kept between transitions, so a RelativeLayout only ever needs one of these.
+ * 
+ * @see RelativeLayout#setTransitionDuration(int)
+ */
+class LayoutTransition implements ActionListener {
+
+  /**
+   * The delay between frames, in milliseconds. About sixty frames per second.
+   */
+  private static final int FRAME_DELAY = 16;
+
+  /**
+   * Constructor for LayoutTransition.
+   */
+  LayoutTransition() {
+    this.timer = new Timer(LayoutTransition.FRAME_DELAY, this);
+    this.timer.setCoalesce(true);
+  }
+
+  /**
+   * Advances the animation by one frame.
+   * 
+   * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+   */
+  public void actionPerformed(ActionEvent theEvent) {
+    long elapsed = System.currentTimeMillis() - this.startTime;
+    if (elapsed >= this.duration) {
+      finish();
+      return;
+    }
+
+    // Ease in and out, so components don't start or stop abruptly:
+    double t = (double) elapsed / this.duration;
+    double fraction = t * t * (3 - 2 * t);
+
+    for (int i = 0; i < this.count; i++) {
+      Component comp = this.components[i];
+      if (comp.getParent() != this.container) {
+        continue;
+      }
+      int j = i * 4;
+      comp.setBounds(interpolate(j, fraction), interpolate(j + 1, fraction), interpolate(j + 2, fraction),
+                     interpolate(j + 3, fraction));
+    }
+  }
+
+  /**
+   * Stops the animation, if it is running, and moves every component straight to its final bounds.
+   */
+  void finish() {
+    if (!this.timer.isRunning()) {
+      return;
+    }
+    this.timer.stop();
+
+    for (int i = 0; i < this.count; i++) {
+      Component comp = this.components[i];
+      if (comp.getParent() != this.container) {
+        continue;
+      }
+      int j = i * 4;
+      comp.setBounds(this.to[j], this.to[j + 1], this.to[j + 2], this.to[j + 3]);
+      if (comp instanceof Container) {
+        // Nested containers were resized on every frame without being laid out; lay them out once, at their final
+        // size.
+        comp.validate();
+      }
+    }
+    releaseComponents();
+  }
+
+  /**
+   * Returns <code>true</code> if the animation is currently running.
+   */
+  boolean isRunning() {
+    return this.timer.isRunning();
+  }
+
+  /**
+   * Starts animating the components of the given container towards the given bounds. If an animation is already
+   * running towards exactly these bounds, it simply carries on; otherwise the components start moving from wherever
+   * they are right now, so an animation that is retargeted partway through continues smoothly.
+   * 
+   * @param theContainer The container whose components are being animated.
+   * @param theComponents The components to animate.
+   * @param targets The final x, y, width, and height of each component in turn.
+   * @param theCount The number of components to animate.
+   * @param theDuration The length of the animation, in milliseconds.
+   */
+  void retarget(Container theContainer, Component[] theComponents, int[] targets, int theCount, int theDuration) {
+    if (this.timer.isRunning() && theContainer == this.container && hasTargets(theComponents, targets, theCount)) {
+      return;
+    }
+
+    ensureCapacity(theCount);
+    this.container = theContainer;
+    this.count = theCount;
+    boolean changed = false;
+    for (int i = 0; i < theCount; i++) {
+      Component comp = theComponents[i];
+      int j = i * 4;
+
+      this.components[i] = comp;
+      this.from[j] = comp.getX();
+      this.from[j + 1] = comp.getY();
+      this.from[j + 2] = comp.getWidth();
+      this.from[j + 3] = comp.getHeight();
+      System.arraycopy(targets, j, this.to, j, 4);
+      changed |=
+          this.from[j] != targets[j] || this.from[j + 1] != targets[j + 1] || this.from[j + 2] != targets[j + 2]
+              || this.from[j + 3] != targets[j + 3];
+    }
+
+    if (!changed) {
+      // Everything is already where it should be.
+      this.timer.stop();
+      releaseComponents();
+      return;
+    }
+
+    this.duration = theDuration;
+    this.startTime = System.currentTimeMillis();
+    if (!this.timer.isRunning()) {
+      this.timer.start();
+    }
+  }
+
+  /**
+   * Stops the animation where it is, leaving the components wherever they happen to be.
+   */
+  void stop() {
+    this.timer.stop();
+    releaseComponents();
+  }
+
+  /**
+   * Makes sure the arrays can hold at least the given number of components.
+   */
+  private void ensureCapacity(int theCount) {
+    if (this.components.length < theCount) {
+      this.components = new Component[theCount];
+      this.from = new int[theCount * 4];
+      this.to = new int[theCount * 4];
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if the current animation is already heading for exactly the given bounds.
+   */
+  private boolean hasTargets(Component[] theComponents, int[] targets, int theCount) {
+    if (theCount != this.count) {
+      return false;
+    }
+    for (int i = 0; i < theCount; i++) {
+      if (theComponents[i] != this.components[i]) {
+        return false;
+      }
+    }
+    for (int j = 0; j < theCount * 4; j++) {
+      if (targets[j] != this.to[j]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the value of the given bound at the given fraction of the way through the animation.
+   */
+  private int interpolate(int index, double fraction) {
+    return (int) Math.round(this.from[index] + (this.to[index] - this.from[index]) * fraction);
+  }
+
+  /**
+   * Drops our references to the animated components, so that finished animations don't keep them alive.
+   */
+  private void releaseComponents() {
+    for (int i = 0; i < this.count; i++) {
+      this.components[i] = null;
+    }
+    this.count = 0;
+    this.container = null;
+  }
+
+  /**
+   * The timer that drives the animation.
+   */
+  private final Timer timer;
+
+  /**
+   * The container whose components are being animated.
+   */
+  private Container container;
+
+  /**
+   * The components being animated. Only the first <code>count</code> entries are meaningful.
+   */
+  private Component[] components = new Component[0];
+
+  /**
+   * The bounds each component started from, as x, y, width, and height, four entries per component.
+   */
+  private int[] from = new int[0];
+
+  /**
+   * The bounds each component is heading for, laid out the same way as <code>from</code>.
+   */
+  private int[] to = new int[0];
+
+  /**
+   * The number of components being animated.
+   */
+  private int count;
+
+  /**
+   * The time the animation started, in milliseconds.
+   */
+  private long startTime;
+
+  /**
+   * The length of the animation, in milliseconds.
+   */
+  private int duration;
+}
@@ -0,0 +1,19 @@
+/**
+ * MatrixBuildEvent.java<br>
+ * Contains class MatrixBuildEvent.
+ */
+package edu.cmu.relativelayout;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded by Java Flight Recorder for building the matrix of equations for a layout.
+ */
+@Name("edu.cmu.relativelayout.MatrixBuild")
+@Label("Matrix Build")
+@Description("Building the matrix of equations for a layout")
+final class MatrixBuildEvent extends LayoutPhaseEvent {
+  // Nothing to add; see LayoutPhaseEvent for the fields.
+}
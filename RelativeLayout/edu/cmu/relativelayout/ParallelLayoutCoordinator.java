@@ -0,0 +1,190 @@
+/**
+ * ParallelLayoutCoordinator.java<br>
+ * Contains class ParallelLayoutCoordinator.
+ */
+package edu.cmu.relativelayout;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Validates a container hierarchy containing many nested {@link RelativeLayout}s, solving the layouts of independent
+ * containers concurrently. Normally, validating a window lays out each container one after another on the event
+ * dispatch thread. Containers at the same depth of the hierarchy don't depend on each other, though -- only on the
+ * size their own parent gave them -- so their layouts can be solved at the same time. To take advantage of this,
+ * validate the window through a coordinator instead of calling {@link Container#validate()} directly:
+ * 
+ * <pre>
+ * ParallelLayoutCoordinator coordinator = new ParallelLayoutCoordinator();
+ * 
+ * // Instead of frame.validate():
+ * coordinator.validate(frame);
+ * </pre>
+ * 
+ * The coordinator walks the hierarchy one level at a time. At each level it takes a snapshot of every invalid
+ * container that uses a RelativeLayout, solves all the snapshots concurrently on a {@link ForkJoinPool}, and then
+ * applies the resulting bounds in tree order, after which it moves on to the next level down. Invalid containers that
+ * use some other layout manager are laid out in tree order as usual. Finally the hierarchy is validated normally, and
+ * each RelativeLayout reuses the solution the coordinator computed for it instead of solving its layout a second time.
+ * <br>
+ * <br>
+ * Like {@link Container#validate()}, this method must be called on the event dispatch thread.
+ */
+public class ParallelLayoutCoordinator {
+
+  /**
+   * Constructs a ParallelLayoutCoordinator that solves layouts on a new {@link ForkJoinPool} with one thread per
+   * available processor.
+   */
+  public ParallelLayoutCoordinator() {
+    this(new ForkJoinPool());
+  }
+
+  /**
+   * Constructs a ParallelLayoutCoordinator that solves layouts on the given {@link ForkJoinPool}.
+   * 
+   * @param thePool The pool to solve layouts on.
+   */
+  public ParallelLayoutCoordinator(ForkJoinPool thePool) {
+    this.pool = thePool;
+  }
+
+  /**
+   * Returns the {@link ForkJoinPool} this coordinator solves layouts on.
+   */
+  public ForkJoinPool getPool() {
+    return this.pool;
+  }
+
+  /**
+   * Lays out and validates the given container and everything inside it, solving the RelativeLayouts at each depth of
+   * the hierarchy concurrently. See the class documentation for details.
+   * 
+   * @param theRoot The top of the hierarchy to validate, typically a window.
+   */
+  public void validate(Container theRoot) {
+    List<RelativeLayout> prepared = new ArrayList<RelativeLayout>();
+
+    synchronized (theRoot.getTreeLock()) {
+      try {
+        List<Container> level = new ArrayList<Container>();
+        level.add(theRoot);
+
+        while (!level.isEmpty()) {
+          layoutLevel(level, prepared);
+
+          List<Container> nextLevel = new ArrayList<Container>();
+          for (Container container : level) {
+            for (Component child : container.getComponents()) {
+              if (child instanceof Container) {
+                nextLevel.add((Container) child);
+              }
+            }
+          }
+          level = nextLevel;
+        }
+
+        // Now let Swing do the rest. Every RelativeLayout we solved will reuse its prepared solutions.
+        theRoot.validate();
+      } finally {
+        for (RelativeLayout layout : prepared) {
+          layout.clearPreparedSolutions();
+        }
+      }
+    }
+  }
+
+  /**
+   * Lays out every invalid container in one level of the hierarchy. The RelativeLayouts among them are snapshotted in
+   * tree order, solved concurrently, and then applied in tree order; any other containers are simply laid out in tree
+   * order.
+   * 
+   * @param theLevel The containers at this depth of the hierarchy, in tree order.
+   * @param prepared A list to which each RelativeLayout given prepared solutions is added.
+   */
+  private void layoutLevel(List<Container> theLevel, List<RelativeLayout> prepared) {
+    List<Container> relativeContainers = new ArrayList<Container>();
+    List<LayoutEngine.Snapshot> snapshots = new ArrayList<LayoutEngine.Snapshot>();
+    List<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>();
+
+    for (Container container : theLevel) {
+      if (container.isValid()) {
+        // Nothing to do here, but its descendants might still be invalid.
+        continue;
+      }
+      if (container.getLayout() instanceof RelativeLayout) {
+        final LayoutEngine.Snapshot snapshot = ((RelativeLayout) container.getLayout()).createSnapshot(container);
+        relativeContainers.add(container);
+        snapshots.add(snapshot);
+        tasks.add(new Callable<double[]>() {
+          public double[] call() {
+            return snapshot.solve();
+          }
+        });
+      }
+    }
+
+    List<double[]> solutions = solveAll(tasks);
+
+    int next = 0;
+    for (Container container : theLevel) {
+      if (container.isValid()) {
+        continue;
+      }
+      if (next < relativeContainers.size() && container == relativeContainers.get(next)) {
+        RelativeLayout layout = (RelativeLayout) container.getLayout();
+        layout.applyPreparedSolutions(container, snapshots.get(next), solutions.get(next));
+        prepared.add(layout);
+        next++;
+      } else {
+        container.doLayout();
+      }
+    }
+  }
+
+  /**
+   * Runs the given solving tasks, concurrently if there is more than one, and returns their results in the same order.
+   * Any exception thrown while solving is rethrown on the calling thread.
+   */
+  private List<double[]> solveAll(List<Callable<double[]>> theTasks) {
+    List<double[]> results = new ArrayList<double[]>(theTasks.size());
+
+    if (theTasks.size() == 1) {
+      // Not worth a trip through the pool.
+      try {
+        results.add(theTasks.get(0).call());
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+      return results;
+    }
+
+    for (Future<double[]> future : this.pool.invokeAll(theTasks)) {
+      try {
+        results.add(future.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new RuntimeException(e.getCause());
+      }
+    }
+    return results;
+  }
+
+  /**
+   * The pool on which layouts are solved.
+   */
+  private final ForkJoinPool pool;
+}
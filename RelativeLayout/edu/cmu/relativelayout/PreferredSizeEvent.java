@@ -0,0 +1,19 @@
+/**
+ * PreferredSizeEvent.java<br>
+ * Contains class PreferredSizeEvent.
+ */
+package edu.cmu.relativelayout;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded by Java Flight Recorder for asking every component in a container for its preferred size.
+ */
+@Name("edu.cmu.relativelayout.PreferredSize")
+@Label("Preferred Sizes")
+@Description("Asking every component in a container for its preferred size")
+final class PreferredSizeEvent extends LayoutPhaseEvent {
+  // Nothing to add; see LayoutPhaseEvent for the fields.
+}
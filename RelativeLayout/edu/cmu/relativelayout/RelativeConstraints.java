@@ -39,7 +39,9 @@ public class RelativeConstraints {
    * @param theBinding The Binding to add.
    */
   public void addBinding(Binding theBinding) {
-    this.bindings.add((Binding) theBinding.clone());
+    // Bindings themselves are shared templates, so all that is needed here is somewhere to keep this constraint's
+    // resolved equation for it.
+    this.bindings.add(new ResolvedBinding(theBinding));
   }
 
   /**
@@ -67,8 +69,8 @@ public class RelativeConstraints {
    */
   List<Equation> getEquations() {
     List<Equation> ret = new LinkedList<Equation>();
-    for (Iterator<Binding> iter = this.bindings.iterator(); iter.hasNext();) {
-      Binding element = iter.next();
+    for (Iterator<ResolvedBinding> iter = this.bindings.iterator(); iter.hasNext();) {
+      ResolvedBinding element = iter.next();
       ret.add(element.getEquation());
     }
     return ret;
@@ -83,8 +85,8 @@ public class RelativeConstraints {
    */
   List<Variable> getVariables() {
     List<Variable> ret = new LinkedList<Variable>();
-    for (Iterator<Binding> iter = this.bindings.iterator(); iter.hasNext();) {
-      Binding element = iter.next();
+    for (Iterator<ResolvedBinding> iter = this.bindings.iterator(); iter.hasNext();) {
+      ResolvedBinding element = iter.next();
       ret.add(element.getPrimaryVariable());
     }
     return ret;
@@ -99,10 +101,23 @@ public class RelativeConstraints {
    *           of the component.
    */
   void setConstrainedObject(Component object) throws InconsistentConstraintException {
-    HashMap<Variable, Binding> knownVars = new HashMap<Variable, Binding>();
-    for (Iterator<Binding> iter = this.bindings.iterator(); iter.hasNext();) {
-      Binding thisBinding = iter.next();
-      thisBinding.setComponent(object);
+    setConstrainedObject(object, object.getParent());
+  }
+
+  /**
+   * Sets the node for all {@link RelativePosition}s in this constraint. If some Anchors contradict others, an exception
+   * will be thrown.
+   * 
+   * @param object The node to use.
+   * @param parent The node containing it, against which Bindings to {@link Binding#PARENT} are resolved.
+   * @throws InconsistentConstraintException if any two Anchors supply contradictory information about the positioning
+   *           of the node.
+   */
+  void setConstrainedObject(Object object, Object parent) throws InconsistentConstraintException {
+    HashMap<Variable, ResolvedBinding> knownVars = new HashMap<Variable, ResolvedBinding>();
+    for (Iterator<ResolvedBinding> iter = this.bindings.iterator(); iter.hasNext();) {
+      ResolvedBinding thisBinding = iter.next();
+      thisBinding.setNode(object, parent);
 
       // Check for invalid bindings:
       if (!thisBinding.isValid()) {
@@ -113,7 +128,7 @@ public class RelativeConstraints {
       if (knownVars.containsKey(thisBinding.getPrimaryVariable())) {
         // System.out.println("Conflict: " + element + " and " + knownVars.get(element.getPrimaryVariable()) + " both
         // claim variable " + element.getPrimaryVariable() + ".");
-        Binding conflictingBinding = knownVars.get(thisBinding.getPrimaryVariable());
+        ResolvedBinding conflictingBinding = knownVars.get(thisBinding.getPrimaryVariable());
         if (thisBinding.hasDimensionalVariable() && !thisBinding.usesDimensionalVariable()) {
           // System.out.println("Telling " + element + " to use dimensional variable instead.");
           thisBinding.setUsesDimensionalVariable(true);
@@ -140,8 +155,8 @@ public class RelativeConstraints {
   }
 
   /**
-   * The {@link Binding}s that make up this constraint.
+   * The {@link Binding}s that make up this constraint, as resolved for the constrained node.
    */
-  List<Binding> bindings = new ArrayList<Binding>();
+  List<ResolvedBinding> bindings = new ArrayList<ResolvedBinding>();
 
 }
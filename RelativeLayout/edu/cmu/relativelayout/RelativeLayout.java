@@ -9,23 +9,60 @@ import java.awt.GraphicsDevice;
 import java.awt.Insets;
 import java.awt.LayoutManager2;
 import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
-import edu.cmu.relativelayout.equation.Equation;
-import edu.cmu.relativelayout.equation.Variable;
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import edu.cmu.relativelayout.matrix.LayoutSolver;
+import edu.cmu.relativelayout.matrix.LayoutSolvers;
 import edu.cmu.relativelayout.matrix.RelativeMatrix;
 
 /**
  * The main RelativeLayout class. A LayoutManager implementation that uses Bindings and RelativeConstraints to lay out
- * components.
+ * components. The layout itself is worked out by a {@link LayoutEngine}; RelativeLayout just feeds it the components'
+ * preferred sizes and applies the bounds it returns.
  * 
  * @author Brian Ellis (phoenix1701@gmail.com)
  */
 public class RelativeLayout implements LayoutManager2 {
 
+  /**
+   * The number of solutions each RelativeLayout remembers unless told otherwise. See setSolutionCacheSize().
+   */
+  public static final int DEFAULT_SOLUTION_CACHE_SIZE = 8;
+
+  /**
+   * The default minimum time, in milliseconds, between two solves in draft mode. See setDraftFrameBudget().
+   */
+  public static final int DEFAULT_DRAFT_FRAME_BUDGET = 16;
+
+  /**
+   * The default distance, in pixels, beyond the visible part of a virtualized container within which components are
+   * laid out anyway. See setVirtualizationMargin().
+   */
+  public static final int DEFAULT_VIRTUALIZATION_MARGIN = 256;
+
   /**
    * Returns whether RelativeLayout is in debugging mode. See {@link RelativeLayout#setDebugMode(boolean)} for more
    * information.
@@ -38,10 +75,10 @@ public class RelativeLayout implements LayoutManager2 {
 
   /**
    * Sets whether RelativeLayout is in debugging mode. If <code>debug</code> is set to <code>true</code>,
-   * RelativeLayout will attempt to validate your entire layout every time a constraint is added or changed. This takes
-   * a long time, reducing the performance of RelativeLayout by over an order of magnitude on complex layouts, but it
-   * will cause any exceptions thrown while laying out the window to be traceable back to the exact line of code that
-   * caused the problem. Due to the considerable performance penalty, debugging is off by default.
+   * RelativeLayout will validate your layout every time a constraint is added or changed, which will cause any
+   * exceptions thrown while laying out the window to be traceable back to the exact line of code that caused the
+   * problem. Validation only looks at the part of the layout that depends on the changed constraint, so it is usually
+   * cheap, but it still costs time and memory on complex layouts, so debugging is off by default.
    * 
    * @param debug <code>true</code> if debugging should be turned on, <code>false</code> otherwise
    */
@@ -49,21 +86,127 @@ public class RelativeLayout implements LayoutManager2 {
     RelativeMatrix.setDebugMode(debug);
   }
 
+  /**
+   * Returns the cache of compiled plans that new RelativeLayouts use. See
+   * {@link #setDefaultPlanCache(LayoutPlanCache)}.
+   */
+  public static LayoutPlanCache getDefaultPlanCache() {
+    return RelativeLayout.defaultPlanCache;
+  }
+
+  /**
+   * Sets the cache of compiled plans that RelativeLayouts created from now on use, so that every window in an
+   * application can share one cache directory without configuring each layout. See
+   * {@link #setPlanCache(LayoutPlanCache)}. The default is <code>null</code>, for no cache.
+   * 
+   * @param theCache The cache for new layouts to use, or <code>null</code> for none.
+   */
+  public static void setDefaultPlanCache(LayoutPlanCache theCache) {
+    RelativeLayout.defaultPlanCache = theCache;
+  }
+
+  /**
+   * Returns the solver that every RelativeLayout without a solver of its own uses, or <code>null</code> if each layout
+   * chooses one automatically. See {@link #setDefaultSolver(LayoutSolver)}.
+   */
+  public static LayoutSolver getDefaultSolver() {
+    return RelativeMatrix.getDefaultSolver();
+  }
+
+  /**
+   * Sets the solver that every RelativeLayout without a solver of its own (see {@link #setSolver(LayoutSolver)}) uses.
+   * By default each layout's solver is chosen automatically from the shape of its equations (see
+   * {@link LayoutSolvers#choose(edu.cmu.relativelayout.matrix.SparseSystem)}), unless the
+   * <code>edu.cmu.relativelayout.solver</code> system property names one (see {@link LayoutSolvers#forName(String)}).
+   * 
+   * @param theSolver The solver to use, or <code>null</code> to choose one automatically.
+   */
+  public static void setDefaultSolver(LayoutSolver theSolver) {
+    RelativeMatrix.setDefaultSolver(theSolver);
+  }
+
+  /**
+   * Returns the recorder every layout pass is written to, or <code>null</code> if passes aren't being recorded. See
+   * {@link #setLayoutRecorder(LayoutRecorder)}.
+   */
+  public static LayoutRecorder getLayoutRecorder() {
+    return RelativeLayout.layoutRecorder;
+  }
+
+  /**
+   * Starts or stops recording every pass of every RelativeLayout, for replaying later with {@link LayoutReplay}. Passes
+   * whose Bindings refer to components that haven't been added aren't recorded, and neither are asynchronous passes
+   * whose layout changed before they were applied. The default is <code>null</code>, for no recording.
+   * 
+   * @param theRecorder The recorder to write passes to, or <code>null</code> to stop recording.
+   */
+  public static void setLayoutRecorder(LayoutRecorder theRecorder) {
+    RelativeLayout.layoutRecorder = theRecorder;
+  }
+
+  /**
+   * Returns statistics covering every layout done by every RelativeLayout.
+   */
+  public static LayoutStatistics getGlobalStatistics() {
+    return RelativeLayout.globalStatistics;
+  }
+
+  /**
+   * Returns the executor shared by all asynchronous RelativeLayouts that have not been given an executor of their own,
+   * creating it if necessary. The shared executor runs solutions one at a time on a single daemon thread.
+   */
+  private static synchronized Executor getSharedExecutor() {
+    if (RelativeLayout.sharedExecutor == null) {
+      RelativeLayout.sharedExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable theRunnable) {
+          Thread thread = new Thread(theRunnable, "RelativeLayout solver");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return RelativeLayout.sharedExecutor;
+  }
+
+  /**
+   * The executor used by asynchronous RelativeLayouts that have not been given one explicitly. Don't access this
+   * directly; use getSharedExecutor() instead, which will create it if needed.
+   */
+  private static ExecutorService sharedExecutor;
+
+  /**
+   * The cache of compiled plans new RelativeLayouts use, or null for none.
+   */
+  private static volatile LayoutPlanCache defaultPlanCache;
+
+  /**
+   * The recorder every layout pass is written to, or null for none.
+   */
+  private static volatile LayoutRecorder layoutRecorder;
+
+  /**
+   * Statistics covering every RelativeLayout. Each layout's own statistics forward to these.
+   */
+  private static final LayoutStatistics globalStatistics = new LayoutStatistics(null);
+
   /*
    * (non-Javadoc)
    * 
    * @see java.awt.LayoutManager2#addLayoutComponent(java.awt.Component, java.lang.Object)
    */
   public void addLayoutComponent(Component theComp, Object theConstraints) {
-    if (theConstraints instanceof RelativeConstraints) {
-      RelativeConstraints relativeConstraints = (RelativeConstraints) theConstraints;
-
+    if (theConstraints instanceof RelativeConstraints && this.updateDepth > 0) {
+      getEngine(theComp.getParent());
+      this.pendingConstraints.put(theComp, (RelativeConstraints) theConstraints);
+    } else if (theConstraints instanceof RelativeConstraints) {
+      GroupMember member = this.groupMembers.get(theComp);
+      if (member != null) {
+        member.enabledConstraints = (RelativeConstraints) theConstraints;
+      }
       // Following line may throw InconsistentConstraintException:
-      relativeConstraints.setConstrainedObject(theComp);
-
-      this.constraints.put(theComp, relativeConstraints);
-      for (Variable v : relativeConstraints.getVariables()) {
-        this.componentAssociations.put(v, theComp);
+      getEngine(theComp.getParent()).add(theComp, (RelativeConstraints) theConstraints);
+      if (member != null && this.disabledGroups.contains(member.group)) {
+        this.engine.add(theComp, member.disabledConstraints);
       }
     } else {
       throw new IllegalArgumentException("RelativeLayouts must use RelativeConstraints objects.");
@@ -103,7 +246,10 @@ public class RelativeLayout implements LayoutManager2 {
    * @see java.awt.LayoutManager2#invalidateLayout(java.awt.Container)
    */
   public void invalidateLayout(Container theTarget) {
-    this.backend = null;
+    // Remembered solutions (see setSolutionCacheSize()) are keyed by the container's size and by versions that change
+    // whenever a component or constraint is added, removed, or replaced, or a preferred size changes, and every pass
+    // checks the preferred sizes before looking for one. A stale solution can never be reused, so there is nothing to
+    // throw away here.
   }
 
   /*
@@ -112,369 +258,1669 @@ public class RelativeLayout implements LayoutManager2 {
    * @see java.awt.LayoutManager#layoutContainer(java.awt.Container)
    */
   public void layoutContainer(Container theParent) {
-    RelativeMatrix myBackend = this.getBackend();
+    if (this.updateDepth > 0) {
+      // Lay out once everything has been added, rather than with whatever has been added so far.
+      this.layoutDeferred = true;
+      return;
+    }
+
+    if (this.preparedSolution != null && theParent.getSize().equals(this.preparedSize)) {
+      // A ParallelLayoutCoordinator already solved this layout for us at this size, and recorded the pass when it first
+      // applied the solution.
+      setComponentBounds(theParent, this.preparedSnapshot, this.preparedSolution);
+      return;
+    }
+
+    if (this.liveResizing) {
+      layoutContainerDraft(theParent);
+      return;
+    }
+
+    if (this.asynchronous) {
+      layoutContainerAsynchronously(theParent);
+      return;
+    }
 
-    initializeMatrixForContainer(theParent, myBackend);
+    LayoutEngine.Snapshot snapshot = null;
+    long setBoundsNanos;
+    try {
+      snapshot = createSnapshot(theParent);
 
-    // Generate solutions:
-    Map<Variable, Double> solutions = myBackend.solve();
-    // System.out.println(solutions);
+      // Generate solutions:
+      double[] solution = snapshot.solve();
 
-    setComponentBoundsFromVariables(theParent, solutions);
+      long start = System.nanoTime();
+      applySolutions(theParent, snapshot, solution);
+      setBoundsNanos = System.nanoTime() - start;
+    } catch (RuntimeException e) {
+      finishPass(theParent, snapshot, 0, e);
+      throw e;
+    }
+    finishPass(theParent, snapshot, setBoundsNanos, null);
   }
 
-  /*
-   * (non-Javadoc)
+  /**
+   * Adds a listener to be told about every layout pass.
    * 
-   * @see java.awt.LayoutManager2#maximumLayoutSize(java.awt.Container)
+   * @param theListener The listener to add.
    */
-  public Dimension maximumLayoutSize(Container theTarget) {
-    return new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE);
+  public void addLayoutListener(LayoutListener theListener) {
+    this.layoutListeners.add(theListener);
   }
 
-  /*
-   * (non-Javadoc)
-   * 
-   * @see java.awt.LayoutManager#minimumLayoutSize(java.awt.Container)
+  /**
+   * Returns the listeners that are told about every layout pass.
    */
-  public Dimension minimumLayoutSize(Container theParent) {
-    return new Dimension(0, 0);
+  public LayoutListener[] getLayoutListeners() {
+    return this.layoutListeners.toArray(new LayoutListener[0]);
   }
 
   /**
-   * Returns the preferred size of the given container given the components that are to be laid out inside it. This
-   * method is called when a container using a RelativeLayout is packed using the {@link java.awt.Window#pack()} method.<br>
-   * <br>
-   * Since RelativeLayout is different from other layout managers in that the size of the window determines the size of
-   * the controls instead of vice versa, the behavior of this method (and therefore of the
-   * {@link java.awt.Window#pack()} method of a window that uses a RelativeLayout) is a little complicated. If the
-   * window has dynamically sized components in it (that is, anything whose size depends on the size of the window), the
-   * window will be "maximized" -- that is, it will be made as big as possible on the screen. If, however, the window
-   * does <em>not</em> have dynamically sized components (that is, no controls resize if you resize the window), then
-   * the window will be sized to fit its contents precisely. This will work even if there are controls anchored to the
-   * right or bottom of the window, but if there are, the window may be larger than desired in some cases.<br>
-   * <br>
-   * Note that due to the complexity of adding center-aligned components into the mix, the layout will <em>not</em>
-   * take into account components that are center-aligned in the window. If such components exist, you may need to
-   * manually set the size of the window instead of, or in addition to, calling {@link java.awt.Window#pack()}.
+   * Removes a listener added with {@link #addLayoutListener(LayoutListener)}.
    * 
-   * @see java.awt.LayoutManager#preferredLayoutSize(java.awt.Container)
+   * @param theListener The listener to remove.
    */
-  public Dimension preferredLayoutSize(Container theParent) {
-    synchronized (theParent.getTreeLock()) {
-      RelativeMatrix myBackend = this.getBackend();
+  public void removeLayoutListener(LayoutListener theListener) {
+    this.layoutListeners.remove(theListener);
+  }
 
-      initializeMatrixForContainer(theParent, myBackend);
+  /**
+   * Returns the time charged to each component of this layout while attribution was enabled, or <code>null</code> if it
+   * never has been. See {@link #setAttributionEnabled(boolean)}.
+   */
+  public LayoutAttribution getAttribution() {
+    return this.attribution;
+  }
 
-      // Check for dynamic sizes
-      boolean hasDynamicWidth = false;
-      boolean hasDynamicHeight = false;
-      for (Component thisComponent : this.constraints.keySet()) {
-        RelativeConstraints theseConstraints = this.constraints.get(thisComponent);
-        for (Binding thisBinding : theseConstraints.bindings) {
-          // If any of our bindings uses a dimensional variable, we have a dynamic size.
-          if (thisBinding.usesDimensionalVariable()) {
-            if (thisBinding.isHorizontal()) {
-              hasDynamicWidth = true;
-            } else {
-              hasDynamicHeight = true;
-            }
-            break;
-          }
-        }
-      }
+  /**
+   * Returns <code>true</code> if the time spent on each component is being measured. See
+   * {@link #setAttributionEnabled(boolean)}.
+   */
+  public boolean isAttributionEnabled() {
+    return this.attributionEnabled;
+  }
 
-      // Calculate the screen size if we're going to need it.
-      int screenWidth = 0;
-      int screenHeight = 0;
-      if (hasDynamicWidth || hasDynamicHeight) {
-        GraphicsConfiguration graphicsConfig = theParent.getGraphicsConfiguration();
-        if (graphicsConfig == null) {
-          screenWidth = 640;
-          screenHeight = 480;
-        } else {
-          GraphicsDevice gs = graphicsConfig.getDevice();
-          DisplayMode dm = gs.getDisplayMode();
-          screenWidth = dm.getWidth();
-          screenHeight = dm.getHeight();
-        }
+  /**
+   * Starts or stops measuring how much of the time spent laying out this container is due to each component: how long
+   * its preferred size and setting its bounds take, and whether its Bindings couple it to other components so that
+   * they have to be solved together. The totals are kept in a {@link LayoutAttribution}, which is created the first
+   * time attribution is enabled and kept from then on, so stopping and starting again carries on adding to it. Bounds
+   * set by animated transitions are not measured. The default is <code>false</code>.
+   * 
+   * @param enabled <code>true</code> to measure each component's costs.
+   */
+  public void setAttributionEnabled(boolean enabled) {
+    if (enabled && this.attribution == null) {
+      this.attribution = new LayoutAttribution();
+    }
+    this.attributionEnabled = enabled;
+  }
 
-        // If we found dynamic sizes, return the maximum size possible, and we're done.
-        if (hasDynamicWidth && hasDynamicHeight) {
-          return new Dimension(screenWidth, screenHeight);
-        }
-      }
+  /**
+   * Returns statistics covering the layouts done by this RelativeLayout. They are also added to the
+   * {@link #getGlobalStatistics() global statistics}.
+   */
+  public LayoutStatistics getStatistics() {
+    return this.statistics;
+  }
 
-      // Otherwise, we have to generate solutions:
-      Map<Variable, Double> solutions = myBackend.solve();
+  /**
+   * Starts draft mode, for use while the user is interactively resizing the container. In draft mode, each layout only
+   * sets the bounds of components that are visible and that intersect the visible part of the container (or that are
+   * about to move out of it); components that are scrolled out of view keep their old bounds for now. The layout is
+   * also solved at most once per frame budget (see {@link #setDraftFrameBudget(int)}): layouts requested more often
+   * than that are coalesced into one that happens when the budget runs out, so the last size of the drag is always laid
+   * out. Asynchronous layout and transitions are suspended while in draft mode.<br>
+   * <br>
+   * Call {@link #endLiveResize()} when the resize gesture ends, for example from the mouse-released handler of a split
+   * pane divider or resize grip.
+   */
+  public void beginLiveResize() {
+    this.liveResizing = true;
+    // Make sure the first layout of the gesture isn't throttled:
+    this.lastDraftSolve = System.nanoTime() - this.draftFrameBudget * 1000000L - 1;
+  }
 
-      // Now we find the max and min extents from all four corners:
-      double maxLeftExtent = 0.0, maxTopExtent = 0.0;
-      double minRightExtent = theParent.getSize().getWidth(), minBottomExtent = theParent.getSize().getHeight();
+  /**
+   * Ends draft mode (see {@link #beginLiveResize()}) and lays out the container once more, exactly and in full, so that
+   * every component ends up where it belongs.
+   */
+  public void endLiveResize() {
+    if (!this.liveResizing) {
+      return;
+    }
+    this.liveResizing = false;
+    if (this.draftTimer != null) {
+      this.draftTimer.stop();
+    }
+    this.draftParent = null;
 
-      for (Variable v : solutions.keySet()) {
-        RelativeVariable rv = (RelativeVariable) v;
+    if (this.engine != null) {
+      Container parent = (Container) this.engine.getRoot();
+      parent.invalidate();
+      parent.validate();
+    }
+  }
 
-        boolean isRightExtent = false, isBottomExtent = false;
+  /**
+   * Returns the minimum time, in milliseconds, between two solves in draft mode. See
+   * {@link #setDraftFrameBudget(int)}.
+   */
+  public int getDraftFrameBudget() {
+    return this.draftFrameBudget;
+  }
 
-        if (rv.getComponent() == theParent) {
-          // We can ignore the container itself.
-          continue;
-        }
+  /**
+   * Sets the minimum time, in milliseconds, between two solves in draft mode (see {@link #beginLiveResize()}). The
+   * default is {@value #DEFAULT_DRAFT_FRAME_BUDGET} milliseconds, about one frame at sixty frames per second.
+   * 
+   * @param milliseconds The frame budget.
+   */
+  public void setDraftFrameBudget(int milliseconds) {
+    if (milliseconds < 0) {
+      throw new IllegalArgumentException("The frame budget cannot be negative.");
+    }
+    this.draftFrameBudget = milliseconds;
+  }
 
-        try {
-          // Now, if this component has a Binding to the right or bottom edge of the window, we're going to take note of
-          // that fact for later:
-          if (this.constraints.get(rv.getComponent()) == null) {
-            throw new UnknownComponentException(rv, theParent);
-          }
-          List<Binding> bindings = this.constraints.get(rv.getComponent()).bindings;
-          for (Binding b : bindings) {
-            if (b.getFixedComponent() == theParent && (b.getRelativePosition().getFixedEdge() == Edge.RIGHT)) {
-              isRightExtent = true;
-            } else if (b.getFixedComponent() == theParent && (b.getRelativePosition().getFixedEdge() == Edge.BOTTOM)) {
-              isBottomExtent = true;
-            }
-          }
+  /**
+   * Returns <code>true</code> if this RelativeLayout is in draft mode. See {@link #beginLiveResize()}.
+   */
+  public boolean isLiveResizing() {
+    return this.liveResizing;
+  }
 
-        } catch (NullPointerException e) {
-          e.printStackTrace();
-        }
+  /**
+   * Returns the component recycler of this RelativeLayout, or <code>null</code> if it doesn't have one. See
+   * {@link #setComponentRecycler(ComponentRecycler)}.
+   */
+  public ComponentRecycler getComponentRecycler() {
+    return this.componentRecycler;
+  }
 
-        if (rv.getVariableType() == VariableType.X) {
-          // This variable is the x-coordinate of a component.
-          if (isRightExtent) {
-            // And the component had a binding to the right edge of the window.
-            double myX = solutions.get(rv);
-            // See how far from the right this component extends, and take the min:
-            if (myX < minRightExtent) {
-              minRightExtent = myX;
-            }
-          } else {
-            // The component did not have a binding to the right edge of the window.
-            double myX = solutions.get(rv) + rv.getComponent().getPreferredSize().width;
-            // See how far from the left this component extends, and take the max:
-            if (myX > maxLeftExtent) {
-              maxLeftExtent = myX;
-            }
-          }
-        } else if (rv.getVariableType() == VariableType.Y) {
-          // This variable is the y-coordinate of a component.
-          if (isBottomExtent) {
-            // And the component had a binding to the bottom edge of the window.
-            double myY = solutions.get(rv);
-            // See how far from the bottom this component extends, and take the min:
-            if (myY < minBottomExtent) {
-              minBottomExtent = myY;
-            }
-          } else {
-            // The component did not have a binding to the bottom edge of the window.
-            double myY = solutions.get(rv) + rv.getComponent().getPreferredSize().height;
+  /**
+   * Sets the object to tell when components come near the visible part of the container and when they move away from
+   * it again, so that an application can give off-screen components lightweight content and reuse their expensive
+   * content elsewhere. Only used in virtualized mode (see {@link #setVirtualized(boolean)}).
+   * 
+   * @param theRecycler The recycler, or <code>null</code> for none.
+   */
+  public void setComponentRecycler(ComponentRecycler theRecycler) {
+    this.componentRecycler = theRecycler;
+    this.realizedComponents.clear();
+  }
 
-            // See how far from the top this component extends, and take the max:
-            if (myY > maxTopExtent) {
-              maxTopExtent = myY;
-            }
-          }
-        }
+  /**
+   * Brings the spatial index up to date with the layouts done since it was last used.
+   */
+  private void updateSpatialIndex() {
+    if (this.indexedBounds != this.laidOutBounds) {
+      if (this.spatialIndex == null) {
+        this.spatialIndex = new SpatialIndex();
       }
-      // Note: what are we forgetting here? That's right, center-aligned components! Something to do for later, I
-      // guess...
-
-      // Okay. So now we have all the info that we need, but there's just one problem. The minRightExtent and
-      // minBottomExtent all depend on the width and height of the window -- if the width is -1, and the minLeftExtent
-      // is -25, that means that the extent of the furthest control from the right isn't -25, but rather 24. So we need
-      // to subtract:
-      minRightExtent = theParent.getSize().getWidth() - minRightExtent;
-      minBottomExtent = theParent.getSize().getHeight() - minBottomExtent;
+      this.spatialIndex.update(this.laidOutComponents, this.laidOutBounds, this.laidOutCount);
+      this.indexedBounds = this.laidOutBounds;
+    }
+  }
 
-      // Now, to find out how wide and tall the window needs to be to fit all this, worst-case, we just add the two
-      // extents together. This may make the window larger than strictly necessary, but it's better to be too big than
-      // too small.
+  /**
+   * Returns the visible component the most recent layout put at the given point, or <code>null</code> if there isn't
+   * one. Where components overlap, the one added first, which is the one on top unless the z-order has been changed,
+   * is returned. Unlike {@link Container#getComponentAt(int, int)}, this doesn't look at every component, so it is
+   * suitable for hit-testing containers with thousands of components.
+   * 
+   * @param x The x coordinate of the point, in the container's coordinate space.
+   * @param y The y coordinate of the point.
+   * @return The component, or <code>null</code>.
+   */
+  public Component getComponentAt(int x, int y) {
+    List<Component> found = getComponentsIn(new Rectangle(x, y, 1, 1));
+    return (found.isEmpty() ? null : found.get(0));
+  }
 
-      Insets insets = theParent.getInsets();
-      Dimension finalSize =
-          new Dimension((int) maxLeftExtent + (int) minRightExtent + insets.left + insets.right, (int) maxTopExtent
-              + (int) minBottomExtent + insets.top + insets.bottom);
+  /**
+   * Returns the visible components whose bounds, as of the most recent layout, intersect the given region, in the order
+   * they were added. The bounds of the components are kept in a spatial index, so the time this takes depends on the
+   * size of the region and the number of components in it rather than on the total number of components; this makes it
+   * suitable for rubber-band selection, tooltips, and working out what a partial repaint touches.
+   * 
+   * @param theRegion The region, in the container's coordinate space.
+   * @return A new list of the components.
+   */
+  public List<Component> getComponentsIn(Rectangle theRegion) {
+    if (this.laidOutBounds == null) {
+      return new ArrayList<Component>();
+    }
+    updateSpatialIndex();
 
-      if (hasDynamicHeight) {
-        finalSize.height = screenHeight;
-      }
-      if (hasDynamicWidth) {
-        finalSize.width = screenWidth;
+    List<Component> ret = this.spatialIndex.query(theRegion);
+    for (Iterator<Component> iter = ret.iterator(); iter.hasNext();) {
+      Component comp = iter.next();
+      if (comp.getParent() != this.laidOutContainer || !comp.isVisible()) {
+        iter.remove();
       }
-
-      // theParent.setSize(oldSize);
-      return finalSize;
     }
+    return ret;
   }
 
-  /*
-   * (non-Javadoc)
+  /**
+   * Returns the bounds the given component was most recently laid out with. These are the bounds the component has,
+   * except while a transition is moving it there, in draft mode, and in virtualized mode, when a component that is out
+   * of view may not have been given its bounds yet. This is what to pass to
+   * {@link JComponent#scrollRectToVisible(Rectangle)} to scroll to a component in a virtualized container.
    * 
-   * @see java.awt.LayoutManager#removeLayoutComponent(java.awt.Component)
+   * @param theComponent A component in the container.
+   * @return The component's bounds.
    */
-  public void removeLayoutComponent(Component theComp) {
-    this.constraints.remove(theComp);
-    for (Iterator<Variable> iter = this.componentAssociations.keySet().iterator(); iter.hasNext();) {
-      Variable var = iter.next();
-      if (this.componentAssociations.get(var) == theComp) {
-        iter.remove();
-        getBackend().removeEquation(var);
+  public Rectangle getLayoutBounds(Component theComponent) {
+    for (int i = 0; i < this.laidOutCount; i++) {
+      if (this.laidOutComponents[i] == theComponent) {
+        int j = i * 4;
+        return new Rectangle(this.laidOutBounds[j], this.laidOutBounds[j + 1], this.laidOutBounds[j + 2],
+            this.laidOutBounds[j + 3]);
       }
     }
+    return theComponent.getBounds();
   }
 
   /**
-   * A helper method that adds default identities for the given component. This is important so that if no
-   * RelativePosition is defined that explicitly involves some variable of that component, it will default to something
-   * reasonable (0 for X and Y, and the component's preferred size for Width and Height).
+   * Works out where the given component will go when the container is next laid out at its current size, without
+   * laying it out. Only the component and the components it is bound to, directly or indirectly, are looked at, so
+   * this is much quicker than a layout when the component depends on just a few others, and is the way to find out
+   * where to put a popup or what to scroll into view before the container has been laid out.
    * 
-   * @param myBackend The matrix we want to add identities to.
-   * @param c The component for which we want to add identities.
+   * @param theComponent A component in the container.
+   * @return The component's bounds.
+   * @throws UnknownComponentException if the component depends on a component that has not been added.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException if the Bindings the component depends on do not
+   *           place it in exactly one way.
    */
-  private void addIdentitiesForComponent(RelativeMatrix myBackend, Component c, boolean isParent) {
-
-    Dimension size;
-
-    if (!isParent) {
-      size = c.getPreferredSize();
-    } else {
-      size = c.getSize();
+  public Rectangle solveBounds(Component theComponent) {
+    Container parent = theComponent.getParent();
+    if (parent == null || this.engine == null || !this.engine.contains(theComponent)) {
+      throw new IllegalArgumentException(theComponent + " is not in a container with this RelativeLayout.");
+    }
+    synchronized (parent.getTreeLock()) {
+      for (Object node : this.engine.getDependencies(theComponent)) {
+        Dimension size = ((Component) node).getPreferredSize();
+        this.engine.setPreferredSize(node, size.width, size.height);
+      }
+      double[] bounds = this.engine.solveFor(theComponent, parent.getWidth(), parent.getHeight());
+      Insets insets = parent.getInsets();
+      return new Rectangle(insets.left + (int) bounds[0], insets.top + (int) bounds[1], (int) bounds[2],
+          (int) bounds[3]);
     }
-
-    ConcreteEquation identity = new ConcreteEquation();
-    Variable variable = RelativeVariable.get(c, VariableType.WIDTH);
-    this.componentAssociations.put(variable, c);
-    identity.setCoefficient(1, variable);
-    identity.setRightHandSide(size.width);
-    myBackend.addEquation(variable, identity);
-
-    identity = new ConcreteEquation();
-    variable = RelativeVariable.get(c, VariableType.HEIGHT);
-    this.componentAssociations.put(variable, c);
-    identity.setCoefficient(1, variable);
-    identity.setRightHandSide(size.height);
-    myBackend.addEquation(variable, identity);
-
-    identity = new ConcreteEquation();
-    variable = RelativeVariable.get(c, VariableType.X);
-    this.componentAssociations.put(variable, c);
-    identity.setCoefficient(1, variable);
-    identity.setRightHandSide(0);
-    myBackend.addEquation(variable, identity);
-
-    identity = new ConcreteEquation();
-    variable = RelativeVariable.get(c, VariableType.Y);
-    this.componentAssociations.put(variable, c);
-    identity.setCoefficient(1, variable);
-    identity.setRightHandSide(0);
-    myBackend.addEquation(variable, identity);
   }
 
   /**
-   * Gets an instance of the backend matrix, creating one if necessary. This method should be used rather than accessing
-   * this.backend directly to avoid crashes or duplicated instances.
+   * Returns the distance, in pixels, beyond the visible part of the container within which a virtualized layout lays
+   * out components anyway. See {@link #setVirtualizationMargin(int)}.
    */
-  private RelativeMatrix getBackend() {
-    if (this.backend == null) {
-      this.backend = new RelativeMatrix();
-    }
-    return this.backend;
+  public int getVirtualizationMargin() {
+    return this.virtualizationMargin;
   }
 
   /**
-   * Initializes the given matrix for the given container by setting up identities in the matrix for each component's x,
-   * y, width, and height as well as that of the container itself. x and y are set to 0, and width and height are set to
-   * either the size or the preferredSize of the component, whichever is available.
+   * Sets the distance, in pixels, beyond the visible part of the container within which a virtualized layout lays out
+   * components anyway, so that they are already in place when they are scrolled into view. The default is
+   * {@value #DEFAULT_VIRTUALIZATION_MARGIN} pixels.
    * 
-   * @param theParent The container we are laying out.
-   * @param myBackend The backend matrix we are using.
+   * @param pixels The margin.
    */
-  private void initializeMatrixForContainer(Container theParent, RelativeMatrix myBackend) {
-
-    // Initialize the matrix with the preferred size for all components.
-    for (Component c : this.constraints.keySet()) {
-      addIdentitiesForComponent(myBackend, c, false);
-    }
-
-    // And don't forget the window!
-    addIdentitiesForComponent(myBackend, theParent, true);
-
-    // Add all the constraints' equations to the matrix:
-    for (RelativeConstraints element : this.constraints.values()) {
-      List<Equation> equations = element.getEquations();
-      List<Variable> variables = element.getVariables();
-      for (int i = 0; i < equations.size(); i++) {
-        myBackend.addEquation(variables.get(i), equations.get(i));
-      }
+  public void setVirtualizationMargin(int pixels) {
+    if (pixels < 0) {
+      throw new IllegalArgumentException("The virtualization margin cannot be negative.");
     }
+    this.virtualizationMargin = pixels;
   }
 
   /**
-   * Takes a map of variables and their bound values, and sets the bounds of all the components in the layout based on
-   * their variables' values.
-   * 
-   * @param theContainer
-   * @param solutions The map of variables and their bound values.
+   * Returns <code>true</code> if this RelativeLayout is virtualized. See {@link #setVirtualized(boolean)}.
    */
-  private void setComponentBoundsFromVariables(Container theContainer, Map<Variable, Double> solutions) {
-    for (Variable v : solutions.keySet()) {
-      // Associate this variable with a component and a variable type:
-      Component comp = this.componentAssociations.get(v);
+  public boolean isVirtualized() {
+    return this.virtualized;
+  }
 
-      if (comp == null) {
-        // We might have a stale matrix, but if there's no component associated with this variable, we can just skip it
-        // because we're guaranteed not to have any constraints that depend on that component anyway. This is a bit
-        // voodoo, but it works.
+  /**
+   * Sets whether this RelativeLayout is virtualized, which is meant for very large containers inside a
+   * {@link javax.swing.JScrollPane}. A virtualized layout still works out where every component goes, but only sets
+   * the bounds of the components that are within the virtualization margin (see {@link #setVirtualizationMargin(int)})
+   * of the visible part of the container, or that are there now and need to move away. The other components keep their
+   * old bounds until the container is scrolled far enough to bring them into range, when their new bounds are applied.
+   * Since a component's bounds may lag behind the layout while it is out of view, use
+   * {@link #getLayoutBounds(Component)} rather than {@link Component#getBounds()} to find out where it belongs.
+   * Transitions are not used while virtualized.<br>
+   * <br>
+   * Virtualization is off by default. Turning it off lays out the container again, in full.
+   * 
+   * @param virtualized <code>true</code> to virtualize the layout, <code>false</code> to set every component's bounds
+   *          on every layout.
+   */
+  public void setVirtualized(boolean virtualized) {
+    if (this.virtualized == virtualized) {
+      return;
+    }
+    this.virtualized = virtualized;
+    if (!virtualized) {
+      watchViewport(null);
+      this.virtualApplied = null;
+      this.staleIndex = null;
+      this.realizedComponents.clear();
+
+      if (this.engine != null) {
+        Container parent = (Container) this.engine.getRoot();
+        parent.invalidate();
+        parent.validate();
+      }
+    }
+  }
+
+  /**
+   * Starts a batch of changes, such as adding the hundreds of components of a new screen. Until the matching call to
+   * {@link #commit()}, components added to the container are only remembered: their constraints aren't resolved or
+   * checked, no equations are generated, and requests to lay out the container are put off. Components added in the
+   * meantime are therefore left out of {@link #preferredLayoutSize(Container)}, so call {@link #commit()} before
+   * packing a window. Updates can be nested, in which case nothing happens until the outermost one is committed. Must
+   * be called on the event dispatch thread.
+   */
+  public void beginUpdate() {
+    this.updateDepth++;
+  }
+
+  /**
+   * Ends a batch of changes started by {@link #beginUpdate()}. Once the outermost update is committed, the constraints
+   * of every component added during it are resolved, the new structure of the layout is worked out (and in debugging
+   * mode, checked) once for all of them, and if a layout was put off, the container is laid out once.
+   * 
+   * @throws IllegalStateException if no update is in progress.
+   * @throws InconsistentConstraintException if any two Bindings in one component's constraints contradict each other.
+   * @throws InvalidBindingException if any of the Bindings is not physically possible.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException in debugging mode (see
+   *           {@link #setDebugMode(boolean)}), if the components make the layout ambiguous.<br>
+   *           If any of these are thrown, none of the components added during the update are laid out.
+   */
+  public void commit() {
+    if (this.updateDepth == 0) {
+      throw new IllegalStateException("commit() called without beginUpdate().");
+    }
+    if (--this.updateDepth > 0) {
+      return;
+    }
+
+    if (!this.pendingConstraints.isEmpty()) {
+      Map<Object, RelativeConstraints> added = new LinkedHashMap<Object, RelativeConstraints>();
+      for (Map.Entry<Component, RelativeConstraints> entry : this.pendingConstraints.entrySet()) {
+        RelativeConstraints constraints = entry.getValue();
+        GroupMember member = this.groupMembers.get(entry.getKey());
+        if (member != null) {
+          member.enabledConstraints = constraints;
+          if (this.disabledGroups.contains(member.group)) {
+            constraints = member.disabledConstraints;
+          }
+        }
+        added.put(entry.getKey(), constraints);
+      }
+      this.pendingConstraints.clear();
+      // Following line may throw InconsistentConstraintException or AmbiguousLayoutException:
+      this.engine.addAll(added);
+    }
+
+    if (this.layoutDeferred && this.engine != null) {
+      this.layoutDeferred = false;
+      Container parent = (Container) this.engine.getRoot();
+      parent.invalidate();
+      parent.validate();
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if {@link #beginUpdate()} has been called more often than {@link #commit()}.
+   */
+  public boolean isUpdating() {
+    return this.updateDepth > 0;
+  }
+
+  /**
+   * Returns <code>true</code> unless the named constraint group has been disabled. See
+   * {@link #setGroupEnabled(String, boolean)}.
+   */
+  public boolean isGroupEnabled(String theGroup) {
+    return !this.disabledGroups.contains(theGroup);
+  }
+
+  /**
+   * Puts a component in a named constraint group, and gives the constraints it is laid out with while that group is
+   * disabled. While the group is enabled, the component keeps the constraints it was added with. A group usually holds
+   * the components of an optional section, with constraints that collapse them to nothing when it is disabled, along
+   * with the components below the section, with constraints that move them up to fill the space. A component can only
+   * be in one group, and leaves it when it is removed from the container. During an update (see
+   * {@link #beginUpdate()}), components added since it began can be put in groups too.
+   * 
+   * @param theGroup The name of the group.
+   * @param theComp The component, which must already have been added to the container.
+   * @param theConstraints The constraints to use while the group is disabled.
+   * @throws InconsistentConstraintException if any two Bindings in the constraints contradict each other.
+   * @throws InvalidBindingException if any of the Bindings is not physically possible.
+   */
+  public void setGroupConstraints(String theGroup, Component theComp, RelativeConstraints theConstraints) {
+    RelativeConstraints pending = this.pendingConstraints.get(theComp);
+    if (pending == null && (this.engine == null || !this.engine.contains(theComp))) {
+      throw new IllegalArgumentException(theComp + " has not been added to a container with this RelativeLayout.");
+    }
+    GroupMember member = this.groupMembers.get(theComp);
+    if (member != null && !member.group.equals(theGroup)) {
+      throw new IllegalArgumentException(theComp + " is already in the constraint group " + member.group + ".");
+    }
+    if (member == null) {
+      member = new GroupMember(theGroup, (pending != null ? pending : this.engine.getConstraints(theComp)));
+    }
+
+    if (pending != null) {
+      // Added during an update, so the constraints to use are picked, and checked, when it is committed.
+    } else if (this.disabledGroups.contains(theGroup)) {
+      // Following line may throw InconsistentConstraintException:
+      this.engine.add(theComp, theConstraints);
+    } else {
+      // Check the constraints now rather than when the group is disabled.
+      theConstraints.setConstrainedObject(theComp, this.engine.getRoot());
+    }
+    member.disabledConstraints = theConstraints;
+    this.groupMembers.put(theComp, member);
+    this.groupGeneration++;
+  }
+
+  /**
+   * Enables or disables a named constraint group, switching every component in it to the constraints it was added with
+   * or to those given by {@link #setGroupConstraints(String, Component, RelativeConstraints)}, and then laying out the
+   * container again. Only the constraints of the group's components are replaced; the rest of the layout is left as
+   * it is. Each combination of enabled and disabled groups is remembered as it is used, so switching back to a
+   * combination reuses the solutions (and the compiled plan, with a plan cache) worked out for it the last time, until
+   * components are added or removed. Groups are enabled by default.
+   * 
+   * @param theGroup The name of the group.
+   * @param enabled <code>true</code> to enable the group, <code>false</code> to disable it.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException in debugging mode (see
+   *           {@link #setDebugMode(boolean)}), if the switch makes the layout ambiguous. The group is left as it was.
+   */
+  public void setGroupEnabled(String theGroup, boolean enabled) {
+    if (enabled != this.disabledGroups.contains(theGroup)) {
+      return;
+    }
+
+    if (this.engine != null) {
+      Map<Object, RelativeConstraints> changes = new LinkedHashMap<Object, RelativeConstraints>();
+      for (Map.Entry<Component, GroupMember> entry : this.groupMembers.entrySet()) {
+        GroupMember member = entry.getValue();
+        if (member.group.equals(theGroup)) {
+          changes.put(entry.getKey(), (enabled ? member.enabledConstraints : member.disabledConstraints));
+        }
+      }
+
+      Set<String> groups = new HashSet<String>(this.disabledGroups);
+      if (enabled) {
+        groups.remove(theGroup);
+      } else {
+        groups.add(theGroup);
+      }
+      // Name the current combination too, so that switching straight back to it finds its solutions.
+      this.engine.replaceConstraints(new HashMap<Object, RelativeConstraints>(), groupVariant(this.disabledGroups));
+      // Following line may throw AmbiguousLayoutException:
+      this.engine.replaceConstraints(changes, groupVariant(groups));
+    }
+
+    if (enabled) {
+      this.disabledGroups.remove(theGroup);
+    } else {
+      this.disabledGroups.add(theGroup);
+    }
+
+    if (this.engine != null) {
+      Container parent = (Container) this.engine.getRoot();
+      parent.invalidate();
+      parent.validate();
+    }
+  }
+
+  /**
+   * Returns whether this RelativeLayout solves its layouts asynchronously. See
+   * {@link RelativeLayout#setAsynchronous(boolean)} for more information.
+   * 
+   * @return <code>true</code> if layouts are solved off the event dispatch thread, <code>false</code> otherwise.
+   */
+  public boolean isAsynchronous() {
+    return this.asynchronous;
+  }
+
+  /**
+   * Sets whether this RelativeLayout solves its layouts asynchronously. If <code>asynchronous</code> is set to
+   * <code>true</code>, {@link #layoutContainer(Container)} takes a snapshot of the layout's equations and the preferred
+   * sizes of its components, and returns immediately without solving them. The snapshot is then solved on the layout's
+   * executor (see {@link #setLayoutExecutor(Executor)}), and the resulting bounds are applied to the components back on
+   * the event dispatch thread. If the container is laid out again before a snapshot has been solved or applied, the
+   * older snapshot is discarded, so only the most recent layout ever reaches the screen.<br>
+   * <br>
+   * This keeps the user interface responsive while very large layouts are being solved, at the cost of components
+   * briefly keeping their old bounds after the container changes size. Preferred sizes are always computed
+   * synchronously, since {@link #preferredLayoutSize(Container)} must return a value. Asynchronous layout is off by
+   * default.
+   * 
+   * @param asynchronous <code>true</code> if layouts should be solved off the event dispatch thread, <code>false</code>
+   *          otherwise
+   */
+  public void setAsynchronous(boolean asynchronous) {
+    this.asynchronous = asynchronous;
+  }
+
+  /**
+   * Returns the executor on which this RelativeLayout solves its layouts when it is in asynchronous mode, or
+   * <code>null</code> if it uses the executor shared by all RelativeLayouts.
+   */
+  public Executor getLayoutExecutor() {
+    return this.layoutExecutor;
+  }
+
+  /**
+   * Sets the executor on which this RelativeLayout solves its layouts when it is in asynchronous mode. If
+   * <code>theExecutor</code> is <code>null</code>, a single background thread shared by all RelativeLayouts is used.
+   * 
+   * @param theExecutor The executor to solve layouts on, or <code>null</code> to use the shared one.
+   */
+  public void setLayoutExecutor(Executor theExecutor) {
+    this.layoutExecutor = theExecutor;
+  }
+
+  /**
+   * Returns the cache of compiled plans this RelativeLayout uses, or <code>null</code> if it doesn't use one. See
+   * {@link #setPlanCache(LayoutPlanCache)}.
+   */
+  public LayoutPlanCache getPlanCache() {
+    return this.planCache;
+  }
+
+  /**
+   * Sets the cache of compiled plans this RelativeLayout uses. The first time the container is laid out with a given
+   * set of components and constraints, the layout is compiled into a plan that gives every component's bounds
+   * directly in terms of the container's size and the components' preferred sizes, and the plan is saved in the cache.
+   * From then on, including the next time the application starts, laying out the same structure just evaluates the
+   * plan, which is much cheaper than solving it. The default is the cache given to
+   * {@link #setDefaultPlanCache(LayoutPlanCache)} when this layout was created.
+   * 
+   * @param theCache The cache to use, or <code>null</code> to solve every layout from scratch.
+   * @see LayoutEngine#setPlanCache(LayoutPlanCache)
+   */
+  public void setPlanCache(LayoutPlanCache theCache) {
+    this.planCache = theCache;
+    if (this.engine != null) {
+      this.engine.setPlanCache(theCache);
+    }
+  }
+
+  /**
+   * Returns the maximum number of recent solutions this RelativeLayout remembers. See
+   * {@link #setSolutionCacheSize(int)} for more information.
+   */
+  public int getSolutionCacheSize() {
+    return this.solutionCacheSize;
+  }
+
+  /**
+   * Sets the maximum number of recent solutions this RelativeLayout remembers. Each solution is remembered along with
+   * the size of the container it was computed for, so when the container goes back to a size it has recently had (for
+   * example, when a window is maximized and restored, or a split pane snaps between positions), the layout is not
+   * solved again; the remembered bounds are simply applied. A remembered solution is only reused if no component has
+   * been added or removed and no component's preferred size has changed since it was computed. When the cache is full,
+   * the least recently used solution is forgotten.<br>
+   * <br>
+   * By default, the {@value #DEFAULT_SOLUTION_CACHE_SIZE} most recent solutions are remembered. A size of 0 turns the
+   * cache off.
+   * 
+   * @param theCacheSize The number of solutions to remember.
+   */
+  public void setSolutionCacheSize(int theCacheSize) {
+    if (theCacheSize < 0) {
+      throw new IllegalArgumentException("The cache size cannot be negative.");
+    }
+    this.solutionCacheSize = theCacheSize;
+    if (this.engine != null) {
+      this.engine.setCacheSize(theCacheSize);
+    }
+  }
+
+  /**
+   * Returns the solver this RelativeLayout's layouts are solved with, or <code>null</code> if it uses the default. See
+   * {@link #setSolver(LayoutSolver)}.
+   */
+  public LayoutSolver getSolver() {
+    return this.solver;
+  }
+
+  /**
+   * Sets the solver this RelativeLayout's layouts are solved with, overriding the default (see
+   * {@link #setDefaultSolver(LayoutSolver)}). Every solver finds the same bounds for a layout that has exactly one
+   * solution, so this only changes how long solving takes, which is worth measuring for unusually large or tightly
+   * coupled layouts.
+   * 
+   * @param theSolver The solver to use, or <code>null</code> to use the default.
+   * @see LayoutEngine#setSolver(LayoutSolver)
+   */
+  public void setSolver(LayoutSolver theSolver) {
+    this.solver = theSolver;
+    if (this.engine != null) {
+      this.engine.setSolver(theSolver);
+    }
+  }
+
+  /**
+   * Returns how long, in milliseconds, components take to move to their new bounds when the layout changes. See
+   * {@link #setTransitionDuration(int)} for more information.
+   * 
+   * @return The transition duration, or 0 if transitions are disabled.
+   */
+  public int getTransitionDuration() {
+    return this.transitionDuration;
+  }
+
+  /**
+   * Sets how long, in milliseconds, components take to move to their new bounds when the layout changes. If
+   * <code>milliseconds</code> is greater than zero, then whenever the container is laid out while it is showing on
+   * screen, the layout is solved once for its new state and the components are then animated from wherever they
+   * currently are to their new bounds, using a Swing timer. Each frame of the animation only interpolates between the
+   * two sets of bounds; nothing is solved and nothing is allocated while it runs. If the container is laid out again
+   * before the animation finishes and the solution has changed, the animation is retargeted: the components head for
+   * the new bounds starting from wherever they happen to be at that moment.<br>
+   * <br>
+   * Transitions are disabled (set to 0) by default, in which case components jump straight to their new bounds.
+   * 
+   * @param milliseconds The length of each transition, or 0 to disable transitions.
+   */
+  public void setTransitionDuration(int milliseconds) {
+    if (milliseconds < 0) {
+      throw new IllegalArgumentException("The transition duration cannot be negative.");
+    }
+    this.transitionDuration = milliseconds;
+    if (milliseconds == 0) {
+      cancelTransition();
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if components are currently being animated to new bounds.
+   */
+  public boolean isTransitionRunning() {
+    return this.transition != null && this.transition.isRunning();
+  }
+
+  /**
+   * Stops the transition that is currently running, if any, and moves every component straight to its final bounds.
+   */
+  public void cancelTransition() {
+    if (this.transition != null) {
+      this.transition.finish();
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.awt.LayoutManager2#maximumLayoutSize(java.awt.Container)
+   */
+  public Dimension maximumLayoutSize(Container theTarget) {
+    return new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.awt.LayoutManager#minimumLayoutSize(java.awt.Container)
+   */
+  public Dimension minimumLayoutSize(Container theParent) {
+    return new Dimension(0, 0);
+  }
+
+  /**
+   * Returns the preferred size of the given container given the components that are to be laid out inside it. This
+   * method is called when a container using a RelativeLayout is packed using the {@link java.awt.Window#pack()} method.<br>
+   * <br>
+   * Since RelativeLayout is different from other layout managers in that the size of the window determines the size of
+   * the controls instead of vice versa, the behavior of this method (and therefore of the
+   * {@link java.awt.Window#pack()} method of a window that uses a RelativeLayout) is a little complicated. If the
+   * window has dynamically sized components in it (that is, anything whose size depends on the size of the window), the
+   * window will be "maximized" -- that is, it will be made as big as possible on the screen. If, however, the window
+   * does <em>not</em> have dynamically sized components (that is, no controls resize if you resize the window), then
+   * the window will be sized to fit its contents precisely. This will work even if there are controls anchored to the
+   * right or bottom of the window, but if there are, the window may be larger than desired in some cases.<br>
+   * <br>
+   * Note that due to the complexity of adding center-aligned components into the mix, the layout will <em>not</em>
+   * take into account components that are center-aligned in the window. If such components exist, you may need to
+   * manually set the size of the window instead of, or in addition to, calling {@link java.awt.Window#pack()}.
+   * 
+   * @see java.awt.LayoutManager#preferredLayoutSize(java.awt.Container)
+   */
+  public Dimension preferredLayoutSize(Container theParent) {
+    synchronized (theParent.getTreeLock()) {
+      LayoutEngine.Snapshot snapshot = createSnapshot(theParent);
+      LayoutEngine myEngine = this.engine;
+
+      // Check for dynamic sizes
+      boolean hasDynamicWidth = false;
+      boolean hasDynamicHeight = false;
+      for (int i = 0; i < myEngine.getNodeCount(); i++) {
+        RelativeConstraints theseConstraints = myEngine.getConstraints(myEngine.getNode(i));
+        for (ResolvedBinding thisBinding : theseConstraints.bindings) {
+          // If any of our bindings uses a dimensional variable, we have a dynamic size.
+          if (thisBinding.usesDimensionalVariable()) {
+            if (thisBinding.isHorizontal()) {
+              hasDynamicWidth = true;
+            } else {
+              hasDynamicHeight = true;
+            }
+            break;
+          }
+        }
+      }
+
+      // Calculate the screen size if we're going to need it.
+      int screenWidth = 0;
+      int screenHeight = 0;
+      if (hasDynamicWidth || hasDynamicHeight) {
+        GraphicsConfiguration graphicsConfig = theParent.getGraphicsConfiguration();
+        if (graphicsConfig == null) {
+          screenWidth = 640;
+          screenHeight = 480;
+        } else {
+          GraphicsDevice gs = graphicsConfig.getDevice();
+          DisplayMode dm = gs.getDisplayMode();
+          screenWidth = dm.getWidth();
+          screenHeight = dm.getHeight();
+        }
+
+        // If we found dynamic sizes, return the maximum size possible, and we're done.
+        if (hasDynamicWidth && hasDynamicHeight) {
+          return new Dimension(screenWidth, screenHeight);
+        }
+      }
+
+      // Otherwise, we have to generate solutions:
+      double[] solution = snapshot.solve();
+      myEngine.checkReferences();
+
+      // Now we find the max and min extents from all four corners:
+      double maxLeftExtent = 0.0, maxTopExtent = 0.0;
+      double minRightExtent = theParent.getSize().getWidth(), minBottomExtent = theParent.getSize().getHeight();
+
+      for (int i = 0; i < snapshot.getNodeCount(); i++) {
+        boolean isRightExtent = false, isBottomExtent = false;
+
+        // Now, if this component has a Binding to the right or bottom edge of the window, we're going to take note of
+        // that fact for later:
+        List<ResolvedBinding> bindings = myEngine.getConstraints(snapshot.getNode(i)).bindings;
+        for (ResolvedBinding b : bindings) {
+          if (b.getFixedNode() == theParent && (b.getRelativePosition().getFixedEdge() == Edge.RIGHT)) {
+            isRightExtent = true;
+          } else if (b.getFixedNode() == theParent && (b.getRelativePosition().getFixedEdge() == Edge.BOTTOM)) {
+            isBottomExtent = true;
+          }
+        }
+
+        // First the x-coordinate of the component:
+        if (isRightExtent) {
+          // The component had a binding to the right edge of the window.
+          double myX = solution[i * 4];
+          // See how far from the right this component extends, and take the min:
+          if (myX < minRightExtent) {
+            minRightExtent = myX;
+          }
+        } else {
+          // The component did not have a binding to the right edge of the window.
+          double myX = solution[i * 4] + myEngine.getPreferredWidth(i);
+          // See how far from the left this component extends, and take the max:
+          if (myX > maxLeftExtent) {
+            maxLeftExtent = myX;
+          }
+        }
+
+        // Then the y-coordinate:
+        if (isBottomExtent) {
+          // The component had a binding to the bottom edge of the window.
+          double myY = solution[i * 4 + 1];
+          // See how far from the bottom this component extends, and take the min:
+          if (myY < minBottomExtent) {
+            minBottomExtent = myY;
+          }
+        } else {
+          // The component did not have a binding to the bottom edge of the window.
+          double myY = solution[i * 4 + 1] + myEngine.getPreferredHeight(i);
+
+          // See how far from the top this component extends, and take the max:
+          if (myY > maxTopExtent) {
+            maxTopExtent = myY;
+          }
+        }
+      }
+      // Note: what are we forgetting here? That's right, center-aligned components! Something to do for later, I
+      // guess...
+
+      // Okay. So now we have all the info that we need, but there's just one problem. The minRightExtent and
+      // minBottomExtent all depend on the width and height of the window -- if the width is -1, and the minLeftExtent
+      // is -25, that means that the extent of the furthest control from the right isn't -25, but rather 24. So we need
+      // to subtract:
+      minRightExtent = theParent.getSize().getWidth() - minRightExtent;
+      minBottomExtent = theParent.getSize().getHeight() - minBottomExtent;
+
+      // Now, to find out how wide and tall the window needs to be to fit all this, worst-case, we just add the two
+      // extents together. This may make the window larger than strictly necessary, but it's better to be too big than
+      // too small.
+
+      Insets insets = theParent.getInsets();
+      Dimension finalSize =
+          new Dimension((int) maxLeftExtent + (int) minRightExtent + insets.left + insets.right, (int) maxTopExtent
+              + (int) minBottomExtent + insets.top + insets.bottom);
+
+      if (hasDynamicHeight) {
+        finalSize.height = screenHeight;
+      }
+      if (hasDynamicWidth) {
+        finalSize.width = screenWidth;
+      }
+
+      // theParent.setSize(oldSize);
+      return finalSize;
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.awt.LayoutManager#removeLayoutComponent(java.awt.Component)
+   */
+  public void removeLayoutComponent(Component theComp) {
+    this.pendingConstraints.remove(theComp);
+    if (this.engine != null) {
+      this.engine.remove(theComp);
+    }
+    if (this.groupMembers.remove(theComp) != null) {
+      this.groupGeneration++;
+    }
+    this.realizedComponents.remove(theComp);
+  }
+
+  /**
+   * Returns the key of the layout variant in which the given groups are disabled and the rest are enabled. The key
+   * depends on which components are in the groups, as well as on the groups' names.
+   */
+  private List<Object> groupVariant(Set<String> theDisabledGroups) {
+    List<Object> ret = new ArrayList<Object>(new TreeSet<String>(theDisabledGroups));
+    ret.add(Long.valueOf(this.groupGeneration));
+    return ret;
+  }
+
+  /**
+   * Returns the LayoutEngine that does the actual work of laying out the given container, creating one if necessary.
+   * This method should be used rather than accessing this.engine directly to avoid crashes or duplicated instances.
+   * 
+   * @param theParent The container we are laying out.
+   */
+  private LayoutEngine getEngine(Container theParent) {
+    if (this.engine == null) {
+      this.engine = new LayoutEngine(theParent);
+      this.engine.setCacheSize(this.solutionCacheSize);
+      this.engine.setPlanCache(this.planCache);
+      this.engine.setSolver(this.solver);
+    }
+    return this.engine;
+  }
+
+  /**
+   * Takes a snapshot of the layout of the given container, after updating the engine with the current preferred size
+   * of every component. The snapshot is not shared with this layout, so once this method returns it can safely be
+   * solved on any thread. Must be called with the container's tree lock held, typically on the event dispatch thread,
+   * since it queries the components' preferred sizes.
+   * 
+   * @param theParent The container we are laying out.
+   * @return A snapshot holding the container's equations as they are right now.
+   */
+  LayoutEngine.Snapshot createSnapshot(Container theParent) {
+    LayoutEngine myEngine = getEngine(theParent);
+    long start = System.nanoTime();
+    LayoutAttribution myAttribution = activeAttribution();
+    LayoutPhase event = LayoutPhases.preferredSize();
+    event.begin();
+    for (int i = 0; i < myEngine.getNodeCount(); i++) {
+      Component c = (Component) myEngine.getNode(i);
+      Dimension size;
+      if (myAttribution == null) {
+        size = c.getPreferredSize();
+      } else {
+        long componentStart = System.nanoTime();
+        size = c.getPreferredSize();
+        myAttribution.addPreferredSize(c, System.nanoTime() - componentStart);
+      }
+      myEngine.setPreferredSize(c, size.width, size.height);
+    }
+    event.end();
+    long preferredSizeNanos = System.nanoTime() - start;
+    if (event.shouldCommit()) {
+      event.describe(theParent, myEngine.getNodeCount());
+      event.commit();
+    }
+
+    Dimension parentSize = theParent.getSize();
+    LayoutEngine.Snapshot snapshot = myEngine.snapshot(parentSize.width, parentSize.height);
+    snapshot.preferredSizeNanos = preferredSizeNanos;
+    return snapshot;
+  }
+
+  /**
+   * Sets the bounds of the given container's components from solutions that were computed elsewhere, and remembers
+   * those solutions so that the next call to {@link #layoutContainer(Container)} at the same container size can reuse
+   * them instead of solving the layout again. Used by {@link ParallelLayoutCoordinator}.
+   * 
+   * @param theParent The container we are laying out.
+   * @param snapshot A snapshot taken using createSnapshot().
+   * @param solution The solution to that snapshot.
+   */
+  void applyPreparedSolutions(Container theParent, LayoutEngine.Snapshot snapshot, double[] solution) {
+    long start = System.nanoTime();
+    setComponentBounds(theParent, snapshot, solution);
+    finishPass(theParent, snapshot, System.nanoTime() - start, null);
+    this.preparedSnapshot = snapshot;
+    this.preparedSolution = solution;
+    this.preparedSize = theParent.getSize();
+  }
+
+  /**
+   * Forgets any solutions remembered by applyPreparedSolutions(), so that subsequent layouts are solved normally.
+   */
+  void clearPreparedSolutions() {
+    this.preparedSnapshot = null;
+    this.preparedSolution = null;
+    this.preparedSize = null;
+  }
+
+  /**
+   * Lays out the given container in asynchronous mode. The snapshot is taken here, on the calling thread, which
+   * captures the equations and preferred sizes as they are right now. Solving happens on the layout executor, and the
+   * solutions are handed back to the event dispatch thread to be applied. Each snapshot gets a generation number, and a
+   * snapshot that is no longer the latest one is dropped without being solved or applied.
+   * 
+   * @param theParent The container we are laying out.
+   */
+  private void layoutContainerAsynchronously(final Container theParent) {
+    final LayoutEngine.Snapshot snapshot = this.createSnapshot(theParent);
+
+    final long generation = this.layoutGeneration.incrementAndGet();
+    Executor executor = (this.layoutExecutor != null ? this.layoutExecutor : RelativeLayout.getSharedExecutor());
+
+    executor.execute(new Runnable() {
+      public void run() {
+        if (generation != RelativeLayout.this.layoutGeneration.get()) {
+          // A newer snapshot has been queued, so there's no point in solving this one.
+          return;
+        }
+
+        double[] solution = null;
+        RuntimeException failure = null;
+        try {
+          solution = snapshot.solve();
+        } catch (RuntimeException e) {
+          failure = e;
+        }
+
+        final double[] finalSolution = solution;
+        final RuntimeException finalFailure = failure;
+        SwingUtilities.invokeLater(new Runnable() {
+          public void run() {
+            if (generation != RelativeLayout.this.layoutGeneration.get()) {
+              return;
+            }
+            if (finalFailure != null) {
+              // Rethrow on the event dispatch thread, which is where a synchronous layout would have thrown it.
+              finishPass(theParent, snapshot, 0, finalFailure);
+              throw finalFailure;
+            }
+            long start = System.nanoTime();
+            applySolutions(theParent, snapshot, finalSolution);
+            finishPass(theParent, snapshot, System.nanoTime() - start, null);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Lays out the given container in draft mode. If the layout was solved less than a frame budget ago, this only makes
+   * sure a draft layout will happen once the budget runs out; otherwise the layout is solved and applied to the visible
+   * components.
+   * 
+   * @param theParent The container we are laying out.
+   */
+  private void layoutContainerDraft(Container theParent) {
+    long now = System.nanoTime();
+    long elapsedMillis = (now - this.lastDraftSolve) / 1000000L;
+    if (elapsedMillis < this.draftFrameBudget) {
+      if (this.draftTimer == null) {
+        this.draftTimer = new Timer(this.draftFrameBudget, new ActionListener() {
+          public void actionPerformed(ActionEvent e) {
+            Container parent = RelativeLayout.this.draftParent;
+            if (parent != null && RelativeLayout.this.liveResizing) {
+              synchronized (parent.getTreeLock()) {
+                layoutContainer(parent);
+              }
+            }
+          }
+        });
+        this.draftTimer.setRepeats(false);
+      }
+      this.draftParent = theParent;
+      if (!this.draftTimer.isRunning()) {
+        this.draftTimer.setInitialDelay((int) (this.draftFrameBudget - elapsedMillis));
+        this.draftTimer.start();
+      }
+      return;
+    }
+    this.lastDraftSolve = now;
+
+    LayoutEngine.Snapshot snapshot = null;
+    double[] solution;
+    try {
+      snapshot = createSnapshot(theParent);
+      solution = snapshot.solve();
+    } catch (RuntimeException e) {
+      finishPass(theParent, snapshot, 0, e);
+      throw e;
+    }
+
+    long start = System.nanoTime();
+    Component[] components = new Component[snapshot.getNodeCount()];
+    int[] bounds = new int[solution.length];
+    int count = collectBounds(theParent, snapshot, solution, components, bounds);
+    recordLayout(theParent, components, bounds, count);
+
+    Rectangle visible;
+    if (theParent instanceof JComponent) {
+      visible = ((JComponent) theParent).getVisibleRect();
+    } else {
+      visible = new Rectangle(0, 0, theParent.getWidth(), theParent.getHeight());
+    }
+
+    for (int i = 0; i < count; i++) {
+      Component comp = components[i];
+      int j = i * 4;
+      if (!comp.isVisible()) {
+        continue;
+      }
+      // Update components that are or will be visible; anything else can wait for the final pass.
+      if (visible.intersects(bounds[j], bounds[j + 1], bounds[j + 2], bounds[j + 3])
+          || visible.intersects(comp.getX(), comp.getY(), comp.getWidth(), comp.getHeight())) {
+        placeComponent(comp, bounds, j);
+      }
+    }
+    finishPass(theParent, snapshot, System.nanoTime() - start, null);
+  }
+
+  /**
+   * Records a finished layout pass in this layout's statistics and tells the layout listeners about it.
+   * 
+   * @param theParent The container that was laid out.
+   * @param snapshot The snapshot that was laid out, or <code>null</code> if the pass failed before one was taken.
+   * @param setBoundsNanos The time spent setting the bounds of components.
+   * @param failure The exception that stopped the pass, or <code>null</code> if it succeeded.
+   */
+  private void finishPass(Container theParent, LayoutEngine.Snapshot snapshot, long setBoundsNanos,
+                          RuntimeException failure) {
+    LayoutEvent event;
+    if (snapshot != null) {
+      event = new LayoutEvent(this, theParent, snapshot.getNodeCount(), snapshot.getVariableCount(),
+          snapshot.isCached(), snapshot.preferredSizeNanos, snapshot.getBuildNanos(), snapshot.getSolveNanos(),
+          setBoundsNanos, failure);
+    } else {
+      event = new LayoutEvent(this, theParent, 0, 0, false, 0, 0, 0, 0, failure);
+    }
+
+    this.statistics.record(event);
+    LayoutRecorder recorder = RelativeLayout.layoutRecorder;
+    if (recorder != null && snapshot != null && this.engine != null) {
+      this.engine.record(recorder, snapshot, setBoundsNanos, failure != null);
+    }
+    LayoutAttribution myAttribution = activeAttribution();
+    if (myAttribution != null && snapshot != null && failure == null && this.engine != null) {
+      attributePass(myAttribution, snapshot);
+    }
+    for (LayoutListener listener : this.layoutListeners) {
+      listener.layoutPerformed(event);
+    }
+  }
+
+  /**
+   * Charges a successful pass's solve time to the components whose Bindings couple them to others.
+   * 
+   * @param theAttribution The attribution to charge.
+   * @param snapshot The snapshot that was laid out.
+   */
+  private void attributePass(LayoutAttribution theAttribution, LayoutEngine.Snapshot snapshot) {
+    Component[] components = new Component[snapshot.getNodeCount()];
+    int[] blockSizes = new int[components.length];
+    int count = 0;
+    for (int i = 0; i < components.length; i++) {
+      Object node = snapshot.getNode(i);
+      if (!this.engine.contains(node)) {
+        // Removed since the snapshot was taken, in asynchronous mode.
         continue;
       }
+      components[count] = (Component) node;
+      blockSizes[count] = this.engine.getCoupledBlockSize(node);
+      count++;
+    }
+    theAttribution.addPass(components, blockSizes, count, snapshot.getSolveNanos());
+  }
+
+  /**
+   * Returns the attribution to charge costs to, or <code>null</code> if attribution is disabled.
+   */
+  private LayoutAttribution activeAttribution() {
+    return (this.attributionEnabled ? this.attribution : null);
+  }
+
+  /**
+   * Sets the bounds of a component, charging the time it takes to the component if attribution is enabled.
+   * 
+   * @param theComp The component.
+   * @param bounds An array holding the component's x, y, width, and height.
+   * @param offset The index of the x in the array.
+   */
+  private void placeComponent(Component theComp, int[] bounds, int offset) {
+    LayoutAttribution myAttribution = activeAttribution();
+    if (myAttribution == null) {
+      theComp.setBounds(bounds[offset], bounds[offset + 1], bounds[offset + 2], bounds[offset + 3]);
+      return;
+    }
+    long start = System.nanoTime();
+    theComp.setBounds(bounds[offset], bounds[offset + 1], bounds[offset + 2], bounds[offset + 3]);
+    myAttribution.addSetBounds(theComp, System.nanoTime() - start);
+  }
+
+  /**
+   * Applies a freshly solved snapshot to the components of the given container. If transitions are enabled and the
+   * container is on screen, the components are animated from their current bounds to the new ones; otherwise their
+   * bounds are set immediately.
+   * 
+   * @param theContainer The container we are laying out.
+   * @param snapshot The snapshot that was solved.
+   * @param solution The solution to the snapshot.
+   */
+  private void applySolutions(Container theContainer, LayoutEngine.Snapshot snapshot, double[] solution) {
+    boolean animate =
+        this.transitionDuration > 0 && this.hasAppliedSolutions && theContainer.isShowing() && !this.virtualized;
+    this.hasAppliedSolutions = true;
+
+    if (!animate) {
+      if (this.transition != null) {
+        this.transition.stop();
+      }
+      setComponentBounds(theContainer, snapshot, solution);
+      return;
+    }
+
+    Component[] components = new Component[snapshot.getNodeCount()];
+    int[] bounds = new int[solution.length];
+    int count = collectBounds(theContainer, snapshot, solution, components, bounds);
+    recordLayout(theContainer, components, bounds, count);
+
+    if (this.transition == null) {
+      this.transition = new LayoutTransition();
+    }
+    this.transition.retarget(theContainer, components, bounds, count, this.transitionDuration);
+  }
+
+  /**
+   * Works out the bounds each component in a solved snapshot should have within the given container, skipping any
+   * component that has been removed from the container since the snapshot was taken.
+   * 
+   * @param theContainer The container we are laying out.
+   * @param snapshot The snapshot that was solved.
+   * @param solution The solution to the snapshot.
+   * @param components An array to fill in with the components to lay out.
+   * @param bounds An array to fill in with the x, y, width, and height of each of those components in turn.
+   * @return The number of components filled in.
+   */
+  private int collectBounds(Container theContainer, LayoutEngine.Snapshot snapshot, double[] solution,
+                            Component[] components, int[] bounds) {
+    Insets insets = theContainer.getInsets();
+    int count = 0;
 
-      if (comp == theContainer) {
-        // We don't want to change the bounds of the parent, ever!
+    for (int i = 0; i < snapshot.getNodeCount(); i++) {
+      Component comp = (Component) snapshot.getNode(i);
+
+      if (comp.getParent() != theContainer) {
+        // The component was removed after this snapshot was taken (possible in asynchronous mode), so it's no longer
+        // ours to lay out.
         continue;
       }
 
-      Rectangle bounds = comp.getBounds();
+      int j = count * 4;
+      components[count] = comp;
+      bounds[j] = insets.left + (int) solution[i * 4];
+      bounds[j + 1] = insets.top + (int) solution[i * 4 + 1];
+      bounds[j + 2] = (int) solution[i * 4 + 2];
+      bounds[j + 3] = (int) solution[i * 4 + 3];
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Remembers the bounds the given components have just been laid out with, for getLayoutBounds(), the spatial index,
+   * and virtualized mode.
+   * 
+   * @param theContainer The container that was laid out.
+   * @param components The components that were laid out.
+   * @param bounds The x, y, width, and height of each of those components in turn.
+   * @param count The number of components.
+   */
+  private void recordLayout(Container theContainer, Component[] components, int[] bounds, int count) {
+    this.laidOutContainer = theContainer;
+    this.laidOutComponents = components;
+    this.laidOutBounds = bounds;
+    this.laidOutCount = count;
+    this.virtualApplied = null;
+  }
+
+  /**
+   * Sets the bounds of all the components in a solved snapshot, or in virtualized mode, of those near the visible part
+   * of the container.
+   * 
+   * @param theContainer The container we are laying out.
+   * @param snapshot The snapshot that was solved.
+   * @param solution The solution to the snapshot.
+   */
+  private void setComponentBounds(Container theContainer, LayoutEngine.Snapshot snapshot, double[] solution) {
+    Component[] components = new Component[snapshot.getNodeCount()];
+    int[] bounds = new int[solution.length];
+    int count = collectBounds(theContainer, snapshot, solution, components, bounds);
+    recordLayout(theContainer, components, bounds, count);
+
+    LayoutPhase event = LayoutPhases.setBounds();
+    event.begin();
+    if (this.virtualized) {
+      this.virtualApplied = new boolean[count];
+      indexStaleBounds();
+      watchViewport(theContainer);
+      count = applyVirtualBounds();
+    } else {
+      for (int i = 0; i < count; i++) {
+        placeComponent(components[i], bounds, i * 4);
+      }
+    }
+    event.end();
+    if (event.shouldCommit()) {
+      event.describe(theContainer, count);
+      event.commit();
+    }
+  }
+
+  /**
+   * In virtualized mode, files the components from the last layout that are somewhere other than where it put them
+   * under their current bounds, so that applyVirtualBounds() can find the ones that are in view but belong elsewhere.
+   * Components that are already where they belong are found by their layout bounds instead.
+   */
+  private void indexStaleBounds() {
+    int[] stale = new int[this.laidOutCount * 4];
+    int[] bounds = this.laidOutBounds;
+    for (int i = 0; i < this.laidOutCount; i++) {
+      Component comp = this.laidOutComponents[i];
+      int j = i * 4;
+      if (comp.getX() != bounds[j] || comp.getY() != bounds[j + 1] || comp.getWidth() != bounds[j + 2]
+          || comp.getHeight() != bounds[j + 3]) {
+        stale[j] = comp.getX();
+        stale[j + 1] = comp.getY();
+        stale[j + 2] = comp.getWidth();
+        stale[j + 3] = comp.getHeight();
+      }
+    }
+    if (this.staleIndex == null) {
+      this.staleIndex = new SpatialIndex();
+    }
+    this.staleIndex.update(this.laidOutComponents, stale, this.laidOutCount);
+  }
 
-      // Set that attribute of the relevant component to the value in the solution:
-      double value = solutions.get(v);
+  /**
+   * In virtualized mode, sets the bounds of the components from the last layout that are now within the virtualization
+   * margin of the visible part of the container, or that are there now but belong elsewhere, and haven't had their
+   * bounds set yet. Also tells the component recycler, if there is one, which components have come into or gone out of
+   * range. Only the components in range are looked at, using the spatial index for their layout bounds and the stale
+   * index for their current ones.
+   * 
+   * @return The number of components whose bounds were set.
+   */
+  private int applyVirtualBounds() {
+    Container container = this.laidOutContainer;
+    Rectangle region;
+    if (container instanceof JComponent) {
+      region = ((JComponent) container).getVisibleRect();
+    } else {
+      region = new Rectangle(0, 0, container.getWidth(), container.getHeight());
+    }
+    region.grow(this.virtualizationMargin, this.virtualizationMargin);
 
-      RelativeVariable rv = (RelativeVariable) v;
+    updateSpatialIndex();
+    int[] inRange = this.spatialIndex.queryPositions(region);
+    int[] bounds = this.laidOutBounds;
+    int ret = 0;
+    for (int i : inRange) {
+      if (!this.virtualApplied[i]) {
+        placeComponent(this.laidOutComponents[i], bounds, i * 4);
+        this.virtualApplied[i] = true;
+        ret++;
+      }
+    }
+    for (int i : this.staleIndex.queryPositions(region)) {
+      if (!this.virtualApplied[i]) {
+        placeComponent(this.laidOutComponents[i], bounds, i * 4);
+        this.virtualApplied[i] = true;
+        ret++;
+      }
+    }
 
-      Insets insets = comp.getParent().getInsets();
+    ComponentRecycler recycler = this.componentRecycler;
+    if (recycler != null) {
+      Set<Component> realized = new HashSet<Component>();
+      for (int i : inRange) {
+        Component comp = this.laidOutComponents[i];
+        realized.add(comp);
+        if (this.realizedComponents.add(comp)) {
+          recycler.componentRealized(comp);
+        }
+      }
+      for (Iterator<Component> iter = this.realizedComponents.iterator(); iter.hasNext();) {
+        Component comp = iter.next();
+        if (!realized.contains(comp)) {
+          iter.remove();
+          recycler.componentRecycled(comp);
+        }
+      }
+    }
+    return ret;
+  }
 
-      if (rv.getVariableType() == VariableType.X) {
-        comp.setBounds(insets.left + (int) value, bounds.y, bounds.width, bounds.height);
-      } else if (rv.getVariableType() == VariableType.Y) {
-        comp.setBounds(bounds.x, insets.top + (int) value, bounds.width, bounds.height);
-      } else if (rv.getVariableType() == VariableType.WIDTH) {
-        comp.setBounds(bounds.x, bounds.y, (int) value, bounds.height);
-      } else if (rv.getVariableType() == VariableType.HEIGHT) {
-        comp.setBounds(bounds.x, bounds.y, bounds.width, (int) value);
-      } else {
-        throw new IllegalArgumentException("Encountered an illegal variable (" + v.getName()
-            + ") while laying out a container.");
+  /**
+   * Makes sure that scrolling the viewport the given container is in, if any, applies the bounds of the components
+   * that come into range in virtualized mode. Stops watching any other viewport.
+   * 
+   * @param theContainer The container being laid out, or <code>null</code> to stop watching viewports altogether.
+   */
+  private void watchViewport(Container theContainer) {
+    JViewport viewport =
+        (theContainer != null ? (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, theContainer) : null);
+    if (viewport == this.virtualViewport) {
+      return;
+    }
+    if (this.virtualViewport != null) {
+      this.virtualViewport.removeChangeListener(this.viewportListener);
+    }
+    this.virtualViewport = viewport;
+    if (viewport != null) {
+      if (this.viewportListener == null) {
+        this.viewportListener = new ChangeListener() {
+          public void stateChanged(ChangeEvent e) {
+            if (RelativeLayout.this.virtualApplied != null) {
+              applyVirtualBounds();
+            }
+          }
+        };
       }
+      viewport.addChangeListener(this.viewportListener);
+    }
+  }
+
+  /**
+   * A component's place in a constraint group. See setGroupConstraints().
+   */
+  private static final class GroupMember {
+
+    /**
+     * Constructor for GroupMember.
+     */
+    GroupMember(String theGroup, RelativeConstraints theEnabledConstraints) {
+      this.group = theGroup;
+      this.enabledConstraints = theEnabledConstraints;
     }
+
+    /**
+     * The name of the group.
+     */
+    final String group;
+
+    /**
+     * The constraints the component was added with, used while the group is enabled.
+     */
+    RelativeConstraints enabledConstraints;
+
+    /**
+     * The constraints used while the group is disabled.
+     */
+    RelativeConstraints disabledConstraints;
   }
 
   /**
-   * The mapping between each component and the constraint with which it was associated when it was added to the layout.
+   * The engine that lays out this container. Don't access or set this directly; use getEngine() instead, which will
+   * automatically create one if needed.
+   */
+  private LayoutEngine engine;
+
+  /**
+   * The maximum number of solutions the engine remembers. See setSolutionCacheSize().
+   */
+  private int solutionCacheSize = RelativeLayout.DEFAULT_SOLUTION_CACHE_SIZE;
+
+  /**
+   * The solver the engine uses, or null for the default. See setSolver().
+   */
+  private LayoutSolver solver;
+
+  /**
+   * The cache of compiled plans the engine uses, or null for none. See setPlanCache().
+   */
+  private LayoutPlanCache planCache = RelativeLayout.defaultPlanCache;
+
+  /**
+   * Whether layouts are solved off the event dispatch thread. See setAsynchronous().
+   */
+  private volatile boolean asynchronous;
+
+  /**
+   * The executor asynchronous layouts are solved on, or null to use the shared executor.
+   */
+  private volatile Executor layoutExecutor;
+
+  /**
+   * The generation number of the most recent asynchronous layout snapshot. Snapshots whose generation no longer matches
+   * this are stale and are discarded.
+   */
+  private final AtomicLong layoutGeneration = new AtomicLong();
+
+  /**
+   * A snapshot solved ahead of time by a ParallelLayoutCoordinator, or null if there is none. Only valid while the
+   * container is still the size recorded in preparedSize.
+   */
+  private LayoutEngine.Snapshot preparedSnapshot;
+
+  /**
+   * The solution to preparedSnapshot.
+   */
+  private double[] preparedSolution;
+
+  /**
+   * The size of the container when preparedSolutions were applied.
+   */
+  private Dimension preparedSize;
+
+  /**
+   * The length of a transition in milliseconds, or 0 if transitions are disabled.
+   */
+  private int transitionDuration;
+
+  /**
+   * The transition used to animate components to new bounds. Created the first time it is needed and reused from then
+   * on.
+   */
+  private LayoutTransition transition;
+
+  /**
+   * Whether a live resize is in progress. See beginLiveResize().
+   */
+  private boolean liveResizing;
+
+  /**
+   * The minimum time between two solves in draft mode, in milliseconds.
+   */
+  private int draftFrameBudget = RelativeLayout.DEFAULT_DRAFT_FRAME_BUDGET;
+
+  /**
+   * The time of the last solve in draft mode, as returned by System.nanoTime().
+   */
+  private long lastDraftSolve;
+
+  /**
+   * Fires a draft layout once the frame budget runs out, if layouts were requested in the meantime. Created the first
+   * time it is needed.
+   */
+  private Timer draftTimer;
+
+  /**
+   * The container the draft timer should lay out.
+   */
+  private Container draftParent;
+
+  /**
+   * Whether solutions have ever been applied to the container. The very first layout is never animated, since the
+   * components don't have meaningful bounds to start from yet.
+   */
+  private boolean hasAppliedSolutions;
+
+  /**
+   * Statistics covering this layout. See getStatistics().
+   */
+  private final LayoutStatistics statistics = new LayoutStatistics(RelativeLayout.globalStatistics);
+
+  /**
+   * The time charged to each component, or null if attribution has never been enabled. See setAttributionEnabled().
+   */
+  private volatile LayoutAttribution attribution;
+
+  /**
+   * Whether the time spent on each component is being measured.
+   */
+  private volatile boolean attributionEnabled;
+
+  /**
+   * Whether only components near the visible part of the container have their bounds set. See setVirtualized().
+   */
+  private boolean virtualized;
+
+  /**
+   * How far beyond the visible part of the container components are laid out in virtualized mode. See
+   * setVirtualizationMargin().
+   */
+  private int virtualizationMargin = RelativeLayout.DEFAULT_VIRTUALIZATION_MARGIN;
+
+  /**
+   * The object told when components come into and go out of range in virtualized mode, or null.
+   */
+  private ComponentRecycler componentRecycler;
+
+  /**
+   * The components the recycler has been told are realized and not since recycled.
+   */
+  private final Set<Component> realizedComponents = new HashSet<Component>();
+
+  /**
+   * The container that was last laid out.
+   */
+  private Container laidOutContainer;
+
+  /**
+   * The components that were last laid out.
+   */
+  private Component[] laidOutComponents;
+
+  /**
+   * The x, y, width, and height each of laidOutComponents was last laid out with.
+   */
+  private int[] laidOutBounds;
+
+  /**
+   * The number of entries of laidOutComponents in use.
+   */
+  private int laidOutCount;
+
+  /**
+   * The spatial index over laidOutBounds, created by the first query.
+   */
+  private SpatialIndex spatialIndex;
+
+  /**
+   * The laidOutBounds array the spatial index was last brought up to date with.
+   */
+  private int[] indexedBounds;
+
+  /**
+   * In virtualized mode, an index of the current bounds of the components that the last layout put somewhere else, or
+   * null before the first virtualized layout. See indexStaleBounds().
+   */
+  private SpatialIndex staleIndex;
+
+  /**
+   * In virtualized mode, whether each of laidOutComponents has had its bounds set since it was last laid out, or null
+   * if the last layout wasn't virtualized.
+   */
+  private boolean[] virtualApplied;
+
+  /**
+   * The viewport being watched for scrolling in virtualized mode, or null.
+   */
+  private JViewport virtualViewport;
+
+  /**
+   * Applies the bounds of components that have been scrolled into range, in virtualized mode.
+   */
+  private ChangeListener viewportListener;
+
+  /**
+   * The listeners told about every layout pass. Copied on write so that listeners can remove themselves while being
+   * told about a pass.
+   */
+  private final List<LayoutListener> layoutListeners = new CopyOnWriteArrayList<LayoutListener>();
+
+  /**
+   * The group each component with group constraints is in, and its constraints in and out of that group.
+   */
+  private final Map<Component, GroupMember> groupMembers = new LinkedHashMap<Component, GroupMember>();
+
+  /**
+   * The names of the constraint groups that are disabled.
+   */
+  private final Set<String> disabledGroups = new HashSet<String>();
+
+  /**
+   * The number of calls to beginUpdate() not yet matched by a call to commit().
+   */
+  private int updateDepth;
+
+  /**
+   * The constraints of each component added since the update began, in the order they were added.
    */
-  private Map<Component, RelativeConstraints> constraints = new HashMap<Component, RelativeConstraints>();
+  private final Map<Component, RelativeConstraints> pendingConstraints =
+      new LinkedHashMap<Component, RelativeConstraints>();
 
   /**
-   * The mapping between each variable in the back-end matrix and the component with which it is associated. This is
-   * technically no longer needed because we're using RelativeVariables, which store their component association, so it
-   * should probably be refactored out.
+   * Whether a layout was put off until the update is committed.
    */
-  private Map<Variable, Component> componentAssociations = new HashMap<Variable, Component>();
+  private boolean layoutDeferred;
 
   /**
-   * The backend matrix we're using to lay out this container. Don't access or set this directly; use getBackend()
-   * instead, which will automatically create one if needed.
+   * Incremented whenever a component joins or leaves a group, since the same groups being disabled no longer means the
+   * same constraints.
    */
-  private RelativeMatrix backend;
+  private long groupGeneration;
 
 }
@@ -3,17 +3,90 @@
  */
 package edu.cmu.relativelayout;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * Represents the position of an edge at some offset from another edge. RelativePositions are designed to be reused in
  * multiple {@link Binding}s using the {@link Binding#Binding(RelativePosition, java.awt.Component)} constructor. If
  * you don't need reusability, you can also construct a {@link Binding} without having to create a RelativePosition by
  * using the {@link Binding#Binding(Edge, int, Direction, Edge, java.awt.Component)} constructor. <br>
  * <br>
- * RelativePositions are immutable; that is, once constructed, they cannot be changed.
+ * RelativePositions are immutable; that is, once constructed, they cannot be changed. Because of this, equal
+ * RelativePositions can be shared freely, and {@link #valueOf(Edge, int, Direction, Edge)} returns the same instance
+ * every time it is asked for the same position, so that a screen built from thousands of identical Bindings only needs
+ * one RelativePosition. The shared instances are only held weakly, so positions that no Binding uses any more, such as
+ * the distances of a layout that was animated through every offset, don't stay in memory.
  * 
  * @author Brian Ellis (phoenix1701@gmail.com)
  */
-public class RelativePosition {
+public final class RelativePosition {
+
+  /**
+   * A weak reference to a shared RelativePosition that remembers its key, so that its entry can be removed once it is
+   * collected. The key can't be the RelativePosition itself, or the table would keep every one of them reachable.
+   */
+  private static final class Entry extends WeakReference<RelativePosition> {
+
+    /**
+     * Constructor for Entry.
+     */
+    Entry(Long theKey, RelativePosition thePosition, ReferenceQueue<RelativePosition> theQueue) {
+      super(thePosition, theQueue);
+      this.key = theKey;
+    }
+
+    /**
+     * The key the RelativePosition is filed under.
+     */
+    final Long key;
+  }
+
+  /**
+   * Returns the RelativePosition with the given parameters, reusing an existing instance if there is one. Every
+   * Binding constructed from edges, directions and a distance uses this.
+   * 
+   * @param myEdge The edge of a component that will be defined by the RelativePosition.
+   * @param distance How far that edge will be from the edge of some fixed component, in pixels.
+   * @param direction The direction the edge will be in from the edge of some fixed component.
+   * @param fixedEdge The edge of some fixed component from which the distance should be measured.
+   * @return The shared RelativePosition.
+   */
+  public static RelativePosition valueOf(Edge myEdge, int distance, Direction direction, Edge fixedEdge) {
+    RelativePosition.expungeCollected();
+    Long key =
+        Long.valueOf(((long) distance << 32) | (myEdge.ordinal() << 16) | (direction.ordinal() << 8)
+            | fixedEdge.ordinal());
+    RelativePosition ret = new RelativePosition(myEdge, distance, direction, fixedEdge);
+    Entry added = new Entry(key, ret, RelativePosition.collected);
+    while (true) {
+      Entry entry = RelativePosition.interned.putIfAbsent(key, added);
+      if (entry == null) {
+        return ret;
+      }
+      RelativePosition existing = entry.get();
+      if (existing != null) {
+        return existing;
+      }
+      // The existing RelativePosition has been collected but its entry hasn't been removed yet, so take its place.
+      if (RelativePosition.interned.replace(key, entry, added)) {
+        return ret;
+      }
+    }
+  }
+
+  /**
+   * Removes the entries of shared RelativePositions that have been garbage collected.
+   */
+  private static void expungeCollected() {
+    Entry entry;
+    while ((entry = (Entry) RelativePosition.collected.poll()) != null) {
+      // Only remove the entry if it hasn't already been replaced by one for a new RelativePosition with the same key.
+      RelativePosition.interned.remove(entry.key, entry);
+    }
+  }
 
   /**
    * Constructs an RelativePosition with the given parameters. See
@@ -32,6 +105,24 @@ public class RelativePosition {
     this.fixedEdge = fixedEdge;
   }
 
+  /**
+   * Returns <code>true</code> if the given object is a RelativePosition with the same edges, distance and direction.
+   * 
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof RelativePosition)) {
+      return false;
+    }
+    RelativePosition other = (RelativePosition) obj;
+    return this.myEdge == other.myEdge && this.distance == other.distance && this.direction == other.direction
+        && this.fixedEdge == other.fixedEdge;
+  }
+
   /**
    * Accessor method for direction, as set in the constructor.
    * 
@@ -68,6 +159,15 @@ public class RelativePosition {
     return this.myEdge;
   }
 
+  /**
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    return ((this.myEdge.hashCode() * 31 + this.distance) * 31 + this.direction.hashCode()) * 31
+        + this.fixedEdge.hashCode();
+  }
+
   /**
    * Returns <code>true</code> if this RelativePosition is "valid" -- that is, does not result in a nonsensical
    * relationship. See {@link InvalidBindingException} for a more formal definition of what this means.
@@ -97,24 +197,35 @@ public class RelativePosition {
     return ret;
   }
 
+  /**
+   * The entry for each shared RelativePosition returned by valueOf(), by a key packing its distance, edges and
+   * direction into one number.
+   */
+  private static final ConcurrentMap<Long, Entry> interned = new ConcurrentHashMap<Long, Entry>();
+
+  /**
+   * The entries whose shared RelativePositions have been garbage collected.
+   */
+  private static final ReferenceQueue<RelativePosition> collected = new ReferenceQueue<RelativePosition>();
+
   /**
    * The edge of the component that this RelativePosition deals with.
    */
-  private Edge myEdge;
+  private final Edge myEdge;
 
   /**
    * The distance between myEdge and fixedEdge.
    */
-  private int distance;
+  private final int distance;
 
   /**
    * The directional relation between the component and the fixed object that this RelativePosition deals with.
    */
-  private Direction direction;
+  private final Direction direction;
 
   /**
    * The edge of the fixedObject that this RelativePosition deals with.
    */
-  private Edge fixedEdge;
+  private final Edge fixedEdge;
 
 }
@@ -6,58 +6,129 @@
 package edu.cmu.relativelayout;
 
 import java.awt.Component;
-import java.util.HashMap;
 
 import edu.cmu.relativelayout.equation.Variable;
+import edu.cmu.relativelayout.equation.VariableInterner;
 
 /**
- * A subclass of Variable that uses a Component and a VariableType to determine its identity instead of a String. Note
- * that if you happen to create a Variable that has the exact same name as would be given to a RelativeVariable, the two
- * Variables will *not* be considered the same Variable.
+ * A subclass of Variable that uses a node and a VariableType to determine its identity instead of a String. A node is
+ * usually a Component, but can be any object laid out by a {@link LayoutEngine}. Nodes are told apart the same way the
+ * engine tells them apart, with equals(), so nodes that aren't equal always get different variables even if their names
+ * come out the same because their hash codes collide, as those of the Strings "Aa" and "BB" do. Note that if you
+ * happen to create a Variable that has the exact same name as would be given to a RelativeVariable, the two Variables
+ * will *not* be considered the same Variable.
  * 
  * @author Brian Ellis (phoenix1701@gmail.com)
  */
 class RelativeVariable extends Variable {
 
   /**
-   * A map of all known RelativeVariables by name.
+   * The key a RelativeVariable is interned under: its node and its VariableType.
    */
-  private static HashMap<String, Variable> map = new HashMap<String, Variable>();
+  private static final class Key {
+
+    /**
+     * Constructor for Key.
+     */
+    Key(Object theNode, VariableType theType) {
+      this.node = theNode;
+      this.type = theType;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object theObj) {
+      if (!(theObj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) theObj;
+      return this.type == other.type && this.node.equals(other.node);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+      return this.node.hashCode() * 31 + this.type.ordinal();
+    }
+
+    /**
+     * The node.
+     */
+    private final Object node;
+
+    /**
+     * The VariableType.
+     */
+    private final VariableType type;
+  }
 
   /**
-   * Gets a Variable for given component and VariableType. Calling get multiple times with the same component and
-   * VariableType is guaranteed to result in the same object being returned each time.
+   * Every RelativeVariable, by node and VariableType. Safe to use from several threads at once.
+   */
+  private static final VariableInterner<Key, RelativeVariable> variables =
+      new VariableInterner<Key, RelativeVariable>();
+
+  /**
+   * Gets a Variable for given node and VariableType. Calling get multiple times with the same node and VariableType is
+   * guaranteed to result in the same object being returned each time, as long as the object is still in use. Can be
+   * called from any thread.
    * 
-   * @param theComponent The component to associate with this Variable.
+   * @param theNode The component or other node to associate with this Variable.
    * @param theType The VariableType to associate with this Variable.
-   * @return A RelativeVariable associated with the given component and VariableType.
+   * @return A RelativeVariable associated with the given node and VariableType.
    */
-  public static Variable get(Component theComponent, VariableType theType) {
-    String componentName = theComponent.getClass().getName() + "@" + String.format("0x%h", theComponent.hashCode());
-    String variableName = componentName + "." + theType.toString();
-    if (RelativeVariable.map.containsKey(variableName)) {
-      return RelativeVariable.map.get(variableName);
-    } else {
-      RelativeVariable v = new RelativeVariable(variableName);
-      v.component = theComponent;
-      v.variableType = theType;
-      RelativeVariable.map.put(variableName, v);
-      return v;
+  public static Variable get(Object theNode, VariableType theType) {
+    Key key = new Key(theNode, theType);
+    RelativeVariable ret = RelativeVariable.variables.get(key);
+    if (ret == null) {
+      String nodeName = theNode.getClass().getName() + "@" + String.format("0x%h", theNode.hashCode());
+      String variableName = nodeName + "." + theType.toString();
+      ret = RelativeVariable.variables.intern(key, new RelativeVariable(variableName, theNode, theType));
     }
+    return ret;
   }
 
   /**
    * Private constructor. Calls the superclass constructor.
    */
-  private RelativeVariable(String name) {
+  private RelativeVariable(String name, Object theNode, VariableType theType) {
     super(name);
+    this.node = theNode;
+    this.variableType = theType;
+  }
+
+  /**
+   * RelativeVariables are interned by node and VariableType, so two of them are only equal if they are the same
+   * object, even if their names are the same. Their hash codes still come from their names, which is consistent with
+   * that.
+   * 
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(Object theObj) {
+    return this == theObj;
   }
 
   /**
-   * @return The component associated with this Variable.
+   * @return The component associated with this Variable, or <code>null</code> if its node is not a Component.
    */
   public Component getComponent() {
-    return this.component;
+    return (this.node instanceof Component ? (Component) this.node : null);
+  }
+
+  /**
+   * @return The node associated with this Variable.
+   */
+  public Object getNode() {
+    return this.node;
   }
 
   /**
@@ -76,10 +147,10 @@ class RelativeVariable extends Variable {
   /**
    * The VariableType of this Variable.
    */
-  private VariableType variableType;
+  private final VariableType variableType;
 
   /**
-   * The component associated with this Variable.
+   * The node associated with this Variable.
    */
-  private Component component;
+  private final Object node;
 }
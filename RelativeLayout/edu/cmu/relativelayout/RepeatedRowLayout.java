@@ -0,0 +1,236 @@
+/**
+ * RepeatedRowLayout.java<br>
+ * Contains class RepeatedRowLayout.
+ */
+package edu.cmu.relativelayout;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Insets;
+import java.awt.LayoutManager2;
+
+/**
+ * A LayoutManager for containers holding many rows that are all laid out the same way, such as long forms and lists.
+ * The rows are described once by a {@link RowTemplate}, and the container's components fill the template's cells in
+ * order: the first components are the cells of the first row, in the order they were added to the template, the next
+ * ones are those of the second row, and so on. For example:
+ *
+ * <pre>
+ * JPanel rows = new JPanel(new RepeatedRowLayout(template));
+ * for (Setting setting : settings) {
+ *   rows.add(new JLabel(setting.getName()));
+ *   rows.add(new JTextField(setting.getValue()));
+ * }
+ * </pre>
+ *
+ * The container can then be put in a {@link RelativeLayout} (or a scroll pane) like any other component.<br>
+ * <br>
+ * Where a RelativeLayout holding the same rows would solve equations for four variables per component all at once,
+ * a RepeatedRowLayout solves the template's equations once, and works out each row's bounds from the row above it. It
+ * therefore takes time proportional to the number of rows, and memory for just one row, so containers with tens of
+ * thousands of rows lay out quickly. Each row's bounds are exactly those a RelativeLayout would have given it.
+ *
+ * @see RowTemplate
+ */
+public class RepeatedRowLayout implements LayoutManager2 {
+
+  /**
+   * Constructs a RepeatedRowLayout that lays out rows according to the given template. The template can be shared by
+   * any number of layouts, but should not be changed once they are in use.
+   *
+   * @param theTemplate The template.
+   */
+  public RepeatedRowLayout(RowTemplate theTemplate) {
+    if (theTemplate == null) {
+      throw new IllegalArgumentException("A RepeatedRowLayout needs a RowTemplate.");
+    }
+    this.template = theTemplate;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.awt.LayoutManager2#addLayoutComponent(java.awt.Component, java.lang.Object)
+   */
+  public void addLayoutComponent(Component theComp, Object theConstraints) {
+    if (theConstraints != null) {
+      throw new IllegalArgumentException("RepeatedRowLayouts place components by their order, not by constraints.");
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.awt.LayoutManager#addLayoutComponent(java.lang.String, java.awt.Component)
+   */
+  public void addLayoutComponent(String theName, Component theComp) {
+    // Nothing to do: components are placed by their order in the container.
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.awt.LayoutManager2#getLayoutAlignmentX(java.awt.Container)
+   */
+  public float getLayoutAlignmentX(Container theTarget) {
+    return 0;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.awt.LayoutManager2#getLayoutAlignmentY(java.awt.Container)
+   */
+  public float getLayoutAlignmentY(Container theTarget) {
+    return 0;
+  }
+
+  /**
+   * Returns the template this layout lays out rows with.
+   */
+  public RowTemplate getTemplate() {
+    return this.template;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.awt.LayoutManager2#invalidateLayout(java.awt.Container)
+   */
+  public void invalidateLayout(Container theTarget) {
+    this.preferredSize = null;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.awt.LayoutManager#layoutContainer(java.awt.Container)
+   */
+  public void layoutContainer(Container theParent) {
+    Insets insets = theParent.getInsets();
+    layOut(theParent, theParent.getWidth() - insets.left - insets.right, true);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.awt.LayoutManager2#maximumLayoutSize(java.awt.Container)
+   */
+  public Dimension maximumLayoutSize(Container theTarget) {
+    return new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.awt.LayoutManager#minimumLayoutSize(java.awt.Container)
+   */
+  public Dimension minimumLayoutSize(Container theParent) {
+    return new Dimension(0, 0);
+  }
+
+  /**
+   * Returns the preferred size of the given container. The preferred height is the height of all the rows, which
+   * doesn't depend on the width of the container. The preferred width is the width needed by the cells whose widths
+   * don't depend on the width of the container; cells that stretch with the container are left at whatever width
+   * remains.
+   *
+   * @see java.awt.LayoutManager#preferredLayoutSize(java.awt.Container)
+   */
+  public Dimension preferredLayoutSize(Container theParent) {
+    if (this.preferredSize == null) {
+      this.preferredSize = layOut(theParent, 0, false);
+    }
+    Insets insets = theParent.getInsets();
+    return new Dimension(this.preferredSize.width + insets.left + insets.right, this.preferredSize.height + insets.top
+        + insets.bottom);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.awt.LayoutManager#removeLayoutComponent(java.awt.Component)
+   */
+  public void removeLayoutComponent(Component theComp) {
+    // Nothing to do: components are placed by their order in the container.
+  }
+
+  /**
+   * Works out the bounds of every row of the given container, one row at a time, each row starting where the template
+   * says it should relative to the row above it.
+   *
+   * @param theParent The container.
+   * @param width The width of the rows.
+   * @param apply <code>true</code> to set the components' bounds, <code>false</code> just to measure them.
+   * @return The width and height taken up by the rows, not counting the container's insets. Only meaningful when
+   *         measuring.
+   * @throws IllegalStateException if the container has components but the template has no cells to put them in.
+   */
+  private Dimension layOut(Container theParent, int width, boolean apply) {
+    int cells = this.template.getCellCount();
+    int count = theParent.getComponentCount();
+    if (cells == 0) {
+      // There are no rows to work out, and no row anchor to place them by.
+      if (count > 0) {
+        throw new IllegalStateException("The RowTemplate has no cells to lay out the container's " + count
+            + " components in.");
+      }
+      return new Dimension(0, 0);
+    }
+    LayoutPlan plan = this.template.getPlan();
+    int anchor = this.template.getRowAnchorIndex() * 4;
+    int spacing = this.template.getRowSpacing();
+    Insets insets = theParent.getInsets();
+
+    int[] sizes = new int[cells * 2];
+    double[] bounds = new double[cells * 4];
+    double top = 0;
+    int minLeft = 0;
+    int maxRight = 0;
+    int maxBottom = 0;
+
+    for (int first = 0; first < count; first += cells) {
+      int rowCells = Math.min(cells, count - first);
+      for (int c = 0; c < cells; c++) {
+        if (c < rowCells) {
+          Dimension size = theParent.getComponent(first + c).getPreferredSize();
+          sizes[c * 2] = size.width;
+          sizes[c * 2 + 1] = size.height;
+        } else {
+          // The last row isn't full, so pretend the missing cells are empty.
+          sizes[c * 2] = 0;
+          sizes[c * 2 + 1] = 0;
+        }
+      }
+      plan.evaluate(width, 0, sizes, bounds);
+
+      for (int c = 0; c < rowCells; c++) {
+        int j = c * 4;
+        int x = (int) bounds[j];
+        int y = (int) (top + bounds[j + 1]);
+        int w = (int) bounds[j + 2];
+        int h = (int) bounds[j + 3];
+        if (apply) {
+          theParent.getComponent(first + c).setBounds(insets.left + x, insets.top + y, w, h);
+        } else {
+          minLeft = Math.min(minLeft, x);
+          maxRight = Math.max(maxRight, x + w);
+          maxBottom = Math.max(maxBottom, y + h);
+        }
+      }
+      top += bounds[anchor + 1] + bounds[anchor + 3] + spacing;
+    }
+    return new Dimension(maxRight - minLeft, maxBottom);
+  }
+
+  /**
+   * The template describing each row.
+   */
+  private final RowTemplate template;
+
+  /**
+   * The preferred size of the rows, not counting the container's insets, or null if it needs working out again.
+   */
+  private Dimension preferredSize;
+}
@@ -0,0 +1,281 @@
+/**
+ * ResolvedBinding.java<br>
+ * Contains class ResolvedBinding.
+ */
+package edu.cmu.relativelayout;
+
+import java.awt.Component;
+import java.awt.Container;
+
+import edu.cmu.relativelayout.equation.Equation;
+import edu.cmu.relativelayout.equation.Variable;
+
+/**
+ * A {@link Binding} as it applies to one particular node: the per-node half of the split between a Binding, which is
+ * an immutable template that can be shared by any number of nodes, and the equation it resolves to once it is known
+ * which node it positions and what its fixed node is. {@link RelativeConstraints} hold one of these for each Binding
+ * added to them.
+ */
+class ResolvedBinding {
+
+  /**
+   * Constructs a ResolvedBinding for the given template, which isn't yet attached to a node.
+   * 
+   * @param theTemplate The Binding to resolve.
+   */
+  ResolvedBinding(Binding theTemplate) {
+    this.template = theTemplate;
+    // Remember the fixed node now, in case the (deprecated) setFixedComponent() is used to change the template later.
+    this.declaredFixedNode = theTemplate.getFixedNode();
+    this.fixedNode = this.declaredFixedNode;
+  }
+
+  /**
+   * Returns the fixed node for this Binding, which is the parent of the floating node if the template's fixed node was
+   * {@link Binding#PARENT}.
+   */
+  Object getFixedNode() {
+    return this.fixedNode;
+  }
+
+  /**
+   * Returns the {@link RelativePosition} of this Binding.
+   */
+  RelativePosition getRelativePosition() {
+    return this.template.getRelativePosition();
+  }
+
+  /**
+   * Returns the Binding this was resolved from.
+   */
+  Binding getTemplate() {
+    return this.template;
+  }
+
+  /**
+   * Returns <code>true</code> if the relationship this Binding describes is possible.
+   * 
+   * @see Binding#isValid()
+   */
+  boolean isValid() {
+    return this.template.isValid();
+  }
+
+  /**
+   * Returns a human-readable String representation of this Binding, naming the nodes it ties together.
+   */
+  @Override
+  public String toString() {
+    return this.template.describe(this.node, this.fixedNode);
+  }
+
+  /**
+   * Returns the "floating" node for this Binding, which is <code>null</code> until the Binding has been added to a
+   * layout.
+   */
+  Object getNode() {
+    return this.node;
+  }
+
+  /**
+   * Returns the Equation for this Binding.
+   */
+  Equation getEquation() {
+    return this.equation;
+  }
+
+  /**
+   * Returns the primary Variable for this Binding.
+   */
+  Variable getPrimaryVariable() {
+    return RelativeVariable.get(this.node, variableTypeForEdge(this.template.getRelativePosition().getMyEdge()));
+  }
+
+  /**
+   * Returns true if this Binding's equation involves a dimensional variable, whether or not that variable is the
+   * primary variable for this Binding.
+   * 
+   * @return true if this Binding has a dimensional variable, false otherwise
+   */
+  boolean hasDimensionalVariable() {
+    Edge myEdge = this.template.getRelativePosition().getMyEdge();
+    return (myEdge != Edge.LEFT && myEdge != Edge.TOP);
+  }
+
+  /**
+   * Returns true if this Binding positions its node horizontally.
+   */
+  boolean isHorizontal() {
+    Direction direction = this.template.getRelativePosition().getDirection();
+    return (direction == Direction.LEFT || direction == Direction.RIGHT);
+  }
+
+  /**
+   * Sets the "floating" node for this Binding. This sets up the equation.
+   * 
+   * @param theNode The node being bound.
+   * @param theParent The node that contains it, which stands in for {@link Binding#PARENT}.
+   */
+  void setNode(Object theNode, Object theParent) {
+    this.node = theNode;
+    this.fixedNode = this.declaredFixedNode;
+    if (this.fixedNode == null) {
+      this.fixedNode = theParent;
+    }
+    // Special case: they set the fixed object to an ancestor instead of the parent component, like setting it to a
+    // frame instead of the frame's content pane:
+    if (this.node instanceof Component && this.fixedNode instanceof Container
+        && ((Container) this.fixedNode).isAncestorOf((Component) this.node)) {
+      this.fixedNode = theParent;
+    }
+    // Whether a dimensional variable is used is worked out again by whoever is resolving the constraints.
+    this.usesDimensionalVariable = false;
+    this.setupEquation();
+  }
+
+  /**
+   * Sets whether this Binding uses a dimensional variable. See usesDimensionalVariable() for more info about what this
+   * means.
+   * 
+   * @param flag true if this Binding should use a dimensional variable, false otherwise.
+   */
+  void setUsesDimensionalVariable(boolean flag) {
+    this.usesDimensionalVariable = flag;
+  }
+
+  /**
+   * Returns true if this Binding is using a dimensional variable. The Binding is using a dimensional variable if the
+   * equation for this Binding defines either the width or height (as opposed to x or y) of a component.
+   * 
+   * @return <code>true</code> if the Binding is using a dimensional variable, <code>false</code> otherwise.
+   */
+  boolean usesDimensionalVariable() {
+    return this.usesDimensionalVariable;
+  }
+
+  /**
+   * Sets up the equation for this Binding, after which it can be retrieved using getEquation().
+   */
+  private void setupEquation() {
+    // Let's say we've got "my right side is ten pixels to the left of B's left side."
+    // We want to represent that as Ax + Aw = Bx - 10, which is Ax + Aw - Bx = -10
+    this.equation = new ConcreteEquation();
+    this.equation.setBinding(this);
+
+    Edge myEdge = this.template.getRelativePosition().getMyEdge();
+    Edge fixedEdge = this.template.getRelativePosition().getFixedEdge();
+
+    // Determine what variable we're specifying:
+    VariableType myType = variableTypeForEdge(myEdge);
+
+    this.equation.setCoefficient(1, RelativeVariable.get(this.node, myType));
+
+    // Now we have Ax = 0;
+
+    // If we're not working with top or left, we need to also specify width or height:
+    if (myEdge == Edge.RIGHT) {
+      this.equation.setCoefficient(1, RelativeVariable.get(this.node, VariableType.WIDTH));
+    }
+    if (myEdge == Edge.BOTTOM) {
+      this.equation.setCoefficient(1, RelativeVariable.get(this.node, VariableType.HEIGHT));
+    }
+    if (myEdge == Edge.VERTICAL_CENTER) {
+      this.equation.setCoefficient(0.5, RelativeVariable.get(this.node, VariableType.HEIGHT));
+    }
+    if (myEdge == Edge.HORIZONTAL_CENTER) {
+      this.equation.setCoefficient(0.5, RelativeVariable.get(this.node, VariableType.WIDTH));
+    }
+
+    // So now we have Ax + Aw = 0.
+
+    VariableType theirType = variableTypeForEdge(this.template.getRelativePosition().getFixedEdge());
+
+    this.equation.setCoefficient(-1, RelativeVariable.get(this.fixedNode, theirType));
+    // If we're not working with top or left, we need to also specify width or height:
+    if (fixedEdge == Edge.RIGHT) {
+      this.equation.setCoefficient(-1, RelativeVariable.get(this.fixedNode, VariableType.WIDTH));
+    }
+    if (fixedEdge == Edge.BOTTOM) {
+      this.equation.setCoefficient(-1, RelativeVariable.get(this.fixedNode, VariableType.HEIGHT));
+    }
+    if (fixedEdge == Edge.VERTICAL_CENTER) {
+      this.equation.setCoefficient(-0.5, RelativeVariable.get(this.fixedNode, VariableType.HEIGHT));
+    }
+    if (fixedEdge == Edge.HORIZONTAL_CENTER) {
+      this.equation.setCoefficient(-0.5, RelativeVariable.get(this.fixedNode, VariableType.WIDTH));
+    }
+
+    // So now we have Ax + Aw - Bx = 0.
+
+    if (this.template.getRelativePosition().getDirection() == Direction.RIGHT
+        || this.template.getRelativePosition().getDirection() == Direction.BELOW) {
+      this.equation.setRightHandSide(this.template.getRelativePosition().getDistance());
+    } else {
+      this.equation.setRightHandSide(0 - this.template.getRelativePosition().getDistance());
+    }
+
+    // So now we have Ax + Aw - Bx = -10. QED.
+  }
+
+  /**
+   * Returns the {@link VariableType} associated with a particular {@link Edge}, given the current state of this
+   * Binding (i.e., whether it uses a dimensional variable).
+   * 
+   * @param theEdge The edge to get a VariableType for.
+   * @return The VariableType for the given Edge.
+   */
+  private VariableType variableTypeForEdge(Edge theEdge) {
+    VariableType theType = null;
+    if (theEdge == Edge.LEFT) {
+      theType = VariableType.X;
+    } else if (theEdge == Edge.TOP) {
+      theType = VariableType.Y;
+    } else if (theEdge == Edge.RIGHT || theEdge == Edge.HORIZONTAL_CENTER) {
+      theType = this.usesDimensionalVariable() ? VariableType.WIDTH : VariableType.X;
+    } else if (theEdge == Edge.BOTTOM || theEdge == Edge.VERTICAL_CENTER) {
+      theType = this.usesDimensionalVariable() ? VariableType.HEIGHT : VariableType.Y;
+    } else {
+      // We hit some other enum constant we didn't know about...?
+      assert false;
+    }
+    return theType;
+  }
+
+  /**
+   * The shared Binding this was resolved from.
+   */
+  private final Binding template;
+
+  /**
+   * The fixed node of the template when it was added to a constraint, which may be {@link Binding#PARENT}.
+   */
+  private final Object declaredFixedNode;
+
+  /**
+   * The equation associated with this Binding. Will be null until setupEquation() is called.
+   */
+  private ConcreteEquation equation;
+
+  /**
+   * The fixed node for this Binding, usually a component. Once the floating node is set, this
+   * is never {@link Binding#PARENT}.
+   */
+  private Object fixedNode;
+
+  /**
+   * The floating node for this Binding, usually a component. This will be null until the Binding is added to a
+   * constraint and the constraint is added to a layout.
+   */
+  private Object node;
+
+  /**
+   * Indicates whether this Binding should use width/height instead of x/y as its "primary" variable. The ramifications
+   * of this have to do with the matrix, since each variable is defined by one and only one equation. If we know
+   * something about a component's X or Y values, we want the equation that tells us that to define the X or Y value,
+   * even if that equation also involves the component's width or height. If, however, we get another equation that also
+   * involves the component's X or Y but doesn't involve its width or height, we "demote" one of the equations to
+   * specifying the width or height of the component instead of its X/Y position. This field determines whether this
+   * Binding has been demoted in this way.
+   */
+  private boolean usesDimensionalVariable;
+}
@@ -0,0 +1,154 @@
+/**
+ * RowTemplate.java<br>
+ * Contains class RowTemplate.
+ */
+package edu.cmu.relativelayout;
+
+/**
+ * The Bindings shared by every row of a form or list laid out by a {@link RepeatedRowLayout}. A template is made of
+ * cells, each of which stands for the component in that position of every row, and each cell is added with the
+ * constraints that place it within its row. Bindings refer to other cells of the same row by passing the cell itself
+ * as the fixed node, so a cell can be anything: a name, or a prototype component if you want to use a
+ * {@link BindingFactory}. For example, a row holding a label and a field that stretches to the right edge:
+ *
+ * <pre>
+ * RowTemplate template = new RowTemplate();
+ * template.add(&quot;label&quot;, new RelativeConstraints(
+ *     new Binding(Edge.LEFT, 12, Direction.RIGHT, Edge.LEFT, Binding.PARENT),
+ *     new Binding(Edge.TOP, 0, Direction.BELOW, Edge.TOP, Binding.PARENT)));
+ * template.add(&quot;field&quot;, new RelativeConstraints(
+ *     new Binding(Edge.LEFT, 6, Direction.RIGHT, Edge.RIGHT, &quot;label&quot;),
+ *     new Binding(Edge.RIGHT, 12, Direction.LEFT, Edge.RIGHT, Binding.PARENT),
+ *     new Binding(Edge.VERTICAL_CENTER, 0, Direction.BELOW, Edge.VERTICAL_CENTER, &quot;label&quot;)));
+ * template.setRowSpacing(&quot;field&quot;, 4);
+ * </pre>
+ *
+ * Within a template, {@link Binding#PARENT} is the row itself. Its left and right edges are those of the container,
+ * and its top edge is the top of the row; a row has no height of its own, so vertical Bindings should be to the top of
+ * the parent or to other cells. Each row starts a fixed distance below the bottom of one of the cells of the row above
+ * it (see {@link #setRowSpacing(Object, int)}).<br>
+ * <br>
+ * Since every row has the same Bindings, the template's equations are solved just once, in terms of the width of the
+ * container and the preferred sizes of one row's components. Laying out each row then only takes a few arithmetic
+ * operations per component, however many rows there are.
+ */
+public class RowTemplate {
+
+  /**
+   * Constructs an empty RowTemplate.
+   */
+  public RowTemplate() {
+    this.engine = new LayoutEngine(new Object() {
+      @Override
+      public String toString() {
+        return "the row";
+      }
+    });
+  }
+
+  /**
+   * Adds a cell to the end of each row.
+   *
+   * @param theCell The cell, which can be any object that isn't already a cell of this template.
+   * @param theConstraints The constraints that place the cell within its row.
+   * @throws InconsistentConstraintException if any two Bindings in the constraints contradict each other.
+   * @throws InvalidBindingException if any of the Bindings is not physically possible.
+   */
+  public void add(Object theCell, RelativeConstraints theConstraints) {
+    if (this.engine.contains(theCell)) {
+      throw new IllegalArgumentException(theCell + " is already a cell of this RowTemplate.");
+    }
+    this.engine.add(theCell, theConstraints);
+    if (this.anchorCell == null) {
+      this.anchorCell = theCell;
+    }
+    this.plan = null;
+  }
+
+  /**
+   * Returns the cell at the given position in each row.
+   */
+  public Object getCell(int index) {
+    return this.engine.getNode(index);
+  }
+
+  /**
+   * Returns the number of cells in each row.
+   */
+  public int getCellCount() {
+    return this.engine.getNodeCount();
+  }
+
+  /**
+   * Returns the cell whose bottom edge each row is placed below. See {@link #setRowSpacing(Object, int)}.
+   */
+  public Object getRowAnchor() {
+    return this.anchorCell;
+  }
+
+  /**
+   * Returns the distance between the bottom of the anchor cell of each row and the top of the next row. See
+   * {@link #setRowSpacing(Object, int)}.
+   */
+  public int getRowSpacing() {
+    return this.rowSpacing;
+  }
+
+  /**
+   * Sets where each row goes relative to the row above it: its top edge is the given distance below the bottom edge of
+   * the given cell of the row above. By default, rows are placed directly below the first cell.
+   *
+   * @param theAnchorCell The cell of each row that the next row goes below.
+   * @param theSpacing The distance between that cell's bottom edge and the top of the next row.
+   */
+  public void setRowSpacing(Object theAnchorCell, int theSpacing) {
+    if (!this.engine.contains(theAnchorCell)) {
+      throw new IllegalArgumentException(theAnchorCell + " is not a cell of this RowTemplate.");
+    }
+    this.anchorCell = theAnchorCell;
+    this.rowSpacing = theSpacing;
+  }
+
+  /**
+   * Returns the index of the anchor cell.
+   */
+  int getRowAnchorIndex() {
+    return this.engine.indexOf(this.anchorCell);
+  }
+
+  /**
+   * Returns the plan giving the bounds of each cell of a row, relative to the top left corner of the row, in terms of
+   * the width of the row and the preferred sizes of its components. The root height is ignored. The plan is compiled
+   * the first time it is needed after a cell is added.
+   *
+   * @throws UnknownComponentException if a Binding refers to something that isn't a cell of this template.
+   * @throws edu.cmu.relativelayout.matrix.AmbiguousLayoutException if the template's Bindings do not describe exactly
+   *           one layout of a row.
+   */
+  LayoutPlan getPlan() {
+    if (this.plan == null) {
+      this.plan = this.engine.compile();
+    }
+    return this.plan;
+  }
+
+  /**
+   * The engine holding the cells and their constraints, with the row as its root.
+   */
+  private final LayoutEngine engine;
+
+  /**
+   * The compiled plan, or null if it hasn't been compiled since the last cell was added.
+   */
+  private LayoutPlan plan;
+
+  /**
+   * The cell each row goes below.
+   */
+  private Object anchorCell;
+
+  /**
+   * The distance between the bottom of the anchor cell and the top of the next row.
+   */
+  private int rowSpacing;
+}
@@ -0,0 +1,19 @@
+/**
+ * SetBoundsEvent.java<br>
+ * Contains class SetBoundsEvent.
+ */
+package edu.cmu.relativelayout;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded by Java Flight Recorder for setting the bounds of every component in a container.
+ */
+@Name("edu.cmu.relativelayout.SetBounds")
+@Label("Set Bounds")
+@Description("Setting the bounds of every component in a container")
+final class SetBoundsEvent extends LayoutPhaseEvent {
+  // Nothing to add; see LayoutPhaseEvent for the fields.
+}
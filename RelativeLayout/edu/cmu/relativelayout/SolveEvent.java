@@ -0,0 +1,19 @@
+/**
+ * SolveEvent.java<br>
+ * Contains class SolveEvent.
+ */
+package edu.cmu.relativelayout;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded by Java Flight Recorder for solving the matrix of equations for a layout.
+ */
+@Name("edu.cmu.relativelayout.Solve")
+@Label("Solve")
+@Description("Solving the matrix of equations for a layout")
+final class SolveEvent extends LayoutPhaseEvent {
+  // Nothing to add; see LayoutPhaseEvent for the fields.
+}
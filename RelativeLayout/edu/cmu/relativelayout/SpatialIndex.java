@@ -0,0 +1,397 @@
+/**
+ * SpatialIndex.java<br>
+ * Contains class SpatialIndex.
+ */
+package edu.cmu.relativelayout;
+
+import java.awt.Component;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A uniform grid over the bounds a {@link RelativeLayout} gave its components, so that finding the components in a
+ * region takes time proportional to the size of the region rather than to the number of components. Each component is
+ * filed under every cell its bounds touch, except that components too big to be worth filing (a background panel, say)
+ * are kept in a separate list that every query looks through.<br>
+ * <br>
+ * The index is brought up to date by comparing the bounds of the latest layout with those it already holds, so only
+ * the components that moved are refiled. Only used on the event dispatch thread.
+ */
+final class SpatialIndex {
+
+  /**
+   * A component and the bounds it is filed under.
+   */
+  private static final class Entry {
+
+    /**
+     * Constructor for Entry.
+     */
+    Entry(Component theComponent) {
+      this.component = theComponent;
+    }
+
+    /**
+     * Returns <code>true</code> if this entry's bounds intersect the given rectangle.
+     */
+    boolean intersects(int rx, int ry, int rw, int rh) {
+      return this.width > 0 && this.height > 0 && rw > 0 && rh > 0 && this.x < rx + rw && rx < this.x + this.width
+          && this.y < ry + rh && ry < this.y + this.height;
+    }
+
+    /**
+     * The component.
+     */
+    final Component component;
+
+    /**
+     * The position of the component in the layout, which is also its position in the z-order unless the z-order has
+     * been changed since the component was added.
+     */
+    int order;
+
+    /**
+     * The x coordinate of the bounds the component is filed under.
+     */
+    private int x;
+
+    /**
+     * The y coordinate of the bounds the component is filed under.
+     */
+    private int y;
+
+    /**
+     * The width of the bounds the component is filed under. Entries with no width aren't filed at all.
+     */
+    private int width;
+
+    /**
+     * The height of the bounds the component is filed under. Entries with no height aren't filed at all.
+     */
+    private int height;
+
+    /**
+     * Whether this entry is in the oversized list rather than in the grid.
+     */
+    boolean oversized;
+
+    /**
+     * The number of the last query that found this entry, so that entries spanning several cells are only returned
+     * once.
+     */
+    int lastQuery;
+
+    /**
+     * The number of the last update that saw this entry's component, so that entries for removed components can be
+     * found.
+     */
+    int lastUpdate;
+  }
+
+  /**
+   * Orders entries by their position in the layout.
+   */
+  private static final Comparator<Entry> LAYOUT_ORDER = new Comparator<Entry>() {
+    public int compare(Entry theFirst, Entry theSecond) {
+      return theFirst.order - theSecond.order;
+    }
+  };
+
+  /**
+   * The smallest size of a grid cell, in pixels, so that tiny components don't each span a cell of their own.
+   */
+  private static final int MIN_CELL_SIZE = 8;
+
+  /**
+   * The largest size of a grid cell, in pixels, so that a few huge components don't put everything in one cell.
+   */
+  private static final int MAX_CELL_SIZE = 1024;
+
+  /**
+   * Components spanning more than this many cells go in the oversized list.
+   */
+  private static final int MAX_CELLS_PER_ENTRY = 64;
+
+  /**
+   * Refiles the components whose bounds differ from those in the index, adds new components, and drops components that
+   * are no longer laid out. If most components moved, the grid is rebuilt from scratch, with a cell size suited to the
+   * components' current sizes.
+   *
+   * @param theComponents The components that were laid out.
+   * @param theBounds The x, y, width, and height of each component in turn.
+   * @param theCount The number of components.
+   */
+  void update(Component[] theComponents, int[] theBounds, int theCount) {
+    this.updateCount++;
+    int changed = 0;
+    for (int i = 0; i < theCount; i++) {
+      Entry entry = this.entries.get(theComponents[i]);
+      int j = i * 4;
+      if (entry == null || entry.x != theBounds[j] || entry.y != theBounds[j + 1] || entry.width != theBounds[j + 2]
+          || entry.height != theBounds[j + 3]) {
+        changed++;
+      }
+    }
+
+    if (this.cellSize == 0 || changed > theCount / 2) {
+      rebuild(theComponents, theBounds, theCount);
+      return;
+    }
+
+    for (int i = 0; i < theCount; i++) {
+      Entry entry = this.entries.get(theComponents[i]);
+      int j = i * 4;
+      if (entry == null) {
+        entry = new Entry(theComponents[i]);
+        this.entries.put(theComponents[i], entry);
+        setBounds(entry, theBounds[j], theBounds[j + 1], theBounds[j + 2], theBounds[j + 3]);
+        file(entry);
+      } else if (entry.x != theBounds[j] || entry.y != theBounds[j + 1] || entry.width != theBounds[j + 2]
+          || entry.height != theBounds[j + 3]) {
+        unfile(entry);
+        setBounds(entry, theBounds[j], theBounds[j + 1], theBounds[j + 2], theBounds[j + 3]);
+        file(entry);
+      }
+      entry.order = i;
+      entry.lastUpdate = this.updateCount;
+    }
+
+    if (this.entries.size() > theCount) {
+      for (Iterator<Entry> iter = this.entries.values().iterator(); iter.hasNext();) {
+        Entry entry = iter.next();
+        if (entry.lastUpdate != this.updateCount) {
+          unfile(entry);
+          iter.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the components whose bounds intersect the given region, in the order they were laid out.
+   *
+   * @param theRegion The region.
+   * @return A new list of the components.
+   */
+  List<Component> query(Rectangle theRegion) {
+    List<Entry> found = find(theRegion);
+    List<Component> ret = new ArrayList<Component>(found.size());
+    for (Entry entry : found) {
+      ret.add(entry.component);
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the positions in the layout of the components whose bounds intersect the given region, in increasing
+   * order.
+   *
+   * @param theRegion The region.
+   * @return A new array of the positions.
+   */
+  int[] queryPositions(Rectangle theRegion) {
+    List<Entry> found = find(theRegion);
+    int[] ret = new int[found.size()];
+    for (int i = 0; i < ret.length; i++) {
+      ret[i] = found.get(i).order;
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the entries whose bounds intersect the given region, in the order their components were laid out.
+   */
+  private List<Entry> find(Rectangle theRegion) {
+    List<Entry> found = new ArrayList<Entry>();
+    if (this.cellSize > 0 && theRegion.width > 0 && theRegion.height > 0) {
+      int query = ++this.queryCount;
+      int firstX = Math.floorDiv(theRegion.x, this.cellSize);
+      int lastX = Math.floorDiv(theRegion.x + theRegion.width - 1, this.cellSize);
+      int firstY = Math.floorDiv(theRegion.y, this.cellSize);
+      int lastY = Math.floorDiv(theRegion.y + theRegion.height - 1, this.cellSize);
+
+      if ((long) (lastX - firstX + 1) * (lastY - firstY + 1) > this.cells.size()) {
+        // The region covers more cells than are occupied, so it's quicker to look at the occupied ones.
+        for (Map.Entry<Long, List<Entry>> cell : this.cells.entrySet()) {
+          int cx = (int) (cell.getKey().longValue() >> 32);
+          int cy = (int) cell.getKey().longValue();
+          if (cx >= firstX && cx <= lastX && cy >= firstY && cy <= lastY) {
+            collect(cell.getValue(), theRegion, query, found);
+          }
+        }
+      } else {
+        for (int cx = firstX; cx <= lastX; cx++) {
+          for (int cy = firstY; cy <= lastY; cy++) {
+            List<Entry> cell = this.cells.get(SpatialIndex.key(cx, cy));
+            if (cell != null) {
+              collect(cell, theRegion, query, found);
+            }
+          }
+        }
+      }
+      collect(this.oversized, theRegion, query, found);
+    }
+
+    Collections.sort(found, SpatialIndex.LAYOUT_ORDER);
+    return found;
+  }
+
+  /**
+   * Adds the entries in the given list that intersect the given region and haven't been found yet to the results.
+   */
+  private static void collect(List<Entry> theEntries, Rectangle theRegion, int query, List<Entry> found) {
+    for (Entry entry : theEntries) {
+      if (entry.lastQuery != query && entry.intersects(theRegion.x, theRegion.y, theRegion.width, theRegion.height)) {
+        entry.lastQuery = query;
+        found.add(entry);
+      }
+    }
+  }
+
+  /**
+   * Files the given components from scratch.
+   */
+  private void rebuild(Component[] theComponents, int[] theBounds, int theCount) {
+    // Cells about the size of an average component keep both the cells per component and the components per cell low.
+    long total = 0;
+    int sized = 0;
+    for (int i = 0; i < theCount; i++) {
+      int j = i * 4;
+      if (theBounds[j + 2] > 0 && theBounds[j + 3] > 0) {
+        total += theBounds[j + 2] + theBounds[j + 3];
+        sized += 2;
+      }
+    }
+    int average = (sized > 0 ? (int) (total / sized) : SpatialIndex.MIN_CELL_SIZE);
+    this.cellSize = Math.max(SpatialIndex.MIN_CELL_SIZE, Math.min(SpatialIndex.MAX_CELL_SIZE, average));
+
+    Map<Component, Entry> old = new HashMap<Component, Entry>(this.entries);
+    this.entries.clear();
+    this.cells.clear();
+    this.oversized.clear();
+    for (int i = 0; i < theCount; i++) {
+      Entry entry = old.get(theComponents[i]);
+      if (entry == null) {
+        entry = new Entry(theComponents[i]);
+      }
+      int j = i * 4;
+      setBounds(entry, theBounds[j], theBounds[j + 1], theBounds[j + 2], theBounds[j + 3]);
+      entry.order = i;
+      entry.lastUpdate = this.updateCount;
+      this.entries.put(theComponents[i], entry);
+      file(entry);
+    }
+  }
+
+  /**
+   * Sets the bounds an entry is filed under. The entry must not be filed at the time.
+   */
+  private void setBounds(Entry entry, int x, int y, int width, int height) {
+    entry.x = x;
+    entry.y = y;
+    entry.width = width;
+    entry.height = height;
+  }
+
+  /**
+   * Files an entry under the cells its bounds touch, or in the oversized list. Empty entries aren't filed at all.
+   */
+  private void file(Entry entry) {
+    if (entry.width <= 0 || entry.height <= 0) {
+      return;
+    }
+    int firstX = Math.floorDiv(entry.x, this.cellSize);
+    int lastX = Math.floorDiv(entry.x + entry.width - 1, this.cellSize);
+    int firstY = Math.floorDiv(entry.y, this.cellSize);
+    int lastY = Math.floorDiv(entry.y + entry.height - 1, this.cellSize);
+
+    entry.oversized = ((long) (lastX - firstX + 1) * (lastY - firstY + 1) > SpatialIndex.MAX_CELLS_PER_ENTRY);
+    if (entry.oversized) {
+      this.oversized.add(entry);
+      return;
+    }
+    for (int cx = firstX; cx <= lastX; cx++) {
+      for (int cy = firstY; cy <= lastY; cy++) {
+        Long key = SpatialIndex.key(cx, cy);
+        List<Entry> cell = this.cells.get(key);
+        if (cell == null) {
+          cell = new ArrayList<Entry>(4);
+          this.cells.put(key, cell);
+        }
+        cell.add(entry);
+      }
+    }
+  }
+
+  /**
+   * Removes an entry from wherever file() put it.
+   */
+  private void unfile(Entry entry) {
+    if (entry.width <= 0 || entry.height <= 0) {
+      return;
+    }
+    if (entry.oversized) {
+      this.oversized.remove(entry);
+      return;
+    }
+    int firstX = Math.floorDiv(entry.x, this.cellSize);
+    int lastX = Math.floorDiv(entry.x + entry.width - 1, this.cellSize);
+    int firstY = Math.floorDiv(entry.y, this.cellSize);
+    int lastY = Math.floorDiv(entry.y + entry.height - 1, this.cellSize);
+    for (int cx = firstX; cx <= lastX; cx++) {
+      for (int cy = firstY; cy <= lastY; cy++) {
+        Long key = SpatialIndex.key(cx, cy);
+        List<Entry> cell = this.cells.get(key);
+        if (cell != null) {
+          cell.remove(entry);
+          if (cell.isEmpty()) {
+            this.cells.remove(key);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the key of the cell with the given coordinates.
+   */
+  private static Long key(int cx, int cy) {
+    return Long.valueOf(((long) cx << 32) | (cy & 0xFFFFFFFFL));
+  }
+
+  /**
+   * The width and height of each cell, in pixels, or 0 before the first update.
+   */
+  private int cellSize;
+
+  /**
+   * The entries in each occupied cell.
+   */
+  private final Map<Long, List<Entry>> cells = new HashMap<Long, List<Entry>>();
+
+  /**
+   * The entries too big to file under their cells.
+   */
+  private final List<Entry> oversized = new ArrayList<Entry>();
+
+  /**
+   * The entry for each component.
+   */
+  private final Map<Component, Entry> entries = new HashMap<Component, Entry>();
+
+  /**
+   * The number of queries so far.
+   */
+  private int queryCount;
+
+  /**
+   * The number of updates so far.
+   */
+  private int updateCount;
+}
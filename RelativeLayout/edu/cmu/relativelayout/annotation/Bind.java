@@ -0,0 +1,51 @@
+/**
+ * Bind.java<br>
+ * Contains annotation Bind.
+ */
+package edu.cmu.relativelayout.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import edu.cmu.relativelayout.Direction;
+import edu.cmu.relativelayout.Edge;
+
+/**
+ * Declares one {@link edu.cmu.relativelayout.Binding} of a {@link Constrained} field. The elements correspond to the
+ * arguments of the Binding constructor, except that the fixed component is named rather than given: it is the name of
+ * another Constrained field of the same class, or empty (the default) for the container itself.
+ *
+ * @see Constrained
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target( {})
+public @interface Bind {
+
+  /**
+   * The edge of the annotated component that this Binding positions.
+   */
+  Edge edge();
+
+  /**
+   * The distance between the two edges, in pixels.
+   */
+  int distance() default 0;
+
+  /**
+   * The direction in which the annotated component's edge lies from the fixed edge.
+   */
+  Direction direction();
+
+  /**
+   * The edge of the fixed component that the annotated component's edge is positioned against.
+   */
+  Edge fixedEdge();
+
+  /**
+   * The name of the field holding the fixed component, or the empty string for the container.
+   */
+  String fixedComponent() default "";
+}
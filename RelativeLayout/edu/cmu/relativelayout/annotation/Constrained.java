@@ -0,0 +1,58 @@
+/**
+ * Constrained.java<br>
+ * Contains annotation Constrained.
+ */
+package edu.cmu.relativelayout.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares where a component goes in the container that holds it, so that the layout can be checked when the container
+ * class is compiled rather than when it is first shown. The annotated field must hold a {@link java.awt.Component}, be
+ * declared in a subclass of {@link java.awt.Container}, and not be private or static. For example:
+ *
+ * <pre>
+ * public class LoginPanel extends JPanel {
+ *
+ *   &#064;Constrained( {
+ *       &#064;Bind(edge = Edge.RIGHT, distance = 12, direction = Direction.LEFT, fixedEdge = Edge.RIGHT),
+ *       &#064;Bind(edge = Edge.BOTTOM, distance = 12, direction = Direction.ABOVE, fixedEdge = Edge.BOTTOM) })
+ *   JButton okButton = new JButton(&quot;OK&quot;);
+ *
+ *   &#064;Constrained( {
+ *       &#064;Bind(edge = Edge.RIGHT, distance = 6, direction = Direction.LEFT, fixedEdge = Edge.LEFT,
+ *           fixedComponent = &quot;okButton&quot;),
+ *       &#064;Bind(edge = Edge.BOTTOM, direction = Direction.ABOVE, fixedEdge = Edge.BOTTOM,
+ *           fixedComponent = &quot;okButton&quot;) })
+ *   JButton cancelButton = new JButton(&quot;Cancel&quot;);
+ *
+ *   public LoginPanel() {
+ *     LoginPanelLayout.apply(this);
+ *   }
+ * }
+ * </pre>
+ *
+ * When {@link ConstraintProcessor} is on the compiler's processor path, as it is whenever the RelativeLayout jar is on
+ * the class path, it checks every Binding of every Constrained field, reporting invalid, contradictory, and ambiguous
+ * Bindings as compile errors against the field responsible. It then generates a class named after the container class
+ * with <code>Layout</code> appended, whose <code>apply()</code> method gives a container a RelativeLayout and adds each
+ * Constrained component to it with its Bindings, in straight-line code with no reflection. Only the checking happens
+ * when the class is compiled: the layout is still solved at run time, exactly as if the Bindings had been written by
+ * hand.
+ *
+ * @see Bind
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Constrained {
+
+  /**
+   * The Bindings that position the annotated component.
+   */
+  Bind[] value();
+}
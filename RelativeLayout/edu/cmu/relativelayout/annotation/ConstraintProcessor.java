@@ -0,0 +1,283 @@
+/**
+ * ConstraintProcessor.java<br>
+ * Contains class ConstraintProcessor.
+ */
+package edu.cmu.relativelayout.annotation;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+import edu.cmu.relativelayout.Binding;
+import edu.cmu.relativelayout.LayoutEngine;
+import edu.cmu.relativelayout.RelativeConstraints;
+import edu.cmu.relativelayout.matrix.AmbiguousLayoutException;
+
+/**
+ * The annotation processor that checks {@link Constrained} fields and generates the code that lays them out. See
+ * {@link Constrained} for how to use it.<br>
+ * <br>
+ * The Bindings are checked by adding them all to a {@link LayoutEngine}, with each component represented by the name
+ * of its field, and checking the whole layout at once with {@link LayoutEngine#check()}, just as it is checked when it
+ * is solved, so the order the fields are declared in makes no difference. Every error a RelativeLayout would throw when
+ * the container is laid out is therefore reported by the compiler instead, except for errors that depend on the
+ * components themselves rather than on the Bindings between them. Debugging mode is left alone.<br>
+ * <br>
+ * Only the checking moves to build time. The generated code builds the same Bindings a hand-written container would,
+ * and its RelativeLayout solves them when the container is laid out, as usual; a plan cache (see
+ * {@link edu.cmu.relativelayout.LayoutPlanCache}) is the way to skip solving the same layout every run.
+ */
+@SupportedAnnotationTypes("edu.cmu.relativelayout.annotation.Constrained")
+public class ConstraintProcessor extends AbstractProcessor {
+
+  /**
+   * The suffix of the name of each generated class.
+   */
+  private static final String SUFFIX = "Layout";
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+   */
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set,
+   *      javax.annotation.processing.RoundEnvironment)
+   */
+  @Override
+  public boolean process(Set<? extends TypeElement> theAnnotations, RoundEnvironment theRoundEnv) {
+    // Group the fields by the class declaring them, keeping them in the order they were declared.
+    Map<TypeElement, List<VariableElement>> containers = new LinkedHashMap<TypeElement, List<VariableElement>>();
+    for (Element element : theRoundEnv.getElementsAnnotatedWith(Constrained.class)) {
+      TypeElement container = (TypeElement) element.getEnclosingElement();
+      List<VariableElement> fields = containers.get(container);
+      if (fields == null) {
+        fields = new ArrayList<VariableElement>();
+        containers.put(container, fields);
+      }
+      fields.add((VariableElement) element);
+    }
+
+    for (Map.Entry<TypeElement, List<VariableElement>> entry : containers.entrySet()) {
+      if (check(entry.getKey(), entry.getValue())) {
+        generate(entry.getKey(), entry.getValue());
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks the Constrained fields of the given container class, reporting any errors.
+   *
+   * @return <code>true</code> if there were no errors.
+   */
+  private boolean check(TypeElement theContainer, List<VariableElement> theFields) {
+    Messager messager = this.processingEnv.getMessager();
+    Types types = this.processingEnv.getTypeUtils();
+    TypeMirror containerType = this.processingEnv.getElementUtils().getTypeElement("java.awt.Container").asType();
+    TypeMirror componentType = this.processingEnv.getElementUtils().getTypeElement("java.awt.Component").asType();
+    boolean ret = true;
+
+    if (!types.isAssignable(types.erasure(theContainer.asType()), containerType)) {
+      messager.printMessage(Diagnostic.Kind.ERROR, "Constrained fields must be declared in a java.awt.Container.",
+          theContainer);
+      ret = false;
+    }
+
+    Map<String, VariableElement> names = new HashMap<String, VariableElement>();
+    for (VariableElement field : theFields) {
+      names.put(field.getSimpleName().toString(), field);
+      if (field.getModifiers().contains(Modifier.PRIVATE) || field.getModifiers().contains(Modifier.STATIC)) {
+        messager.printMessage(Diagnostic.Kind.ERROR, "Constrained fields cannot be private or static.", field);
+        ret = false;
+      }
+      if (!types.isAssignable(field.asType(), componentType)) {
+        messager.printMessage(Diagnostic.Kind.ERROR, "Constrained fields must hold a java.awt.Component.", field);
+        ret = false;
+      }
+    }
+
+    for (VariableElement field : theFields) {
+      for (Bind bind : field.getAnnotation(Constrained.class).value()) {
+        String fixed = bind.fixedComponent();
+        if (fixed.length() > 0 && !names.containsKey(fixed)) {
+          messager.printMessage(Diagnostic.Kind.ERROR, "\"" + fixed + "\" is not a Constrained field of "
+              + theContainer.getSimpleName() + ".", field);
+          ret = false;
+        } else if (fixed.equals(field.getSimpleName().toString())) {
+          messager.printMessage(Diagnostic.Kind.ERROR, "A component cannot be bound to itself.", field);
+          ret = false;
+        }
+      }
+    }
+    if (!ret) {
+      return false;
+    }
+
+    // Let an engine find invalid and contradictory Bindings, one field at a time so that the field can be blamed.
+    String root = theContainer.getSimpleName().toString();
+    Map<Object, RelativeConstraints> nodes = new LinkedHashMap<Object, RelativeConstraints>();
+    for (VariableElement field : theFields) {
+      RelativeConstraints constraints = new RelativeConstraints();
+      for (Bind bind : field.getAnnotation(Constrained.class).value()) {
+        String fixed = bind.fixedComponent();
+        constraints.addBinding(new Binding(bind.edge(), bind.distance(), bind.direction(), bind.fixedEdge(),
+            (Object) (fixed.length() > 0 ? fixed : null)));
+      }
+      String name = field.getSimpleName().toString();
+      nodes.put(name, constraints);
+      try {
+        new LayoutEngine(root).add(name, constraints);
+      } catch (AmbiguousLayoutException e) {
+        // Only thrown if something in this compiler has turned on debugging mode. Whether the field is placed in just
+        // one way depends on the others too, so that is checked below.
+      } catch (RuntimeException e) {
+        messager.printMessage(Diagnostic.Kind.ERROR, e.getMessage(), field);
+        ret = false;
+      }
+    }
+    if (!ret) {
+      return false;
+    }
+
+    // Then check that all the fields together are placed in just one way, which doesn't depend on their order.
+    LayoutEngine engine = new LayoutEngine(root);
+    try {
+      engine.addAll(nodes);
+      engine.check();
+    } catch (AmbiguousLayoutException e) {
+      Object node = engine.getNode(e.getVariable());
+      VariableElement field = names.get(node);
+      if (field != null) {
+        messager.printMessage(Diagnostic.Kind.ERROR, "The Bindings of " + node + ", together with those of the "
+            + "fields it is bound to, could place it in more than one way.", field);
+      } else {
+        messager.printMessage(Diagnostic.Kind.ERROR, "The Bindings of the Constrained fields could result in more "
+            + "than one layout.", theContainer);
+      }
+      ret = false;
+    }
+    return ret;
+  }
+
+  /**
+   * Generates the class that lays out the given container class.
+   */
+  private void generate(TypeElement theContainer, List<VariableElement> theFields) {
+    PackageElement packageElement = this.processingEnv.getElementUtils().getPackageOf(theContainer);
+    String packageName = packageElement.getQualifiedName().toString();
+    String containerName = theContainer.getQualifiedName().toString();
+    String simpleName = generatedName(theContainer);
+    String qualifiedName = (packageElement.isUnnamed() ? simpleName : packageName + "." + simpleName);
+
+    try {
+      PrintWriter out =
+          new PrintWriter(this.processingEnv.getFiler().createSourceFile(qualifiedName, theContainer).openWriter());
+      try {
+        if (!packageElement.isUnnamed()) {
+          out.println("package " + packageName + ";");
+          out.println();
+        }
+        out.println("/**");
+        out.println(" * Lays out a {@link " + containerName + "} according to the constraints declared on its fields.");
+        out.println(" * Generated by " + ConstraintProcessor.class.getName() + "; do not edit.");
+        out.println(" */");
+        out.println("public final class " + simpleName + " {");
+        out.println();
+        out.println("  /**");
+        out.println("   * Gives the container a RelativeLayout and adds each constrained component to it. The");
+        out.println("   * components must have been created first.");
+        out.println("   *");
+        out.println("   * @param theContainer The container to lay out.");
+        out.println("   * @return The container's new layout.");
+        out.println("   */");
+        out.println("  public static edu.cmu.relativelayout.RelativeLayout apply(" + containerName
+            + " theContainer) {");
+        for (VariableElement field : theFields) {
+          out.println("    require(theContainer." + field.getSimpleName() + ", \"" + field.getSimpleName() + "\");");
+        }
+        out.println("    edu.cmu.relativelayout.RelativeLayout layout = new edu.cmu.relativelayout.RelativeLayout();");
+        out.println("    theContainer.setLayout(layout);");
+        for (VariableElement field : theFields) {
+          out.println("    theContainer.add(theContainer." + field.getSimpleName()
+              + ", new edu.cmu.relativelayout.RelativeConstraints(");
+          Bind[] binds = field.getAnnotation(Constrained.class).value();
+          for (int i = 0; i < binds.length; i++) {
+            String fixed = binds[i].fixedComponent();
+            out.println("        new edu.cmu.relativelayout.Binding(edu.cmu.relativelayout.Edge." + binds[i].edge()
+                + ", " + binds[i].distance() + ", edu.cmu.relativelayout.Direction." + binds[i].direction()
+                + ", edu.cmu.relativelayout.Edge." + binds[i].fixedEdge() + ", "
+                + (fixed.length() > 0 ? "theContainer." + fixed : "edu.cmu.relativelayout.Binding.PARENT")
+                + (i < binds.length - 1 ? ")," : ")));"));
+          }
+        }
+        out.println("    return layout;");
+        out.println("  }");
+        out.println();
+        out.println("  /**");
+        out.println("   * Throws an exception if a component hasn't been created, rather than binding to the");
+        out.println("   * container.");
+        out.println("   */");
+        out.println("  private static void require(java.awt.Component theComponent, String theName) {");
+        out.println("    if (theComponent == null) {");
+        out.println("      throw new IllegalStateException(theName");
+        out.println("          + \" must be created before the layout is applied.\");");
+        out.println("    }");
+        out.println("  }");
+        out.println();
+        out.println("  /**");
+        out.println("   * Not instantiable.");
+        out.println("   */");
+        out.println("  private " + simpleName + "() {");
+        out.println("  }");
+        out.println("}");
+      } finally {
+        out.close();
+      }
+    } catch (IOException e) {
+      this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Could not write " + qualifiedName + ": " + e.getMessage(), theContainer);
+    }
+  }
+
+  /**
+   * Returns the simple name of the class generated for the given container class: its name, preceded by the names of
+   * any classes it is nested in, joined with underscores, and followed by SUFFIX.
+   */
+  private static String generatedName(TypeElement theContainer) {
+    StringBuilder builder = new StringBuilder(theContainer.getSimpleName());
+    Element enclosing = theContainer.getEnclosingElement();
+    while (enclosing.getKind() != ElementKind.PACKAGE) {
+      builder.insert(0, enclosing.getSimpleName() + "_");
+      enclosing = enclosing.getEnclosingElement();
+    }
+    return builder.append(ConstraintProcessor.SUFFIX).toString();
+  }
+}
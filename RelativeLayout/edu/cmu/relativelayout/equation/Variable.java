@@ -1,7 +1,5 @@
 package edu.cmu.relativelayout.equation;
 
-import java.util.HashMap;
-
 /**
  * This class is the type for variables in equations.
  * 
@@ -10,19 +8,21 @@ import java.util.HashMap;
  */
 public class Variable {
 
-  private static HashMap<String, Variable> map = new HashMap<String, Variable>();
+  /**
+   * Every Variable created by get(), by name. Safe to use from several threads at once.
+   */
+  private static final VariableInterner<String, Variable> variables = new VariableInterner<String, Variable>();
 
   /**
-   * Returns a Variable initialized with the given name, creating it if it does not already exist.
+   * Returns a Variable initialized with the given name, creating it if it does not already exist. Can be called from
+   * any thread.
    */
   public static Variable get(String name) {
-    if (Variable.map.containsKey(name)) {
-      return Variable.map.get(name);
-    } else {
-      Variable v = new Variable(name);
-      Variable.map.put(name, v);
-      return v;
+    Variable ret = Variable.variables.get(name);
+    if (ret == null) {
+      ret = Variable.variables.intern(name, new Variable(name));
     }
+    return ret;
   }
 
   /**
@@ -33,11 +33,14 @@ public class Variable {
   }
 
   /**
+   * Variables of the same class are equal if their names are. Subclasses that identify their Variables some other way
+   * override this, so a Variable is never equal to one of a different class.
+   * 
    * @see java.lang.Object#equals(java.lang.Object)
    */
   @Override
   public boolean equals(Object theObj) {
-    if (!(theObj instanceof Variable)) {
+    if (theObj == null || theObj.getClass() != this.getClass()) {
       return false;
     }
     return this.name.equals(((Variable) theObj).name);
@@ -66,5 +69,5 @@ public class Variable {
   /**
    * The name of this variable.
    */
-  private String name;
+  private final String name;
 }
@@ -0,0 +1,107 @@
+/**
+ * VariableInterner.java<br>
+ * Contains class VariableInterner.
+ */
+package edu.cmu.relativelayout.equation;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A table of Variables by key, so that asking for the same key twice gives the same Variable. The key is usually the
+ * Variable's name, but can be anything that identifies it, such as the node and bound a layout variable stands for.
+ * The table can be used from any number of threads at once without locking, and only holds its Variables weakly, so a
+ * Variable that no equation or layout refers to any more can be garbage collected. A Variable asked for again after
+ * that is simply created again; since nothing refers to the old one any more, nothing can tell the difference.
+ *
+ * @param <K> The class of the keys, which must implement equals() and hashCode().
+ * @param <V> The class of Variable in the table.
+ */
+public final class VariableInterner<K, V extends Variable> {
+
+  /**
+   * A weak reference to a Variable that remembers its key, so that its entry can be removed once it is collected.
+   */
+  private static final class Entry<K, V> extends WeakReference<V> {
+
+    /**
+     * Constructor for Entry.
+     */
+    Entry(K theKey, V theVariable, ReferenceQueue<? super V> theQueue) {
+      super(theVariable, theQueue);
+      this.key = theKey;
+    }
+
+    /**
+     * The key the Variable is filed under.
+     */
+    final K key;
+  }
+
+  /**
+   * Returns the Variable with the given key, or <code>null</code> if there isn't one.
+   */
+  public V get(K theKey) {
+    Entry<K, V> entry = this.entries.get(theKey);
+    return (entry != null ? entry.get() : null);
+  }
+
+  /**
+   * Returns the Variable with the given key if there is one, and otherwise adds the given Variable under that key and
+   * returns it. If several threads add a Variable with the same key at once, they all get the same one.
+   *
+   * @param theKey The key of the Variable.
+   * @param theVariable The Variable to add if there isn't one with that key already.
+   * @return The Variable with that key.
+   */
+  public V intern(K theKey, V theVariable) {
+    expungeCollected();
+    Entry<K, V> added = new Entry<K, V>(theKey, theVariable, this.collected);
+    while (true) {
+      Entry<K, V> entry = this.entries.putIfAbsent(theKey, added);
+      if (entry == null) {
+        return theVariable;
+      }
+      V existing = entry.get();
+      if (existing != null) {
+        return existing;
+      }
+      // The existing Variable has been collected but its entry hasn't been removed yet, so take its place.
+      if (this.entries.replace(theKey, entry, added)) {
+        return theVariable;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of Variables in the table, counting any that have been collected but not yet removed.
+   */
+  public int size() {
+    expungeCollected();
+    return this.entries.size();
+  }
+
+  /**
+   * Removes the entries of Variables that have been garbage collected.
+   */
+  @SuppressWarnings("unchecked")
+  private void expungeCollected() {
+    Entry<K, V> entry;
+    while ((entry = (Entry<K, V>) this.collected.poll()) != null) {
+      // Only remove the entry if it hasn't already been replaced by one for a new Variable with the same key.
+      this.entries.remove(entry.key, entry);
+    }
+  }
+
+  /**
+   * The entry for each Variable, by key.
+   */
+  private final ConcurrentMap<K, Entry<K, V>> entries = new ConcurrentHashMap<K, Entry<K, V>>();
+
+  /**
+   * The entries whose Variables have been garbage collected.
+   */
+  private final ReferenceQueue<V> collected = new ReferenceQueue<V>();
+}
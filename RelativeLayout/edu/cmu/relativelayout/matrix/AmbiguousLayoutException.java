@@ -1,5 +1,8 @@
 package edu.cmu.relativelayout.matrix;
 
+import edu.cmu.relativelayout.equation.Equation;
+import edu.cmu.relativelayout.equation.Variable;
+
 /**
  * Indicates that the constraints specified for objects that have been added to the layout could describe more than one
  * possible arrangement of the controls. This is often the result of adding "circular dependencies" to the layout, such
@@ -18,8 +21,55 @@ public class AmbiguousLayoutException extends RuntimeException {
     super();
   }
 
+  /**
+   * Constructs an AmbiguousLayoutException blaming the equation that was just added to or removed from a matrix. Used
+   * in debugging mode.
+   * 
+   * @param theVariable The primary variable of the equation.
+   * @param theEquation The equation that was added, or <code>null</code> if the equation for the variable was removed.
+   */
+  public AmbiguousLayoutException(Variable theVariable, Equation theEquation) {
+    super();
+    this.variable = theVariable;
+    this.equation = theEquation;
+  }
+
   @Override
   public String getMessage() {
-    return "The constraints specified for this layout could result in multiple layouts.";
+    if (this.variable == null) {
+      return "The constraints specified for this layout could result in multiple layouts.";
+    } else if (this.equation == null) {
+      return "Removing the equation for " + this.variable
+          + " caused the constraints specified for this layout to result in multiple layouts.";
+    } else {
+      return "The constraints specified for this layout could result in multiple layouts once " + this.equation
+          + " was added.";
+    }
+  }
+
+  /**
+   * Returns the equation that made the layout ambiguous, or <code>null</code> if it isn't known or the layout became
+   * ambiguous when an equation was removed.
+   */
+  public Equation getEquation() {
+    return this.equation;
+  }
+
+  /**
+   * Returns the primary variable of the equation that made the layout ambiguous, or <code>null</code> if it isn't
+   * known.
+   */
+  public Variable getVariable() {
+    return this.variable;
   }
+
+  /**
+   * The primary variable of the equation that made the layout ambiguous, if known.
+   */
+  private Variable variable;
+
+  /**
+   * The equation that made the layout ambiguous, if known.
+   */
+  private Equation equation;
 }
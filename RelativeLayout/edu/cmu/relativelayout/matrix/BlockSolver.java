@@ -0,0 +1,157 @@
+/**
+ * BlockSolver.java<br>
+ * Contains class BlockSolver.
+ */
+package edu.cmu.relativelayout.matrix;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import Jama.LUDecomposition;
+import Jama.Matrix;
+
+/**
+ * Solves a system one strongly connected block at a time: each set of variables that all depend on each other is
+ * solved on its own, by dense LU decomposition, once every block it depends on has been solved. Most blocks are a
+ * single variable, which is just substituted, so this costs time roughly proportional to the number of nonzero
+ * coefficients plus the cube of the size of each block. Unlike a {@link SubstitutionSolver}, which solves everything
+ * that is coupled in one decomposition, it never decomposes more than one block at once, so it suits large systems
+ * with many separate cycles, such as long forms in which each row centers its components on each other.
+ */
+public final class BlockSolver implements LayoutSolver {
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see edu.cmu.relativelayout.matrix.LayoutSolver#getName()
+   */
+  public String getName() {
+    return "Strongly connected blocks, dense LU per block";
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see edu.cmu.relativelayout.matrix.LayoutSolver#solve(edu.cmu.relativelayout.matrix.SparseSystem)
+   */
+  public double[] solve(SparseSystem theSystem) {
+    int count = theSystem.getSize();
+    double[] values = new double[count];
+
+    // Tarjan's algorithm, which finds each block after all the blocks it depends on. It is iterative rather than
+    // recursive, since chains of dependent variables can be very long.
+    int[] visitIndex = new int[count];
+    int[] lowLink = new int[count];
+    boolean[] onStack = new boolean[count];
+    int[] stack = new int[count];
+    int stackSize = 0;
+    int[] path = new int[count];
+    int[] pathPositions = new int[count];
+    int pathSize = 0;
+    int visits = 0;
+    Arrays.fill(visitIndex, -1);
+
+    for (int start = 0; start < count; start++) {
+      if (visitIndex[start] >= 0) {
+        continue;
+      }
+      visitIndex[start] = lowLink[start] = visits++;
+      stack[stackSize++] = start;
+      onStack[start] = true;
+      path[pathSize] = start;
+      pathPositions[pathSize++] = 0;
+
+      while (pathSize > 0) {
+        int v = path[pathSize - 1];
+        int[] columns = theSystem.getColumns(v);
+        int position = pathPositions[pathSize - 1];
+        if (position < columns.length) {
+          pathPositions[pathSize - 1]++;
+          int u = columns[position];
+          if (visitIndex[u] < 0) {
+            visitIndex[u] = lowLink[u] = visits++;
+            stack[stackSize++] = u;
+            onStack[u] = true;
+            path[pathSize] = u;
+            pathPositions[pathSize++] = 0;
+          } else if (onStack[u]) {
+            lowLink[v] = Math.min(lowLink[v], visitIndex[u]);
+          }
+          continue;
+        }
+
+        pathSize--;
+        if (pathSize > 0) {
+          int parent = path[pathSize - 1];
+          lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+        }
+        if (lowLink[v] == visitIndex[v]) {
+          int blockStart = stackSize;
+          do {
+            blockStart--;
+            onStack[stack[blockStart]] = false;
+          } while (stack[blockStart] != v);
+          solveBlock(theSystem, stack, blockStart, stackSize, values);
+          stackSize = blockStart;
+        }
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public String toString() {
+    return getName();
+  }
+
+  /**
+   * Solves one strongly connected block, given the values of every variable outside it that it depends on.
+   *
+   * @param theSystem The system.
+   * @param theVariables An array holding the block's variables.
+   * @param start The index in that array of the block's first variable.
+   * @param end The index in that array after the block's last variable.
+   * @param values The values of the variables solved so far, to which the block's values are added.
+   */
+  private static void solveBlock(SparseSystem theSystem, int[] theVariables, int start, int end, double[] values) {
+    int size = end - start;
+    if (size == 1) {
+      int i = theVariables[start];
+      values[i] = theSystem.substitute(i, values);
+      return;
+    }
+
+    Map<Integer, Integer> positions = new HashMap<Integer, Integer>(size * 2);
+    for (int r = 0; r < size; r++) {
+      positions.put(Integer.valueOf(theVariables[start + r]), Integer.valueOf(r));
+    }
+    double[][] body = new double[size][size];
+    double[][] rightHandSides = new double[size][1];
+    for (int r = 0; r < size; r++) {
+      int i = theVariables[start + r];
+      body[r][r] = theSystem.getDiagonal(i);
+      double rightHandSide = theSystem.getRightHandSide(i);
+      int[] columns = theSystem.getColumns(i);
+      double[] coefficients = theSystem.getCoefficients(i);
+      for (int k = 0; k < columns.length; k++) {
+        Integer position = positions.get(Integer.valueOf(columns[k]));
+        if (position != null) {
+          body[r][position.intValue()] = coefficients[k];
+        } else {
+          rightHandSide -= coefficients[k] * values[columns[k]];
+        }
+      }
+      rightHandSides[r][0] = rightHandSide;
+    }
+
+    LUDecomposition decomp = new LUDecomposition(new Matrix(body));
+    if (!decomp.isNonsingular()) {
+      throw new AmbiguousLayoutException();
+    }
+    Matrix solution = decomp.solve(new Matrix(rightHandSides));
+    for (int r = 0; r < size; r++) {
+      values[theVariables[start + r]] = solution.get(r, 0);
+    }
+  }
+}
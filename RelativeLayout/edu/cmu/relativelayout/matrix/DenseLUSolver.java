@@ -0,0 +1,65 @@
+/**
+ * DenseLUSolver.java<br>
+ * Contains class DenseLUSolver.
+ */
+package edu.cmu.relativelayout.matrix;
+
+import Jama.LUDecomposition;
+import Jama.Matrix;
+
+/**
+ * Solves a whole system at once by LU decomposition of its dense matrix, using JAMA. This takes time proportional to
+ * the cube of the number of variables, however sparse the system is, so on its own it only suits small systems; it is
+ * mostly used for the coupled core left over by a {@link SubstitutionSolver}, where every variable depends on the
+ * others anyway.
+ */
+public final class DenseLUSolver implements LayoutSolver {
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see edu.cmu.relativelayout.matrix.LayoutSolver#getName()
+   */
+  public String getName() {
+    return "JAMA dense LU";
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see edu.cmu.relativelayout.matrix.LayoutSolver#solve(edu.cmu.relativelayout.matrix.SparseSystem)
+   */
+  public double[] solve(SparseSystem theSystem) {
+    int size = theSystem.getSize();
+    if (size == 0) {
+      return new double[0];
+    }
+    double[][] body = new double[size][size];
+    double[][] rightHandSides = new double[size][1];
+    for (int i = 0; i < size; i++) {
+      body[i][i] = theSystem.getDiagonal(i);
+      int[] columns = theSystem.getColumns(i);
+      double[] coefficients = theSystem.getCoefficients(i);
+      for (int k = 0; k < columns.length; k++) {
+        body[i][columns[k]] = coefficients[k];
+      }
+      rightHandSides[i][0] = theSystem.getRightHandSide(i);
+    }
+
+    LUDecomposition decomp = new LUDecomposition(new Matrix(body));
+    if (!decomp.isNonsingular()) {
+      throw new AmbiguousLayoutException();
+    }
+    Matrix solution = decomp.solve(new Matrix(rightHandSides));
+    double[] ret = new double[size];
+    for (int i = 0; i < size; i++) {
+      ret[i] = solution.get(i, 0);
+    }
+    return ret;
+  }
+
+  @Override
+  public String toString() {
+    return getName();
+  }
+}
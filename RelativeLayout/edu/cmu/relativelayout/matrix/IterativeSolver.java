@@ -0,0 +1,123 @@
+/**
+ * IterativeSolver.java<br>
+ * Contains class IterativeSolver.
+ */
+package edu.cmu.relativelayout.matrix;
+
+/**
+ * Solves a system by Gauss-Seidel iteration: starting from zero, each variable in turn is repeatedly set to the value
+ * its equation gives it from the current values of the others, until no value changes by more than the tolerance. Each
+ * sweep costs time proportional to the number of nonzero coefficients and needs no memory beyond the values, so this
+ * suits very large systems whose cycles converge quickly, such as components that are centered on each other. Sweeps
+ * follow the order of the variables, so an acyclic system whose variables come after those they depend on is solved
+ * by the first sweep, and the second just confirms it. Iteration can fail to converge, or converge very slowly, on
+ * systems whose coupled equations aren't diagonally dominant; if it hasn't converged within the iteration limit, or a
+ * variable's own coefficient is zero, the system is handed to a fallback solver instead. Since an ambiguous system can
+ * still converge to one of its many solutions, {@link LayoutSolvers#choose(SparseSystem)} never picks this solver by
+ * itself; it has to be chosen explicitly.
+ */
+public final class IterativeSolver implements LayoutSolver {
+
+  /**
+   * The default largest number of sweeps.
+   */
+  public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+  /**
+   * The default tolerance, in pixels.
+   */
+  public static final double DEFAULT_TOLERANCE = 1e-6;
+
+  /**
+   * Constructs an IterativeSolver with the default iteration limit and tolerance, that falls back on a
+   * {@link SubstitutionSolver}.
+   */
+  public IterativeSolver() {
+    this(IterativeSolver.DEFAULT_MAX_ITERATIONS, IterativeSolver.DEFAULT_TOLERANCE, new SubstitutionSolver(
+        new DenseLUSolver()));
+  }
+
+  /**
+   * Constructs an IterativeSolver.
+   *
+   * @param theMaxIterations The largest number of sweeps before giving up.
+   * @param theTolerance The largest change in any value, in a sweep, that counts as having converged.
+   * @param theFallback The solver to use on systems that don't converge.
+   */
+  public IterativeSolver(int theMaxIterations, double theTolerance, LayoutSolver theFallback) {
+    if (theMaxIterations < 1 || !(theTolerance > 0) || theFallback == null) {
+      throw new IllegalArgumentException("An IterativeSolver needs a positive iteration limit and tolerance, "
+          + "and a fallback solver.");
+    }
+    this.maxIterations = theMaxIterations;
+    this.tolerance = theTolerance;
+    this.fallback = theFallback;
+  }
+
+  /**
+   * Returns the solver used on systems that don't converge.
+   */
+  public LayoutSolver getFallback() {
+    return this.fallback;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see edu.cmu.relativelayout.matrix.LayoutSolver#getName()
+   */
+  public String getName() {
+    return "Gauss-Seidel iteration";
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see edu.cmu.relativelayout.matrix.LayoutSolver#solve(edu.cmu.relativelayout.matrix.SparseSystem)
+   */
+  public double[] solve(SparseSystem theSystem) {
+    int count = theSystem.getSize();
+    for (int i = 0; i < count; i++) {
+      if (theSystem.getDiagonal(i) == 0) {
+        return this.fallback.solve(theSystem);
+      }
+    }
+
+    double[] values = new double[count];
+    for (int iteration = 0; iteration < this.maxIterations; iteration++) {
+      double change = 0;
+      for (int i = 0; i < count; i++) {
+        double value = theSystem.substitute(i, values);
+        change = Math.max(change, Math.abs(value - values[i]));
+        values[i] = value;
+      }
+      if (change <= this.tolerance) {
+        return values;
+      }
+      if (Double.isNaN(change) || Double.isInfinite(change)) {
+        break;
+      }
+    }
+    return this.fallback.solve(theSystem);
+  }
+
+  @Override
+  public String toString() {
+    return getName();
+  }
+
+  /**
+   * The largest number of sweeps.
+   */
+  private final int maxIterations;
+
+  /**
+   * The largest change that counts as converged.
+   */
+  private final double tolerance;
+
+  /**
+   * The solver for systems that don't converge.
+   */
+  private final LayoutSolver fallback;
+}
@@ -0,0 +1,36 @@
+/**
+ * LayoutSolver.java<br>
+ * Contains interface LayoutSolver.
+ */
+package edu.cmu.relativelayout.matrix;
+
+/**
+ * The service-provider interface for the numeric backends that solve a layout's equations once a {@link RelativeMatrix}
+ * has put them in sparse form. The built-in backends are listed in {@link LayoutSolvers}, which also picks one for
+ * each layout from the shape of its equations unless a solver has been chosen explicitly, either for every layout
+ * (see {@link RelativeMatrix#setDefaultSolver(LayoutSolver)}) or for one container (see
+ * {@link edu.cmu.relativelayout.RelativeLayout#setSolver(LayoutSolver)}).<br>
+ * <br>
+ * Other backends can be plugged in by implementing this interface and naming the implementation in a
+ * <code>META-INF/services/edu.cmu.relativelayout.matrix.LayoutSolver</code> file, so that
+ * {@link LayoutSolvers#forName(String)} can find it by name; the implementation then needs a public no-argument
+ * constructor. Layouts may be solved on several threads at once, so implementations must be thread-safe, which is
+ * easiest if they keep no state between calls.
+ */
+public interface LayoutSolver {
+
+  /**
+   * Returns a short name for this solver, for diagnostics and for {@link LayoutSolvers#forName(String)}.
+   */
+  public String getName();
+
+  /**
+   * Solves the given system of equations.
+   *
+   * @param theSystem The system, which must not be changed.
+   * @return A new array holding the value of each variable in the system, in order.
+   * @throws AmbiguousLayoutException if the system doesn't have exactly one solution. A solver that can't always tell,
+   *           such as {@link IterativeSolver}, must say so in its documentation.
+   */
+  public double[] solve(SparseSystem theSystem);
+}
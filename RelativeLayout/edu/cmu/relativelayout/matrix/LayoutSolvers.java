@@ -0,0 +1,110 @@
+/**
+ * LayoutSolvers.java<br>
+ * Contains class LayoutSolvers.
+ */
+package edu.cmu.relativelayout.matrix;
+
+import java.util.ServiceLoader;
+
+/**
+ * The built-in {@link LayoutSolver}s, and the rules for choosing between them. Each layout is solved with the solver
+ * {@link #choose(SparseSystem)} picks from a few statistics that are cheap to work out from its equations, unless a
+ * solver has been chosen explicitly for every layout (see {@link RelativeMatrix#setDefaultSolver(LayoutSolver)}) or for
+ * one container (see {@link edu.cmu.relativelayout.RelativeLayout#setSolver(LayoutSolver)}).
+ */
+public final class LayoutSolvers {
+
+  /**
+   * Dense LU decomposition of the whole system. Named <code>dense</code>.
+   */
+  public static final LayoutSolver DENSE_LU = new DenseLUSolver();
+
+  /**
+   * Substitution, with dense LU decomposition of whatever is coupled. Named <code>substitution</code>.
+   */
+  public static final LayoutSolver SUBSTITUTION = new SubstitutionSolver(LayoutSolvers.DENSE_LU);
+
+  /**
+   * Dense LU decomposition of each strongly connected block in turn. Named <code>blocks</code>.
+   */
+  public static final LayoutSolver BLOCKS = new BlockSolver();
+
+  /**
+   * Gauss-Seidel iteration, falling back on {@link #SUBSTITUTION}. Named <code>iterative</code>.
+   */
+  public static final LayoutSolver ITERATIVE = new IterativeSolver();
+
+  /**
+   * The largest number of coupled variables that are always decomposed together, in one dense matrix, rather than a
+   * block at a time.
+   */
+  public static final int DENSE_CORE_LIMIT = 200;
+
+  /**
+   * The density above which a system's coupled variables are decomposed together, however many there are, since they
+   * are likely to form one big block anyway.
+   */
+  public static final double DENSE_DENSITY = 0.05;
+
+  /**
+   * Picks a solver for the given system from its shape:
+   * <ul>
+   * <li>An acyclic system, as most layouts are, is solved by substitution alone: {@link #SUBSTITUTION}.</li>
+   * <li>A system with up to {@link #DENSE_CORE_LIMIT} coupled variables, or one denser than {@link #DENSE_DENSITY}, is
+   * solved by substitution with one dense decomposition of the coupled variables: {@link #SUBSTITUTION} again.</li>
+   * <li>A large sparse system with many coupled variables, which in a layout are usually many small separate cycles,
+   * is solved a block at a time: {@link #BLOCKS}.</li>
+   * </ul>
+   * {@link #ITERATIVE} is never picked, since it can't tell when a layout is ambiguous.
+   *
+   * @param theSystem The system to be solved.
+   * @return The solver to solve it with.
+   */
+  public static LayoutSolver choose(SparseSystem theSystem) {
+    if (theSystem.isAcyclic()) {
+      return LayoutSolvers.SUBSTITUTION;
+    }
+    if (theSystem.getCoupledVariableCount() <= LayoutSolvers.DENSE_CORE_LIMIT
+        || theSystem.getDensity() > LayoutSolvers.DENSE_DENSITY) {
+      return LayoutSolvers.SUBSTITUTION;
+    }
+    return LayoutSolvers.BLOCKS;
+  }
+
+  /**
+   * Returns the solver with the given name: <code>dense</code>, <code>substitution</code>, <code>blocks</code>, or
+   * <code>iterative</code> for the built-in solvers, or the {@link LayoutSolver#getName() name} or class name of a
+   * solver registered as a service provider (see {@link LayoutSolver}).
+   *
+   * @param theName The name, or <code>null</code> or <code>automatic</code> to let each layout choose.
+   * @return The solver, or <code>null</code> to let each layout choose.
+   * @throws IllegalArgumentException if there is no solver with that name.
+   */
+  public static LayoutSolver forName(String theName) {
+    if (theName == null || theName.equals("automatic")) {
+      return null;
+    } else if (theName.equals("dense")) {
+      return LayoutSolvers.DENSE_LU;
+    } else if (theName.equals("substitution")) {
+      return LayoutSolvers.SUBSTITUTION;
+    } else if (theName.equals("blocks")) {
+      return LayoutSolvers.BLOCKS;
+    } else if (theName.equals("iterative")) {
+      return LayoutSolvers.ITERATIVE;
+    }
+
+    for (LayoutSolver provider : ServiceLoader.load(LayoutSolver.class)) {
+      if (theName.equals(provider.getName()) || theName.equals(provider.getClass().getName())) {
+        return provider;
+      }
+    }
+    throw new IllegalArgumentException("There is no layout solver named " + theName + ".");
+  }
+
+  /**
+   * Not instantiable.
+   */
+  private LayoutSolvers() {
+    // Nothing to do.
+  }
+}
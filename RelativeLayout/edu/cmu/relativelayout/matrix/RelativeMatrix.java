@@ -1,9 +1,13 @@
 package edu.cmu.relativelayout.matrix;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -30,10 +34,25 @@ public class RelativeMatrix {
   }
 
   /**
-   * If <code>true</code>, matrices will be solved whenever an equation is added or removed.
+   * If <code>true</code>, matrices will be validated whenever an equation is added or removed.
    */
   private static boolean debug = false;
 
+  /**
+   * The solver for matrices without a solver of their own, or null to choose one for each matrix.
+   */
+  private static volatile LayoutSolver defaultSolver = RelativeMatrix.configuredSolver();
+
+  /**
+   * The dependencies of a row with no equation.
+   */
+  private static final int[] NO_DEPENDENCIES = new int[0];
+
+  /**
+   * The coefficients of a row with no equation.
+   */
+  private static final double[] NO_COEFFICIENTS = new double[0];
+
   /**
    * Returns <code>true</code> if RelativeMatrix is currently in debugging mode. See
    * {@link RelativeMatrix#setDebugMode(boolean)} for more information on debugging mode.
@@ -43,17 +62,57 @@ public class RelativeMatrix {
   }
 
   /**
-   * Sets whether RelativeMatrix is in debugging mode. While in debugging mode, matrices will be solved whenever an
-   * equation is added or removed. This is very slow for complex interfaces (potentially over ten times slower than when
-   * debugging mode is turned off), but has the advantage that any {@link InvalidBindingException},
-   * {@link InconsistentConstraintException}, or {@link UnknownComponentException} that is raised while solving the
-   * matrix will point back to the exact line of code where the offending {@link Binding} was added to the matrix,
-   * making debugging much easier.
+   * Sets whether RelativeMatrix is in debugging mode. While in debugging mode, matrices will be validated whenever an
+   * equation is added or removed, so that any {@link InvalidBindingException}, {@link InconsistentConstraintException},
+   * {@link UnknownComponentException}, or {@link AmbiguousLayoutException} that would be raised while solving the
+   * matrix will instead point back to the exact line of code where the offending {@link Binding} was added to the
+   * matrix, making debugging much easier.<br>
+   * <br>
+   * Validation is incremental. The matrix is nonsingular exactly when each of its strongly connected blocks is (a block
+   * being a set of variables whose equations all depend on each other), and adding or removing one equation can only
+   * affect the blocks containing that equation's variable, before and after the change. So only those blocks are
+   * checked, and each of them is usually a single variable. This costs time proportional to the number of variables
+   * that depend on the changed one, rather than a full solve of the matrix.
    */
   public static void setDebugMode(boolean isDebugging) {
     RelativeMatrix.debug = isDebugging;
   }
 
+  /**
+   * Returns the solver that matrices without a solver of their own are solved with, or <code>null</code> if each picks
+   * one for itself. See {@link #setDefaultSolver(LayoutSolver)}.
+   */
+  public static LayoutSolver getDefaultSolver() {
+    return RelativeMatrix.defaultSolver;
+  }
+
+  /**
+   * Sets the solver that every matrix without a solver of its own is solved with, overriding the choice
+   * {@link LayoutSolvers#choose(SparseSystem)} would make. The default is <code>null</code>, to let each matrix choose,
+   * unless the system property <code>edu.cmu.relativelayout.solver</code> names a solver (see
+   * {@link LayoutSolvers#forName(String)}).
+   * 
+   * @param theSolver The solver, or <code>null</code> to choose one for each matrix.
+   */
+  public static void setDefaultSolver(LayoutSolver theSolver) {
+    RelativeMatrix.defaultSolver = theSolver;
+  }
+
+  /**
+   * Returns the solver named by the <code>edu.cmu.relativelayout.solver</code> system property, or <code>null</code>
+   * if it doesn't name one.
+   */
+  private static LayoutSolver configuredSolver() {
+    try {
+      return LayoutSolvers.forName(System.getProperty("edu.cmu.relativelayout.solver"));
+    } catch (IllegalArgumentException e) {
+      // An unknown solver name shouldn't stop anything from being laid out.
+      return null;
+    } catch (SecurityException e) {
+      return null;
+    }
+  }
+
   /**
    * Constructor for RelativeMatrix.
    */
@@ -65,28 +124,396 @@ public class RelativeMatrix {
    * <code>Binding#usesDimensionalVariable(boolean)</code> for information on primary variables.
    */
   public void addEquation(Variable variable, Equation equation) {
+    if (!RelativeMatrix.debug) {
+      this.equations.put(variable, equation);
+      this.dependents = null;
+      return;
+    }
+
+    Set<Variable> affected = this.findBlock(variable);
+    this.unlinkEquation(variable);
     this.equations.put(variable, equation);
-    if (RelativeMatrix.debug) {
-      solve();
+    this.linkEquation(variable);
+    affected.add(variable);
+    this.checkBlocks(affected, Collections.singletonMap(variable, equation));
+  }
+
+  /**
+   * Adds or, where the equation is <code>null</code>, removes the {@link Equation} of each of the given primary
+   * {@link Variable}s, as if by {@link #addEquation(Variable, Equation)} and {@link #removeEquation(Variable)} for each
+   * in turn. In debugging mode the matrix is only checked once every change has been made, so the result doesn't
+   * depend on the order of the changes, and equations that only determine a layout together, such as those of two
+   * components whose widths are bound to each other, aren't reported as ambiguous because of the order they came in.
+   * 
+   * @param theChanges The new equation of each variable, or <code>null</code> to remove it.
+   * @throws AmbiguousLayoutException in debugging mode, if the matrix is singular once the changes have been made. The
+   *           changes are made either way.
+   */
+  public void changeEquations(Map<Variable, Equation> theChanges) {
+    if (!RelativeMatrix.debug) {
+      for (Map.Entry<Variable, Equation> entry : theChanges.entrySet()) {
+        if (entry.getValue() == null) {
+          this.equations.remove(entry.getKey());
+        } else {
+          this.equations.put(entry.getKey(), entry.getValue());
+        }
+      }
+      this.dependents = null;
+      return;
+    }
+
+    // Blocks partition the variables, so a variable already in one of the blocks found has nothing new to add.
+    Set<Variable> affected = new HashSet<Variable>();
+    for (Variable variable : theChanges.keySet()) {
+      if (!affected.contains(variable)) {
+        affected.addAll(this.findBlock(variable));
+      }
+    }
+    for (Map.Entry<Variable, Equation> entry : theChanges.entrySet()) {
+      this.unlinkEquation(entry.getKey());
+      if (entry.getValue() == null) {
+        this.equations.remove(entry.getKey());
+      } else {
+        this.equations.put(entry.getKey(), entry.getValue());
+        this.linkEquation(entry.getKey());
+      }
     }
+    affected.addAll(theChanges.keySet());
+    this.checkBlocks(affected, theChanges);
   }
 
   /**
    * Removes the {@link Equation} whose primary {@link Variable} is the given variable from the matrix.
    */
   public void removeEquation(Variable variable) {
+    if (!RelativeMatrix.debug) {
+      this.equations.remove(variable);
+      this.dependents = null;
+      return;
+    }
+
+    Set<Variable> affected = this.findBlock(variable);
+    this.unlinkEquation(variable);
     this.equations.remove(variable);
-    if (RelativeMatrix.debug) {
-      solve();
+    this.checkBlocks(affected, Collections.<Variable, Equation> singletonMap(variable, null));
+  }
+
+  /**
+   * Checks the whole matrix at once, whether or not debugging mode is on, for tools that check a layout without
+   * solving it.
+   * 
+   * @throws AmbiguousLayoutException if the matrix is singular, blaming an equation in a block that is.
+   */
+  public void validate() {
+    this.ensureDependents();
+    this.checkBlocks(new HashSet<Variable>(this.equations.keySet()), this.equations);
+  }
+
+  /**
+   * Returns the number of nonzero coefficients in this matrix as it will be solved, for diagnostics.
+   */
+  public int getNonZeroCount() {
+    int count = 0;
+    for (Variable v : getAllVariables()) {
+      Equation equation = this.equations.get(v);
+      if (equation == null) {
+        count++;
+        continue;
+      }
+      for (Variable u : equation.getVariables()) {
+        if (equation.getCoefficient(u) != 0) {
+          count++;
+        }
+      }
+      if (!equation.getVariables().contains(v)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns a short description of the algorithm used to solve this matrix, for diagnostics: the solver used the last
+   * time it was solved, or if it hasn't been, the one it has been told to use.
+   */
+  public String getSolverName() {
+    if (this.solverName != null) {
+      return this.solverName;
     }
+    LayoutSolver chosen = (this.solver != null ? this.solver : RelativeMatrix.defaultSolver);
+    return (chosen != null ? chosen.getName() : "Chosen automatically");
+  }
+
+  /**
+   * Returns the solver this matrix has been told to use, or <code>null</code> if it uses the default. See
+   * {@link #setSolver(LayoutSolver)}.
+   */
+  public LayoutSolver getSolver() {
+    return this.solver;
+  }
+
+  /**
+   * Sets the solver this matrix is solved with by {@link #solve()}, overriding the default.
+   * 
+   * @param theSolver The solver, or <code>null</code> to use the default.
+   */
+  public void setSolver(LayoutSolver theSolver) {
+    this.solver = theSolver;
+  }
+
+  /**
+   * Returns the number of variables in this matrix, which is the number of rows and columns it has when solved.
+   */
+  public int getVariableCount() {
+    return getAllVariables().size();
+  }
+
+  /**
+   * Returns the number of coupled variables found by the last call to {@link #solve()}: those that can't be worked out
+   * by substitution, and are left for a numeric solver (see {@link SparseSystem#getCoupledVariableCount()}). Returns -1
+   * if the matrix hasn't been solved.
+   */
+  public int getCoreVariableCount() {
+    return this.coreVariableCount;
   }
 
   /**
    * Solves this matrix and returns a map containing keys for every variable that has been added to the matrix whose
-   * values are the solutions for those variables.
+   * values are the solutions for those variables.<br>
+   * <br>
+   * The equations are put in sparse form and handed to this matrix's solver (see {@link #setSolver(LayoutSolver)}),
+   * or failing that to the default solver (see {@link #setDefaultSolver(LayoutSolver)}), or failing that to the solver
+   * {@link LayoutSolvers#choose(SparseSystem)} picks for them. Unless told otherwise, that means that every variable
+   * that can be is worked out by substitution, and only the part of the matrix whose equations are genuinely coupled
+   * (see {@link #getCoreVariableCount()}), which is usually empty, is solved by LU decomposition.
+   * 
+   * @throws AmbiguousLayoutException if the matrix is singular.
    */
   public Map<Variable, Double> solve() {
-    return convertBack(actuallySolveMatrix());
+    List<Variable> variables = new ArrayList<Variable>(getAllVariables());
+    int count = variables.size();
+    Map<Variable, Integer> indices = new HashMap<Variable, Integer>(count * 2);
+    for (int i = 0; i < count; i++) {
+      indices.put(variables.get(i), i);
+    }
+
+    // For each row: its diagonal coefficient, right hand side, and the other variables it depends on, with their
+    // coefficients.
+    double[] diagonal = new double[count];
+    double[] rightHandSides = new double[count];
+    int[][] dependencies = new int[count][];
+    double[][] coefficients = new double[count][];
+    for (int i = 0; i < count; i++) {
+      Variable row = variables.get(i);
+      Equation equation = this.equations.get(row);
+      diagonal[i] = 1;
+      if (equation == null) {
+        dependencies[i] = RelativeMatrix.NO_DEPENDENCIES;
+        coefficients[i] = RelativeMatrix.NO_COEFFICIENTS;
+        continue;
+      }
+      rightHandSides[i] = equation.getRightHandSide();
+      List<Variable> equationVariables = equation.getVariables();
+      int[] rowDependencies = new int[equationVariables.size()];
+      double[] rowCoefficients = new double[equationVariables.size()];
+      int n = 0;
+      for (Variable column : equationVariables) {
+        double coefficient = equation.getCoefficient(column);
+        if (column.equals(row)) {
+          diagonal[i] = coefficient;
+        } else if (coefficient != 0) {
+          rowDependencies[n] = indices.get(column).intValue();
+          rowCoefficients[n] = coefficient;
+          n++;
+        }
+      }
+      dependencies[i] = Arrays.copyOf(rowDependencies, n);
+      coefficients[i] = Arrays.copyOf(rowCoefficients, n);
+    }
+
+    SparseSystem system = new SparseSystem(diagonal, dependencies, coefficients, rightHandSides);
+    LayoutSolver chosen = this.solver;
+    if (chosen == null) {
+      chosen = RelativeMatrix.defaultSolver;
+    }
+    if (chosen == null) {
+      chosen = LayoutSolvers.choose(system);
+    }
+    double[] values = chosen.solve(system);
+    this.solverName = chosen.getName();
+    this.coreVariableCount = system.getCoupledVariableCount();
+
+    Map<Variable, Double> ret = new HashMap<Variable, Double>(count * 2);
+    for (int i = 0; i < count; i++) {
+      ret.put(variables.get(i), values[i]);
+    }
+    return ret;
+  }
+
+  /**
+   * Solves this matrix for just the given variables, and returns a map containing their values along with those of
+   * the variables they depend on, directly or indirectly. See {@link #solve(Map, Collection)}.
+   */
+  public Map<Variable, Double> solveFor(Collection<Variable> theVariables) {
+    return RelativeMatrix.solve(this.equations, theVariables);
+  }
+
+  /**
+   * Solves the given equations for just the given variables. Only the equations those variables depend on, directly or
+   * indirectly, are looked at, and they are solved one strongly connected block at a time, each block after the blocks
+   * it depends on. Most blocks are a single variable, so this costs time roughly proportional to the number of
+   * equations involved, however many there are altogether. As in a matrix, a variable without an equation is zero.
+   * 
+   * @param theEquations The equation whose primary variable is each variable.
+   * @param theVariables The variables to solve for.
+   * @return A new map containing the value of each of the given variables, and of every variable they depend on.
+   * @throws AmbiguousLayoutException if the equations the variables depend on don't have exactly one solution.
+   */
+  public static Map<Variable, Double> solve(Map<Variable, Equation> theEquations, Collection<Variable> theVariables) {
+    Map<Variable, Double> ret = new HashMap<Variable, Double>();
+    for (List<Variable> block : RelativeMatrix.findBlocks(theEquations, theVariables)) {
+      RelativeMatrix.solveBlock(theEquations, block, ret);
+    }
+    return ret;
+  }
+
+  /**
+   * Divides the given variables, and every variable they depend on, directly or indirectly, into strongly connected
+   * blocks: sets of variables that each depend on all the others, and so have to be solved together. A variable that
+   * isn't part of a cycle of dependencies is a block of its own.
+   * 
+   * @param theEquations The equation whose primary variable is each variable.
+   * @param theVariables The variables to start from.
+   * @return A new list of the blocks, in which each block comes after all the blocks it depends on.
+   */
+  public static List<List<Variable>> findBlocks(Map<Variable, Equation> theEquations,
+      Collection<Variable> theVariables) {
+    List<List<Variable>> ret = new ArrayList<List<Variable>>();
+
+    // Tarjan's algorithm, which finds each block after all the blocks it depends on. It is iterative rather than
+    // recursive, since chains of dependent variables can be very long.
+    Map<Variable, int[]> visits = new HashMap<Variable, int[]>();
+    LinkedList<Variable> stack = new LinkedList<Variable>();
+    Set<Variable> onStack = new HashSet<Variable>();
+    LinkedList<Variable> path = new LinkedList<Variable>();
+    LinkedList<Iterator<Variable>> pathSuccessors = new LinkedList<Iterator<Variable>>();
+    int count = 0;
+
+    for (Variable target : theVariables) {
+      if (visits.containsKey(target)) {
+        continue;
+      }
+      visits.put(target, new int[] { count, count });
+      count++;
+      stack.push(target);
+      onStack.add(target);
+      path.push(target);
+      pathSuccessors.push(RelativeMatrix.dependencies(theEquations, target).iterator());
+
+      while (!path.isEmpty()) {
+        Variable v = path.peek();
+        Iterator<Variable> successors = pathSuccessors.peek();
+        if (successors.hasNext()) {
+          Variable u = successors.next();
+          int[] visit = visits.get(u);
+          if (visit == null) {
+            visits.put(u, new int[] { count, count });
+            count++;
+            stack.push(u);
+            onStack.add(u);
+            path.push(u);
+            pathSuccessors.push(RelativeMatrix.dependencies(theEquations, u).iterator());
+          } else if (onStack.contains(u)) {
+            int[] vVisit = visits.get(v);
+            vVisit[1] = Math.min(vVisit[1], visit[0]);
+          }
+          continue;
+        }
+
+        path.pop();
+        pathSuccessors.pop();
+        int[] vVisit = visits.get(v);
+        if (!path.isEmpty()) {
+          int[] parentVisit = visits.get(path.peek());
+          parentVisit[1] = Math.min(parentVisit[1], vVisit[1]);
+        }
+        if (vVisit[1] == vVisit[0]) {
+          List<Variable> block = new ArrayList<Variable>();
+          Variable member;
+          do {
+            member = stack.pop();
+            onStack.remove(member);
+            block.add(member);
+          } while (member != v);
+          ret.add(block);
+        }
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the variables other than the given one that have a nonzero coefficient in its equation.
+   */
+  private static List<Variable> dependencies(Map<Variable, Equation> theEquations, Variable variable) {
+    Equation equation = theEquations.get(variable);
+    if (equation == null) {
+      return Collections.emptyList();
+    }
+    List<Variable> ret = new ArrayList<Variable>();
+    for (Variable v : equation.getVariables()) {
+      if (!v.equals(variable) && equation.getCoefficient(v) != 0) {
+        ret.add(v);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Solves one strongly connected block of equations, given the values of every variable outside the block that they
+   * depend on, and adds the block's values to those values.
+   */
+  private static void solveBlock(Map<Variable, Equation> theEquations, List<Variable> theBlock,
+      Map<Variable, Double> theValues) {
+    int size = theBlock.size();
+    double[][] body = new double[size][size];
+    double[][] rightHandSides = new double[size][1];
+    for (int i = 0; i < size; i++) {
+      Variable row = theBlock.get(i);
+      Equation equation = theEquations.get(row);
+      body[i][i] = 1;
+      if (equation == null) {
+        continue;
+      }
+      double rightHandSide = equation.getRightHandSide();
+      for (Variable column : equation.getVariables()) {
+        double coefficient = equation.getCoefficient(column);
+        int j = (size == 1 ? (column.equals(row) ? 0 : -1) : theBlock.indexOf(column));
+        if (j >= 0) {
+          body[i][j] = coefficient;
+        } else if (coefficient != 0) {
+          rightHandSide -= coefficient * theValues.get(column).doubleValue();
+        }
+      }
+      rightHandSides[i][0] = rightHandSide;
+    }
+
+    if (size == 1) {
+      if (body[0][0] == 0) {
+        throw new AmbiguousLayoutException();
+      }
+      theValues.put(theBlock.get(0), rightHandSides[0][0] / body[0][0]);
+      return;
+    }
+
+    LUDecomposition decomp = new LUDecomposition(new Matrix(body));
+    if (!decomp.isNonsingular()) {
+      throw new AmbiguousLayoutException();
+    }
+    Matrix solution = decomp.solve(new Matrix(rightHandSides));
+    for (int i = 0; i < size; i++) {
+      theValues.put(theBlock.get(i), solution.get(i, 0));
+    }
   }
 
   /**
@@ -112,45 +539,153 @@ public class RelativeMatrix {
   }
 
   /**
-   * Solves the matrix represented by <code>body</code> with the solution vector represented by <code>sol</code>,
-   * and returns the result as a JAMA {@link Matrix}. Note that although <code>sol</code> is one-dimensional, it is a
-   * vertical vector and therefore is represented by a two-dimensional array where the values are in sol[0][<em>n</em>]
-   * for each <em>n</em>.
+   * Checks that the strongly connected blocks containing each of the given variables are nonsingular. Only used in
+   * debugging mode, and by validate().
+   * 
+   * @param theVariables The variables whose blocks should be checked.
+   * @param theChanges The equations that just changed, by primary variable, with <code>null</code> for those that
+   *          were removed. If a block is singular, the last of these in the block is blamed, or the last of all if the
+   *          block has none of them.
+   * @throws AmbiguousLayoutException if any of the blocks is singular.
    */
-  private Matrix actuallySolveMatrix() {
-    MatrixPrimitive prim = this.toMatrixPrimitive();
-    Matrix m = new Matrix(prim.body);
-    LUDecomposition decomp = new LUDecomposition(m);
-    Matrix solution = new Matrix(prim.solution);
+  private void checkBlocks(Set<Variable> theVariables, Map<Variable, Equation> theChanges) {
+    Set<Variable> checked = new HashSet<Variable>();
+    for (Variable v : theVariables) {
+      if (checked.contains(v)) {
+        continue;
+      }
+      Set<Variable> block = this.findBlock(v);
+      checked.addAll(block);
 
-    try {
-      return decomp.solve(solution);
-    } catch (RuntimeException e) {
-      if (e.getMessage().equals("Matrix is singular.")) {
-        throw new AmbiguousLayoutException();
+      boolean singular;
+      if (block.size() == 1) {
+        singular = (this.coefficient(v, v) == 0);
       } else {
-        throw e;
+        List<Variable> blockVariables = new ArrayList<Variable>(block);
+        double[][] body = new double[block.size()][block.size()];
+        for (int i = 0; i < body.length; i++) {
+          for (int j = 0; j < body.length; j++) {
+            body[i][j] = this.coefficient(blockVariables.get(i), blockVariables.get(j));
+          }
+        }
+        singular = !new LUDecomposition(new Matrix(body)).isNonsingular();
+      }
+
+      if (singular) {
+        Variable blamed = null;
+        for (Variable changed : theChanges.keySet()) {
+          if (blamed == null || block.contains(changed) || !block.contains(blamed)) {
+            blamed = changed;
+          }
+        }
+        throw new AmbiguousLayoutException(blamed, theChanges.get(blamed));
       }
     }
   }
 
   /**
-   * Converts the given JAMA {@link Matrix}, which must be in reduced-row echelon form, into a map containing each
-   * variable in the matrix and its value.
-   * 
-   * @param solutionMatrix
-   * @return
+   * Returns the coefficient of <code>column</code> in the row of the matrix defined by the equation for
+   * <code>row</code>, exactly as it will appear when the matrix is solved. A variable without an equation has an
+   * implicit identity row, and so does the primary variable of an equation that doesn't mention it.
+   */
+  private double coefficient(Variable row, Variable column) {
+    Equation equation = this.equations.get(row);
+    if (equation == null || !equation.getVariables().contains(column)) {
+      return (row.equals(column) ? 1 : 0);
+    }
+    return equation.getCoefficient(column);
+  }
+
+  /**
+   * Returns the variables in the same strongly connected block as the given one; that is, the variables that both
+   * depend on it and are depended on by it, directly or indirectly, including the variable itself. Only used in
+   * debugging mode.
    */
-  private Map<Variable, Double> convertBack(Matrix solutionMatrix) {
-    Map<Variable, Double> solutionMap = new HashMap<Variable, Double>();
+  private Set<Variable> findBlock(Variable variable) {
+    this.ensureDependents();
 
-    ArrayList<Variable> allVariablesList = new ArrayList<Variable>(getAllVariables());
+    // First find everything that depends on the variable. For a variable that's just been added, that's usually very
+    // little.
+    Set<Variable> dependsOnIt = new HashSet<Variable>();
+    LinkedList<Variable> queue = new LinkedList<Variable>();
+    dependsOnIt.add(variable);
+    queue.add(variable);
+    while (!queue.isEmpty()) {
+      Set<Variable> next = this.dependents.get(queue.removeFirst());
+      if (next != null) {
+        for (Variable v : next) {
+          if (dependsOnIt.add(v)) {
+            queue.add(v);
+          }
+        }
+      }
+    }
+
+    // Then find everything among those that the variable depends on.
+    Set<Variable> block = new HashSet<Variable>();
+    block.add(variable);
+    queue.add(variable);
+    while (!queue.isEmpty()) {
+      Equation equation = this.equations.get(queue.removeFirst());
+      if (equation == null) {
+        continue;
+      }
+      for (Variable v : equation.getVariables()) {
+        if (dependsOnIt.contains(v) && block.add(v)) {
+          queue.add(v);
+        }
+      }
+    }
+    return block;
+  }
+
+  /**
+   * Makes sure the map of dependents is up to date, rebuilding it if equations were changed while debugging mode was
+   * off.
+   */
+  private void ensureDependents() {
+    if (this.dependents == null) {
+      this.dependents = new HashMap<Variable, Set<Variable>>();
+      for (Variable v : this.equations.keySet()) {
+        this.linkEquation(v);
+      }
+    }
+  }
 
-    for (int j = 0; j < allVariablesList.size(); j++) {
-      solutionMap.put(allVariablesList.get(j), solutionMatrix.get(j, 0));
+  /**
+   * Records that the given variable depends on every other variable with a nonzero coefficient in its equation.
+   */
+  private void linkEquation(Variable variable) {
+    Equation equation = this.equations.get(variable);
+    if (equation == null) {
+      return;
+    }
+    for (Variable v : equation.getVariables()) {
+      if (!v.equals(variable) && equation.getCoefficient(v) != 0) {
+        Set<Variable> set = this.dependents.get(v);
+        if (set == null) {
+          set = new HashSet<Variable>();
+          this.dependents.put(v, set);
+        }
+        set.add(variable);
+      }
     }
+  }
 
-    return solutionMap;
+  /**
+   * Forgets the dependencies recorded by linkEquation() for the given variable's current equation.
+   */
+  private void unlinkEquation(Variable variable) {
+    Equation equation = this.equations.get(variable);
+    if (equation == null) {
+      return;
+    }
+    for (Variable v : equation.getVariables()) {
+      Set<Variable> set = this.dependents.get(v);
+      if (set != null) {
+        set.remove(variable);
+      }
+    }
   }
 
   /**
@@ -208,4 +743,25 @@ public class RelativeMatrix {
    */
   private HashMap<Variable, Equation> equations = new HashMap<Variable, Equation>();
 
+  /**
+   * For each variable, the variables whose equations depend on it. Only maintained in debugging mode; null if it needs
+   * to be rebuilt.
+   */
+  private HashMap<Variable, Set<Variable>> dependents;
+
+  /**
+   * The number of coupled variables found by the last solve, or -1 before the first.
+   */
+  private int coreVariableCount = -1;
+
+  /**
+   * The solver this matrix was told to use, or null for the default.
+   */
+  private LayoutSolver solver;
+
+  /**
+   * The name of the solver used the last time this matrix was solved, or null if it hasn't been.
+   */
+  private String solverName;
+
 }
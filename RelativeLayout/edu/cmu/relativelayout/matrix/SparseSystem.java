@@ -0,0 +1,286 @@
+/**
+ * SparseSystem.java<br>
+ * Contains class SparseSystem.
+ */
+package edu.cmu.relativelayout.matrix;
+
+import java.util.Arrays;
+
+/**
+ * A square system of linear equations in sparse form, as handed to a {@link LayoutSolver}. Each row is the equation of
+ * one variable: its coefficient of that variable (the diagonal), the other variables it depends on with their
+ * coefficients, and its right hand side. Rows and variables share the same numbering, so row <em>i</em> reads<br>
+ * <br>
+ * <code>diagonal(i) * x[i] + sum over k of coefficients(i)[k] * x[columns(i)[k]] = rightHandSide(i)</code><br>
+ * <br>
+ * Besides the equations themselves, a system can describe its own shape cheaply, for choosing a solver: its size, its
+ * density, and which of its variables are coupled, which is worked out the first time it is asked for. A variable is
+ * coupled when it can't be worked out by substitution, either forwards from the variables that depend on nothing or
+ * backwards from those that nothing depends on; in a layout, that means it is part of a cycle of Bindings or depends
+ * on one that is. A system with no coupled variables is acyclic, and substitution alone solves it. A SparseSystem is
+ * not thread-safe, but it is only ever solved by one thread.
+ */
+public final class SparseSystem {
+
+  /**
+   * Constructs a SparseSystem from the given rows. The arrays are used as they are rather than copied, and must not be
+   * changed afterwards.
+   *
+   * @param theDiagonal The coefficient of each row's own variable.
+   * @param theColumns The other variables each row depends on.
+   * @param theCoefficients The coefficient of each of those variables, in the same order.
+   * @param theRightHandSides The right hand side of each row.
+   */
+  public SparseSystem(double[] theDiagonal, int[][] theColumns, double[][] theCoefficients,
+      double[] theRightHandSides) {
+    this.diagonal = theDiagonal;
+    this.columns = theColumns;
+    this.coefficients = theCoefficients;
+    this.rightHandSides = theRightHandSides;
+  }
+
+  /**
+   * Returns the other variables the given row depends on. The array must not be changed.
+   */
+  public int[] getColumns(int row) {
+    return this.columns[row];
+  }
+
+  /**
+   * Returns the coefficients of the other variables the given row depends on, in the same order as
+   * {@link #getColumns(int)}. The array must not be changed.
+   */
+  public double[] getCoefficients(int row) {
+    return this.coefficients[row];
+  }
+
+  /**
+   * Returns the number of coupled variables, which is 0 exactly when the system is acyclic.
+   */
+  public int getCoupledVariableCount() {
+    analyze();
+    return this.coupled.length;
+  }
+
+  /**
+   * Returns the fraction of the entries of the system's matrix that are nonzero.
+   */
+  public double getDensity() {
+    int size = getSize();
+    return (size == 0 ? 0 : (double) getNonZeroCount() / ((double) size * size));
+  }
+
+  /**
+   * Returns the given row's coefficient of its own variable.
+   */
+  public double getDiagonal(int row) {
+    return this.diagonal[row];
+  }
+
+  /**
+   * Returns the number of nonzero entries in the system's matrix, counting every diagonal entry.
+   */
+  public int getNonZeroCount() {
+    if (this.nonZeroCount < 0) {
+      int count = this.diagonal.length;
+      for (int[] rowColumns : this.columns) {
+        count += rowColumns.length;
+      }
+      this.nonZeroCount = count;
+    }
+    return this.nonZeroCount;
+  }
+
+  /**
+   * Returns the right hand side of the given row.
+   */
+  public double getRightHandSide(int row) {
+    return this.rightHandSides[row];
+  }
+
+  /**
+   * Returns the number of rows, which is also the number of variables.
+   */
+  public int getSize() {
+    return this.diagonal.length;
+  }
+
+  /**
+   * Returns <code>true</code> if no variable is coupled, so that the system can be solved by substitution alone.
+   */
+  public boolean isAcyclic() {
+    return getCoupledVariableCount() == 0;
+  }
+
+  /**
+   * Returns the value of the given row's variable, given the values of all the variables it depends on.
+   *
+   * @throws AmbiguousLayoutException if the row's diagonal coefficient is zero, so the value can be anything.
+   */
+  public double substitute(int row, double[] values) {
+    if (this.diagonal[row] == 0) {
+      throw new AmbiguousLayoutException();
+    }
+    double ret = this.rightHandSides[row];
+    int[] rowColumns = this.columns[row];
+    double[] rowCoefficients = this.coefficients[row];
+    for (int k = 0; k < rowColumns.length; k++) {
+      ret -= rowCoefficients[k] * values[rowColumns[k]];
+    }
+    return ret / this.diagonal[row];
+  }
+
+  /**
+   * Returns the coupled variables, in order. The array must not be changed.
+   */
+  int[] getCoupled() {
+    analyze();
+    return this.coupled;
+  }
+
+  /**
+   * Returns the variables that can be worked out by substitution, in order: the first
+   * {@link #getForwardCount()} of them forwards, each after the variables it depends on, and the rest backwards, in
+   * reverse order, once the coupled variables are known. The array must not be changed.
+   */
+  int[] getSubstitutionOrder() {
+    analyze();
+    return this.order;
+  }
+
+  /**
+   * Returns the number of variables at the start of {@link #getSubstitutionOrder()} that can be worked out forwards.
+   */
+  int getForwardCount() {
+    analyze();
+    return this.forwardCount;
+  }
+
+  /**
+   * Works out which variables can be found by substitution, and in what order, if that hasn't been done yet.
+   */
+  private void analyze() {
+    if (this.order != null) {
+      return;
+    }
+    int count = getSize();
+
+    int[] dependentCounts = new int[count];
+    for (int i = 0; i < count; i++) {
+      for (int u : this.columns[i]) {
+        dependentCounts[u]++;
+      }
+    }
+    int[][] dependents = new int[count][];
+    for (int i = 0; i < count; i++) {
+      dependents[i] = new int[dependentCounts[i]];
+      dependentCounts[i] = 0;
+    }
+    for (int i = 0; i < count; i++) {
+      for (int u : this.columns[i]) {
+        dependents[u][dependentCounts[u]++] = i;
+      }
+    }
+
+    // Work forwards from the variables that depend on nothing unknown.
+    boolean[] known = new boolean[count];
+    int[] unknowns = new int[count];
+    int[] queue = new int[count];
+    int head = 0;
+    int tail = 0;
+    for (int i = 0; i < count; i++) {
+      unknowns[i] = this.columns[i].length;
+      if (unknowns[i] == 0) {
+        queue[tail++] = i;
+      }
+    }
+    while (head < tail) {
+      int i = queue[head++];
+      known[i] = true;
+      for (int w : dependents[i]) {
+        if (--unknowns[w] == 0) {
+          queue[tail++] = w;
+        }
+      }
+    }
+    int forward = tail;
+
+    // Then set aside the variables that nothing else still unknown depends on. They can be worked out last, in the
+    // reverse of the order they were set aside in.
+    int[] remainingDependents = unknowns;
+    for (int i = 0; i < count; i++) {
+      remainingDependents[i] = 0;
+      if (!known[i]) {
+        for (int w : dependents[i]) {
+          if (!known[w]) {
+            remainingDependents[i]++;
+          }
+        }
+        if (remainingDependents[i] == 0) {
+          queue[tail++] = i;
+        }
+      }
+    }
+    while (head < tail) {
+      int i = queue[head++];
+      known[i] = true;
+      for (int u : this.columns[i]) {
+        if (!known[u] && --remainingDependents[u] == 0) {
+          queue[tail++] = u;
+        }
+      }
+    }
+
+    // Whatever is left is coupled.
+    int[] ret = new int[count - tail];
+    int n = 0;
+    for (int i = 0; i < count; i++) {
+      if (!known[i]) {
+        ret[n++] = i;
+      }
+    }
+    this.coupled = ret;
+    this.forwardCount = forward;
+    this.order = (tail == count ? queue : Arrays.copyOf(queue, tail));
+  }
+
+  /**
+   * The coefficient of each row's own variable.
+   */
+  private final double[] diagonal;
+
+  /**
+   * The other variables each row depends on.
+   */
+  private final int[][] columns;
+
+  /**
+   * The coefficients of those variables.
+   */
+  private final double[][] coefficients;
+
+  /**
+   * The right hand side of each row.
+   */
+  private final double[] rightHandSides;
+
+  /**
+   * The number of nonzero entries, or -1 if it hasn't been counted.
+   */
+  private int nonZeroCount = -1;
+
+  /**
+   * The variables that can be found by substitution, in order, or null if the system hasn't been analyzed.
+   */
+  private int[] order;
+
+  /**
+   * The number of variables at the start of order that are found forwards.
+   */
+  private int forwardCount;
+
+  /**
+   * The coupled variables.
+   */
+  private int[] coupled;
+}
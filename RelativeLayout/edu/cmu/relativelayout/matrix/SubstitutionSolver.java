@@ -0,0 +1,124 @@
+/**
+ * SubstitutionSolver.java<br>
+ * Contains class SubstitutionSolver.
+ */
+package edu.cmu.relativelayout.matrix;
+
+import java.util.Arrays;
+
+/**
+ * Solves as much of a system as it can by substitution, and hands only the coupled variables that are left to another
+ * solver. Most of the equations in a layout are trivial: a position or size that is just a number, or an edge that is a
+ * fixed distance from an edge that is already known. So every variable that depends only on variables that are already
+ * known is worked out first, starting from those that depend on nothing at all, and every variable that nothing still
+ * unknown depends on is set aside to be worked out at the end. What is left (see
+ * {@link SparseSystem#getCoupledVariableCount()}) is the part of the system whose equations are genuinely coupled,
+ * which is usually empty, and only that part is given to the core solver, with the values already known folded into
+ * its right hand sides. An acyclic system is solved in time proportional to its number of nonzero coefficients.
+ */
+public final class SubstitutionSolver implements LayoutSolver {
+
+  /**
+   * Constructs a SubstitutionSolver that solves the coupled core of a system with the given solver.
+   *
+   * @param theCoreSolver The solver for the coupled core.
+   */
+  public SubstitutionSolver(LayoutSolver theCoreSolver) {
+    if (theCoreSolver == null) {
+      throw new IllegalArgumentException("A SubstitutionSolver needs a solver for the coupled core.");
+    }
+    this.coreSolver = theCoreSolver;
+  }
+
+  /**
+   * Returns the solver for the coupled core.
+   */
+  public LayoutSolver getCoreSolver() {
+    return this.coreSolver;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see edu.cmu.relativelayout.matrix.LayoutSolver#getName()
+   */
+  public String getName() {
+    return "Presolve, then " + this.coreSolver.getName();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see edu.cmu.relativelayout.matrix.LayoutSolver#solve(edu.cmu.relativelayout.matrix.SparseSystem)
+   */
+  public double[] solve(SparseSystem theSystem) {
+    int[] order = theSystem.getSubstitutionOrder();
+    int forward = theSystem.getForwardCount();
+    int[] core = theSystem.getCoupled();
+    double[] values = new double[theSystem.getSize()];
+
+    for (int q = 0; q < forward; q++) {
+      values[order[q]] = theSystem.substitute(order[q], values);
+    }
+
+    if (core.length > 0) {
+      boolean[] known = new boolean[values.length];
+      for (int q = 0; q < forward; q++) {
+        known[order[q]] = true;
+      }
+      int[] corePositions = new int[values.length];
+      for (int r = 0; r < core.length; r++) {
+        corePositions[core[r]] = r;
+      }
+
+      double[] diagonal = new double[core.length];
+      int[][] columns = new int[core.length][];
+      double[][] coefficients = new double[core.length][];
+      double[] rightHandSides = new double[core.length];
+      for (int r = 0; r < core.length; r++) {
+        int i = core[r];
+        int[] rowColumns = theSystem.getColumns(i);
+        double[] rowCoefficients = theSystem.getCoefficients(i);
+        int[] coreColumns = new int[rowColumns.length];
+        double[] coreCoefficients = new double[rowColumns.length];
+        double rightHandSide = theSystem.getRightHandSide(i);
+        int n = 0;
+        for (int k = 0; k < rowColumns.length; k++) {
+          int u = rowColumns[k];
+          if (known[u]) {
+            rightHandSide -= rowCoefficients[k] * values[u];
+          } else {
+            // Set-aside variables never feed into the core, so anything unknown here is part of it.
+            coreColumns[n] = corePositions[u];
+            coreCoefficients[n] = rowCoefficients[k];
+            n++;
+          }
+        }
+        diagonal[r] = theSystem.getDiagonal(i);
+        columns[r] = Arrays.copyOf(coreColumns, n);
+        coefficients[r] = Arrays.copyOf(coreCoefficients, n);
+        rightHandSides[r] = rightHandSide;
+      }
+
+      double[] coreValues = this.coreSolver.solve(new SparseSystem(diagonal, columns, coefficients, rightHandSides));
+      for (int r = 0; r < core.length; r++) {
+        values[core[r]] = coreValues[r];
+      }
+    }
+
+    for (int q = order.length - 1; q >= forward; q--) {
+      values[order[q]] = theSystem.substitute(order[q], values);
+    }
+    return values;
+  }
+
+  @Override
+  public String toString() {
+    return getName();
+  }
+
+  /**
+   * The solver for the coupled core.
+   */
+  private final LayoutSolver coreSolver;
+}
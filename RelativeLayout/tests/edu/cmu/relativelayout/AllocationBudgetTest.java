@@ -0,0 +1,120 @@
+/**
+ * AllocationBudgetTest.java<br>
+ * Contains class AllocationBudgetTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+/**
+ * Checks that repeatedly laying out the same container doesn't allocate more memory than it used to, so that
+ * improvements to allocation on the steady-state layout path stay in place. Allocation is measured with the per-thread
+ * allocated-bytes counter of the HotSpot ThreadMXBean; the tests are skipped on JVMs that don't have one.<br>
+ * <br>
+ * The budgets leave roughly half as much again as the measured figures, since allocation varies somewhat between JDKs
+ * and with what the JIT compiler manages to eliminate. A failing test reports the figure it measured; to see the
+ * figures when the tests pass, set the budgets to 0. When a change makes layouts allocate noticeably less, lower the
+ * budgets to about one and a half times the new figures. Only raise them deliberately.
+ */
+public class AllocationBudgetTest {
+
+  /**
+   * The number of rows in the test form. Each row has a label and a field.
+   */
+  private static final int ROWS = 10;
+
+  /**
+   * The number of passes to run before measuring, so that one-off allocations (class loading, lazily created caches
+   * and so on) aren't counted.
+   */
+  private static final int WARMUP_PASSES = 50;
+
+  /**
+   * The number of passes to measure.
+   */
+  private static final int MEASURED_PASSES = 50;
+
+  /**
+   * The most a pass that has to solve the layout may allocate, in bytes.
+   */
+  private static final long SOLVED_PASS_BUDGET = 113000;
+
+  /**
+   * The most a pass whose solution is cached may allocate, in bytes.
+   */
+  private static final long CACHED_PASS_BUDGET = 3072;
+
+  /**
+   * Checks a layout pass that has to solve the layout every time.
+   */
+  @Test
+  public void solvedPass() {
+    Container container = createForm();
+    ((RelativeLayout) container.getLayout()).setSolutionCacheSize(0);
+    checkBudget("solved", container, AllocationBudgetTest.SOLVED_PASS_BUDGET);
+  }
+
+  /**
+   * Checks a layout pass whose solution is found in the solution cache.
+   */
+  @Test
+  public void cachedPass() {
+    Container container = createForm();
+    checkBudget("cached", container, AllocationBudgetTest.CACHED_PASS_BUDGET);
+  }
+
+  /**
+   * Lays out the given container repeatedly and fails if the average pass allocates more than the given budget.
+   */
+  private void checkBudget(String name, Container container, long budget) {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean hotspotBean = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(hotspotBean.isThreadAllocatedMemorySupported());
+    hotspotBean.setThreadAllocatedMemoryEnabled(true);
+
+    for (int i = 0; i < AllocationBudgetTest.WARMUP_PASSES; i++) {
+      container.doLayout();
+    }
+
+    long threadId = Thread.currentThread().getId();
+    long before = hotspotBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < AllocationBudgetTest.MEASURED_PASSES; i++) {
+      container.doLayout();
+    }
+    long perPass = (hotspotBean.getThreadAllocatedBytes(threadId) - before) / AllocationBudgetTest.MEASURED_PASSES;
+
+    assertTrue("A " + name + " layout pass allocated " + perPass + " bytes, over its budget of " + budget,
+        perPass <= budget);
+  }
+
+  /**
+   * Creates a form with a column of labels, each with a field to its right that stretches to the right edge.
+   */
+  private static Container createForm() {
+    Container container = new Container();
+    container.setLayout(new RelativeLayout());
+    BindingFactory factory = new BindingFactory();
+
+    Component previous = null;
+    for (int i = 0; i < AllocationBudgetTest.ROWS; i++) {
+      Component label = LayoutFixtures.createComponent(80, 20);
+      Component field = LayoutFixtures.createComponent(120, 24);
+      container.add(label, new RelativeConstraints(factory.leftEdge(), (previous == null ? factory.topEdge()
+          : factory.below(previous))));
+      container.add(field, new RelativeConstraints(factory.rightOf(label), factory.rightEdge(), factory
+          .topAlign(label)));
+      previous = label;
+    }
+
+    container.setSize(640, 480);
+    return container;
+  }
+}
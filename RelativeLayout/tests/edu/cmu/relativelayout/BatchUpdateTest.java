@@ -0,0 +1,126 @@
+/**
+ * BatchUpdateTest.java<br>
+ * Contains class BatchUpdateTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Rectangle;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.cmu.relativelayout.matrix.AmbiguousLayoutException;
+
+/**
+ * Checks that components added between {@link RelativeLayout#beginUpdate()} and {@link RelativeLayout#commit()} are
+ * checked together in debugging mode, and that a batch that is rejected adds nothing.
+ */
+public class BatchUpdateTest {
+
+  /**
+   * Turns on debugging mode, so that every batch is checked as it is committed.
+   */
+  @Before
+  public void turnOnDebugMode() {
+    RelativeLayout.setDebugMode(true);
+  }
+
+  /**
+   * Turns debugging mode back off, since it applies to every layout.
+   */
+  @After
+  public void turnOffDebugMode() {
+    RelativeLayout.setDebugMode(false);
+  }
+
+  /**
+   * Commits a pair of components whose widths are only determined together, in both orders, and checks that both
+   * orders are accepted and laid out alike.
+   */
+  @Test
+  public void coupledPairCommitsInEitherOrder() {
+    Rectangle[] expected = { new Rectangle(10, 10, 50, 20), new Rectangle(60, 10, 150, 20) };
+    for (boolean aFirst : new boolean[] { true, false }) {
+      Container container = new Container();
+      RelativeLayout layout = new RelativeLayout();
+      container.setLayout(layout);
+      Component a = LayoutFixtures.createComponent(80, 20);
+      Component b = LayoutFixtures.createComponent(80, 20);
+      RelativeConstraints aConstraints = new RelativeConstraints(new Binding(Edge.LEFT, 10, Direction.RIGHT,
+          Edge.LEFT, Binding.PARENT), new Binding(Edge.RIGHT, 0, Direction.LEFT, Edge.LEFT, b), new Binding(Edge.TOP,
+          10, Direction.BELOW, Edge.TOP, Binding.PARENT));
+      RelativeConstraints bConstraints = new RelativeConstraints(new Binding(Edge.RIGHT, 200, Direction.RIGHT,
+          Edge.LEFT, a), new Binding(Edge.RIGHT, 150, Direction.RIGHT, Edge.RIGHT, a), new Binding(Edge.TOP, 0,
+          Direction.BELOW, Edge.TOP, a));
+
+      layout.beginUpdate();
+      if (aFirst) {
+        container.add(a, aConstraints);
+        container.add(b, bConstraints);
+      } else {
+        container.add(b, bConstraints);
+        container.add(a, aConstraints);
+      }
+      layout.commit();
+
+      container.setSize(400, 300);
+      container.doLayout();
+      assertEquals("a, " + (aFirst ? "added first" : "added second"), expected[0], a.getBounds());
+      assertEquals("b, " + (aFirst ? "added second" : "added first"), expected[1], b.getBounds());
+    }
+  }
+
+  /**
+   * Commits two components placed only relative to each other, and checks that the commit is rejected without adding
+   * either of them, leaving the component already there to be laid out as before.
+   */
+  @Test
+  public void rejectedCommitAddsNothing() {
+    Container container = new Container();
+    RelativeLayout layout = new RelativeLayout();
+    container.setLayout(layout);
+    Component header = LayoutFixtures.createComponent(200, 30);
+    container.add(header, new RelativeConstraints(new Binding(Edge.LEFT, 10, Direction.RIGHT, Edge.LEFT,
+        Binding.PARENT), new Binding(Edge.TOP, 10, Direction.BELOW, Edge.TOP, Binding.PARENT)));
+    container.setSize(400, 300);
+    container.doLayout();
+    Rectangle before = header.getBounds();
+
+    Component first = LayoutFixtures.createComponent(80, 20);
+    Component second = LayoutFixtures.createComponent(80, 20);
+    layout.beginUpdate();
+    container.add(first, new RelativeConstraints(new Binding(Edge.LEFT, 0, Direction.RIGHT, Edge.LEFT, second),
+        new Binding(Edge.TOP, 6, Direction.BELOW, Edge.BOTTOM, header)));
+    container.add(second, new RelativeConstraints(new Binding(Edge.LEFT, 0, Direction.RIGHT, Edge.LEFT, first),
+        new Binding(Edge.TOP, 6, Direction.BELOW, Edge.BOTTOM, header)));
+    try {
+      layout.commit();
+      fail("The two components are only placed relative to each other");
+    } catch (AmbiguousLayoutException e) {
+      // Expected.
+    }
+    assertFalse(layout.isUpdating());
+
+    for (Component component : new Component[] { first, second }) {
+      try {
+        layout.solveBounds(component);
+        fail("A rejected component should not have been added to the layout");
+      } catch (IllegalArgumentException e) {
+        // Expected.
+      }
+    }
+    assertEquals(before, layout.solveBounds(header));
+
+    container.remove(first);
+    container.remove(second);
+    container.doLayout();
+    assertEquals(before, header.getBounds());
+  }
+}
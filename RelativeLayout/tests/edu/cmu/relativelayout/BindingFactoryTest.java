@@ -0,0 +1,60 @@
+/**
+ * BindingFactoryTest.java<br>
+ * Contains class BindingFactoryTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Component;
+import java.awt.Container;
+
+import org.junit.Test;
+
+/**
+ * Checks that the Bindings a {@link BindingFactory} returns share their positions but can still be changed one at a
+ * time.
+ */
+public class BindingFactoryTest {
+
+  /**
+   * Checks that each call returns a new Binding with the same interned position.
+   */
+  @Test
+  public void bindingsShareOnlyTheirPositions() {
+    BindingFactory factory = new BindingFactory();
+    Binding first = factory.leftEdge();
+    Binding second = factory.leftEdge();
+    assertNotSame(first, second);
+    assertSame(first.getRelativePosition(), second.getRelativePosition());
+  }
+
+  /**
+   * Checks that the deprecated setFixedComponent() still works on a Binding from the factory, and only affects that
+   * Binding.
+   */
+  @SuppressWarnings("deprecation")
+  @Test
+  public void setFixedComponentOnFactoryBinding() {
+    Container container = new Container();
+    container.setLayout(new RelativeLayout());
+    BindingFactory factory = new BindingFactory();
+    factory.setLeftMargin(12);
+    Component anchor = LayoutFixtures.createComponent(100, 20);
+    Component follower = LayoutFixtures.createComponent(80, 20);
+
+    container.add(anchor, new RelativeConstraints(new Binding(Edge.LEFT, 50, Direction.RIGHT, Edge.LEFT,
+        Binding.PARENT), factory.topEdge()));
+    Binding left = factory.leftEdge();
+    left.setFixedComponent(anchor);
+    container.add(follower, new RelativeConstraints(left, factory.below(anchor)));
+    assertNull(factory.leftEdge().getFixedNode());
+
+    container.setSize(640, 480);
+    container.doLayout();
+    assertEquals(anchor.getX() + 12, follower.getX());
+  }
+}
@@ -0,0 +1,84 @@
+/**
+ * ConstraintGroupTest.java<br>
+ * Contains class ConstraintGroupTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Rectangle;
+
+import org.junit.Test;
+
+/**
+ * Checks that switching a constraint group off and on again puts every component back exactly where it was.
+ */
+public class ConstraintGroupTest {
+
+  /**
+   * Collapses an optional section, with the footer below it moving up, then expands it again, several times over.
+   */
+  @Test
+  public void toggledGroupRestoresBounds() {
+    Container container = new Container();
+    RelativeLayout layout = new RelativeLayout();
+    container.setLayout(layout);
+    Component header = LayoutFixtures.createComponent(200, 30);
+    Component section = LayoutFixtures.createComponent(300, 120);
+    Component footer = LayoutFixtures.createComponent(150, 24);
+    container.add(header, new RelativeConstraints(new Binding(Edge.LEFT, 10, Direction.RIGHT, Edge.LEFT,
+        Binding.PARENT), new Binding(Edge.TOP, 10, Direction.BELOW, Edge.TOP, Binding.PARENT)));
+    container.add(section, new RelativeConstraints(new Binding(Edge.LEFT, 0, Direction.RIGHT, Edge.LEFT, header),
+        new Binding(Edge.RIGHT, 10, Direction.LEFT, Edge.RIGHT, Binding.PARENT), new Binding(Edge.TOP, 6,
+            Direction.BELOW, Edge.BOTTOM, header)));
+    container.add(footer, new RelativeConstraints(new Binding(Edge.LEFT, 0, Direction.RIGHT, Edge.LEFT, header),
+        new Binding(Edge.TOP, 6, Direction.BELOW, Edge.BOTTOM, section)));
+
+    // While the group is disabled, the section collapses to nothing and the footer goes straight below the header.
+    layout.setGroupConstraints("details", section, new RelativeConstraints(new Binding(Edge.LEFT, 0,
+        Direction.RIGHT, Edge.LEFT, header), new Binding(Edge.RIGHT, 0, Direction.RIGHT, Edge.LEFT, header),
+        new Binding(Edge.TOP, 0, Direction.BELOW, Edge.BOTTOM, header), new Binding(Edge.BOTTOM, 0, Direction.BELOW,
+            Edge.BOTTOM, header)));
+    layout.setGroupConstraints("details", footer, new RelativeConstraints(new Binding(Edge.LEFT, 0,
+        Direction.RIGHT, Edge.LEFT, header), new Binding(Edge.TOP, 6, Direction.BELOW, Edge.BOTTOM, header)));
+
+    container.setSize(400, 300);
+    container.doLayout();
+    Rectangle[] expanded = boundsOf(container);
+    assertEquals(new Rectangle(10, 46, 380, 120), expanded[1]);
+    assertEquals(new Rectangle(10, 172, 150, 24), expanded[2]);
+
+    for (int i = 0; i < 3; i++) {
+      layout.setGroupEnabled("details", false);
+      assertFalse(layout.isGroupEnabled("details"));
+      container.doLayout();
+      Rectangle[] collapsed = boundsOf(container);
+      assertEquals(expanded[0], collapsed[0]);
+      assertEquals(new Rectangle(10, 40, 0, 0), collapsed[1]);
+      assertEquals(new Rectangle(10, 46, 150, 24), collapsed[2]);
+
+      layout.setGroupEnabled("details", true);
+      assertTrue(layout.isGroupEnabled("details"));
+      container.doLayout();
+      Rectangle[] restored = boundsOf(container);
+      for (int c = 0; c < expanded.length; c++) {
+        assertEquals("Component " + c, expanded[c], restored[c]);
+      }
+    }
+  }
+
+  /**
+   * Returns the bounds of each of the given container's components in turn.
+   */
+  private static Rectangle[] boundsOf(Container theContainer) {
+    Rectangle[] ret = new Rectangle[theContainer.getComponentCount()];
+    for (int i = 0; i < ret.length; i++) {
+      ret[i] = theContainer.getComponent(i).getBounds();
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,100 @@
+/**
+ * LayoutEngineTest.java<br>
+ * Contains class LayoutEngineTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.cmu.relativelayout.matrix.AmbiguousLayoutException;
+
+/**
+ * Checks the bookkeeping of a {@link LayoutEngine} as nodes are added and removed. Every test runs in debugging mode,
+ * so that each change is checked as it is made, and each layout as it is solved.
+ */
+public class LayoutEngineTest {
+
+  /**
+   * Turns on debugging mode.
+   */
+  @Before
+  public void turnOnDebugMode() {
+    RelativeLayout.setDebugMode(true);
+  }
+
+  /**
+   * Turns debugging mode back off, since it applies to every layout.
+   */
+  @After
+  public void turnOffDebugMode() {
+    RelativeLayout.setDebugMode(false);
+  }
+
+  /**
+   * Adds a row of coupled nodes (see {@link LayoutFixtures}) all at once, in both orders, and checks that both are
+   * accepted and laid out alike.
+   */
+  @Test
+  public void addAllInEitherOrder() {
+    LayoutEngine source = new LayoutEngine("root");
+    LayoutFixtures.addCoupledRows(source, 1, null);
+    String[][] orders = { { "a0", "b0" }, { "b0", "a0" } };
+    for (String[] order : orders) {
+      Map<Object, RelativeConstraints> nodes = new LinkedHashMap<Object, RelativeConstraints>();
+      for (String node : order) {
+        nodes.put(node, source.getConstraints(node));
+      }
+      LayoutEngine engine = new LayoutEngine("root");
+      engine.addAll(nodes);
+      engine.setPreferredSize("a0", 80, 20);
+      engine.setPreferredSize("b0", 80, 20);
+
+      int[] bounds = engine.layout(400, 300);
+      int a = engine.indexOf("a0") * 4;
+      int b = engine.indexOf("b0") * 4;
+      assertArrayEquals(new int[] { 10, 10, 50, 20 }, new int[] { bounds[a], bounds[a + 1], bounds[a + 2],
+          bounds[a + 3] });
+      assertArrayEquals(new int[] { 60, 10, 150, 20 }, new int[] { bounds[b], bounds[b + 1], bounds[b + 2],
+          bounds[b + 3] });
+    }
+  }
+
+  /**
+   * Checks that a removal that debugging mode rejects leaves the engine exactly as it was.
+   */
+  @Test
+  public void rejectedRemovalLeavesEngineUnchanged() {
+    LayoutEngine engine = new LayoutEngine("root");
+    LayoutFixtures.addCoupledRows(engine, 1, null);
+    int[] before = engine.layout(400, 300);
+    assertArrayEquals(new int[] { 10, 10, 50, 20, 60, 10, 150, 20 }, before);
+
+    try {
+      engine.remove("a0");
+      fail("Removing a0 should leave b0's width undetermined");
+    } catch (AmbiguousLayoutException e) {
+      // Expected.
+    }
+
+    assertEquals(2, engine.getNodeCount());
+    assertEquals(0, engine.indexOf("a0"));
+    assertEquals(1, engine.indexOf("b0"));
+    assertArrayEquals(before, engine.layout(400, 300));
+
+    // Once nothing depends on it, the node can be removed after all.
+    engine.remove("b0");
+    engine.remove("a0");
+    assertEquals(0, engine.getNodeCount());
+    assertFalse(engine.contains("a0"));
+  }
+}
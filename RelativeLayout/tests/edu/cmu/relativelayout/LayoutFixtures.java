@@ -0,0 +1,156 @@
+/**
+ * LayoutFixtures.java<br>
+ * Contains class LayoutFixtures.
+ */
+package edu.cmu.relativelayout;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+
+/**
+ * The components and layouts that the tests share.<br>
+ * <br>
+ * A form is a column of rows, each a label and a field. The label is 12 pixels from the left edge of the root, and
+ * each row's label is {@value #ROW_SPACING} pixels below the field of the row above. The field is 6 pixels right of
+ * its label, stretches to 12 pixels from the right edge of the root, and is centered vertically on its label. Labels
+ * get wider from row to row, and fields are alternately taller and shorter than their labels, by an even number of
+ * pixels so that they are centered on whole pixels.<br>
+ * <br>
+ * Coupled rows are rows of two nodes, a and b, whose widths are only determined together: a's right edge is b's left
+ * edge, and b's right edge is 200 pixels right of a's left edge and 150 pixels right of a's right edge. With a 10
+ * pixels from the left edge of the root, a is 50 pixels wide and b is 150.
+ */
+final class LayoutFixtures {
+
+  /**
+   * The distance between the bottom of each row's field and the top of the next row's label.
+   */
+  static final int ROW_SPACING = 4;
+
+  /**
+   * Adds the given number of coupled rows to an engine, named <code>a0</code>, <code>b0</code>, <code>a1</code>, and so
+   * on, each 80 by 20 pixels. Each row is 10 pixels below the row above, and the first is 10 pixels below the given
+   * node, or below the top of the root if it is null.
+   */
+  static void addCoupledRows(LayoutEngine theEngine, int theRows, Object theAbove) {
+    Object previous = theAbove;
+    for (int r = 0; r < theRows; r++) {
+      String a = "a" + r;
+      String b = "b" + r;
+      Binding top = (previous == null) ? new Binding(Edge.TOP, 10, Direction.BELOW, Edge.TOP, Binding.PARENT)
+          : new Binding(Edge.TOP, 10, Direction.BELOW, Edge.BOTTOM, previous);
+      theEngine.add(a, new RelativeConstraints(new Binding(Edge.LEFT, 10, Direction.RIGHT, Edge.LEFT,
+          Binding.PARENT), new Binding(Edge.RIGHT, 0, Direction.LEFT, Edge.LEFT, (Object) b), top));
+      theEngine.add(b, new RelativeConstraints(new Binding(Edge.RIGHT, 200, Direction.RIGHT, Edge.LEFT, (Object) a),
+          new Binding(Edge.RIGHT, 150, Direction.RIGHT, Edge.RIGHT, (Object) a), new Binding(Edge.TOP, 0,
+              Direction.BELOW, Edge.TOP, (Object) a)));
+      theEngine.setPreferredSize(a, 80, 20);
+      theEngine.setPreferredSize(b, 80, 20);
+      previous = a;
+    }
+  }
+
+  /**
+   * Adds a form with the given number of rows to a container, and returns its components in the order they were
+   * added: the label and then the field of each row in turn.
+   */
+  static Component[] addForm(Container theContainer, int theRows) {
+    Component[] ret = new Component[theRows * 2];
+    Component previous = null;
+    for (int r = 0; r < theRows; r++) {
+      Component label = LayoutFixtures.createComponent(LayoutFixtures.labelWidth(r), LayoutFixtures.LABEL_HEIGHT);
+      Component field = LayoutFixtures.createComponent(LayoutFixtures.FIELD_WIDTH, LayoutFixtures.fieldHeight(r));
+      theContainer.add(label, LayoutFixtures.labelConstraints(previous));
+      theContainer.add(field, LayoutFixtures.fieldConstraints(label));
+      ret[r * 2] = label;
+      ret[r * 2 + 1] = field;
+      previous = field;
+    }
+    return ret;
+  }
+
+  /**
+   * Adds a form with the given number of rows to an engine, naming the nodes <code>label0</code>,
+   * <code>field0</code>, <code>label1</code>, and so on.
+   *
+   * @return The field of the last row, or null if there are no rows.
+   */
+  static Object addForm(LayoutEngine theEngine, int theRows) {
+    Object previous = null;
+    for (int r = 0; r < theRows; r++) {
+      String label = "label" + r;
+      String field = "field" + r;
+      theEngine.add(label, LayoutFixtures.labelConstraints(previous));
+      theEngine.add(field, LayoutFixtures.fieldConstraints(label));
+      theEngine.setPreferredSize(label, LayoutFixtures.labelWidth(r), LayoutFixtures.LABEL_HEIGHT);
+      theEngine.setPreferredSize(field, LayoutFixtures.FIELD_WIDTH, LayoutFixtures.fieldHeight(r));
+      previous = field;
+    }
+    return previous;
+  }
+
+  /**
+   * Creates a lightweight component with the given preferred size.
+   */
+  static Component createComponent(int width, int height) {
+    Component ret = new Component() {
+      private static final long serialVersionUID = 1L;
+    };
+    ret.setPreferredSize(new Dimension(width, height));
+    return ret;
+  }
+
+  /**
+   * Returns the constraints of a form's field.
+   *
+   * @param theLabel The label of the field's row.
+   */
+  static RelativeConstraints fieldConstraints(Object theLabel) {
+    return new RelativeConstraints(new Binding(Edge.LEFT, 6, Direction.RIGHT, Edge.RIGHT, theLabel), new Binding(
+        Edge.RIGHT, 12, Direction.LEFT, Edge.RIGHT, Binding.PARENT), new Binding(Edge.VERTICAL_CENTER, 0,
+        Direction.BELOW, Edge.VERTICAL_CENTER, theLabel));
+  }
+
+  /**
+   * Returns the constraints of a form's label.
+   *
+   * @param theFieldAbove The field of the row above, or null for the first row, which is at the top of the root.
+   */
+  static RelativeConstraints labelConstraints(Object theFieldAbove) {
+    Binding top = (theFieldAbove == null) ? new Binding(Edge.TOP, 0, Direction.BELOW, Edge.TOP, Binding.PARENT)
+        : new Binding(Edge.TOP, LayoutFixtures.ROW_SPACING, Direction.BELOW, Edge.BOTTOM, theFieldAbove);
+    return new RelativeConstraints(new Binding(Edge.LEFT, 12, Direction.RIGHT, Edge.LEFT, Binding.PARENT), top);
+  }
+
+  /**
+   * Returns the preferred height of the field in the given row of a form.
+   */
+  private static int fieldHeight(int theRow) {
+    return (theRow % 2 == 0) ? 24 : 16;
+  }
+
+  /**
+   * Returns the preferred width of the label in the given row of a form.
+   */
+  private static int labelWidth(int theRow) {
+    return 40 + theRow * 10;
+  }
+
+  /**
+   * Not instantiable.
+   */
+  private LayoutFixtures() {
+    // Nothing to do.
+  }
+
+  /**
+   * The preferred width of a form's fields.
+   */
+  private static final int FIELD_WIDTH = 100;
+
+  /**
+   * The preferred height of a form's labels.
+   */
+  private static final int LABEL_HEIGHT = 20;
+}
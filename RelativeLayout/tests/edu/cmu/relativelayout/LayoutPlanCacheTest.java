@@ -0,0 +1,133 @@
+/**
+ * LayoutPlanCacheTest.java<br>
+ * Contains class LayoutPlanCacheTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that layouts evaluated from compiled plans, whether just compiled or read back from a
+ * {@link LayoutPlanCache}, have the same bounds as layouts whose equations are solved in full.
+ */
+public class LayoutPlanCacheTest {
+
+  /**
+   * A directory for the plans, deleted after each test.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Lays out with a plan cache, then again with a new cache reading the saved plan from disk, and compares both with
+   * a layout that solves its equations in full, at several root sizes and preferred sizes.
+   */
+  @Test
+  public void cachedPlanMatchesFullSolve() {
+    LayoutEngine direct = createEngine();
+    LayoutEngine compiling = createEngine();
+    compiling.setPlanCache(new LayoutPlanCache(this.folder.getRoot()));
+    LayoutEngine loading = createEngine();
+
+    for (int[] size : SIZES) {
+      setPreferredSizes(direct, size[2]);
+      setPreferredSizes(compiling, size[2]);
+      setPreferredSizes(loading, size[2]);
+      int[] expected = direct.layout(size[0], size[1]);
+      assertArrayEquals(expected, compiling.layout(size[0], size[1]));
+
+      // Only set the second cache once the plan has been saved, so that it has to read it back.
+      assertEquals(1, this.folder.getRoot().listFiles(new FilenameFilter() {
+        public boolean accept(File theDir, String theName) {
+          return theName.endsWith(".rlplan");
+        }
+      }).length);
+      loading.setPlanCache(new LayoutPlanCache(this.folder.getRoot()));
+      assertArrayEquals(expected, loading.layout(size[0], size[1]));
+    }
+  }
+
+  /**
+   * Lays out more structures than the cache keeps in memory, and checks that the first, which has been dropped from
+   * memory by then, is read back from the directory with the same bounds.
+   */
+  @Test
+  public void plansBeyondMemoryLimitAreReadBack() {
+    LayoutPlanCache cache = new LayoutPlanCache(this.folder.getRoot());
+    int[] first = null;
+    for (int rows = 1; rows <= LayoutPlanCache.MEMORY_LIMIT + 1; rows++) {
+      LayoutEngine engine = new LayoutEngine("root");
+      LayoutFixtures.addForm(engine, rows);
+      engine.setPlanCache(cache);
+      int[] bounds = engine.layout(400, 300);
+      if (first == null) {
+        first = bounds;
+      }
+    }
+
+    LayoutEngine engine = new LayoutEngine("root");
+    LayoutFixtures.addForm(engine, 1);
+    engine.setPlanCache(cache);
+    assertArrayEquals(first, engine.layout(400, 300));
+  }
+
+  /**
+   * Checks that a structure with an impossibly large node count is rejected before anything is allocated for it.
+   */
+  @Test
+  public void corruptNodeCountIsRejected() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(Integer.MAX_VALUE / 4);
+    out.close();
+    try {
+      LayoutPlan.Structure.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+      fail("The node count should be rejected");
+    } catch (IOException e) {
+      // Expected.
+    }
+  }
+
+  /**
+   * Creates an engine with a form followed by coupled rows (see {@link LayoutFixtures}).
+   */
+  private static LayoutEngine createEngine() {
+    LayoutEngine ret = new LayoutEngine("root");
+    Object lastField = LayoutFixtures.addForm(ret, ROWS);
+    LayoutFixtures.addCoupledRows(ret, ROWS, lastField);
+    return ret;
+  }
+
+  /**
+   * Sets the preferred size of each node of the given engine from a seed, so that each seed gives different sizes.
+   */
+  private static void setPreferredSizes(LayoutEngine theEngine, int theSeed) {
+    for (int i = 0; i < theEngine.getNodeCount(); i++) {
+      theEngine.setPreferredSize(theEngine.getNode(i), 40 + (i * theSeed) % 70, 16 + (i + theSeed) % 3 * 4);
+    }
+  }
+
+  /**
+   * The number of rows of each kind.
+   */
+  private static final int ROWS = 6;
+
+  /**
+   * The root width, root height, and preferred size seed of each layout.
+   */
+  private static final int[][] SIZES = { { 400, 300, 3 }, { 250, 600, 11 }, { 800, 200, 29 } };
+}
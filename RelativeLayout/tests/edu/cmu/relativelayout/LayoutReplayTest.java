@@ -0,0 +1,189 @@
+/**
+ * LayoutReplayTest.java<br>
+ * Contains class LayoutReplayTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import edu.cmu.relativelayout.equation.Variable;
+
+/**
+ * Records layouts with a {@link LayoutRecorder} and reads them back with a {@link LayoutReplay}, checking that solving
+ * the replayed equations puts every component where the layout did, and that a log that is cut short or corrupt is
+ * reported as an IOException.
+ */
+public class LayoutReplayTest {
+
+  /**
+   * Stops recording, since the recorder applies to every layout.
+   */
+  @After
+  public void stopRecording() {
+    RelativeLayout.setLayoutRecorder(null);
+  }
+
+  /**
+   * Lays out a form at several sizes, and checks that each pass replays to the bounds the layout gave the components.
+   */
+  @Test
+  public void replayGivesRecordedBounds() throws IOException {
+    List<Rectangle[]> laidOut = new ArrayList<Rectangle[]>();
+    byte[] log = recordForm(laidOut);
+
+    LayoutReplay replay = new LayoutReplay(new ByteArrayInputStream(log));
+    try {
+      for (Rectangle[] expected : laidOut) {
+        assertTrue(replay.next());
+        assertFalse(replay.isFailed());
+        assertEquals(expected.length, replay.getNodeCount());
+
+        Map<Variable, Double> solution = replay.createMatrix().solve();
+        Variable[] variables = replay.getVariables();
+        for (int i = 0; i < expected.length; i++) {
+          Rectangle bounds = new Rectangle((int) solution.get(variables[i * 4]).doubleValue(), (int) solution.get(
+              variables[i * 4 + 1]).doubleValue(), (int) solution.get(variables[i * 4 + 2]).doubleValue(),
+              (int) solution.get(variables[i * 4 + 3]).doubleValue());
+          assertEquals("node" + i, expected[i], bounds);
+        }
+      }
+      assertFalse(replay.next());
+    } finally {
+      replay.close();
+    }
+  }
+
+  /**
+   * Cuts a log short at every point after its header, and checks that fewer passes are read back, and that a log cut
+   * part way through its last pass is reported as an IOException rather than just ending.
+   */
+  @Test
+  public void truncatedLogIsReported() throws IOException {
+    byte[] log = recordForm(new ArrayList<Rectangle[]>());
+    int complete = countPasses(log);
+    // A pass record is a tag, a structure number, a time, a size, a preferred size per component, flags, and 4 times.
+    int lastPass = log.length - (1 + 4 + 8 + 8 + LayoutReplayTest.ROWS * 2 * 8 + 1 + 4 * 8);
+    for (int length = 8; length < log.length; length++) {
+      LayoutReplay replay = new LayoutReplay(new ByteArrayInputStream(Arrays.copyOf(log, length)));
+      int passes = 0;
+      boolean reported = false;
+      try {
+        while (replay.next()) {
+          passes++;
+        }
+      } catch (IOException e) {
+        reported = true;
+      } finally {
+        replay.close();
+      }
+      assertTrue("length " + length, passes < complete);
+      if (length > lastPass) {
+        assertTrue("length " + length, reported);
+        assertEquals(complete - 1, passes);
+      }
+    }
+  }
+
+  /**
+   * Corrupts each byte of a log in turn, and checks that reading it either succeeds or fails with an IOException,
+   * never with a runtime exception.
+   */
+  @Test
+  public void corruptLogIsReported() throws IOException {
+    byte[] log = recordForm(new ArrayList<Rectangle[]>());
+    for (int i = 8; i < log.length; i++) {
+      for (int value : new int[] { 0x00, 0x7F, 0x80, 0xFF }) {
+        byte[] corrupt = log.clone();
+        corrupt[i] = (byte) value;
+        LayoutReplay replay = new LayoutReplay(new ByteArrayInputStream(corrupt));
+        try {
+          while (replay.next()) {
+            replay.getEquations();
+          }
+        } catch (IOException e) {
+          // Expected for most corruptions.
+        } catch (RuntimeException e) {
+          throw new AssertionError("Byte " + i + " set to " + value + ": " + e);
+        } finally {
+          replay.close();
+        }
+      }
+    }
+
+    try {
+      new LayoutReplay(new ByteArrayInputStream(new byte[] { 'R', 'L', 'R', 'X', 0, 0, 0, 1 }));
+      fail("The magic number is wrong");
+    } catch (IOException e) {
+      // Expected.
+    }
+  }
+
+  /**
+   * Records a form laid out at several sizes, adds the bounds of its components after each layout to the given list,
+   * and returns the log.
+   */
+  private byte[] recordForm(List<Rectangle[]> theBounds) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    LayoutRecorder recorder = new LayoutRecorder(out);
+    RelativeLayout.setLayoutRecorder(recorder);
+
+    Container container = new Container();
+    container.setLayout(new RelativeLayout());
+    Component[] components = LayoutFixtures.addForm(container, LayoutReplayTest.ROWS);
+    int[] widths = { 400, 300, 400, 250 };
+    for (int width : widths) {
+      container.setSize(width, 300);
+      container.invalidate();
+      container.doLayout();
+      Rectangle[] bounds = new Rectangle[components.length];
+      for (int i = 0; i < components.length; i++) {
+        bounds[i] = components[i].getBounds();
+      }
+      theBounds.add(bounds);
+    }
+
+    RelativeLayout.setLayoutRecorder(null);
+    recorder.close();
+    assertEquals(null, recorder.getError());
+    assertEquals(widths.length, recorder.getPassCount());
+    return out.toByteArray();
+  }
+
+  /**
+   * Returns the number of passes in a complete log.
+   */
+  private int countPasses(byte[] theLog) throws IOException {
+    LayoutReplay replay = new LayoutReplay(new ByteArrayInputStream(theLog));
+    int ret = 0;
+    try {
+      while (replay.next()) {
+        ret++;
+      }
+    } finally {
+      replay.close();
+    }
+    return ret;
+  }
+
+  /**
+   * The number of rows in the form, each a label and a field.
+   */
+  private static final int ROWS = 5;
+}
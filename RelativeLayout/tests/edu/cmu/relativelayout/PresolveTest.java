@@ -0,0 +1,101 @@
+/**
+ * PresolveTest.java<br>
+ * Contains class PresolveTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import edu.cmu.relativelayout.matrix.AmbiguousLayoutException;
+
+/**
+ * Checks that layouts are solved correctly once their equations are presolved by substitution, whether substitution
+ * solves all of them or leaves a coupled core to be factorized, and that an ambiguous layout is still reported.
+ */
+public class PresolveTest {
+
+  /**
+   * Lays out a form (see {@link LayoutFixtures}), which substitution alone solves, and checks every bound.
+   */
+  @Test
+  public void acyclicLayout() {
+    LayoutEngine engine = new LayoutEngine("root");
+    LayoutFixtures.addForm(engine, ROWS);
+    int[] expected = new int[ROWS * 8];
+    int top = 0;
+    for (int r = 0; r < ROWS; r++) {
+      int j = r * 8;
+      int labelWidth = engine.getPreferredWidth(r * 2);
+      int fieldHeight = engine.getPreferredHeight(r * 2 + 1);
+      int fieldTop = top + (20 - fieldHeight) / 2;
+      setBounds(expected, j, 12, top, labelWidth, 20);
+      setBounds(expected, j + 4, 18 + labelWidth, fieldTop, WIDTH - 30 - labelWidth, fieldHeight);
+      top = fieldTop + fieldHeight + LayoutFixtures.ROW_SPACING;
+    }
+    assertArrayEquals(expected, engine.layout(WIDTH, HEIGHT));
+  }
+
+  /**
+   * Lays out coupled rows (see {@link LayoutFixtures}), whose horizontal equations are left for factorization, and
+   * checks every bound.
+   */
+  @Test
+  public void coupledLayout() {
+    LayoutEngine engine = new LayoutEngine("root");
+    LayoutFixtures.addCoupledRows(engine, ROWS, null);
+    int[] expected = new int[ROWS * 8];
+    for (int r = 0; r < ROWS; r++) {
+      setBounds(expected, r * 8, 10, 10 + r * 30, 50, 20);
+      setBounds(expected, r * 8 + 4, 60, 10 + r * 30, 150, 20);
+    }
+    assertArrayEquals(expected, engine.layout(WIDTH, HEIGHT));
+  }
+
+  /**
+   * Checks that a layout in which two components are placed only relative to each other is reported as ambiguous.
+   */
+  @Test
+  public void ambiguousLayout() {
+    LayoutEngine engine = new LayoutEngine("root");
+    engine.add("a", new RelativeConstraints(new Binding(Edge.LEFT, 0, Direction.RIGHT, Edge.LEFT, (Object) "b"),
+        new Binding(Edge.TOP, 10, Direction.BELOW, Edge.TOP, Binding.PARENT)));
+    engine.add("b", new RelativeConstraints(new Binding(Edge.LEFT, 0, Direction.RIGHT, Edge.LEFT, (Object) "a"),
+        new Binding(Edge.TOP, 10, Direction.BELOW, Edge.TOP, Binding.PARENT)));
+    engine.setPreferredSize("a", 80, 20);
+    engine.setPreferredSize("b", 80, 20);
+    try {
+      engine.layout(WIDTH, HEIGHT);
+      fail("The layout should be ambiguous");
+    } catch (AmbiguousLayoutException e) {
+      // Expected.
+    }
+  }
+
+  /**
+   * Puts the given bounds into an array of bounds at the given index.
+   */
+  private static void setBounds(int[] theBounds, int index, int x, int y, int width, int height) {
+    theBounds[index] = x;
+    theBounds[index + 1] = y;
+    theBounds[index + 2] = width;
+    theBounds[index + 3] = height;
+  }
+
+  /**
+   * The number of rows in each layout.
+   */
+  private static final int ROWS = 8;
+
+  /**
+   * The width of the root.
+   */
+  private static final int WIDTH = 400;
+
+  /**
+   * The height of the root.
+   */
+  private static final int HEIGHT = 300;
+}
@@ -0,0 +1,52 @@
+/**
+ * RelativePositionTest.java<br>
+ * Contains class RelativePositionTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link RelativePosition#valueOf(Edge, int, Direction, Edge)} shares one instance per position while it
+ * is in use, and lets it be collected once it isn't.
+ */
+public class RelativePositionTest {
+
+  /**
+   * Checks that the same position gives the same instance, and positions that differ in any way different ones.
+   */
+  @Test
+  public void samePositionIsShared() {
+    RelativePosition position = RelativePosition.valueOf(Edge.LEFT, 10, Direction.RIGHT, Edge.RIGHT);
+    assertSame(position, RelativePosition.valueOf(Edge.LEFT, 10, Direction.RIGHT, Edge.RIGHT));
+    assertEquals(new RelativePosition(Edge.LEFT, 10, Direction.RIGHT, Edge.RIGHT), position);
+
+    assertNotSame(position, RelativePosition.valueOf(Edge.RIGHT, 10, Direction.RIGHT, Edge.RIGHT));
+    assertNotSame(position, RelativePosition.valueOf(Edge.LEFT, 11, Direction.RIGHT, Edge.RIGHT));
+    assertNotSame(position, RelativePosition.valueOf(Edge.LEFT, 10, Direction.LEFT, Edge.RIGHT));
+    assertNotSame(position, RelativePosition.valueOf(Edge.LEFT, 10, Direction.RIGHT, Edge.LEFT));
+    assertEquals(-10, RelativePosition.valueOf(Edge.LEFT, -10, Direction.RIGHT, Edge.RIGHT).getDistance());
+  }
+
+  /**
+   * Checks that a shared position nothing refers to any more can be garbage collected, and that asking for it again
+   * afterwards gives an equal one.
+   */
+  @Test
+  public void unusedPositionIsCollected() {
+    WeakReference<RelativePosition> reference =
+        new WeakReference<RelativePosition>(RelativePosition.valueOf(Edge.TOP, 98765, Direction.BELOW, Edge.TOP));
+    for (int i = 0; i < 50 && reference.get() != null; i++) {
+      System.gc();
+    }
+    assertNull(reference.get());
+    assertEquals(98765, RelativePosition.valueOf(Edge.TOP, 98765, Direction.BELOW, Edge.TOP).getDistance());
+  }
+}
@@ -0,0 +1,53 @@
+/**
+ * RelativeVariableTest.java<br>
+ * Contains class RelativeVariableTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import edu.cmu.relativelayout.equation.Variable;
+
+/**
+ * Checks that every node gets variables of its own, even when nodes that aren't equal have the same hash code, as the
+ * Strings "Aa" and "BB" do.
+ */
+public class RelativeVariableTest {
+
+  /**
+   * Checks that nodes with colliding hash codes get different variables, and equal nodes the same ones.
+   */
+  @Test
+  public void collidingNodesGetTheirOwnVariables() {
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+
+    Variable first = RelativeVariable.get("Aa", VariableType.X);
+    Variable second = RelativeVariable.get("BB", VariableType.X);
+    assertNotSame(first, second);
+    assertFalse(first.equals(second));
+    assertSame(first, RelativeVariable.get(new String("Aa"), VariableType.X));
+    assertNotSame(first, RelativeVariable.get("Aa", VariableType.Y));
+  }
+
+  /**
+   * Lays out two nodes with colliding hash codes and different Bindings, and checks that each gets its own bounds.
+   */
+  @Test
+  public void collidingNodesAreLaidOutSeparately() {
+    LayoutEngine engine = new LayoutEngine("root");
+    engine.add("Aa", new RelativeConstraints(new Binding(Edge.LEFT, 10, Direction.RIGHT, Edge.LEFT, Binding.PARENT),
+        new Binding(Edge.TOP, 20, Direction.BELOW, Edge.TOP, Binding.PARENT)));
+    engine.add("BB", new RelativeConstraints(new Binding(Edge.LEFT, 5, Direction.RIGHT, Edge.RIGHT, (Object) "Aa"),
+        new Binding(Edge.TOP, 0, Direction.BELOW, Edge.BOTTOM, (Object) "Aa")));
+    engine.setPreferredSize("Aa", 50, 30);
+    engine.setPreferredSize("BB", 70, 40);
+
+    assertArrayEquals(new int[] { 10, 20, 50, 30, 65, 50, 70, 40 }, engine.layout(400, 300));
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * RepeatedRowLayoutTest.java<br>
+ * Contains class RepeatedRowLayoutTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+
+import org.junit.Test;
+
+/**
+ * Checks that a {@link RepeatedRowLayout} gives every row the bounds a {@link RelativeLayout} holding the same rows
+ * would give it.
+ */
+public class RepeatedRowLayoutTest {
+
+  /**
+   * Lays out a form (see {@link LayoutFixtures}) both ways, and compares the bounds.
+   */
+  @Test
+  public void rowsMatchRelativeLayout() {
+    RowTemplate template = new RowTemplate();
+    template.add("label", LayoutFixtures.labelConstraints(null));
+    template.add("field", LayoutFixtures.fieldConstraints("label"));
+    template.setRowSpacing("field", LayoutFixtures.ROW_SPACING);
+
+    Container relative = new Container();
+    relative.setLayout(new RelativeLayout());
+    Component[] components = LayoutFixtures.addForm(relative, ROWS);
+    Container rows = new Container();
+    rows.setLayout(new RepeatedRowLayout(template));
+    for (Component component : components) {
+      Dimension size = component.getPreferredSize();
+      rows.add(LayoutFixtures.createComponent(size.width, size.height));
+    }
+
+    rows.setSize(400, 1000);
+    rows.doLayout();
+    relative.setSize(400, 1000);
+    relative.doLayout();
+    for (int i = 0; i < components.length; i++) {
+      assertEquals("Component " + i, components[i].getBounds(), rows.getComponent(i).getBounds());
+    }
+  }
+
+  /**
+   * Checks that an empty template lays out an empty container, and refuses to lay out components it has no cells for.
+   */
+  @Test
+  public void emptyTemplate() {
+    Container rows = new Container();
+    rows.setLayout(new RepeatedRowLayout(new RowTemplate()));
+    rows.setSize(400, 300);
+    rows.doLayout();
+    assertEquals(new Dimension(0, 0), rows.getPreferredSize());
+
+    rows.add(LayoutFixtures.createComponent(80, 20));
+    try {
+      rows.doLayout();
+      fail("An empty template has no cells to put the component in");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  /**
+   * The number of rows to lay out.
+   */
+  private static final int ROWS = 6;
+}
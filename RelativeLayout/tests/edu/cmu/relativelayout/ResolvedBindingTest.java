@@ -0,0 +1,47 @@
+/**
+ * ResolvedBindingTest.java<br>
+ * Contains class ResolvedBindingTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Rectangle;
+
+import org.junit.Test;
+
+/**
+ * Checks that constraints resolve to the same equations every time they are attached to a node, since the same
+ * {@link RelativeConstraints}, and so the same {@link ResolvedBinding}s, can be attached again after their component
+ * is removed and added back.
+ */
+public class ResolvedBindingTest {
+
+  /**
+   * Removes a component whose right edge Binding had to be demoted to its width, adds it back with the same
+   * constraints, and checks that it is laid out exactly as before.
+   */
+  @Test
+  public void resolvingAgainGivesTheSameBounds() {
+    Container container = new Container();
+    container.setLayout(new RelativeLayout());
+    Component component = LayoutFixtures.createComponent(80, 20);
+
+    // The right edge Binding claims the component's x as well, so it is demoted to define the width instead.
+    RelativeConstraints constraints = new RelativeConstraints(new Binding(Edge.LEFT, 12, Direction.RIGHT, Edge.LEFT,
+        Binding.PARENT), new Binding(Edge.RIGHT, 12, Direction.LEFT, Edge.RIGHT, Binding.PARENT), new Binding(Edge.TOP,
+        12, Direction.BELOW, Edge.TOP, Binding.PARENT));
+    container.add(component, constraints);
+    container.setSize(640, 480);
+    container.doLayout();
+    Rectangle first = component.getBounds();
+    assertEquals(new Rectangle(12, 12, 616, 20), first);
+
+    container.remove(component);
+    container.add(component, constraints);
+    container.doLayout();
+    assertEquals(first, component.getBounds());
+  }
+}
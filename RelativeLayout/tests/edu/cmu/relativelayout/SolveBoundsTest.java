@@ -0,0 +1,72 @@
+/**
+ * SolveBoundsTest.java<br>
+ * Contains class SolveBoundsTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Rectangle;
+
+import javax.swing.JPanel;
+import javax.swing.border.EmptyBorder;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link RelativeLayout#solveBounds(Component)} gives each component the bounds a full layout of its
+ * container does.
+ */
+public class SolveBoundsTest {
+
+  /**
+   * Compares every component of a form (see {@link LayoutFixtures}) with its laid-out bounds.
+   */
+  @Test
+  public void solveBoundsMatchesLayout() {
+    Container container = new Container();
+    RelativeLayout layout = new RelativeLayout();
+    container.setLayout(layout);
+    Component[] components = LayoutFixtures.addForm(container, ROWS);
+    container.setSize(400, 300);
+    assertLaidOutBounds(layout, components);
+  }
+
+  /**
+   * Checks that the container's insets are added, as a full layout adds them.
+   */
+  @Test
+  public void solveBoundsIncludesInsets() {
+    JPanel panel = new JPanel();
+    RelativeLayout layout = new RelativeLayout();
+    panel.setLayout(layout);
+    panel.setBorder(new EmptyBorder(10, 20, 0, 0));
+    Component[] components = LayoutFixtures.addForm(panel, ROWS);
+    panel.setSize(400, 300);
+    assertEquals(32, layout.solveBounds(components[0]).x);
+    assertEquals(10, layout.solveBounds(components[0]).y);
+    assertLaidOutBounds(layout, components);
+  }
+
+  /**
+   * Works out each component's bounds on its own, then lays out the container and checks that they match.
+   */
+  private static void assertLaidOutBounds(RelativeLayout theLayout, Component[] theComponents) {
+    Container parent = theComponents[0].getParent();
+    Rectangle[] solved = new Rectangle[theComponents.length];
+    for (int i = 0; i < theComponents.length; i++) {
+      solved[i] = theLayout.solveBounds(theComponents[i]);
+    }
+    parent.doLayout();
+    for (int i = 0; i < theComponents.length; i++) {
+      assertEquals("Component " + i, theComponents[i].getBounds(), solved[i]);
+    }
+  }
+
+  /**
+   * The number of rows in the form.
+   */
+  private static final int ROWS = 5;
+}
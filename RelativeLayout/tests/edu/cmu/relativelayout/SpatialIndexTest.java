@@ -0,0 +1,131 @@
+/**
+ * SpatialIndexTest.java<br>
+ * Contains class SpatialIndexTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Component;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that a {@link SpatialIndex} finds exactly the components a search of every component's bounds would, as
+ * components are added, moved and removed, for regions that cross any number of grid cells.
+ */
+public class SpatialIndexTest {
+
+  /**
+   * Creates the components and their bounds. The first component of the grid has no size, so it is never found.
+   */
+  @Before
+  public void createComponents() {
+    for (int i = 0; i < SpatialIndexTest.COUNT; i++) {
+      this.components[i] = LayoutFixtures.createComponent(20, 20);
+    }
+    this.bounds[0] = -150;
+    this.bounds[1] = -150;
+    this.bounds[2] = 3000;
+    this.bounds[3] = 3000;
+    for (int i = 2; i < SpatialIndexTest.COUNT; i++) {
+      int j = i * 4;
+      this.bounds[j] = (i - 1) % 12 * 25 - 100;
+      this.bounds[j + 1] = (i - 1) / 12 * 25 - 100;
+      this.bounds[j + 2] = 20;
+      this.bounds[j + 3] = 20;
+    }
+  }
+
+  /**
+   * Files a grid of components, some of them at negative coordinates, and a background covering all of them, and
+   * queries regions of every size, from within one cell to beyond the grid.
+   */
+  @Test
+  public void queriesAcrossCellBoundaries() {
+    SpatialIndex index = new SpatialIndex();
+    index.update(this.components, this.bounds, COUNT);
+    assertQueriesMatch(index, this.bounds, COUNT);
+  }
+
+  /**
+   * Moves and resizes a few components at a time, so that only they are refiled, and checks that each query finds
+   * them where they are now and not where they were.
+   */
+  @Test
+  public void incrementalUpdate() {
+    SpatialIndex index = new SpatialIndex();
+    index.update(this.components, this.bounds, COUNT);
+    Random random = new Random(7);
+    int[] moved = this.bounds.clone();
+    for (int pass = 0; pass < 10; pass++) {
+      for (int k = 0; k < COUNT / 10; k++) {
+        int j = (1 + random.nextInt(COUNT - 1)) * 4;
+        moved[j] = random.nextInt(400) - 100;
+        moved[j + 1] = random.nextInt(400) - 100;
+        moved[j + 2] = random.nextInt(60);
+        moved[j + 3] = random.nextInt(60);
+      }
+      index.update(this.components, moved, COUNT);
+      assertQueriesMatch(index, moved, COUNT);
+    }
+  }
+
+  /**
+   * Lays out fewer components than before, as when components are removed from the container, and checks that the
+   * ones left out are no longer found, and are found again once they come back.
+   */
+  @Test
+  public void removal() {
+    SpatialIndex index = new SpatialIndex();
+    index.update(this.components, this.bounds, COUNT);
+    int remaining = COUNT - COUNT / 4;
+    index.update(this.components, this.bounds, remaining);
+    assertQueriesMatch(index, this.bounds, remaining);
+
+    index.update(this.components, this.bounds, COUNT);
+    assertQueriesMatch(index, this.bounds, COUNT);
+  }
+
+  /**
+   * Queries the index with many regions, and checks each result against a search of every component's bounds.
+   */
+  private void assertQueriesMatch(SpatialIndex theIndex, int[] theBounds, int theCount) {
+    Random random = new Random(theCount);
+    for (int q = 0; q < 200; q++) {
+      int size = 1 << random.nextInt(10);
+      Rectangle region =
+          new Rectangle(random.nextInt(500) - 200, random.nextInt(500) - 200, 1 + random.nextInt(size), 1 + random
+              .nextInt(size));
+      List<Component> expected = new ArrayList<Component>();
+      for (int i = 0; i < theCount; i++) {
+        int j = i * 4;
+        Rectangle bounds = new Rectangle(theBounds[j], theBounds[j + 1], theBounds[j + 2], theBounds[j + 3]);
+        if (!bounds.isEmpty() && bounds.intersects(region)) {
+          expected.add(this.components[i]);
+        }
+      }
+      assertEquals(region.toString(), expected, theIndex.query(region));
+    }
+  }
+
+  /**
+   * The number of components: a background, and a grid of 20 by 20 pixel components 25 pixels apart.
+   */
+  private static final int COUNT = 1 + 12 * 12;
+
+  /**
+   * The components, with the background first.
+   */
+  private final Component[] components = new Component[SpatialIndexTest.COUNT];
+
+  /**
+   * The x, y, width, and height of each component in turn.
+   */
+  private final int[] bounds = new int[SpatialIndexTest.COUNT * 4];
+}
@@ -0,0 +1,165 @@
+/**
+ * VirtualizedLayoutTest.java<br>
+ * Contains class VirtualizedLayoutTest.
+ */
+package edu.cmu.relativelayout;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.swing.JPanel;
+import javax.swing.JViewport;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that a virtualized {@link RelativeLayout} in a viewport only sets the bounds of the components near the
+ * visible part of the container, and of those there now that belong elsewhere, and that scrolling brings the others
+ * into place and tells the {@link ComponentRecycler} about it.
+ */
+public class VirtualizedLayoutTest {
+
+  /**
+   * Creates a container with a header and a column of rows below it, in a viewport showing its top.
+   */
+  @Before
+  public void createContainer() {
+    this.layout = new RelativeLayout();
+    this.layout.setVirtualized(true);
+    this.layout.setVirtualizationMargin(VirtualizedLayoutTest.MARGIN);
+    this.layout.setComponentRecycler(new ComponentRecycler() {
+      public void componentRealized(Component theComponent) {
+        VirtualizedLayoutTest.this.realized.add(theComponent);
+      }
+
+      public void componentRecycled(Component theComponent) {
+        VirtualizedLayoutTest.this.realized.remove(theComponent);
+      }
+    });
+
+    this.panel = new JPanel(this.layout);
+    this.header = LayoutFixtures.createComponent(100, 20);
+    this.panel.add(this.header, new RelativeConstraints(new Binding(Edge.LEFT, 0, Direction.RIGHT, Edge.LEFT,
+        Binding.PARENT), new Binding(Edge.TOP, 0, Direction.BELOW, Edge.TOP, Binding.PARENT)));
+    Component previous = this.header;
+    for (int i = 0; i < this.rows.length; i++) {
+      this.rows[i] = LayoutFixtures.createComponent(100, 20);
+      this.panel.add(this.rows[i], new RelativeConstraints(new Binding(Edge.LEFT, 0, Direction.RIGHT, Edge.LEFT,
+          Binding.PARENT), new Binding(Edge.TOP, 10, Direction.BELOW, Edge.BOTTOM, previous)));
+      previous = this.rows[i];
+    }
+
+    this.viewport = new JViewport();
+    this.viewport.setView(this.panel);
+    this.viewport.setSize(200, 100);
+    this.panel.setSize(200, 3000);
+    this.panel.doLayout();
+  }
+
+  /**
+   * Checks that only the components near the top have their bounds set at first, that scrolling to the middle and back
+   * sets those of the components scrolled past, and that the recycler is told as components come into and go out of
+   * range.
+   */
+  @Test
+  public void offScreenComponentsAreRealizedWhenScrolledIntoView() {
+    Rectangle top = new Rectangle(0, -MARGIN, 200, 100 + 2 * MARGIN);
+    Set<Component> placed = componentsLaidOutIn(top);
+    assertPlaced(placed);
+    assertEquals(componentsLaidOutIn(top), this.realized);
+
+    this.viewport.setViewPosition(new Point(0, 1500));
+    Rectangle middle = new Rectangle(0, 1500 - MARGIN, 200, 100 + 2 * MARGIN);
+    placed.addAll(componentsLaidOutIn(middle));
+    assertPlaced(placed);
+    assertEquals(componentsLaidOutIn(middle), this.realized);
+
+    this.viewport.setViewPosition(new Point(0, 0));
+    assertPlaced(placed);
+    assertEquals(componentsLaidOutIn(top), this.realized);
+  }
+
+  /**
+   * Makes the header taller, which moves every row out of view, and checks that the rows that were in view are moved
+   * away even though they now belong out of range, while the others are left alone until they are scrolled to.
+   */
+  @Test
+  public void componentsInViewAreMovedAway() {
+    Set<Component> placed = componentsLaidOutIn(new Rectangle(0, -MARGIN, 200, 100 + 2 * MARGIN));
+
+    this.header.setPreferredSize(new Dimension(100, 1000));
+    this.panel.invalidate();
+    this.panel.doLayout();
+    assertPlaced(placed);
+    assertEquals(this.layout.getLayoutBounds(this.header), this.header.getBounds());
+
+    this.viewport.setViewPosition(new Point(0, 1500));
+    placed.addAll(componentsLaidOutIn(new Rectangle(0, 1500 - MARGIN, 200, 100 + 2 * MARGIN)));
+    assertPlaced(placed);
+  }
+
+  /**
+   * Checks that the given rows, and only they, have had their bounds set since they were added.
+   */
+  private void assertPlaced(Set<Component> thePlaced) {
+    for (Component row : this.rows) {
+      Rectangle expected = (thePlaced.contains(row) ? this.layout.getLayoutBounds(row) : new Rectangle());
+      assertEquals(expected, row.getBounds());
+    }
+  }
+
+  /**
+   * Returns the components the last layout put in the given region, found by looking at every component.
+   */
+  private Set<Component> componentsLaidOutIn(Rectangle theRegion) {
+    Set<Component> ret = new HashSet<Component>();
+    for (Component comp : this.panel.getComponents()) {
+      if (theRegion.intersects(this.layout.getLayoutBounds(comp))) {
+        ret.add(comp);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * The virtualization margin used.
+   */
+  private static final int MARGIN = 50;
+
+  /**
+   * The layout.
+   */
+  private RelativeLayout layout;
+
+  /**
+   * The container.
+   */
+  private JPanel panel;
+
+  /**
+   * The viewport the container is in.
+   */
+  private JViewport viewport;
+
+  /**
+   * The component at the top of the container.
+   */
+  private Component header;
+
+  /**
+   * The rows below the header, 30 pixels apart.
+   */
+  private final Component[] rows = new Component[100];
+
+  /**
+   * The components the recycler has been told are realized and not since recycled.
+   */
+  private final Set<Component> realized = new HashSet<Component>();
+}
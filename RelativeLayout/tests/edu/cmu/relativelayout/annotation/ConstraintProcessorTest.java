@@ -0,0 +1,121 @@
+/**
+ * ConstraintProcessorTest.java<br>
+ * Contains class ConstraintProcessorTest.
+ */
+package edu.cmu.relativelayout.annotation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Compiles containers with {@link Constrained} fields and checks the errors {@link ConstraintProcessor} reports, which
+ * mustn't depend on the order the fields are declared in.
+ */
+public class ConstraintProcessorTest {
+
+  /**
+   * A directory for the sources and classes, deleted after each test.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Compiles two fields whose widths are only determined together, declared in both orders, and checks that neither
+   * order gives an error.
+   */
+  @Test
+  public void coupledFieldsInEitherOrder() throws IOException {
+    String a = "@Constrained( { @Bind(edge = Edge.LEFT, distance = 10, direction = Direction.RIGHT, "
+        + "fixedEdge = Edge.LEFT), @Bind(edge = Edge.RIGHT, direction = Direction.LEFT, fixedEdge = Edge.LEFT, "
+        + "fixedComponent = \"b\"), @Bind(edge = Edge.TOP, distance = 10, direction = Direction.BELOW, "
+        + "fixedEdge = Edge.TOP) }) Component a = new Canvas();";
+    String b = "@Constrained( { @Bind(edge = Edge.RIGHT, distance = 200, direction = Direction.RIGHT, "
+        + "fixedEdge = Edge.LEFT, fixedComponent = \"a\"), @Bind(edge = Edge.RIGHT, distance = 150, "
+        + "direction = Direction.RIGHT, fixedEdge = Edge.RIGHT, fixedComponent = \"a\"), @Bind(edge = Edge.TOP, "
+        + "direction = Direction.BELOW, fixedEdge = Edge.TOP, fixedComponent = \"a\") }) Component b = new Canvas();";
+    assertEquals(new ArrayList<String>(), compile(a, b));
+    assertEquals(new ArrayList<String>(), compile(b, a));
+  }
+
+  /**
+   * Compiles two fields placed only relative to each other, declared in both orders, and checks that each order gives
+   * one error, naming the fields rather than the engine's variables.
+   */
+  @Test
+  public void ambiguousFieldsInEitherOrder() throws IOException {
+    String a = "@Constrained( { @Bind(edge = Edge.LEFT, direction = Direction.RIGHT, fixedEdge = Edge.LEFT, "
+        + "fixedComponent = \"b\"), @Bind(edge = Edge.TOP, distance = 10, direction = Direction.BELOW, "
+        + "fixedEdge = Edge.TOP) }) Component a = new Canvas();";
+    String b = "@Constrained( { @Bind(edge = Edge.LEFT, direction = Direction.RIGHT, fixedEdge = Edge.LEFT, "
+        + "fixedComponent = \"a\"), @Bind(edge = Edge.TOP, distance = 10, direction = Direction.BELOW, "
+        + "fixedEdge = Edge.TOP) }) Component b = new Canvas();";
+    for (List<String> errors : Arrays.asList(compile(a, b), compile(b, a))) {
+      assertEquals(errors.toString(), 1, errors.size());
+      assertTrue(errors.get(0), errors.get(0).contains("more than one way"));
+      assertFalse(errors.get(0), errors.get(0).contains("@0x"));
+    }
+  }
+
+  /**
+   * Compiles a container holding the given field declarations with the processor, and returns the errors reported.
+   */
+  private List<String> compile(String... theFields) throws IOException {
+    File directory = this.folder.newFolder();
+    File source = new File(directory, "Panel.java");
+    Writer out = new FileWriter(source);
+    try {
+      out.write("import java.awt.Canvas;\nimport java.awt.Component;\nimport java.awt.Container;\n\n"
+          + "import edu.cmu.relativelayout.Direction;\nimport edu.cmu.relativelayout.Edge;\n"
+          + "import edu.cmu.relativelayout.annotation.Bind;\nimport edu.cmu.relativelayout.annotation.Constrained;\n\n"
+          + "public class Panel extends Container {\n");
+      for (String field : theFields) {
+        out.write("  " + field + "\n");
+      }
+      out.write("}\n");
+    } finally {
+      out.close();
+    }
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+    StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+    try {
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(null, fileManager, diagnostics, Arrays.asList("-d", directory.getPath(), "-classpath",
+              System.getProperty("java.class.path")), null, fileManager.getJavaFileObjects(source));
+      task.setProcessors(Arrays.asList(new ConstraintProcessor()));
+      task.call();
+    } finally {
+      fileManager.close();
+    }
+
+    List<String> ret = new ArrayList<String>();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        ret.add(diagnostic.getMessage(Locale.ENGLISH));
+      }
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,132 @@
+/**
+ * LayoutSolversTest.java<br>
+ * Contains class LayoutSolversTest.
+ */
+package edu.cmu.relativelayout.matrix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Checks that every built-in {@link LayoutSolver} solves acyclic and coupled systems exactly as dense LU does, and that
+ * those that can tell report a singular system as ambiguous.
+ */
+public class LayoutSolversTest {
+
+  /**
+   * Solves a system that substitution alone solves, with variables both before and after those they depend on.
+   */
+  @Test
+  public void acyclicSystem() {
+    // x0 = 3, x1 = x0 + 5, x2 = 10 - 0.5 * x1, x3 = 2 * x4 + 1, x4 = 4.
+    SparseSystem system = new SparseSystem(new double[] { 1, 1, 1, 1, 1 }, new int[][] { {}, { 0 }, { 1 }, { 4 },
+        {} }, new double[][] { {}, { -1 }, { 0.5 }, { -2 }, {} }, new double[] { 3, 5, 10, 1, 4 });
+    assertArrayEquals(new double[] { 3, 8, 6, 9, 4 }, LayoutSolvers.DENSE_LU.solve(system), TOLERANCE);
+    assertSame(LayoutSolvers.SUBSTITUTION, LayoutSolvers.choose(system));
+    assertAllSolveLikeDenseLU(system);
+  }
+
+  /**
+   * Solves a system with a cycle, a variable that depends on nothing, and a variable that depends on the cycle.
+   */
+  @Test
+  public void coupledSystem() {
+    // x0 = 3 + 0.5 * x1, x1 = 3 + 0.5 * x0, x2 = 7, x3 = x0 + x2 + 1.
+    SparseSystem system = new SparseSystem(new double[] { 1, 1, 1, 1 }, new int[][] { { 1 }, { 0 }, {}, { 0, 2 } },
+        new double[][] { { -0.5 }, { -0.5 }, {}, { -1, -1 } }, new double[] { 3, 3, 7, 1 });
+    assertArrayEquals(new double[] { 6, 6, 7, 14 }, LayoutSolvers.DENSE_LU.solve(system), TOLERANCE);
+    assertAllSolveLikeDenseLU(system);
+  }
+
+  /**
+   * Solves a system made of many small cycles, each depending on the one before. There are more coupled variables
+   * than {@link LayoutSolvers#DENSE_CORE_LIMIT}, so this is the shape the block solver is chosen for.
+   */
+  @Test
+  public void chainOfCycles() {
+    int pairs = LayoutSolvers.DENSE_CORE_LIMIT;
+    double[] diagonal = new double[pairs * 2];
+    int[][] columns = new int[pairs * 2][];
+    double[][] coefficients = new double[pairs * 2][];
+    double[] rightHandSides = new double[pairs * 2];
+    for (int k = 0; k < pairs; k++) {
+      int a = k * 2;
+      int b = a + 1;
+      diagonal[a] = 2;
+      diagonal[b] = 1;
+      if (k == 0) {
+        columns[a] = new int[] { b };
+        coefficients[a] = new double[] { -1 };
+      } else {
+        columns[a] = new int[] { b, a - 1 };
+        coefficients[a] = new double[] { -1, -0.25 };
+      }
+      columns[b] = new int[] { a };
+      coefficients[b] = new double[] { -0.5 };
+      rightHandSides[a] = k;
+      rightHandSides[b] = 10;
+    }
+    SparseSystem system = new SparseSystem(diagonal, columns, coefficients, rightHandSides);
+    assertSame(LayoutSolvers.BLOCKS, LayoutSolvers.choose(system));
+    assertAllSolveLikeDenseLU(system);
+  }
+
+  /**
+   * Checks that a system in which two variables are only defined in terms of each other is reported as ambiguous by
+   * every solver except the iterative one, which is documented not to notice.
+   */
+  @Test
+  public void singularSystem() {
+    // x0 = x1, x1 = x0.
+    SparseSystem system = new SparseSystem(new double[] { 1, 1 }, new int[][] { { 1 }, { 0 } }, new double[][] {
+        { -1 }, { -1 } }, new double[] { 0, 0 });
+    LayoutSolver[] solvers = { LayoutSolvers.DENSE_LU, LayoutSolvers.SUBSTITUTION, LayoutSolvers.BLOCKS };
+    for (LayoutSolver solver : solvers) {
+      try {
+        solver.solve(system);
+        fail(solver.getName() + " should report the system as ambiguous");
+      } catch (AmbiguousLayoutException e) {
+        // Expected.
+      }
+    }
+  }
+
+  /**
+   * Checks that each built-in solver can be found by the name {@link LayoutSolvers} gives it.
+   */
+  @Test
+  public void forName() {
+    assertNull(LayoutSolvers.forName(null));
+    assertNull(LayoutSolvers.forName("automatic"));
+    assertSame(LayoutSolvers.DENSE_LU, LayoutSolvers.forName("dense"));
+    assertSame(LayoutSolvers.SUBSTITUTION, LayoutSolvers.forName("substitution"));
+    assertSame(LayoutSolvers.BLOCKS, LayoutSolvers.forName("blocks"));
+    assertSame(LayoutSolvers.ITERATIVE, LayoutSolvers.forName("iterative"));
+  }
+
+  /**
+   * Solves the given system with every built-in solver, and checks that each gives the same values as dense LU.
+   */
+  private static void assertAllSolveLikeDenseLU(SparseSystem theSystem) {
+    double[] expected = LayoutSolvers.DENSE_LU.solve(theSystem);
+    for (LayoutSolver solver : SOLVERS) {
+      double tolerance = (solver == LayoutSolvers.ITERATIVE ? IterativeSolver.DEFAULT_TOLERANCE * 10 : TOLERANCE);
+      assertArrayEquals(solver.getName(), expected, solver.solve(theSystem), tolerance);
+    }
+  }
+
+  /**
+   * The built-in solvers.
+   */
+  private static final LayoutSolver[] SOLVERS = { LayoutSolvers.DENSE_LU, LayoutSolvers.SUBSTITUTION,
+      LayoutSolvers.BLOCKS, LayoutSolvers.ITERATIVE };
+
+  /**
+   * The largest difference allowed between the values found by direct solvers.
+   */
+  private static final double TOLERANCE = 1e-9;
+}
@@ -0,0 +1,89 @@
+/**
+ * ChurnBenchmark.java<br>
+ * Contains class ChurnBenchmark.
+ */
+package edu.cmu.relativelayout.benchmarks;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cmu.relativelayout.RelativeConstraints;
+
+/**
+ * Measures removing a component from a container and adding it back, both on its own and followed by laying the
+ * container out again, as happens when an interface shows and hides parts of itself. The component that is removed is
+ * the last one, which nothing else depends on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ChurnBenchmark {
+
+  /**
+   * The number of components in the layout.
+   */
+  @Param( { "10", "100", "500" })
+  public int components;
+
+  /**
+   * Builds the container and lays it out once.
+   */
+  @Setup
+  public void setUp() {
+    ConstraintGraphGenerator generator = new ConstraintGraphGenerator(this.components, 2, 1, 0);
+    this.container = generator.createContainer(800, 600);
+    this.container.doLayout();
+    this.component = this.container.getComponent(this.components - 1);
+    this.constraints = generator.createConstraints(this.container.getComponents()).get(this.components - 1);
+  }
+
+  /**
+   * Removes the last component and adds it back.
+   */
+  @Benchmark
+  public void removeAndAdd() {
+    this.container.remove(this.component);
+    this.container.add(this.component, this.constraints);
+  }
+
+  /**
+   * Removes the last component, adds it back, and lays out the container.
+   */
+  @Benchmark
+  public void removeAddAndLayout() {
+    this.container.remove(this.component);
+    this.container.add(this.component, this.constraints);
+    this.container.doLayout();
+  }
+
+  /**
+   * The component that is removed and added.
+   */
+  private Component component;
+
+  /**
+   * The constraints the component is added with.
+   */
+  private RelativeConstraints constraints;
+
+  /**
+   * The container being laid out.
+   */
+  private Container container;
+}
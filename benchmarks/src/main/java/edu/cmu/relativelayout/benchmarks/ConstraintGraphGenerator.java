@@ -0,0 +1,224 @@
+/**
+ * ConstraintGraphGenerator.java<br>
+ * Contains class ConstraintGraphGenerator.
+ */
+package edu.cmu.relativelayout.benchmarks;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.cmu.relativelayout.Binding;
+import edu.cmu.relativelayout.Direction;
+import edu.cmu.relativelayout.Edge;
+import edu.cmu.relativelayout.LayoutEngine;
+import edu.cmu.relativelayout.RelativeConstraints;
+import edu.cmu.relativelayout.RelativeLayout;
+
+/**
+ * Generates synthetic layouts whose constraint graphs have a given shape, for benchmarking.<br>
+ * <br>
+ * Nodes are arranged in a forest of trees. Each tree has the given depth, and every node above the bottom level has
+ * the given number of children; a full tree of depth 1 is a single node. The first node of each tree sits against the
+ * left edge of the parent container, below the first node of the previous tree. A node's first child sits to its right,
+ * top-aligned with it, and each further child sits below the previous one. Trees are added until there are enough
+ * nodes, so the last tree may be incomplete. A depth of 1 therefore gives a single column of nodes, each depending on
+ * the one above it, while a large fan-out gives wide, shallow graphs.<br>
+ * <br>
+ * Cycles are made by taking a node that has children and binding its right edge to the left edge of its first child,
+ * while binding the child's left edge to the node's horizontal center instead. The width of the node and the position
+ * of the child then depend on each other, which the solver can still resolve.
+ */
+public class ConstraintGraphGenerator {
+
+  /**
+   * The spacing between nodes, in pixels.
+   */
+  private static final int SPACING = 4;
+
+  /**
+   * Constructs a ConstraintGraphGenerator.
+   *
+   * @param theComponentCount The number of nodes to generate.
+   * @param theDepth The depth of each tree of nodes; at least 1.
+   * @param theFanOut The number of children of each node above the bottom level of a tree; at least 1.
+   * @param theCycles The number of cycles to create. There can be no more cycles than there are nodes with children.
+   */
+  public ConstraintGraphGenerator(int theComponentCount, int theDepth, int theFanOut, int theCycles) {
+    if (theComponentCount < 0 || theDepth < 1 || theFanOut < 1 || theCycles < 0) {
+      throw new IllegalArgumentException("Invalid graph shape: " + theComponentCount + " nodes, depth " + theDepth
+          + ", fan-out " + theFanOut + ", " + theCycles + " cycles.");
+    }
+    this.componentCount = theComponentCount;
+    this.depth = theDepth;
+    this.fanOut = theFanOut;
+    this.cycles = theCycles;
+
+    // Trees bigger than the whole graph are the same as a single incomplete tree, so stop counting once that happens.
+    long size = 0;
+    long levelSize = 1;
+    for (int i = 0; i < theDepth && size <= theComponentCount; i++) {
+      size += levelSize;
+      levelSize *= theFanOut;
+    }
+    this.treeSize = (int) Math.min(size, theComponentCount + 1L);
+  }
+
+  /**
+   * Creates a Container laid out by a {@link RelativeLayout}, holding the generated components. Every component prefers
+   * to be 80x20 pixels.
+   *
+   * @param width The width to give the container.
+   * @param height The height to give the container.
+   * @return The container.
+   */
+  public Container createContainer(int width, int height) {
+    Container container = new Container();
+    container.setLayout(new RelativeLayout());
+
+    Component[] components = new Component[this.componentCount];
+    for (int i = 0; i < components.length; i++) {
+      components[i] = new Component() {
+        private static final long serialVersionUID = 1L;
+      };
+      components[i].setPreferredSize(new Dimension(80, 20));
+    }
+
+    List<RelativeConstraints> constraints = createConstraints(components);
+    for (int i = 0; i < components.length; i++) {
+      container.add(components[i], constraints.get(i));
+    }
+
+    container.setSize(width, height);
+    return container;
+  }
+
+  /**
+   * Creates a {@link LayoutEngine} holding the generated nodes, which are Integers numbered from zero. Every node
+   * prefers to be 80x20 pixels.
+   *
+   * @return The engine.
+   */
+  public LayoutEngine createEngine() {
+    LayoutEngine engine = new LayoutEngine("root");
+
+    Object[] nodes = new Object[this.componentCount];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = Integer.valueOf(i);
+    }
+
+    List<RelativeConstraints> constraints = createConstraints(nodes);
+    for (int i = 0; i < nodes.length; i++) {
+      engine.add(nodes[i], constraints.get(i));
+      engine.setPreferredSize(nodes[i], 80, 20);
+    }
+    return engine;
+  }
+
+  /**
+   * Returns the constraints for each of the given nodes.
+   */
+  public List<RelativeConstraints> createConstraints(Object[] nodes) {
+    List<RelativeConstraints> ret = new ArrayList<RelativeConstraints>(nodes.length);
+    int cyclesLeft = this.cycles;
+
+    for (int i = 0; i < nodes.length; i++) {
+      int tree = i / this.treeSize;
+      int index = i % this.treeSize;
+      RelativeConstraints constraints = new RelativeConstraints();
+
+      if (index == 0) {
+        constraints.addBinding(new Binding(Edge.LEFT, ConstraintGraphGenerator.SPACING, Direction.RIGHT, Edge.LEFT,
+            Binding.PARENT));
+        if (tree == 0) {
+          constraints.addBinding(new Binding(Edge.TOP, ConstraintGraphGenerator.SPACING, Direction.BELOW, Edge.TOP,
+              Binding.PARENT));
+        } else {
+          constraints.addBinding(new Binding(Edge.TOP, ConstraintGraphGenerator.SPACING, Direction.BELOW,
+              Edge.BOTTOM, nodes[i - this.treeSize]));
+        }
+      } else {
+        int parentIndex = (index - 1) / this.fanOut;
+        int sibling = (index - 1) % this.fanOut;
+        Object parent = nodes[i - index + parentIndex];
+
+        if (sibling == 0 && cyclesLeft > 0) {
+          cyclesLeft--;
+          constraints.addBinding(new Binding(Edge.LEFT, ConstraintGraphGenerator.SPACING, Direction.RIGHT,
+              Edge.HORIZONTAL_CENTER, parent));
+          ret.get(i - index + parentIndex).addBinding(
+              new Binding(Edge.RIGHT, ConstraintGraphGenerator.SPACING, Direction.LEFT, Edge.LEFT, nodes[i]));
+        } else {
+          constraints.addBinding(new Binding(Edge.LEFT, ConstraintGraphGenerator.SPACING, Direction.RIGHT,
+              Edge.RIGHT, parent));
+        }
+
+        if (sibling == 0) {
+          constraints.addBinding(new Binding(Edge.TOP, 0, Direction.BELOW, Edge.TOP, parent));
+        } else {
+          constraints.addBinding(new Binding(Edge.TOP, ConstraintGraphGenerator.SPACING, Direction.BELOW,
+              Edge.BOTTOM, nodes[i - 1]));
+        }
+      }
+
+      ret.add(constraints);
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns the number of nodes this generator generates.
+   */
+  public int getComponentCount() {
+    return this.componentCount;
+  }
+
+  /**
+   * Returns the number of cycles this generator creates, if there are enough nodes with children.
+   */
+  public int getCycles() {
+    return this.cycles;
+  }
+
+  /**
+   * Returns the depth of each tree of nodes.
+   */
+  public int getDepth() {
+    return this.depth;
+  }
+
+  /**
+   * Returns the number of children of each node above the bottom level of a tree.
+   */
+  public int getFanOut() {
+    return this.fanOut;
+  }
+
+  /**
+   * The number of nodes to generate.
+   */
+  private final int componentCount;
+
+  /**
+   * The number of cycles to create.
+   */
+  private final int cycles;
+
+  /**
+   * The depth of each tree of nodes.
+   */
+  private final int depth;
+
+  /**
+   * The number of children of each node above the bottom level of a tree.
+   */
+  private final int fanOut;
+
+  /**
+   * The number of nodes in a full tree.
+   */
+  private final int treeSize;
+}
@@ -0,0 +1,79 @@
+/**
+ * GraphShapeBenchmark.java<br>
+ * Contains class GraphShapeBenchmark.
+ */
+package edu.cmu.relativelayout.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cmu.relativelayout.LayoutEngine;
+
+/**
+ * Measures laying out headless graphs of the same size but different shapes, as produced by
+ * {@link ConstraintGraphGenerator}. Each pass builds the matrix and solves it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GraphShapeBenchmark {
+
+  /**
+   * The number of nodes in the graph.
+   */
+  @Param( { "200" })
+  public int components;
+
+  /**
+   * The depth of each tree of nodes.
+   */
+  @Param( { "1", "3", "8" })
+  public int depth;
+
+  /**
+   * The number of children of each node.
+   */
+  @Param( { "1", "2", "4" })
+  public int fanOut;
+
+  /**
+   * The number of cycles in the graph.
+   */
+  @Param( { "0", "10" })
+  public int cycles;
+
+  /**
+   * Builds the engine.
+   */
+  @Setup
+  public void setUp() {
+    this.engine = new ConstraintGraphGenerator(this.components, this.depth, this.fanOut, this.cycles).createEngine();
+  }
+
+  /**
+   * Lays out the graph.
+   */
+  @Benchmark
+  public double[] layout() {
+    return this.engine.solve(800, 600);
+  }
+
+  /**
+   * The engine holding the graph.
+   */
+  private LayoutEngine engine;
+}
@@ -0,0 +1,61 @@
+/**
+ * PreferredSizeBenchmark.java<br>
+ * Contains class PreferredSizeBenchmark.
+ */
+package edu.cmu.relativelayout.benchmarks;
+
+import java.awt.Container;
+import java.awt.Dimension;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link java.awt.LayoutManager#preferredLayoutSize(Container)}, which containers call whenever their parents
+ * lay them out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PreferredSizeBenchmark {
+
+  /**
+   * The number of components in the layout.
+   */
+  @Param( { "10", "100", "500" })
+  public int components;
+
+  /**
+   * Builds the container.
+   */
+  @Setup
+  public void setUp() {
+    this.container = new ConstraintGraphGenerator(this.components, 2, 1, 0).createContainer(800, 600);
+  }
+
+  /**
+   * Computes the container's preferred size.
+   */
+  @Benchmark
+  public Dimension preferredLayoutSize() {
+    return this.container.getLayout().preferredLayoutSize(this.container);
+  }
+
+  /**
+   * The container being measured.
+   */
+  private Container container;
+}
@@ -0,0 +1,83 @@
+/**
+ * ResizeBenchmark.java<br>
+ * Contains class ResizeBenchmark.
+ */
+package edu.cmu.relativelayout.benchmarks;
+
+import java.awt.Container;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cmu.relativelayout.RelativeLayout;
+
+/**
+ * Measures laying out a container again after it has been resized, with nothing else about it changing. Each pass
+ * cycles through a few nearby sizes, as when a window is dragged back and forth, so with a large enough solution cache
+ * every pass after the first few is a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ResizeBenchmark {
+
+  /**
+   * The number of sizes cycled through.
+   */
+  private static final int SIZES = 4;
+
+  /**
+   * The number of components in the layout.
+   */
+  @Param( { "10", "100", "500" })
+  public int components;
+
+  /**
+   * The size of the layout's solution cache; see {@link RelativeLayout#setSolutionCacheSize(int)}.
+   */
+  @Param( { "0", "8" })
+  public int solutionCacheSize;
+
+  /**
+   * Builds the container and lays it out once.
+   */
+  @Setup
+  public void setUp() {
+    this.container = new ConstraintGraphGenerator(this.components, 2, 1, 0).createContainer(800, 600);
+    ((RelativeLayout) this.container.getLayout()).setSolutionCacheSize(this.solutionCacheSize);
+    this.container.doLayout();
+  }
+
+  /**
+   * Resizes the container and lays it out.
+   */
+  @Benchmark
+  public void resize() {
+    this.step = (this.step + 1) % ResizeBenchmark.SIZES;
+    this.container.setSize(800 + this.step, 600);
+    this.container.doLayout();
+  }
+
+  /**
+   * The container being laid out.
+   */
+  private Container container;
+
+  /**
+   * Which of the sizes the container currently has.
+   */
+  private int step;
+}
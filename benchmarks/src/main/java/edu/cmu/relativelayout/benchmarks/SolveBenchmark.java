@@ -0,0 +1,65 @@
+/**
+ * SolveBenchmark.java<br>
+ * Contains class SolveBenchmark.
+ */
+package edu.cmu.relativelayout.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cmu.relativelayout.LayoutEngine;
+
+/**
+ * Measures how solving the matrix for a layout scales with the number of components. The matrix is built once, so only
+ * the solve itself is measured. The layout is a form: a column of labels, each with a field to its right.<br>
+ * <br>
+ * The solver keeps a dense matrix with four rows per component, so 5,000 components need several gigabytes of heap;
+ * run that size explicitly with <code>-p components=5000</code> and a suitable <code>-Xmx</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SolveBenchmark {
+
+  /**
+   * The number of components in the layout.
+   */
+  @Param( { "10", "100", "500", "1000" })
+  public int components;
+
+  /**
+   * Builds the matrix to be solved.
+   */
+  @Setup
+  public void setUp() {
+    LayoutEngine engine = new ConstraintGraphGenerator(this.components, 2, 1, 0).createEngine();
+    this.snapshot = engine.snapshot(800, 600);
+  }
+
+  /**
+   * Solves the matrix.
+   */
+  @Benchmark
+  public double[] solve() {
+    return this.snapshot.solve();
+  }
+
+  /**
+   * The snapshot of the layout, which holds its matrix.
+   */
+  private LayoutEngine.Snapshot snapshot;
+}